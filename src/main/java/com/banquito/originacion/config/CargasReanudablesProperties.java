@@ -0,0 +1,30 @@
+package com.banquito.originacion.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cargas reanudables de documentos: dónde se acumulan los tramos recibidos, cuánto tiempo se
+ * conserva una carga sin actividad y el tamaño máximo por nombre de tipo de documento. Los tipos sin
+ * límite propio usan tamanio-maximo-por-defecto.
+ */
+@Component
+@ConfigurationProperties("originacion.documentos.cargas-reanudables")
+@Getter
+@Setter
+public class CargasReanudablesProperties {
+
+    private String directorio = "cargas";
+
+    private long expiracionMinutos = 1440;
+
+    private long tamanioMaximoPorDefecto = 10 * 1024 * 1024;
+
+    /** Tamaño máximo en bytes por nombre de TipoDocumento. */
+    private Map<String, Long> tamanioMaximo = new HashMap<>();
+}
@@ -0,0 +1,39 @@
+package com.banquito.originacion.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuración de la carga de documentos firmados: cuántos archivos se escriben a la vez y las
+ * reglas que asignan el tipo de documento a partir del nombre del archivo. Las reglas se evalúan en
+ * orden y gana la primera cuyo patrón coincide con el nombre completo.
+ */
+@Component
+@ConfigurationProperties("originacion.documentos.firmados")
+@Getter
+@Setter
+public class ClasificacionDocumentosProperties {
+
+    private int concurrencia = 8;
+
+    /** Nombre del tipo de documento si ninguna regla coincide; vacío para rechazar el archivo. */
+    private String tipoPorDefecto;
+
+    private List<Regla> reglas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Regla {
+
+        /** Expresión regular sobre el nombre original del archivo. */
+        private String patron;
+
+        /** Nombre del TipoDocumento asignado. */
+        private String tipo;
+    }
+}
@@ -0,0 +1,35 @@
+package com.banquito.originacion.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compresión transparente de los documentos guardados por contenido (los cifrados no se comprimen).
+ * El nivel de Deflate se elige por nombre de tipo de documento; 0 guarda el tipo sin comprimir. Antes
+ * de comprimir se prueba con los primeros muestra-bytes y si no bajan de ratio-maximo el documento se
+ * guarda tal cual.
+ */
+@Component
+@ConfigurationProperties("originacion.documentos.compresion")
+@Getter
+@Setter
+public class CompresionDocumentosProperties {
+
+    private boolean habilitada;
+
+    /** Nivel de Deflate (1-9) para los tipos sin nivel propio; 0 para no comprimirlos. */
+    private int nivelPorDefecto;
+
+    /** Nivel por nombre de TipoDocumento. */
+    private Map<String, Integer> niveles = new HashMap<>();
+
+    private int muestraBytes = 256 * 1024;
+
+    /** Tamaño comprimido / original de la muestra por encima del cual no se comprime. */
+    private double ratioMaximo = 0.9;
+}
@@ -0,0 +1,81 @@
+package com.banquito.originacion.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Enruta las transacciones {@code @Transactional(readOnly = true)} a un pool de réplica y el resto
+ * a la primaria. Solo se activa con originacion.datasource.replica.enabled=true; en otro caso se
+ * usa el DataSource autoconfigurado de spring.datasource.
+ *
+ * El proxy perezoso no obtiene la conexión física hasta la primera sentencia, cuando ya se sabe si
+ * la transacción es de solo lectura.
+ */
+@Configuration
+@ConditionalOnProperty(name = "originacion.datasource.replica.enabled", havingValue = "true")
+public class DataSourceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primariaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primariaDataSource(
+            @Qualifier("primariaDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("originacion-primaria");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("originacion.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("originacion.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(
+            @Qualifier("replicaDataSourceProperties") DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("originacion-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public MonitorRetrasoReplica monitorRetrasoReplica(
+            @Qualifier("replicaDataSource") DataSource replica,
+            @Value("${originacion.datasource.replica.max-retraso-ms:5000}") long maxRetrasoMs) {
+        MonitorRetrasoReplica monitor = new MonitorRetrasoReplica(replica, maxRetrasoMs);
+        monitor.verificar();
+        return monitor;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primariaDataSource") DataSource primaria,
+                                 @Qualifier("replicaDataSource") DataSource replica,
+                                 MonitorRetrasoReplica monitor) {
+        ReplicaConRespaldoDataSource lectura = new ReplicaConRespaldoDataSource(replica, primaria, monitor);
+        lectura.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaria);
+        proxy.setReadOnlyDataSource(lectura);
+        return proxy;
+    }
+}
@@ -0,0 +1,61 @@
+package com.banquito.originacion.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Mide periódicamente el retraso de replicación de la réplica PostgreSQL y decide si las
+ * transacciones de solo lectura pueden enviarse a ella.
+ */
+public class MonitorRetrasoReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorRetrasoReplica.class);
+
+    // Si la réplica ya aplicó todo lo recibido el retraso es 0 aunque la primaria esté inactiva
+    private static final String CONSULTA_RETRASO =
+            "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+                    + "ELSE COALESCE(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000, 0) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxRetrasoMs;
+
+    private volatile boolean replicaDisponible = false;
+    private volatile long ultimoRetrasoMs = -1;
+
+    public MonitorRetrasoReplica(DataSource replica, long maxRetrasoMs) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.maxRetrasoMs = maxRetrasoMs;
+    }
+
+    @Scheduled(fixedDelayString = "${originacion.datasource.replica.intervalo-verificacion-ms:5000}")
+    public void verificar() {
+        try {
+            Double retraso = replicaJdbcTemplate.queryForObject(CONSULTA_RETRASO, Double.class);
+            ultimoRetrasoMs = retraso != null ? retraso.longValue() : 0L;
+            boolean disponible = ultimoRetrasoMs <= maxRetrasoMs;
+            if (disponible != replicaDisponible) {
+                log.info("Réplica {} para lecturas (retraso {} ms, máximo {} ms)",
+                        disponible ? "habilitada" : "deshabilitada", ultimoRetrasoMs, maxRetrasoMs);
+            }
+            replicaDisponible = disponible;
+        } catch (Exception e) {
+            if (replicaDisponible) {
+                log.warn("Réplica no disponible, las lecturas se envían a la primaria: {}", e.getMessage());
+            }
+            replicaDisponible = false;
+            ultimoRetrasoMs = -1;
+        }
+    }
+
+    public boolean isReplicaDisponible() {
+        return replicaDisponible;
+    }
+
+    public long getUltimoRetrasoMs() {
+        return ultimoRetrasoMs;
+    }
+}
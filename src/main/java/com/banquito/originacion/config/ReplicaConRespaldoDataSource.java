@@ -0,0 +1,41 @@
+package com.banquito.originacion.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * DataSource de lectura: usa la réplica mientras el monitor la considere al día y,
+ * si está caída o su retraso supera el máximo configurado, recurre a la primaria.
+ */
+public class ReplicaConRespaldoDataSource extends AbstractRoutingDataSource {
+
+    private static final String REPLICA = "REPLICA";
+    private static final String PRIMARIA = "PRIMARIA";
+
+    private final DataSource replica;
+    private final DataSource primaria;
+    private final MonitorRetrasoReplica monitor;
+
+    public ReplicaConRespaldoDataSource(DataSource replica, DataSource primaria, MonitorRetrasoReplica monitor) {
+        this.replica = replica;
+        this.primaria = primaria;
+        this.monitor = monitor;
+    }
+
+    /**
+     * Los destinos se fijan aquí y no en el constructor, que no debe invocar métodos sobrescribibles.
+     */
+    @Override
+    public void afterPropertiesSet() {
+        setTargetDataSources(Map.of(REPLICA, replica, PRIMARIA, primaria));
+        setDefaultTargetDataSource(primaria);
+        super.afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return monitor.isReplicaDisponible() ? REPLICA : PRIMARIA;
+    }
+}
@@ -1,7 +1,9 @@
 package com.banquito.originacion.controller;
 
 import com.banquito.originacion.controller.dto.AuditoriaDTO;
+import com.banquito.originacion.controller.dto.AuditoriaResumenDiarioDTO;
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import com.banquito.originacion.exception.ResourceNotFoundException;
 import com.banquito.originacion.service.AuditoriaService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -11,6 +13,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -26,10 +29,14 @@ public class AuditoriaController {
     }
 
     @GetMapping
-    @Operation(summary = "Obtener todas las auditorías")
-    public ResponseEntity<List<AuditoriaDTO>> getAll() {
-        log.info("Obteniendo todas las auditorías");
-        return ResponseEntity.ok(auditoriaService.findAll());
+    @Operation(summary = "Obtener auditorías paginadas, por defecto las de los últimos días")
+    public ResponseEntity<List<AuditoriaDTO>> getAll(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "50") int tamanio) {
+        log.info("Obteniendo auditorías, página {} de tamaño {}", pagina, tamanio);
+        return ResponseEntity.ok(auditoriaService.findAll(desde, hasta, Math.max(pagina, 0), Math.min(Math.max(tamanio, 1), 500)));
     }
 
     @GetMapping("/{id}")
@@ -48,9 +55,12 @@ public class AuditoriaController {
 
     @GetMapping("/accion/{accion}")
     @Operation(summary = "Obtener auditorías por acción")
-    public ResponseEntity<List<AuditoriaDTO>> getByAccion(@PathVariable AccionAuditoriaEnum accion) {
+    public ResponseEntity<List<AuditoriaDTO>> getByAccion(
+            @PathVariable AccionAuditoriaEnum accion,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
         log.info("Obteniendo auditorías por acción: {}", accion);
-        return ResponseEntity.ok(auditoriaService.findByAccion(accion));
+        return ResponseEntity.ok(auditoriaService.findByAccion(accion, desde, hasta));
     }
 
     @GetMapping("/fechas")
@@ -62,6 +72,35 @@ public class AuditoriaController {
         return ResponseEntity.ok(auditoriaService.findByFechaHoraBetween(desde, hasta));
     }
 
+    @GetMapping("/entidades/{tipoEntidad}/{idEntidad}")
+    @Operation(summary = "Obtener el historial de auditorías de una entidad")
+    public ResponseEntity<List<AuditoriaDTO>> getByEntidad(@PathVariable TipoEntidadAuditoriaEnum tipoEntidad,
+                                                           @PathVariable Integer idEntidad) {
+        log.info("Obteniendo auditorías de {} con id: {}", tipoEntidad, idEntidad);
+        return ResponseEntity.ok(auditoriaService.findByEntidad(tipoEntidad, idEntidad));
+    }
+
+    @GetMapping("/actores/{actor}")
+    @Operation(summary = "Obtener auditorías de un usuario")
+    public ResponseEntity<List<AuditoriaDTO>> getByActor(
+            @PathVariable String actor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "50") int tamanio) {
+        log.info("Obteniendo auditorías del actor: {}", actor);
+        return ResponseEntity.ok(auditoriaService.findByActor(actor, desde, hasta, Math.max(pagina, 0), Math.min(Math.max(tamanio, 1), 500)));
+    }
+
+    @GetMapping("/resumen-diario")
+    @Operation(summary = "Obtener los conteos diarios de auditorías compactadas")
+    public ResponseEntity<List<AuditoriaResumenDiarioDTO>> getResumenDiario(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        log.info("Obteniendo resumen diario de auditorías entre {} y {}", desde, hasta);
+        return ResponseEntity.ok(auditoriaService.findResumenDiario(desde, hasta));
+    }
+
     @PostMapping
     @Operation(summary = "Crear una nueva auditoría")
     public ResponseEntity<AuditoriaDTO> create(@Valid @RequestBody AuditoriaDTO dto) {
@@ -1,6 +1,8 @@
 package com.banquito.originacion.controller;
 
 import com.banquito.originacion.controller.dto.ClienteProspectoDTO;
+import com.banquito.originacion.controller.dto.PaginaBusquedaClientesDTO;
+import com.banquito.originacion.enums.CampoBusquedaClienteEnum;
 import com.banquito.originacion.service.ClienteProspectoService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -62,6 +64,15 @@ public class ClienteProspectoController {
         return ResponseEntity.ok(clienteService.validarCapacidadFinanciera(cedula, cuotaProyectada));
     }
 
+    @GetMapping("/busqueda")
+    public ResponseEntity<PaginaBusquedaClientesDTO> buscarClientes(@RequestParam String texto,
+                                                                    @RequestParam(defaultValue = "NOMBRE") CampoBusquedaClienteEnum campo,
+                                                                    @RequestParam(defaultValue = "0") Integer pagina,
+                                                                    @RequestParam(defaultValue = "20") Integer tamanio) {
+        log.info("Buscando clientes por {}: {}", campo, texto);
+        return ResponseEntity.ok(clienteService.buscarClientes(texto, campo, pagina, Math.min(tamanio, 100)));
+    }
+
     @GetMapping
     public ResponseEntity<List<ClienteProspectoDTO>> obtenerTodos() {
         log.info("Obteniendo todos los clientes prospecto");
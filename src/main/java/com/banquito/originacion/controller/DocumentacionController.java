@@ -1,13 +1,35 @@
 package com.banquito.originacion.controller;
 
+import com.banquito.originacion.controller.dto.AccesoDocumentoDTO;
+import com.banquito.originacion.controller.dto.CargaReanudableDTO;
 import com.banquito.originacion.controller.dto.DocumentoAdjuntoDTO;
+import com.banquito.originacion.controller.dto.EstadoMigracionDocumentosDTO;
+import com.banquito.originacion.controller.dto.EstadoReconciliacionDocumentosDTO;
+import com.banquito.originacion.controller.dto.PaginaCompletitudDTO;
+import com.banquito.originacion.controller.dto.ResultadoCargaDocumentoDTO;
 import com.banquito.originacion.controller.dto.TipoDocumentoDTO;
 import com.banquito.originacion.enums.CategoriaDocumentoEnum;
+import com.banquito.originacion.enums.EstadoSolicitudEnum;
+import com.banquito.originacion.service.CargasReanudablesDocumentos;
 import com.banquito.originacion.service.DocumentacionService;
+import com.banquito.originacion.service.DocumentacionService.ArchivoDescarga;
+import com.banquito.originacion.service.DocumentacionService.ExpedienteDescarga;
+import com.banquito.originacion.service.MigradorRutasDocumentos;
+import com.banquito.originacion.service.ReconciliadorDocumentos;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -15,10 +37,22 @@ import java.util.Map;
 @RestController
 @RequestMapping("/v1")
 public class DocumentacionController {
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+    private static final String UPLOAD_LENGTH = "Upload-Length";
+
     private final DocumentacionService documentacionService;
+    private final CargasReanudablesDocumentos cargasReanudables;
+    private final MigradorRutasDocumentos migradorRutas;
+    private final ReconciliadorDocumentos reconciliador;
 
-    public DocumentacionController(DocumentacionService documentacionService) {
+    public DocumentacionController(DocumentacionService documentacionService,
+                                   CargasReanudablesDocumentos cargasReanudables,
+                                   MigradorRutasDocumentos migradorRutas,
+                                   ReconciliadorDocumentos reconciliador) {
         this.documentacionService = documentacionService;
+        this.cargasReanudables = cargasReanudables;
+        this.migradorRutas = migradorRutas;
+        this.reconciliador = reconciliador;
     }
 
     @PostMapping("/documentos")
@@ -29,12 +63,80 @@ public class DocumentacionController {
         return ResponseEntity.ok(documentacionService.cargarDocumento(idSolicitud, archivo, idTipoDocumento));
     }
 
+    @PostMapping(value = "/documentos/contenido", consumes = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<DocumentoAdjuntoDTO> cargarDocumentoContenido(@RequestParam Integer idSolicitud,
+                                                                        @RequestParam Integer idTipoDocumento,
+                                                                        HttpServletRequest request) throws IOException {
+        log.info("Cargando contenido de documento para solicitud: {}", idSolicitud);
+        return ResponseEntity.ok(documentacionService.cargarDocumentoContenido(idSolicitud, idTipoDocumento,
+                request.getContentLengthLong(), request.getInputStream()));
+    }
+
+    @PostMapping("/documentos/cargas")
+    public ResponseEntity<CargaReanudableDTO> crearCargaReanudable(@RequestParam Integer idSolicitud,
+                                                                   @RequestParam Integer idTipoDocumento,
+                                                                   @RequestParam long tamanioBytes,
+                                                                   @RequestParam String hashSha256) {
+        log.info("Creando carga reanudable de {} bytes para solicitud: {}", tamanioBytes, idSolicitud);
+        CargaReanudableDTO carga = cargasReanudables.crear(idSolicitud, idTipoDocumento, tamanioBytes, hashSha256);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(UPLOAD_OFFSET, String.valueOf(carga.getBytesRecibidos()))
+                .header(UPLOAD_LENGTH, String.valueOf(carga.getTamanioBytes()))
+                .body(carga);
+    }
+
+    @RequestMapping(value = "/documentos/cargas/{idCarga}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> consultarDesplazamientoCarga(@PathVariable Integer idCarga) {
+        CargaReanudableDTO carga = cargasReanudables.consultar(idCarga);
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, String.valueOf(carga.getBytesRecibidos()))
+                .header(UPLOAD_LENGTH, String.valueOf(carga.getTamanioBytes()))
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .build();
+    }
+
+    @GetMapping("/documentos/cargas/{idCarga}")
+    public ResponseEntity<CargaReanudableDTO> obtenerCargaReanudable(@PathVariable Integer idCarga) {
+        return ResponseEntity.ok(cargasReanudables.consultar(idCarga));
+    }
+
+    @PatchMapping(value = "/documentos/cargas/{idCarga}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<CargaReanudableDTO> recibirTramoCarga(@PathVariable Integer idCarga,
+                                                                @RequestHeader(UPLOAD_OFFSET) long desplazamiento,
+                                                                HttpServletRequest request) throws IOException {
+        CargasReanudablesDocumentos.ResultadoTramo resultado =
+                cargasReanudables.recibirTramo(idCarga, desplazamiento, request.getInputStream());
+        CargaReanudableDTO carga = resultado.carga();
+        // Desplazamiento distinto o tramo concurrente: el cliente debe continuar desde Upload-Offset
+        return ResponseEntity.status(resultado.aceptado() ? HttpStatus.OK : HttpStatus.CONFLICT)
+                .header(UPLOAD_OFFSET, String.valueOf(carga.getBytesRecibidos()))
+                .body(carga);
+    }
+
+    @PostMapping("/documentos/cargas/{idCarga}/finalizar")
+    public ResponseEntity<DocumentoAdjuntoDTO> finalizarCargaReanudable(@PathVariable Integer idCarga) {
+        log.info("Finalizando carga reanudable: {}", idCarga);
+        return ResponseEntity.ok(cargasReanudables.finalizar(idCarga));
+    }
+
+    @DeleteMapping("/documentos/cargas/{idCarga}")
+    public ResponseEntity<Void> cancelarCargaReanudable(@PathVariable Integer idCarga) {
+        log.info("Cancelando carga reanudable: {}", idCarga);
+        cargasReanudables.cancelar(idCarga);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/documentos/firmados")
-    public ResponseEntity<Void> registrarDocumentosFirmados(@RequestParam Integer idSolicitud,
-                                                            @RequestParam List<MultipartFile> documentos) {
+    public ResponseEntity<List<ResultadoCargaDocumentoDTO>> registrarDocumentosFirmados(@RequestParam Integer idSolicitud,
+                                                                                         @RequestParam List<MultipartFile> documentos) {
         log.info("Registrando documentos firmados para solicitud: {}", idSolicitud);
-        documentacionService.registrarDocumentosFirmados(idSolicitud, documentos);
-        return ResponseEntity.ok().build();
+        return ResponseEntity.ok(documentacionService.registrarDocumentosFirmados(idSolicitud, documentos));
+    }
+
+    @PostMapping("/documentos/solicitud/{idSolicitud}/contrato")
+    public ResponseEntity<List<ResultadoCargaDocumentoDTO>> generarContrato(@PathVariable Integer idSolicitud) {
+        log.info("Generando contrato y pagarés para solicitud: {}", idSolicitud);
+        return ResponseEntity.ok(documentacionService.generarContrato(idSolicitud));
     }
 
     @GetMapping("/documentos/solicitud/{idSolicitud}")
@@ -43,12 +145,91 @@ public class DocumentacionController {
         return ResponseEntity.ok(documentacionService.listarDocumentosPorSolicitud(idSolicitud));
     }
 
+    @GetMapping(value = "/documentos/solicitud/{idSolicitud}/expediente", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> descargarExpediente(@PathVariable Integer idSolicitud,
+                                                                     @RequestParam String usuario) {
+        log.info("Descargando expediente de la solicitud: {}", idSolicitud);
+        ExpedienteDescarga expediente = documentacionService.prepararExpediente(idSolicitud, usuario);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(expediente.nombreArchivo(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .contentLength(expediente.tamanioBytes())
+                .body(salida -> documentacionService.transferirExpediente(expediente, salida));
+    }
+
     @GetMapping("/documentos/{idDocumento}")
     public ResponseEntity<DocumentoAdjuntoDTO> obtenerDocumento(@PathVariable Integer idDocumento) {
         log.info("Obteniendo documento: {}", idDocumento);
         return ResponseEntity.ok(documentacionService.obtenerDocumento(idDocumento));
     }
 
+    @GetMapping(value = "/documentos/{idDocumento}/contenido", produces = MediaType.APPLICATION_PDF_VALUE)
+    public ResponseEntity<StreamingResponseBody> descargarContenido(
+            @PathVariable Integer idDocumento,
+            @RequestParam String usuario,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String rango,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange) {
+        log.info("Descargando contenido del documento: {}", idDocumento);
+        ArchivoDescarga archivo = documentacionService.prepararDescarga(idDocumento, usuario);
+        long tamanio = archivo.tamanioBytes();
+
+        if (coincideEtag(ifNoneMatch, archivo.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(archivo.etag()).build();
+        }
+
+        // Con If-Range distinto al ETag actual el cliente tiene una versión vieja: se envía completo
+        boolean aplicarRango = rango != null && (ifRange == null || coincideEtagFuerte(ifRange, archivo.etag()));
+        if (aplicarRango) {
+            List<HttpRange> rangos;
+            try {
+                rangos = HttpRange.parseRanges(rango);
+            } catch (IllegalArgumentException e) {
+                rangos = List.of();
+            }
+            // Varios rangos requerirían multipart/byteranges; se responde con el archivo completo
+            if (rangos.size() == 1) {
+                HttpRange unico = rangos.get(0);
+                if (tamanio == 0 || unico.getRangeStart(tamanio) >= tamanio) {
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                            .header(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanio)
+                            .build();
+                }
+                long inicio = unico.getRangeStart(tamanio);
+                long fin = unico.getRangeEnd(tamanio);
+                long longitud = fin - inicio + 1;
+                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                        .eTag(archivo.etag())
+                        .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamanio)
+                        .contentType(MediaType.APPLICATION_PDF)
+                        .contentLength(longitud)
+                        .body(salida -> documentacionService.transferirContenido(archivo, inicio, longitud, salida));
+            }
+            if (rangos.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + tamanio)
+                        .build();
+            }
+        }
+
+        return ResponseEntity.ok()
+                .eTag(archivo.etag())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(MediaType.APPLICATION_PDF)
+                .contentLength(tamanio)
+                .body(salida -> documentacionService.transferirContenido(archivo, 0, tamanio, salida));
+    }
+
+    @GetMapping("/documentos/{idDocumento}/accesos")
+    public ResponseEntity<List<AccesoDocumentoDTO>> listarAccesos(@PathVariable Integer idDocumento) {
+        log.info("Listando accesos al documento: {}", idDocumento);
+        return ResponseEntity.ok(documentacionService.listarAccesos(idDocumento));
+    }
+
     @DeleteMapping("/documentos/{idDocumento}")
     public ResponseEntity<Void> eliminarDocumento(@PathVariable Integer idDocumento) {
         log.info("Eliminando documento: {}", idDocumento);
@@ -88,6 +269,48 @@ public class DocumentacionController {
         return ResponseEntity.ok(documentacionService.verificarCompletitudDocumental(idSolicitud));
     }
 
+    @GetMapping("/documentos/completitud")
+    public ResponseEntity<PaginaCompletitudDTO> verificarCompletitudLote(
+            @RequestParam(required = false) List<Integer> idsSolicitud,
+            @RequestParam(required = false) EstadoSolicitudEnum estado,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "100") int tamanio) {
+        log.info("Verificando completitud documental en lote, estado {}, página {} de tamaño {}", estado, pagina, tamanio);
+        return ResponseEntity.ok(documentacionService.verificarCompletitudLote(idsSolicitud, estado,
+                Math.max(pagina, 0), Math.min(Math.max(tamanio, 1), 500)));
+    }
+
+    @PostMapping("/documentos/migracion-rutas")
+    public ResponseEntity<EstadoMigracionDocumentosDTO> iniciarMigracionRutas() {
+        boolean iniciada = migradorRutas.iniciar();
+        log.info("Migración de documentos al esquema fragmentado {}", iniciada ? "iniciada" : "ya estaba en curso");
+        return ResponseEntity.ok(migradorRutas.estado());
+    }
+
+    @GetMapping("/documentos/migracion-rutas")
+    public ResponseEntity<EstadoMigracionDocumentosDTO> obtenerEstadoMigracionRutas() {
+        return ResponseEntity.ok(migradorRutas.estado());
+    }
+
+    @DeleteMapping("/documentos/migracion-rutas")
+    public ResponseEntity<Void> detenerMigracionRutas() {
+        log.info("Deteniendo la migración de documentos al esquema fragmentado");
+        migradorRutas.detener();
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/documentos/reconciliacion")
+    public ResponseEntity<EstadoReconciliacionDocumentosDTO> reconciliarDocumentos() {
+        log.info("Ejecutando un tramo de la reconciliación de documentos");
+        reconciliador.reconciliar();
+        return ResponseEntity.ok(reconciliador.estado());
+    }
+
+    @GetMapping("/documentos/reconciliacion")
+    public ResponseEntity<EstadoReconciliacionDocumentosDTO> obtenerEstadoReconciliacion() {
+        return ResponseEntity.ok(reconciliador.estado());
+    }
+
     @GetMapping("/tipos-documentos/categoria/{categoria}")
     public ResponseEntity<List<TipoDocumentoDTO>> obtenerTiposPorCategoria(@PathVariable CategoriaDocumentoEnum categoria) {
         log.info("Obteniendo tipos de documentos por categoría: {}", categoria);
@@ -103,4 +326,21 @@ public class DocumentacionController {
     public ResponseEntity<List<DocumentoAdjuntoDTO>> listarTodosDocumentos() {
         return ResponseEntity.ok(documentacionService.listarTodosDocumentos());
     }
-} 
\ No newline at end of file
+
+    private boolean coincideEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String etagDebil = etag.startsWith("W/") ? etag.substring(2) : etag;
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(valor -> valor.startsWith("W/") ? valor.substring(2) : valor)
+                .anyMatch(valor -> valor.equals("*") || valor.equals(etagDebil));
+    }
+
+    // If-Range exige comparación fuerte: un ETag débil no garantiza que los bytes sean los mismos
+    private boolean coincideEtagFuerte(String ifRange, String etag) {
+        String valor = ifRange.trim();
+        return !valor.startsWith("W/") && !etag.startsWith("W/") && valor.equals(etag);
+    }
+}
@@ -0,0 +1,45 @@
+package com.banquito.originacion.controller;
+
+import com.banquito.originacion.controller.dto.ContadorPipelineDTO;
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
+import com.banquito.originacion.service.PipelineSolicitudesService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/v1/pipeline-solicitudes")
+public class PipelineSolicitudController {
+    private final PipelineSolicitudesService pipelineService;
+
+    public PipelineSolicitudController(PipelineSolicitudesService pipelineService) {
+        this.pipelineService = pipelineService;
+    }
+
+    @GetMapping("/vendedores")
+    public ResponseEntity<List<ContadorPipelineDTO>> contadoresPorVendedor() {
+        log.info("Obteniendo contadores del pipeline por vendedor");
+        return ResponseEntity.ok(pipelineService.obtenerContadores(AgrupacionSolicitudEnum.VENDEDOR));
+    }
+
+    @GetMapping("/vendedores/{idVendedor}")
+    public ResponseEntity<List<ContadorPipelineDTO>> contadoresDeVendedor(@PathVariable Integer idVendedor) {
+        log.info("Obteniendo contadores del pipeline del vendedor: {}", idVendedor);
+        return ResponseEntity.ok(pipelineService.obtenerContadores(AgrupacionSolicitudEnum.VENDEDOR, idVendedor));
+    }
+
+    @GetMapping("/concesionarios")
+    public ResponseEntity<List<ContadorPipelineDTO>> contadoresPorConcesionario() {
+        log.info("Obteniendo contadores del pipeline por concesionario");
+        return ResponseEntity.ok(pipelineService.obtenerContadores(AgrupacionSolicitudEnum.CONCESIONARIO));
+    }
+
+    @GetMapping("/concesionarios/{idConcesionario}")
+    public ResponseEntity<List<ContadorPipelineDTO>> contadoresDeConcesionario(@PathVariable Integer idConcesionario) {
+        log.info("Obteniendo contadores del pipeline del concesionario: {}", idConcesionario);
+        return ResponseEntity.ok(pipelineService.obtenerContadores(AgrupacionSolicitudEnum.CONCESIONARIO, idConcesionario));
+    }
+}
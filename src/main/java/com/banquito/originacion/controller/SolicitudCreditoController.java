@@ -1,12 +1,18 @@
 package com.banquito.originacion.controller;
 
+import com.banquito.originacion.controller.dto.AgregadoSolicitudDTO;
 import com.banquito.originacion.controller.dto.SolicitudCreditoDTO;
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
 import com.banquito.originacion.enums.EstadoSolicitudEnum;
 import com.banquito.originacion.service.SolicitudCreditoService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -63,9 +69,15 @@ public class SolicitudCreditoController {
     }
 
     @GetMapping("/numero/{numeroSolicitud}")
-    public ResponseEntity<SolicitudCreditoDTO> buscarPorNumero(@PathVariable String numeroSolicitud) {
+    public ResponseEntity<SolicitudCreditoDTO> buscarPorNumero(@PathVariable String numeroSolicitud,
+                                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("Buscando solicitud por número: {}", numeroSolicitud);
-        return ResponseEntity.ok(solicitudService.buscarPorNumero(numeroSolicitud));
+        SolicitudCreditoDTO solicitud = solicitudService.buscarPorNumero(numeroSolicitud);
+        String etag = "\"" + solicitud.getId() + "-" + solicitud.getVersion() + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(solicitud);
     }
 
     @GetMapping("/cliente/{cedula}")
@@ -80,6 +92,15 @@ public class SolicitudCreditoController {
         return ResponseEntity.ok(solicitudService.listarPorEstado(estado));
     }
 
+    @GetMapping("/agregados")
+    public ResponseEntity<List<AgregadoSolicitudDTO>> obtenerAgregados(
+            @RequestParam AgrupacionSolicitudEnum agrupacion,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime hasta) {
+        log.info("Obteniendo agregados de solicitudes por {}", agrupacion);
+        return ResponseEntity.ok(solicitudService.obtenerAgregados(agrupacion, desde, hasta));
+    }
+
     @GetMapping
     public ResponseEntity<List<SolicitudCreditoDTO>> listarTodas() {
         log.info("Listando todas las solicitudes de crédito");
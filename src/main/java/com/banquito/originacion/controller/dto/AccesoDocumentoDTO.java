@@ -0,0 +1,28 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con los accesos agregados de un usuario a un documento dentro de una ventana de tiempo")
+public class AccesoDocumentoDTO {
+
+    @Schema(description = "Identificador del documento", example = "10")
+    private Integer idDocumento;
+
+    @Schema(description = "Usuario que accedió al documento", example = "revisor01")
+    private String usuario;
+
+    @Schema(description = "Número de accesos en la ventana", example = "12")
+    private Long cantidad;
+
+    @Schema(description = "Fecha y hora del primer acceso de la ventana", example = "2024-01-15T10:30:00")
+    private LocalDateTime primerAcceso;
+
+    @Schema(description = "Fecha y hora del último acceso de la ventana", example = "2024-01-15T10:31:45")
+    private LocalDateTime ultimoAcceso;
+}
@@ -0,0 +1,29 @@
+package com.banquito.originacion.controller.dto;
+
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con los totales de solicitudes de crédito agrupados por una dimensión")
+public class AgregadoSolicitudDTO {
+
+    @Schema(description = "Dimensión por la que se agruparon las solicitudes", example = "ESTADO")
+    private AgrupacionSolicitudEnum agrupacion;
+
+    @Schema(description = "Valor de la dimensión (estado, id de vendedor, id de concesionario o día)", example = "APROBADA")
+    private String clave;
+
+    @Schema(description = "Número de solicitudes del grupo", example = "125")
+    private Long cantidad;
+
+    @Schema(description = "Suma del monto solicitado del grupo", example = "2500000.00")
+    private BigDecimal totalMontoSolicitado;
+
+    @Schema(description = "Suma del total a pagar del grupo", example = "3100000.00")
+    private BigDecimal totalPagar;
+}
@@ -1,6 +1,7 @@
 package com.banquito.originacion.controller.dto;
 
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -30,4 +31,18 @@ public class AuditoriaDTO {
     @NotNull(message = "La fecha y hora son requeridas")
     @Schema(description = "Fecha y hora de la acción auditada", example = "2024-01-15T10:30:00")
     private LocalDateTime fechaHora;
-} 
\ No newline at end of file
+
+    @Schema(description = "Tipo de entidad auditada", example = "VEHICULO")
+    private TipoEntidadAuditoriaEnum tipoEntidad;
+
+    @Schema(description = "Identificador de la entidad auditada", example = "15")
+    private Integer idEntidad;
+
+    @Size(max = 50, message = "El actor no puede exceder 50 caracteres")
+    @Schema(description = "Usuario que realizó la acción", example = "jperez", maxLength = 50)
+    private String actor;
+
+    @Size(max = 500, message = "Los cambios no pueden exceder 500 caracteres")
+    @Schema(description = "Resumen compacto de los cambios (campo=valor;...)", example = "estado=BORRADOR>EN_REVISION", maxLength = 500)
+    private String cambios;
+}
@@ -0,0 +1,26 @@
+package com.banquito.originacion.controller.dto;
+
+import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con el número de auditorías de un día por tabla y acción, tras compactar el detalle")
+public class AuditoriaResumenDiarioDTO {
+
+    @Schema(description = "Día de las auditorías", example = "2024-01-15")
+    private LocalDate fecha;
+
+    @Schema(description = "Nombre de la tabla auditada", example = "solicitudes_creditos")
+    private String tabla;
+
+    @Schema(description = "Acción auditada", example = "UPDATE")
+    private AccionAuditoriaEnum accion;
+
+    @Schema(description = "Número de auditorías del día", example = "128")
+    private Long cantidad;
+}
@@ -0,0 +1,35 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO de una carga reanudable de documento: el contenido se envía por tramos y se registra al finalizar")
+public class CargaReanudableDTO {
+
+    @Schema(description = "Identificador de la carga", example = "42")
+    private Integer idCarga;
+
+    @Schema(description = "Solicitud a la que se asociará el documento", example = "1001")
+    private Integer idSolicitud;
+
+    @Schema(description = "Tipo del documento", example = "3")
+    private Integer idTipoDocumento;
+
+    @Schema(description = "Tamaño total declarado del documento en bytes", example = "10485760")
+    private Long tamanioBytes;
+
+    @Schema(description = "Bytes recibidos y persistidos: desplazamiento desde el que debe enviarse el siguiente tramo",
+            example = "4194304")
+    private Long bytesRecibidos;
+
+    @Schema(description = "SHA-256 declarado del documento completo, en hexadecimal")
+    private String hashSha256;
+
+    @Schema(description = "Momento a partir del cual la carga se descarta si no recibe más tramos")
+    private LocalDateTime fechaExpiracion;
+}
@@ -0,0 +1,31 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con la completitud documental de una solicitud dentro de un lote")
+public class CompletitudSolicitudDTO {
+
+    @Schema(description = "Identificador de la solicitud", example = "1")
+    private Integer idSolicitud;
+
+    @Schema(description = "Número de tipos de documento obligatorios", example = "5")
+    private Integer totalDocumentosRequeridos;
+
+    @Schema(description = "Número de documentos cargados en la solicitud", example = "4")
+    private Long documentosCargados;
+
+    @Schema(description = "Tipos de documento obligatorios que aún no tienen ningún documento cargado")
+    private List<Integer> idsTiposFaltantes;
+
+    @Schema(description = "Porcentaje de tipos obligatorios cargados", example = "80.0")
+    private Double porcentajeCompletitud;
+
+    @Schema(description = "Si están cargados todos los tipos obligatorios", example = "false")
+    private Boolean completitudTotal;
+}
@@ -0,0 +1,25 @@
+package com.banquito.originacion.controller.dto;
+
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
+import com.banquito.originacion.enums.EstadoSolicitudEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con el número de solicitudes en un estado para un vendedor o concesionario")
+public class ContadorPipelineDTO {
+
+    @Schema(description = "Dimensión del contador (VENDEDOR o CONCESIONARIO)", example = "VENDEDOR")
+    private AgrupacionSolicitudEnum dimension;
+
+    @Schema(description = "Identificador del vendedor o concesionario", example = "1")
+    private Integer idReferencia;
+
+    @Schema(description = "Estado de las solicitudes contadas", example = "EN_REVISION")
+    private EstadoSolicitudEnum estado;
+
+    @Schema(description = "Número de solicitudes en el estado", example = "42")
+    private Long cantidad;
+}
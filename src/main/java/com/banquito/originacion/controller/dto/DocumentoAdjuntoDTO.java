@@ -34,6 +34,16 @@ public class DocumentoAdjuntoDTO {
     @Schema(description = "Fecha y hora cuando se cargó el documento", example = "2024-01-15T14:30:00")
     private LocalDateTime fechaCargado;
 
+    @Size(min = 64, max = 64, message = "El hash SHA-256 debe tener 64 caracteres hexadecimales")
+    @Schema(description = "Hash SHA-256 del contenido, en hexadecimal", example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08", maxLength = 64)
+    private String hashSha256;
+
+    @Schema(description = "Tamaño del archivo en bytes", example = "1048576")
+    private Long tamanioBytes;
+
+    @Schema(description = "Indica si el contenido está cifrado en reposo", example = "false", accessMode = Schema.AccessMode.READ_ONLY)
+    private Boolean cifrado;
+
     
     @Schema(description = "Versión para control de concurrencia", example = "1")
     private Long version;
@@ -0,0 +1,23 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con el avance de la migración de documentos al esquema de directorios fragmentado")
+public class EstadoMigracionDocumentosDTO {
+
+    @Schema(description = "Si la migración se está ejecutando en este nodo", example = "true")
+    private Boolean enCurso;
+
+    @Schema(description = "Último id de documento procesado (cursor persistido)", example = "15000")
+    private Integer ultimoIdProcesado;
+
+    @Schema(description = "Archivos reubicados por este nodo desde el arranque", example = "14820")
+    private Long archivosMovidos;
+
+    @Schema(description = "Documentos cuyo archivo no se encontró en disco", example = "3")
+    private Long archivosFaltantes;
+}
@@ -0,0 +1,35 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con el avance de la reconciliación entre el almacenamiento de documentos y documentos_adjuntos")
+public class EstadoReconciliacionDocumentosDTO {
+
+    @Schema(description = "Última clave de archivo revisada (cursor persistido); vacía al empezar una vuelta",
+            example = "documentos/blobs/3f/a2/3fa2c1.pdf")
+    private String ultimaClaveRevisada;
+
+    @Schema(description = "Último id de documento revisado (cursor persistido)", example = "15000")
+    private Integer ultimoIdRevisado;
+
+    @Schema(description = "Archivos revisados por este nodo desde el arranque", example = "120000")
+    private Long archivosRevisados;
+
+    @Schema(description = "Archivos huérfanos movidos a cuarentena por este nodo desde el arranque", example = "4")
+    private Long archivosEnCuarentena;
+
+    @Schema(description = "Filas de documentos revisadas por este nodo desde el arranque", example = "118000")
+    private Long filasRevisadas;
+
+    @Schema(description = "Filas cuyo archivo no existe, encontradas por este nodo desde el arranque", example = "2")
+    private Long filasSinArchivo;
+
+    @Schema(description = "Ids de los últimos documentos encontrados sin archivo", example = "[1042, 20511]")
+    private List<Integer> documentosSinArchivo;
+}
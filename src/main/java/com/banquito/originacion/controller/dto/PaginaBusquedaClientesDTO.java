@@ -0,0 +1,25 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con una página de resultados de búsqueda aproximada de clientes")
+public class PaginaBusquedaClientesDTO {
+
+    @Schema(description = "Resultados de la página ordenados por puntaje descendente")
+    private List<ResultadoBusquedaClienteDTO> resultados;
+
+    @Schema(description = "Número de página (empieza en 0)", example = "0")
+    private Integer pagina;
+
+    @Schema(description = "Tamaño de página", example = "20")
+    private Integer tamanio;
+
+    @Schema(description = "Total de coincidencias sobre el umbral", example = "57")
+    private Long totalResultados;
+}
@@ -0,0 +1,28 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con una página de la completitud documental de varias solicitudes")
+public class PaginaCompletitudDTO {
+
+    @Schema(description = "Completitud de cada solicitud de la página, ordenadas por id")
+    private List<CompletitudSolicitudDTO> resultados;
+
+    @Schema(description = "Número de página (empieza en 0)", example = "0")
+    private Integer pagina;
+
+    @Schema(description = "Tamaño de página", example = "100")
+    private Integer tamanio;
+
+    @Schema(description = "Total de solicitudes consultadas", example = "342")
+    private Long totalResultados;
+
+    @Schema(description = "Ids indicados que no corresponden a ninguna solicitud; no cuentan en el total")
+    private List<Integer> idsNoEncontrados;
+}
@@ -0,0 +1,17 @@
+package com.banquito.originacion.controller.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con un cliente encontrado por búsqueda aproximada y su puntaje")
+public class ResultadoBusquedaClienteDTO {
+
+    @Schema(description = "Cliente/prospecto encontrado")
+    private ClienteProspectoDTO cliente;
+
+    @Schema(description = "Puntaje de similitud entre 0 y 1 (mayor es mejor)", example = "0.83")
+    private Double puntaje;
+}
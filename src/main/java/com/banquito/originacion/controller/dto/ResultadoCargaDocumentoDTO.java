@@ -0,0 +1,30 @@
+package com.banquito.originacion.controller.dto;
+
+import com.banquito.originacion.enums.EstadoCargaDocumentoEnum;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@Schema(description = "DTO con el resultado de cargar un archivo dentro de un paquete de documentos")
+public class ResultadoCargaDocumentoDTO {
+
+    @Schema(description = "Nombre original del archivo", example = "contrato_firmado.pdf")
+    private String nombreArchivo;
+
+    @Schema(description = "Resultado de la carga del archivo", example = "REGISTRADO")
+    private EstadoCargaDocumentoEnum estado;
+
+    @Schema(description = "Identificador del documento registrado", example = "15")
+    private Integer idDocumento;
+
+    @Schema(description = "Tipo de documento asignado por las reglas de clasificación", example = "3")
+    private Integer idTipoDocumento;
+
+    @Schema(description = "Hash SHA-256 del contenido, en hexadecimal")
+    private String hashSha256;
+
+    @Schema(description = "Motivo del rechazo", example = "El archivo debe ser en formato PDF")
+    private String mensaje;
+}
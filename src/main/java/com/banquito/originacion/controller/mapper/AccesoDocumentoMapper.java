@@ -0,0 +1,24 @@
+package com.banquito.originacion.controller.mapper;
+
+import com.banquito.originacion.controller.dto.AccesoDocumentoDTO;
+import com.banquito.originacion.model.AccesoDocumento;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AccesoDocumentoMapper {
+
+    public AccesoDocumentoDTO toDTO(AccesoDocumento model) {
+        if (model == null) {
+            return null;
+        }
+
+        AccesoDocumentoDTO dto = new AccesoDocumentoDTO();
+        dto.setIdDocumento(model.getIdDocumento());
+        dto.setUsuario(model.getUsuario());
+        dto.setCantidad(model.getCantidad());
+        dto.setPrimerAcceso(model.getPrimerAcceso());
+        dto.setUltimoAcceso(model.getUltimoAcceso());
+
+        return dto;
+    }
+}
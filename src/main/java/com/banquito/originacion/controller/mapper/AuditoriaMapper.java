@@ -1,7 +1,9 @@
 package com.banquito.originacion.controller.mapper;
 
 import com.banquito.originacion.controller.dto.AuditoriaDTO;
+import com.banquito.originacion.controller.dto.AuditoriaResumenDiarioDTO;
 import com.banquito.originacion.model.Auditoria;
+import com.banquito.originacion.model.AuditoriaResumenDiario;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -17,6 +19,10 @@ public class AuditoriaMapper {
         dto.setTabla(model.getTabla());
         dto.setAccion(model.getAccion());
         dto.setFechaHora(model.getFechaHora());
+        dto.setTipoEntidad(model.getTipoEntidad());
+        dto.setIdEntidad(model.getIdEntidad());
+        dto.setActor(model.getActor());
+        dto.setCambios(model.getCambios());
 
         return dto;
     }
@@ -31,7 +37,25 @@ public class AuditoriaMapper {
         model.setTabla(dto.getTabla());
         model.setAccion(dto.getAccion());
         model.setFechaHora(dto.getFechaHora());
+        model.setTipoEntidad(dto.getTipoEntidad());
+        model.setIdEntidad(dto.getIdEntidad());
+        model.setActor(dto.getActor());
+        model.setCambios(dto.getCambios());
 
         return model;
     }
-} 
\ No newline at end of file
+
+    public AuditoriaResumenDiarioDTO toDTO(AuditoriaResumenDiario model) {
+        if (model == null) {
+            return null;
+        }
+
+        AuditoriaResumenDiarioDTO dto = new AuditoriaResumenDiarioDTO();
+        dto.setFecha(model.getFecha());
+        dto.setTabla(model.getTabla());
+        dto.setAccion(model.getAccion());
+        dto.setCantidad(model.getCantidad());
+
+        return dto;
+    }
+}
@@ -18,6 +18,10 @@ public class DocumentoAdjuntoMapper {
         dto.setIdTipoDocumento(model.getIdTipoDocumento());
         dto.setRutaArchivo(model.getRutaArchivo());
         dto.setFechaCargado(model.getFechaCargado());
+        // El SHA-256 de un documento cifrado es el del contenido en claro y no se expone
+        dto.setHashSha256(model.getClaveCifrada() == null ? model.getHashSha256() : null);
+        dto.setTamanioBytes(model.getTamanioBytes());
+        dto.setCifrado(model.getClaveCifrada() != null);
         dto.setVersion(model.getVersion());
 
         return dto;
@@ -34,6 +38,8 @@ public class DocumentoAdjuntoMapper {
         model.setIdTipoDocumento(dto.getIdTipoDocumento());
         model.setRutaArchivo(dto.getRutaArchivo());
         model.setFechaCargado(dto.getFechaCargado());
+        model.setHashSha256(dto.getHashSha256());
+        model.setTamanioBytes(dto.getTamanioBytes());
         model.setVersion(dto.getVersion());
 
         return model;
@@ -0,0 +1,18 @@
+package com.banquito.originacion.enums;
+
+public enum AgrupacionSolicitudEnum {
+    ESTADO("Estado"),
+    VENDEDOR("Vendedor"),
+    CONCESIONARIO("Concesionario"),
+    DIA("Dia");
+
+    private final String valor;
+
+    AgrupacionSolicitudEnum(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
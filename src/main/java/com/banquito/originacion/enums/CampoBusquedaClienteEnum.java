@@ -0,0 +1,16 @@
+package com.banquito.originacion.enums;
+
+public enum CampoBusquedaClienteEnum {
+    NOMBRE("Nombre"),
+    DIRECCION("Direccion");
+
+    private final String valor;
+
+    CampoBusquedaClienteEnum(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
@@ -0,0 +1,16 @@
+package com.banquito.originacion.enums;
+
+public enum EstadoCargaDocumentoEnum {
+    REGISTRADO("Registrado"),
+    RECHAZADO("Rechazado");
+
+    private final String valor;
+
+    EstadoCargaDocumentoEnum(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
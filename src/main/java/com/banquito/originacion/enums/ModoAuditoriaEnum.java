@@ -0,0 +1,17 @@
+package com.banquito.originacion.enums;
+
+public enum ModoAuditoriaEnum {
+    ESTRICTO("Estricto"),
+    ASINCRONO("Asincrono"),
+    SEGMENTADO("Segmentado");
+
+    private final String valor;
+
+    ModoAuditoriaEnum(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
@@ -0,0 +1,17 @@
+package com.banquito.originacion.enums;
+
+public enum PoliticaSaturacionAuditoriaEnum {
+    BLOQUEAR("Bloquear"),
+    SINCRONO("Sincrono"),
+    DESCARTAR("Descartar");
+
+    private final String valor;
+
+    PoliticaSaturacionAuditoriaEnum(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
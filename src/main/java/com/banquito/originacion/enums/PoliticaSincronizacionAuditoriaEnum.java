@@ -0,0 +1,17 @@
+package com.banquito.originacion.enums;
+
+public enum PoliticaSincronizacionAuditoriaEnum {
+    SIEMPRE("Siempre"),
+    PERIODICA("Periodica"),
+    NUNCA("Nunca");
+
+    private final String valor;
+
+    PoliticaSincronizacionAuditoriaEnum(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
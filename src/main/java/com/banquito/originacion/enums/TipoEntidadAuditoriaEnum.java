@@ -0,0 +1,22 @@
+package com.banquito.originacion.enums;
+
+public enum TipoEntidadAuditoriaEnum {
+    CLIENTE_PROSPECTO("clientes_prospectos"),
+    SOLICITUD_CREDITO("solicitudes_creditos"),
+    DOCUMENTO_ADJUNTO("documentos_adjuntos"),
+    TIPO_DOCUMENTO("tipos_documentos"),
+    VEHICULO("vehiculos"),
+    IDENTIFICADOR_VEHICULO("identificadores_vehiculos"),
+    CONCESIONARIO("concesionarios"),
+    VENDEDOR("vendedores");
+
+    private final String valor;
+
+    TipoEntidadAuditoriaEnum(String valor) {
+        this.valor = valor;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+}
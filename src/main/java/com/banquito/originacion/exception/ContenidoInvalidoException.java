@@ -0,0 +1,12 @@
+package com.banquito.originacion.exception;
+
+/**
+ * Rechazo por el contenido recibido (no es un PDF válido o no coincide con el SHA-256 declarado):
+ * reintentar con los mismos bytes volvería a fallar.
+ */
+public class ContenidoInvalidoException extends CreateEntityException {
+
+    public ContenidoInvalidoException(String entityName, String message) {
+        super(entityName, message);
+    }
+}
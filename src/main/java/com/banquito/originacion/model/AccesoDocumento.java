@@ -0,0 +1,70 @@
+package com.banquito.originacion.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "accesos_documentos", schema = "originacion", indexes = {
+        @Index(name = "idx_accesos_documentos_documento", columnList = "id_documento, primer_acceso"),
+        @Index(name = "idx_accesos_documentos_usuario", columnList = "usuario, primer_acceso")
+})
+@Getter
+@Setter
+public class AccesoDocumento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_acceso", nullable = false)
+    private Integer id;
+
+    @Column(name = "id_documento", nullable = false)
+    private Integer idDocumento;
+
+    @Column(name = "usuario", length = 50, nullable = false)
+    private String usuario;
+
+    @Column(name = "cantidad", nullable = false)
+    private Long cantidad;
+
+    @Column(name = "primer_acceso", nullable = false)
+    private LocalDateTime primerAcceso;
+
+    @Column(name = "ultimo_acceso", nullable = false)
+    private LocalDateTime ultimoAcceso;
+
+    public AccesoDocumento() {
+    }
+
+    public AccesoDocumento(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        AccesoDocumento that = (AccesoDocumento) obj;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "AccesoDocumento{" +
+                "id=" + id +
+                ", idDocumento=" + idDocumento +
+                ", usuario='" + usuario + '\'' +
+                ", cantidad=" + cantidad +
+                ", primerAcceso=" + primerAcceso +
+                ", ultimoAcceso=" + ultimoAcceso +
+                '}';
+    }
+}
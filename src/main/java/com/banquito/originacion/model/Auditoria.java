@@ -1,6 +1,7 @@
 package com.banquito.originacion.model;
 
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -9,7 +10,10 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "auditorias", schema = "originacion")
+@Table(name = "auditorias", schema = "originacion", indexes = {
+        @Index(name = "idx_auditorias_entidad", columnList = "tipo_entidad, id_entidad, fecha_hora"),
+        @Index(name = "idx_auditorias_actor", columnList = "actor, fecha_hora")
+})
 @Getter
 @Setter
 public class Auditoria {
@@ -29,6 +33,19 @@ public class Auditoria {
     @Column(name = "fecha_hora", nullable = false)
     private LocalDateTime fechaHora;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo_entidad", length = 25)
+    private TipoEntidadAuditoriaEnum tipoEntidad;
+
+    @Column(name = "id_entidad")
+    private Integer idEntidad;
+
+    @Column(name = "actor", length = 50)
+    private String actor;
+
+    @Column(name = "cambios", length = 500)
+    private String cambios;
+
     public Auditoria() {
     }
 
@@ -56,6 +73,10 @@ public class Auditoria {
                 ", tabla='" + tabla + '\'' +
                 ", accion=" + accion +
                 ", fechaHora=" + fechaHora +
+                ", tipoEntidad=" + tipoEntidad +
+                ", idEntidad=" + idEntidad +
+                ", actor='" + actor + '\'' +
+                ", cambios='" + cambios + '\'' +
                 '}';
     }
 } 
\ No newline at end of file
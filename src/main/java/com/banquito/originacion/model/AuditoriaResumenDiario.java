@@ -0,0 +1,67 @@
+package com.banquito.originacion.model;
+
+import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Entity
+@Table(name = "auditorias_resumen_diario", schema = "originacion", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_auditorias_resumen_diario", columnNames = {"fecha", "tabla", "accion"})
+})
+@Getter
+@Setter
+public class AuditoriaResumenDiario {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_resumen", nullable = false)
+    private Integer id;
+
+    @Column(name = "fecha", nullable = false)
+    private LocalDate fecha;
+
+    @Column(name = "tabla", length = 40, nullable = false)
+    private String tabla;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "accion", length = 6, nullable = false)
+    private AccionAuditoriaEnum accion;
+
+    @Column(name = "cantidad", nullable = false)
+    private Long cantidad;
+
+    public AuditoriaResumenDiario() {
+    }
+
+    public AuditoriaResumenDiario(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        AuditoriaResumenDiario that = (AuditoriaResumenDiario) obj;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "AuditoriaResumenDiario{" +
+                "id=" + id +
+                ", fecha=" + fecha +
+                ", tabla='" + tabla + '\'' +
+                ", accion=" + accion +
+                ", cantidad=" + cantidad +
+                '}';
+    }
+}
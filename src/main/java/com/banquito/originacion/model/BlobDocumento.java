@@ -0,0 +1,71 @@
+package com.banquito.originacion.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "blobs_documentos", schema = "originacion", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_blobs_documentos_hash", columnNames = {"hash_sha256"})
+}, indexes = {
+        @Index(name = "idx_blobs_documentos_ruta", columnList = "ruta_archivo")
+})
+@Getter
+@Setter
+public class BlobDocumento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_blob", nullable = false)
+    private Integer id;
+
+    @Column(name = "hash_sha256", length = 64, nullable = false)
+    private String hashSha256;
+
+    @Column(name = "ruta_archivo", length = 150, nullable = false)
+    private String rutaArchivo;
+
+    @Column(name = "tamanio_bytes", nullable = false)
+    private Long tamanioBytes;
+
+    @Column(name = "referencias", nullable = false)
+    private Integer referencias;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    public BlobDocumento() {
+    }
+
+    public BlobDocumento(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        BlobDocumento that = (BlobDocumento) obj;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "BlobDocumento{" +
+                "id=" + id +
+                ", hashSha256='" + hashSha256 + '\'' +
+                ", rutaArchivo='" + rutaArchivo + '\'' +
+                ", tamanioBytes=" + tamanioBytes +
+                ", referencias=" + referencias +
+                ", fechaCreacion=" + fechaCreacion +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.banquito.originacion.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "cargas_reanudables", schema = "originacion", indexes = {
+        @Index(name = "idx_cargas_reanudables_actualizacion", columnList = "fecha_actualizacion")
+})
+@Getter
+@Setter
+public class CargaReanudable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_carga", nullable = false)
+    private Integer id;
+
+    @Column(name = "id_solicitud", nullable = false)
+    private Integer idSolicitud;
+
+    @Column(name = "id_tipo_documento", nullable = false)
+    private Integer idTipoDocumento;
+
+    @Column(name = "tamanio_bytes", nullable = false)
+    private Long tamanioBytes;
+
+    @Column(name = "bytes_recibidos", nullable = false)
+    private Long bytesRecibidos;
+
+    @Column(name = "hash_sha256", length = 64, nullable = false)
+    private String hashSha256;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    public CargaReanudable() {
+    }
+
+    public CargaReanudable(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        CargaReanudable that = (CargaReanudable) obj;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "CargaReanudable{" +
+                "id=" + id +
+                ", idSolicitud=" + idSolicitud +
+                ", idTipoDocumento=" + idTipoDocumento +
+                ", tamanioBytes=" + tamanioBytes +
+                ", bytesRecibidos=" + bytesRecibidos +
+                ", hashSha256='" + hashSha256 + '\'' +
+                ", fechaCreacion=" + fechaCreacion +
+                ", fechaActualizacion=" + fechaActualizacion +
+                '}';
+    }
+}
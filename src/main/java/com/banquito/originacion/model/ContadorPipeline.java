@@ -0,0 +1,73 @@
+package com.banquito.originacion.model;
+
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
+import com.banquito.originacion.enums.EstadoSolicitudEnum;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "contadores_pipeline", schema = "originacion", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_contadores_pipeline", columnNames = {"dimension", "id_referencia", "estado"})
+})
+@Getter
+@Setter
+public class ContadorPipeline {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_contador", nullable = false)
+    private Integer id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dimension", length = 15, nullable = false)
+    private AgrupacionSolicitudEnum dimension;
+
+    @Column(name = "id_referencia", nullable = false)
+    private Integer idReferencia;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado", length = 15, nullable = false)
+    private EstadoSolicitudEnum estado;
+
+    @Column(name = "cantidad", nullable = false)
+    private Long cantidad;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    public ContadorPipeline() {
+    }
+
+    public ContadorPipeline(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        ContadorPipeline that = (ContadorPipeline) obj;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "ContadorPipeline{" +
+                "id=" + id +
+                ", dimension=" + dimension +
+                ", idReferencia=" + idReferencia +
+                ", estado=" + estado +
+                ", cantidad=" + cantidad +
+                ", fechaActualizacion=" + fechaActualizacion +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package com.banquito.originacion.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "cursores_procesos", schema = "originacion", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_cursores_procesos_nombre", columnNames = {"nombre"})
+})
+@Getter
+@Setter
+public class CursorProceso {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_cursor", nullable = false)
+    private Integer id;
+
+    @Column(name = "nombre", length = 60, nullable = false)
+    private String nombre;
+
+    @Column(name = "ultimo_id", nullable = false)
+    private Integer ultimoId;
+
+    @Column(name = "ultima_clave", length = 300)
+    private String ultimaClave;
+
+    @Column(name = "fecha_actualizacion", nullable = false)
+    private LocalDateTime fechaActualizacion;
+
+    public CursorProceso() {
+    }
+
+    public CursorProceso(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        CursorProceso that = (CursorProceso) obj;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "CursorProceso{" +
+                "id=" + id +
+                ", nombre='" + nombre + '\'' +
+                ", ultimoId=" + ultimoId +
+                ", ultimaClave='" + ultimaClave + '\'' +
+                ", fechaActualizacion=" + fechaActualizacion +
+                '}';
+    }
+}
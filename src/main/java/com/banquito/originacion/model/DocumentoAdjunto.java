@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "documentos_adjuntos", schema = "originacion")
+@Table(name = "documentos_adjuntos", schema = "originacion", indexes = {
+        @Index(name = "idx_documentos_adjuntos_ruta", columnList = "ruta_archivo")
+})
 @Getter
 @Setter
 public class DocumentoAdjunto {
@@ -30,6 +32,15 @@ public class DocumentoAdjunto {
     @Column(name = "fecha_cargado", nullable = false)
     private LocalDateTime fechaCargado;
 
+    @Column(name = "hash_sha256", length = 64)
+    private String hashSha256;
+
+    @Column(name = "tamanio_bytes")
+    private Long tamanioBytes;
+
+    @Column(name = "clave_cifrada", length = 100)
+    private String claveCifrada;
+
     @Version
     private Long version;
 
@@ -69,6 +80,9 @@ public class DocumentoAdjunto {
                 ", idTipoDocumento=" + idTipoDocumento +
                 ", rutaArchivo='" + rutaArchivo + '\'' +
                 ", fechaCargado=" + fechaCargado +
+                ", hashSha256='" + hashSha256 + '\'' +
+                ", tamanioBytes=" + tamanioBytes +
+                ", cifrado=" + (claveCifrada != null) +
                 ", version=" + version +
                 '}';
     }
@@ -0,0 +1,61 @@
+package com.banquito.originacion.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "segmentos_auditoria", schema = "originacion", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_segmentos_auditoria_nombre", columnNames = {"nombre"})
+})
+@Getter
+@Setter
+public class SegmentoAuditoria {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_segmento", nullable = false)
+    private Integer id;
+
+    @Column(name = "nombre", length = 60, nullable = false)
+    private String nombre;
+
+    @Column(name = "registros", nullable = false)
+    private Integer registros;
+
+    @Column(name = "fecha_carga", nullable = false)
+    private LocalDateTime fechaCarga;
+
+    public SegmentoAuditoria() {
+    }
+
+    public SegmentoAuditoria(Integer id) {
+        this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        SegmentoAuditoria that = (SegmentoAuditoria) obj;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentoAuditoria{" +
+                "id=" + id +
+                ", nombre='" + nombre + '\'' +
+                ", registros=" + registros +
+                ", fechaCarga=" + fechaCarga +
+                '}';
+    }
+}
@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "solicitudes_creditos", schema = "originacion")
+@Table(name = "solicitudes_creditos", schema = "originacion", indexes = {
+        @Index(name = "idx_solicitudes_estado", columnList = "estado"),
+        @Index(name = "idx_solicitudes_vendedor_estado", columnList = "id_vendedor, estado"),
+        @Index(name = "idx_solicitudes_fecha", columnList = "fecha_solicitud")
+})
 @Getter
 @Setter
 public class SolicitudCredito {
@@ -0,0 +1,13 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.model.AccesoDocumento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccesoDocumentoRepository extends JpaRepository<AccesoDocumento, Integer> {
+
+    List<AccesoDocumento> findByIdDocumentoOrderByPrimerAccesoDesc(Integer idDocumento);
+}
@@ -0,0 +1,9 @@
+package com.banquito.originacion.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Fila resultante de una consulta agrupada sobre solicitudes de crédito.
+ */
+public record AgregadoSolicitud(Object clave, Long cantidad, BigDecimal totalMontoSolicitado, BigDecimal totalPagar) {
+}
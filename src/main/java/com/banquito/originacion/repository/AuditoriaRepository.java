@@ -1,7 +1,10 @@
 package com.banquito.originacion.repository;
 
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import com.banquito.originacion.model.Auditoria;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.LocalDateTime;
@@ -23,4 +26,29 @@ public interface AuditoriaRepository extends JpaRepository<Auditoria, Integer> {
      * Devuelve las auditorías cuyo timestamp está entre las dos fechas indicadas.
      */
     List<Auditoria> findByFechaHoraBetween(LocalDateTime desde, LocalDateTime hasta);
+
+    /**
+     * Página de auditorías dentro de una ventana de fechas. El filtro por fecha_hora permite a
+     * PostgreSQL descartar las particiones mensuales fuera del rango; Slice evita el conteo total.
+     */
+    Slice<Auditoria> findByFechaHoraBetween(LocalDateTime desde, LocalDateTime hasta, Pageable pageable);
+
+    /**
+     * Devuelve las auditorías de una acción dentro de una ventana de fechas.
+     */
+    List<Auditoria> findByAccionAndFechaHoraBetweenOrderByFechaHoraDesc(AccionAuditoriaEnum accion,
+                                                                        LocalDateTime desde,
+                                                                        LocalDateTime hasta);
+
+    /**
+     * Historial de una entidad concreta, resuelto con el índice (tipo_entidad, id_entidad, fecha_hora).
+     */
+    List<Auditoria> findByTipoEntidadAndIdEntidadOrderByFechaHoraDesc(TipoEntidadAuditoriaEnum tipoEntidad,
+                                                                      Integer idEntidad);
+
+    /**
+     * Página de acciones de un usuario dentro de una ventana de fechas (índice (actor, fecha_hora)).
+     */
+    Slice<Auditoria> findByActorAndFechaHoraBetween(String actor, LocalDateTime desde, LocalDateTime hasta,
+                                                    Pageable pageable);
 }
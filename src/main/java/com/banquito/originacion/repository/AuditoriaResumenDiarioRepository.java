@@ -0,0 +1,17 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.model.AuditoriaResumenDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AuditoriaResumenDiarioRepository extends JpaRepository<AuditoriaResumenDiario, Integer> {
+
+    /**
+     * Devuelve los conteos diarios compactados entre dos fechas (inclusive).
+     */
+    List<AuditoriaResumenDiario> findByFechaBetweenOrderByFechaAscTablaAsc(LocalDate desde, LocalDate hasta);
+}
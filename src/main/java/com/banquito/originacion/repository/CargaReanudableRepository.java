@@ -0,0 +1,14 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.model.CargaReanudable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CargaReanudableRepository extends JpaRepository<CargaReanudable, Integer> {
+
+    List<CargaReanudable> findByFechaActualizacionBefore(LocalDateTime limite);
+}
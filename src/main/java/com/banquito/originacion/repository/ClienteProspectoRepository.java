@@ -2,6 +2,8 @@ package com.banquito.originacion.repository;
 
 import com.banquito.originacion.enums.EstadoClientesEnum;
 import com.banquito.originacion.model.ClienteProspecto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -74,4 +76,9 @@ public interface ClienteProspectoRepository extends JpaRepository<ClienteProspec
      * Busca clientes por dirección (búsqueda parcial, case-insensitive)
      */
     List<ClienteProspecto> findByDireccionContainingIgnoreCase(String direccion);
+
+    /**
+     * Clientes con id mayor al indicado, para recorrerlos por lotes en orden de id
+     */
+    Slice<ClienteProspecto> findByIdGreaterThan(Integer id, Pageable pageable);
 } 
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.model.ContadorPipeline;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContadorPipelineRepository extends JpaRepository<ContadorPipeline, Integer> {
+}
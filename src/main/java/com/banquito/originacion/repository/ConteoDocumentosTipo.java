@@ -0,0 +1,7 @@
+package com.banquito.originacion.repository;
+
+/**
+ * Número de documentos cargados de un tipo para una solicitud.
+ */
+public record ConteoDocumentosTipo(Integer idSolicitud, Integer idTipoDocumento, Long cantidad) {
+}
@@ -0,0 +1,9 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.enums.EstadoSolicitudEnum;
+
+/**
+ * Número de solicitudes en un estado para un vendedor o concesionario.
+ */
+public record ConteoPipeline(Integer idReferencia, EstadoSolicitudEnum estado, Long cantidad) {
+}
@@ -0,0 +1,13 @@
+package com.banquito.originacion.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface DocumentoAdjuntoAgregadoRepository {
+
+    /**
+     * Cuenta los documentos cargados de cada tipo para las solicitudes indicadas en una sola consulta
+     * agrupada (GROUP BY id_solicitud, id_tipo_documento). Las solicitudes sin documentos no aparecen.
+     */
+    List<ConteoDocumentosTipo> contarPorSolicitudYTipo(Collection<Integer> idsSolicitud);
+}
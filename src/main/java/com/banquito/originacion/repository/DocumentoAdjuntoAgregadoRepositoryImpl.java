@@ -0,0 +1,45 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.model.DocumentoAdjunto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Root;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Implementación con Criteria API de las consultas agrupadas sobre documentos adjuntos.
+ */
+public class DocumentoAdjuntoAgregadoRepositoryImpl implements DocumentoAdjuntoAgregadoRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ConteoDocumentosTipo> contarPorSolicitudYTipo(Collection<Integer> idsSolicitud) {
+        if (idsSolicitud.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<DocumentoAdjunto> documento = query.from(DocumentoAdjunto.class);
+        Expression<Integer> solicitud = documento.get("idSolicitud");
+        Expression<Integer> tipo = documento.get("idTipoDocumento");
+
+        query.multiselect(solicitud, tipo, cb.count(documento))
+                .where(solicitud.in(idsSolicitud))
+                .groupBy(solicitud, tipo);
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(fila -> new ConteoDocumentosTipo(
+                        fila.get(0, Integer.class),
+                        fila.get(1, Integer.class),
+                        fila.get(2, Long.class)))
+                .toList();
+    }
+}
@@ -5,11 +5,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DocumentoAdjuntoRepository extends JpaRepository<DocumentoAdjunto, Integer> {
+public interface DocumentoAdjuntoRepository extends JpaRepository<DocumentoAdjunto, Integer>,
+        DocumentoAdjuntoAgregadoRepository {
 
     /**
      * Busca documentos por id de solicitud
@@ -36,6 +38,11 @@ public interface DocumentoAdjuntoRepository extends JpaRepository<DocumentoAdjun
      */
     boolean existsByRutaArchivo(String rutaArchivo);
 
+    /**
+     * Rutas de la colección que tienen algún documento, para comprobar un lote de archivos en una consulta
+     */
+    List<RutaArchivo> findByRutaArchivoIn(Collection<String> rutasArchivo);
+
     /**
      * Busca documentos por solicitud ordenados por fecha de carga descente (más recientes primero)
      */
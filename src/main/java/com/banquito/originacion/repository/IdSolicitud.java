@@ -0,0 +1,9 @@
+package com.banquito.originacion.repository;
+
+/**
+ * Proyección con solo el identificador de una solicitud.
+ */
+public interface IdSolicitud {
+
+    Integer getId();
+}
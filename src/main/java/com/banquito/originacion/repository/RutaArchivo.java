@@ -0,0 +1,9 @@
+package com.banquito.originacion.repository;
+
+/**
+ * Proyección con solo la ruta del archivo de un documento.
+ */
+public interface RutaArchivo {
+
+    String getRutaArchivo();
+}
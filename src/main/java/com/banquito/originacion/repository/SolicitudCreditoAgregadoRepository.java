@@ -0,0 +1,22 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SolicitudCreditoAgregadoRepository {
+
+    /**
+     * Cuenta y suma montos de las solicitudes agrupadas por la dimensión indicada,
+     * resolviendo la agregación en la base de datos (GROUP BY) en lugar de traer las filas.
+     * Las fechas son opcionales y acotan por fecha de solicitud.
+     */
+    List<AgregadoSolicitud> agruparPor(AgrupacionSolicitudEnum agrupacion, LocalDateTime desde, LocalDateTime hasta);
+
+    /**
+     * Cuenta las solicitudes por estado para cada vendedor o concesionario.
+     * Solo admite las dimensiones VENDEDOR y CONCESIONARIO.
+     */
+    List<ConteoPipeline> contarPorEstado(AgrupacionSolicitudEnum dimension);
+}
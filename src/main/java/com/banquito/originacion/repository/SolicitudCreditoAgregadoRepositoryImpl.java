@@ -0,0 +1,99 @@
+package com.banquito.originacion.repository;
+
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
+import com.banquito.originacion.enums.EstadoSolicitudEnum;
+import com.banquito.originacion.model.SolicitudCredito;
+import com.banquito.originacion.model.Vendedor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación con Criteria API de las consultas agrupadas sobre solicitudes.
+ */
+public class SolicitudCreditoAgregadoRepositoryImpl implements SolicitudCreditoAgregadoRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AgregadoSolicitud> agruparPor(AgrupacionSolicitudEnum agrupacion, LocalDateTime desde, LocalDateTime hasta) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<SolicitudCredito> solicitud = query.from(SolicitudCredito.class);
+
+        Expression<?> clave = switch (agrupacion) {
+            case ESTADO -> solicitud.get("estado");
+            case VENDEDOR -> solicitud.get("idVendedor");
+            case CONCESIONARIO -> {
+                Join<SolicitudCredito, Vendedor> vendedor = solicitud.join("vendedor");
+                yield vendedor.get("idConcesionario");
+            }
+            case DIA -> cb.function("date", LocalDate.class, solicitud.get("fechaSolicitud"));
+        };
+
+        List<Predicate> filtros = new ArrayList<>();
+        if (desde != null) {
+            filtros.add(cb.greaterThanOrEqualTo(solicitud.get("fechaSolicitud"), desde));
+        }
+        if (hasta != null) {
+            filtros.add(cb.lessThan(solicitud.get("fechaSolicitud"), hasta));
+        }
+
+        query.multiselect(
+                        clave,
+                        cb.count(solicitud),
+                        cb.sum(solicitud.<BigDecimal>get("montoSolicitado")),
+                        cb.sum(solicitud.<BigDecimal>get("totalPagar")))
+                .where(filtros.toArray(new Predicate[0]))
+                .groupBy(clave)
+                .orderBy(cb.asc(clave));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(fila -> new AgregadoSolicitud(
+                        fila.get(0),
+                        fila.get(1, Long.class),
+                        fila.get(2, BigDecimal.class),
+                        fila.get(3, BigDecimal.class)))
+                .toList();
+    }
+
+    @Override
+    public List<ConteoPipeline> contarPorEstado(AgrupacionSolicitudEnum dimension) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<SolicitudCredito> solicitud = query.from(SolicitudCredito.class);
+
+        Expression<Integer> referencia = switch (dimension) {
+            case VENDEDOR -> solicitud.get("idVendedor");
+            case CONCESIONARIO -> {
+                Join<SolicitudCredito, Vendedor> vendedor = solicitud.join("vendedor");
+                yield vendedor.get("idConcesionario");
+            }
+            default -> throw new IllegalArgumentException("Dimensión no soportada para el pipeline: " + dimension);
+        };
+        Expression<EstadoSolicitudEnum> estado = solicitud.get("estado");
+
+        query.multiselect(referencia, estado, cb.count(solicitud))
+                .groupBy(referencia, estado);
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(fila -> new ConteoPipeline(
+                        fila.get(0, Integer.class),
+                        fila.get(1, EstadoSolicitudEnum.class),
+                        fila.get(2, Long.class)))
+                .toList();
+    }
+}
@@ -2,16 +2,20 @@ package com.banquito.originacion.repository;
 
 import com.banquito.originacion.enums.EstadoSolicitudEnum;
 import com.banquito.originacion.model.SolicitudCredito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SolicitudCreditoRepository extends JpaRepository<SolicitudCredito, Integer> {
+public interface SolicitudCreditoRepository extends JpaRepository<SolicitudCredito, Integer>,
+        SolicitudCreditoAgregadoRepository {
 
     /**
      * Busca una solicitud por su número único
@@ -33,6 +37,16 @@ public interface SolicitudCreditoRepository extends JpaRepository<SolicitudCredi
      */
     List<SolicitudCredito> findByEstado(EstadoSolicitudEnum estado);
 
+    /**
+     * Página de identificadores de las solicitudes en un estado, sin cargar las entidades
+     */
+    Page<IdSolicitud> findIdsByEstado(EstadoSolicitudEnum estado, Pageable pageable);
+
+    /**
+     * Identificadores que existen entre los indicados, sin cargar las entidades
+     */
+    List<IdSolicitud> findIdsByIdIn(Collection<Integer> ids);
+
     /**
      * Busca solicitudes creadas entre un rango de fechas
      */
@@ -0,0 +1,140 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Agrega en memoria los accesos de lectura a documentos por (usuario, documento) y los escribe
+ * cada ventana como una fila de accesos_documentos con el número de accesos y el primer y último
+ * instante. Los tipos de documento configurados como exactos (y los sensibles) se siguen auditando
+ * acceso por acceso en auditorias.
+ */
+@Component
+public class AgregadorAccesosDocumentos {
+
+    private static final Logger log = LoggerFactory.getLogger(AgregadorAccesosDocumentos.class);
+    private static final String INSERTAR_ACCESO =
+            "INSERT INTO originacion.accesos_documentos (id_documento, usuario, cantidad, primer_acceso, ultimo_acceso) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+    private static final String USUARIO_DESCONOCIDO = "desconocido";
+
+    private record ClaveAcceso(String usuario, Integer idDocumento) {
+    }
+
+    private record Acumulado(long cantidad, LocalDateTime primero, LocalDateTime ultimo) {
+
+        Acumulado combinar(Acumulado otro) {
+            return new Acumulado(cantidad + otro.cantidad,
+                    primero.isBefore(otro.primero) ? primero : otro.primero,
+                    ultimo.isAfter(otro.ultimo) ? ultimo : otro.ultimo);
+        }
+    }
+
+    private final ConcurrentHashMap<ClaveAcceso, Acumulado> accesos = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditoriaService auditoriaService;
+    private final Set<Integer> tiposExactos;
+    private final int tamanioLote;
+    private final Counter accesosAgregados;
+    private final Counter accesosExactos;
+    private final Counter filasEscritas;
+
+    public AgregadorAccesosDocumentos(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      AuditoriaService auditoriaService,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${originacion.documentos.accesos.tipos-exactos:}") Set<Integer> tiposExactos,
+                                      @Value("${originacion.documentos.accesos.tamanio-lote:500}") int tamanioLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditoriaService = auditoriaService;
+        this.tiposExactos = Set.copyOf(tiposExactos);
+        this.tamanioLote = tamanioLote;
+        meterRegistry.gaugeMapSize("originacion.documentos.accesos.pendientes", List.of(), accesos);
+        this.accesosAgregados = meterRegistry.counter("originacion.documentos.accesos", "modo", "agregado");
+        this.accesosExactos = meterRegistry.counter("originacion.documentos.accesos", "modo", "exacto");
+        this.filasEscritas = meterRegistry.counter("originacion.documentos.accesos.filas");
+    }
+
+    /**
+     * Registra un acceso de lectura. Si el documento es sensible o su tipo está configurado como
+     * exacto se audita inmediatamente; si no, se acumula hasta el próximo vaciado.
+     */
+    public void registrarAcceso(Integer idDocumento, Integer idTipoDocumento, String usuario, boolean sensible) {
+        if (sensible || tiposExactos.contains(idTipoDocumento)) {
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.DOCUMENTO_ADJUNTO, idDocumento,
+                    AccionAuditoriaEnum.SELECT, usuario, null);
+            accesosExactos.increment();
+            return;
+        }
+        LocalDateTime ahora = LocalDateTime.now();
+        String clave = usuario != null && !usuario.isBlank() ? usuario : USUARIO_DESCONOCIDO;
+        accesos.merge(new ClaveAcceso(clave.length() > 50 ? clave.substring(0, 50) : clave, idDocumento),
+                new Acumulado(1, ahora, ahora), Acumulado::combinar);
+        accesosAgregados.increment();
+    }
+
+    /**
+     * Escribe los accesos acumulados en la ventana y la reinicia. Cada clave se retira del mapa de
+     * forma atómica, así que un acceso concurrente empieza una nueva ventana en lugar de perderse.
+     */
+    @Scheduled(fixedDelayString = "${originacion.documentos.accesos.ventana-ms:60000}")
+    public void vaciar() {
+        if (accesos.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<ClaveAcceso, Acumulado>> retirados = new ArrayList<>();
+        Iterator<ClaveAcceso> claves = accesos.keySet().iterator();
+        while (claves.hasNext()) {
+            ClaveAcceso clave = claves.next();
+            Acumulado acumulado = accesos.remove(clave);
+            if (acumulado != null) {
+                retirados.add(Map.entry(clave, acumulado));
+            }
+        }
+        List<Object[]> filas = retirados.stream()
+                .map(entrada -> new Object[] {
+                        entrada.getKey().idDocumento(), entrada.getKey().usuario(), entrada.getValue().cantidad(),
+                        Timestamp.valueOf(entrada.getValue().primero()), Timestamp.valueOf(entrada.getValue().ultimo())
+                })
+                .toList();
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                for (int desde = 0; desde < filas.size(); desde += tamanioLote) {
+                    jdbcTemplate.batchUpdate(INSERTAR_ACCESO, filas.subList(desde, Math.min(desde + tamanioLote, filas.size())));
+                }
+            });
+            filasEscritas.increment(filas.size());
+        } catch (Exception e) {
+            // Se devuelven al mapa para reintentar en la siguiente ventana
+            log.error("No se pudieron escribir {} accesos agregados a documentos: {}", filas.size(), e.getMessage());
+            retirados.forEach(entrada -> accesos.merge(entrada.getKey(), entrada.getValue(), Acumulado::combinar));
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        vaciar();
+    }
+}
@@ -0,0 +1,188 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.util.TransaccionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Almacenamiento de documentos direccionado por contenido: cada PDF distinto se guarda una sola vez
+ * como blobs/ab/cd/&lt;sha256&gt;.pdf y blobs_documentos lleva cuántos DocumentoAdjunto lo referencian.
+ *
+ * Las altas y bajas de referencias de un mismo hash se serializan con un candado consultivo de
+ * transacción, de modo que un blob no se borra mientras otra carga del mismo contenido lo reclama.
+ * Deben invocarse dentro de una transacción.
+ */
+@Component
+public class AlmacenBlobsDocumentos {
+
+    private static final Logger log = LoggerFactory.getLogger(AlmacenBlobsDocumentos.class);
+
+    private static final String BLOQUEAR_HASH = "SELECT pg_advisory_xact_lock(hashtext(?))";
+    private static final String RECLAMAR_BLOB =
+            "INSERT INTO originacion.blobs_documentos (hash_sha256, ruta_archivo, tamanio_bytes, referencias, fecha_creacion) "
+                    + "VALUES (?, ?, ?, 1, ?) "
+                    + "ON CONFLICT (hash_sha256) DO UPDATE SET referencias = originacion.blobs_documentos.referencias + 1 "
+                    + "RETURNING ruta_archivo, (xmax = 0) AS insertado";
+    private static final String LIBERAR_BLOB =
+            "UPDATE originacion.blobs_documentos SET referencias = referencias - 1 WHERE hash_sha256 = ? "
+                    + "RETURNING referencias, ruta_archivo";
+    private static final String ELIMINAR_BLOB_SIN_REFERENCIAS =
+            "DELETE FROM originacion.blobs_documentos WHERE hash_sha256 = ? AND referencias <= 0";
+    private static final String EXISTE_BLOB =
+            "SELECT count(*) FROM originacion.blobs_documentos WHERE hash_sha256 = ?";
+
+    public record BlobReclamado(String ruta, long tamanioBytes, String hashSha256, boolean duplicado) {
+    }
+
+    private record ResultadoReclamo(String ruta, boolean insertado) {
+    }
+
+    private record ResultadoLiberacion(int referencias, String ruta) {
+    }
+
+    private final AlmacenDocumentos almacenDocumentos;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Counter cargasNuevas;
+    private final Counter cargasDuplicadas;
+    private final Counter bytesAhorrados;
+
+    public AlmacenBlobsDocumentos(AlmacenDocumentos almacenDocumentos,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry) {
+        this.almacenDocumentos = almacenDocumentos;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.cargasNuevas = meterRegistry.counter("originacion.documentos.blobs.cargas", "resultado", "nuevo");
+        this.cargasDuplicadas = meterRegistry.counter("originacion.documentos.blobs.cargas", "resultado", "duplicado");
+        this.bytesAhorrados = meterRegistry.counter("originacion.documentos.blobs.bytes-ahorrados");
+    }
+
+    /**
+     * El gauge guarda una referencia a este componente, así que se registra ya construido.
+     */
+    @PostConstruct
+    public void registrarRatioDeduplicacion() {
+        meterRegistry.gauge("originacion.documentos.blobs.ratio-deduplicacion", this,
+                almacen -> almacen.ratioDeduplicacion());
+    }
+
+    /**
+     * Guarda el PDF en un temporal calculando su SHA-256 y reclama el blob de ese contenido. Si ya
+     * existía, el temporal se descarta y solo se incrementan las referencias. El blob se identifica
+     * por el hash del PDF original aunque el tipo de documento lo guarde comprimido.
+     */
+    public BlobReclamado guardarPdf(InputStream contenido, long maxBytes, String tipoDocumento) throws IOException {
+        return reclamar(guardarTemporal(contenido, maxBytes, tipoDocumento));
+    }
+
+    /**
+     * Escribe el PDF en un temporal sin tocar la base de datos, para poder recibirlo fuera de la
+     * transacción y reclamarlo después con {@link #reclamar}.
+     */
+    public AlmacenDocumentos.ArchivoAlmacenado guardarTemporal(InputStream contenido, long maxBytes,
+                                                               String tipoDocumento) throws IOException {
+        return almacenDocumentos.guardarPdf(contenido, "tmp-" + UUID.randomUUID() + ".pdf", maxBytes, tipoDocumento);
+    }
+
+    /**
+     * Convierte un temporal en una referencia al blob de su contenido. Si falla, el temporal se borra;
+     * si el blob es nuevo y la transacción se revierte después, se borra el blob.
+     */
+    public BlobReclamado reclamar(AlmacenDocumentos.ArchivoAlmacenado temporal) throws IOException {
+        try {
+            return reclamarBlob(temporal);
+        } catch (RuntimeException | IOException e) {
+            almacenDocumentos.eliminar(temporal.ruta());
+            throw e;
+        }
+    }
+
+    /**
+     * Quita una referencia al blob. Cuando llega a cero se borra la fila y, tras confirmar, el archivo
+     * si nadie lo ha vuelto a reclamar entretanto.
+     */
+    public void liberar(String hashSha256) {
+        jdbcTemplate.queryForList(BLOQUEAR_HASH, hashSha256);
+        List<ResultadoLiberacion> resultado = jdbcTemplate.query(LIBERAR_BLOB,
+                (rs, i) -> new ResultadoLiberacion(rs.getInt("referencias"), rs.getString("ruta_archivo")), hashSha256);
+        if (resultado.isEmpty()) {
+            log.warn("No existe blob para el hash {}", hashSha256);
+            return;
+        }
+        if (resultado.get(0).referencias() <= 0) {
+            jdbcTemplate.update(ELIMINAR_BLOB_SIN_REFERENCIAS, hashSha256);
+            String ruta = resultado.get(0).ruta();
+            TransaccionUtils.despuesDelCommit(() -> eliminarSiHuerfano(hashSha256, ruta));
+        }
+    }
+
+    private BlobReclamado reclamarBlob(AlmacenDocumentos.ArchivoAlmacenado temporal) throws IOException {
+        String hash = temporal.hashSha256();
+        String destino = almacenDocumentos.resolver("blobs", hash + ".pdf").toString();
+        jdbcTemplate.queryForList(BLOQUEAR_HASH, hash);
+        ResultadoReclamo reclamo = jdbcTemplate.queryForObject(RECLAMAR_BLOB,
+                (rs, i) -> new ResultadoReclamo(rs.getString("ruta_archivo"), rs.getBoolean("insertado")),
+                hash, destino, temporal.tamanioBytes(), Timestamp.valueOf(LocalDateTime.now()));
+
+        AlmacenamientoDocumentos almacenamiento = almacenDocumentos.getAlmacenamiento();
+        if (reclamo.insertado() || !almacenamiento.existe(reclamo.ruta())) {
+            almacenamiento.mover(temporal.ruta(), reclamo.ruta());
+            if (reclamo.insertado()) {
+                // Si la transacción se revierte la fila desaparece y el archivo quedaría sin dueño
+                String ruta = reclamo.ruta();
+                TransaccionUtils.despuesDelRollback(() -> eliminarSiHuerfano(hash, ruta));
+            }
+            cargasNuevas.increment();
+            return new BlobReclamado(reclamo.ruta(), temporal.tamanioBytes(), hash, false);
+        }
+        almacenDocumentos.eliminar(temporal.ruta());
+        cargasDuplicadas.increment();
+        bytesAhorrados.increment(temporal.tamanioBytes());
+        return new BlobReclamado(reclamo.ruta(), temporal.tamanioBytes(), hash, true);
+    }
+
+    private void eliminarSiHuerfano(String hash, String ruta) {
+        try {
+            transactionTemplate.executeWithoutResult(estado -> {
+                jdbcTemplate.queryForList(BLOQUEAR_HASH, hash);
+                Integer existe = jdbcTemplate.queryForObject(EXISTE_BLOB, Integer.class, hash);
+                if (existe != null && existe == 0) {
+                    try {
+                        almacenDocumentos.eliminar(ruta);
+                    } catch (IOException e) {
+                        log.warn("No se pudo eliminar el blob {}: {}", ruta, e.getMessage());
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.warn("No se pudo verificar el blob {} para eliminarlo: {}", hash, e.getMessage());
+        }
+    }
+
+    public AlmacenDocumentos getAlmacenDocumentos() {
+        return almacenDocumentos;
+    }
+
+    private double ratioDeduplicacion() {
+        double total = cargasNuevas.count() + cargasDuplicadas.count();
+        return total == 0 ? 0.0 : cargasDuplicadas.count() / total;
+    }
+}
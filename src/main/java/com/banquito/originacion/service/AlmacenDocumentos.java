@@ -0,0 +1,248 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.exception.CreateEntityException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Escribe el contenido de los documentos en una sola pasada: cada bloque leído se añade al SHA-256,
+ * pasa por el {@link ValidadorPdf}, se cuenta y se escribe en el {@link AlmacenamientoDocumentos}
+ * configurado, sin retener el archivo completo en memoria. La escritura solo se confirma si la carga
+ * termina bien, y si después la estructura del PDF no es válida se elimina.
+ *
+ * Es también el único punto que decide dónde vive cada archivo: todos se reparten en dos niveles de
+ * subdirectorios con los cuatro primeros caracteres hexadecimales de su nombre (blobs/ab/cd/abcd….pdf),
+ * o de su SHA-256 si el nombre no empieza por hexadecimal, para que ningún directorio acumule más de
+ * unos pocos cientos de archivos.
+ *
+ * Si el tipo del documento tiene compresión, lo escrito pasa por el {@link CompresorDocumentos}; el
+ * tamaño y el hash devueltos son siempre los del PDF original, y las lecturas descomprimen al vuelo.
+ * Como lo almacenado ya no es el PDF, el destino de startxref se comprueba con los destinos que el
+ * validador anota en la misma pasada, antes de confirmar la escritura.
+ */
+@Component
+public class AlmacenDocumentos {
+
+    private static final int TAMANIO_BLOQUE = 64 * 1024;
+
+    public record ArchivoAlmacenado(String ruta, long tamanioBytes, String hashSha256) {
+    }
+
+    private final AlmacenamientoDocumentos almacenamiento;
+    private final Path directorio;
+    private final CompresorDocumentos compresor;
+
+    public AlmacenDocumentos(AlmacenamientoDocumentos almacenamiento, String directorio) {
+        this(almacenamiento, directorio, CompresorDocumentos.sinCompresion());
+    }
+
+    @Autowired
+    public AlmacenDocumentos(AlmacenamientoDocumentos almacenamiento,
+                             @Value("${originacion.documentos.directorio:documentos}") String directorio,
+                             CompresorDocumentos compresor) {
+        this.almacenamiento = almacenamiento;
+        this.directorio = Paths.get(directorio);
+        this.compresor = compresor;
+    }
+
+    /**
+     * Guarda el flujo como un PDF con el nombre indicado. Falla si no tiene la cabecera %PDF-, si el
+     * trailer (startxref y %%EOF) falta o no apunta a una tabla xref, o si supera el tamaño máximo; en
+     * ese caso no queda ningún archivo.
+     */
+    public ArchivoAlmacenado guardarPdf(InputStream contenido, String nombreArchivo, long maxBytes) throws IOException {
+        return guardarPdf(contenido, nombreArchivo, maxBytes, null);
+    }
+
+    /**
+     * Como {@link #guardarPdf(InputStream, String, long)}, comprimiendo con el nivel configurado para
+     * el tipo de documento si la muestra inicial lo justifica.
+     */
+    public ArchivoAlmacenado guardarPdf(InputStream contenido, String nombreArchivo, long maxBytes,
+                                        String tipoDocumento) throws IOException {
+        String ruta = resolver(null, nombreArchivo).toString();
+        MessageDigest digest = nuevoDigest();
+        boolean compresible = compresor.nivel(tipoDocumento) > 0;
+        ValidadorPdf validador = new ValidadorPdf(compresible);
+        byte[] bloque = new byte[TAMANIO_BLOQUE];
+        long total = 0;
+
+        try (AlmacenamientoDocumentos.Escritura escritura = almacenamiento.escribir(ruta);
+             CompresorDocumentos.SalidaCompresible salida = compresor.salida(escritura.salida(), tipoDocumento)) {
+            int leidos;
+            while ((leidos = contenido.read(bloque)) != -1) {
+                validador.actualizar(bloque, 0, leidos);
+                total += leidos;
+                if (total > maxBytes) {
+                    throw new CreateEntityException("Documento", "El tamaño del archivo excede el límite permitido");
+                }
+                digest.update(bloque, 0, leidos);
+                salida.write(bloque, 0, leidos);
+            }
+            salida.terminar();
+            if (compresible) {
+                validador.verificar();
+            }
+            escritura.confirmar();
+        }
+
+        // El destino de startxref puede quedar antes de la cola retenida: se lee del documento ya escrito
+        if (!compresible) {
+            try {
+                validador.verificar((posicion, bytes) -> leer(ruta, posicion, bytes));
+            } catch (RuntimeException | IOException e) {
+                almacenamiento.eliminar(ruta);
+                throw e;
+            }
+        }
+        return new ArchivoAlmacenado(ruta, total, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    /**
+     * Copia el tramo [inicio, inicio + longitud) del documento original a la salida sin cargarlo en
+     * memoria, descomprimiéndolo si se guardó comprimido.
+     */
+    public void transferir(String ruta, long inicio, long longitud, OutputStream salida) throws IOException {
+        transferir(ruta, comprimido(ruta), inicio, longitud, salida);
+    }
+
+    /**
+     * Como {@link #transferir(String, long, long, OutputStream)} cuando ya se sabe si está comprimido.
+     */
+    public void transferir(String ruta, boolean comprimido, long inicio, long longitud, OutputStream salida)
+            throws IOException {
+        if (!comprimido) {
+            almacenamiento.transferir(ruta, inicio, longitud, salida);
+            return;
+        }
+        try (InputStream almacenado = almacenamiento.leer(ruta, 0, Long.MAX_VALUE)) {
+            compresor.descomprimir(almacenado, inicio, longitud, salida);
+        }
+    }
+
+    /**
+     * Contenido original completo del documento, descomprimido si hace falta.
+     */
+    public InputStream abrir(String ruta) throws IOException {
+        boolean comprimido = comprimido(ruta);
+        InputStream almacenado = almacenamiento.leer(ruta, 0, Long.MAX_VALUE);
+        if (!comprimido) {
+            return almacenado;
+        }
+        try {
+            return compresor.abrir(almacenado);
+        } catch (IOException e) {
+            almacenado.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Si el archivo se guardó comprimido, según su cabecera.
+     */
+    public boolean comprimido(String ruta) throws IOException {
+        byte[] cabecera = new byte[CompresorDocumentos.CABECERA.length];
+        return CompresorDocumentos.esComprimido(cabecera, leer(ruta, 0, cabecera));
+    }
+
+    /**
+     * Lee hasta llenar el arreglo desde la posición indicada del archivo tal como está almacenado;
+     * devuelve cuántos bytes se leyeron.
+     */
+    public int leer(String ruta, long posicion, byte[] destino) throws IOException {
+        try (InputStream entrada = almacenamiento.leer(ruta, posicion, destino.length)) {
+            return entrada.readNBytes(destino, 0, destino.length);
+        }
+    }
+
+    /**
+     * Ruta fragmentada de un archivo dentro de un área del almacén (blobs, cifrados) o de la raíz si el
+     * área es null. No crea los directorios.
+     */
+    public Path resolver(String area, String nombreArchivo) {
+        Path base = area == null ? directorio : directorio.resolve(area);
+        return fragmentar(base, nombreArchivo);
+    }
+
+    /**
+     * Ruta que le corresponde en el esquema fragmentado a un archivo guardado con el esquema plano,
+     * en la misma área. Si ya está fragmentado se devuelve tal cual.
+     */
+    public Path reubicar(Path actual) {
+        String nombre = actual.getFileName().toString();
+        String prefijo = prefijo(nombre);
+        Path padre = actual.getParent();
+        Path abuelo = padre != null ? padre.getParent() : null;
+        if (abuelo != null && padre.getFileName().toString().equals(prefijo.substring(2, 4))
+                && abuelo.getFileName() != null && abuelo.getFileName().toString().equals(prefijo.substring(0, 2))) {
+            return actual;
+        }
+        return fragmentar(padre != null ? padre : Paths.get(""), nombre);
+    }
+
+    /**
+     * Si la ruta está dentro del directorio del almacén.
+     */
+    public boolean contiene(Path ruta) {
+        return ruta.toAbsolutePath().normalize().startsWith(directorio.toAbsolutePath().normalize());
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    public AlmacenamientoDocumentos getAlmacenamiento() {
+        return almacenamiento;
+    }
+
+    public void eliminar(String ruta) throws IOException {
+        almacenamiento.eliminar(ruta);
+    }
+
+    private static Path fragmentar(Path base, String nombreArchivo) {
+        String prefijo = prefijo(nombreArchivo);
+        return base.resolve(prefijo.substring(0, 2)).resolve(prefijo.substring(2, 4)).resolve(nombreArchivo);
+    }
+
+    /**
+     * Los blobs (sha256.pdf) y los cifrados (uuid.pdf.enc) ya empiezan por hexadecimal uniforme; los
+     * demás nombres se reparten por el hash del propio nombre.
+     */
+    private static String prefijo(String nombreArchivo) {
+        String nombre = nombreArchivo.toLowerCase();
+        if (nombre.length() >= 4 && esHexadecimal(nombre, 4)) {
+            return nombre.substring(0, 4);
+        }
+        MessageDigest digest = nuevoDigest();
+        return HexFormat.of().formatHex(digest.digest(nombreArchivo.getBytes(StandardCharsets.UTF_8)), 0, 2);
+    }
+
+    private static boolean esHexadecimal(String texto, int longitud) {
+        for (int i = 0; i < longitud; i++) {
+            char c = texto.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
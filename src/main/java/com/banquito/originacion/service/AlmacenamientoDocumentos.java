@@ -0,0 +1,83 @@
+package com.banquito.originacion.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Almacenamiento físico de los documentos. Las claves son las rutas que se guardan en ruta_archivo
+ * (documentos/blobs/ab/cd/&lt;sha256&gt;.pdf); cada implementación decide si son archivos en disco u
+ * objetos en un bucket. Se escribe y se lee siempre en streaming, sin retener el documento completo.
+ *
+ * La implementación se elige con originacion.documentos.almacenamiento.tipo.
+ */
+public interface AlmacenamientoDocumentos {
+
+    record Metadatos(long tamanioBytes, Instant ultimaModificacion) {
+    }
+
+    record Objeto(String clave, long tamanioBytes, Instant ultimaModificacion) {
+    }
+
+    /**
+     * Escritura en curso de un documento. Lo escrito en {@link #salida()} solo queda visible con la
+     * clave al confirmar; cerrar sin confirmar descarta lo escrito.
+     */
+    interface Escritura extends Closeable {
+
+        OutputStream salida();
+
+        void confirmar() throws IOException;
+    }
+
+    Escritura escribir(String clave) throws IOException;
+
+    default void guardar(String clave, InputStream contenido) throws IOException {
+        try (Escritura escritura = escribir(clave)) {
+            contenido.transferTo(escritura.salida());
+            escritura.confirmar();
+        }
+    }
+
+    /**
+     * Flujo con el tramo [inicio, inicio + longitud) del documento; termina antes si el documento es
+     * más corto. Falla con NoSuchFileException si no existe.
+     */
+    InputStream leer(String clave, long inicio, long longitud) throws IOException;
+
+    default void transferir(String clave, long inicio, long longitud, OutputStream salida) throws IOException {
+        try (InputStream entrada = leer(clave, inicio, longitud)) {
+            if (entrada.transferTo(salida) < longitud) {
+                throw new IOException("El documento terminó antes de lo esperado: " + clave);
+            }
+        }
+        salida.flush();
+    }
+
+    Optional<Metadatos> consultar(String clave) throws IOException;
+
+    default boolean existe(String clave) throws IOException {
+        return consultar(clave).isPresent();
+    }
+
+    /**
+     * Hasta limite documentos dentro de la carpeta prefijo, en orden de clave y con clave mayor que
+     * despuesDe (vacío para empezar desde el principio). Guardando la última clave devuelta se puede
+     * recorrer el almacenamiento por tramos y reanudar donde se quedó.
+     */
+    List<Objeto> listar(String prefijo, String despuesDe, int limite) throws IOException;
+
+    /**
+     * Elimina el documento; no falla si ya no existe.
+     */
+    void eliminar(String clave) throws IOException;
+
+    /**
+     * Pasa el documento a otra clave, reemplazando lo que hubiera en ella.
+     */
+    void mover(String origen, String destino) throws IOException;
+}
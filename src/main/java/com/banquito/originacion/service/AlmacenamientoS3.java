@@ -0,0 +1,271 @@
+package com.banquito.originacion.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Documentos como objetos en un bucket S3 o compatible (MinIO, Ceph), para que varios nodos compartan
+ * el almacenamiento sin disco común.
+ *
+ * Las escrituras se suben por partes (multipart upload) a medida que se llena un búfer de
+ * tamanio-parte bytes, así que cada carga retiene como mucho una parte en memoria; los documentos
+ * menores que una parte se suben con un solo PUT. Cerrar sin confirmar aborta la carga. Las lecturas
+ * son GET con Range que se devuelven como flujo, sin descargar el objeto completo.
+ */
+@Component
+@ConditionalOnProperty(name = "originacion.documentos.almacenamiento.tipo", havingValue = "S3")
+public class AlmacenamientoS3 implements AlmacenamientoDocumentos {
+
+    private static final Logger log = LoggerFactory.getLogger(AlmacenamientoS3.class);
+    private static final int TAMANIO_MINIMO_PARTE = 5 * 1024 * 1024;
+    private static final int PARTE_INICIAL_BYTES = 64 * 1024;
+
+    private final S3Client s3;
+    private final String bucket;
+    private final int tamanioParte;
+
+    public AlmacenamientoS3(@Value("${originacion.documentos.almacenamiento.s3.endpoint:}") String endpoint,
+                            @Value("${originacion.documentos.almacenamiento.s3.region:us-east-1}") String region,
+                            @Value("${originacion.documentos.almacenamiento.s3.bucket:originacion-documentos}") String bucket,
+                            @Value("${originacion.documentos.almacenamiento.s3.access-key:}") String accessKey,
+                            @Value("${originacion.documentos.almacenamiento.s3.secret-key:}") String secretKey,
+                            @Value("${originacion.documentos.almacenamiento.s3.tamanio-parte:8388608}") int tamanioParte) {
+        if (tamanioParte < TAMANIO_MINIMO_PARTE) {
+            throw new IllegalArgumentException("El tamaño de parte de S3 debe ser de al menos 5 MB");
+        }
+        AwsCredentialsProvider credenciales = accessKey.isBlank()
+                ? DefaultCredentialsProvider.builder().build()
+                : StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        S3ClientBuilder builder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credenciales);
+        if (!endpoint.isBlank()) {
+            // Los servicios compatibles suelen no tener DNS por bucket
+            builder.endpointOverride(URI.create(endpoint)).forcePathStyle(true);
+        }
+        this.s3 = builder.build();
+        this.bucket = bucket;
+        this.tamanioParte = tamanioParte;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        s3.close();
+    }
+
+    @Override
+    public Escritura escribir(String clave) {
+        return new EscrituraMultiparte(objeto(clave));
+    }
+
+    @Override
+    public InputStream leer(String clave, long inicio, long longitud) throws IOException {
+        if (longitud <= 0) {
+            return InputStream.nullInputStream();
+        }
+        // Sin fin explícito cuando el tramo llega hasta el final del objeto
+        String rango = longitud > Long.MAX_VALUE - inicio
+                ? "bytes=" + inicio + "-"
+                : "bytes=" + inicio + "-" + (inicio + longitud - 1);
+        try {
+            return s3.getObject(peticion -> peticion.bucket(bucket).key(objeto(clave)).range(rango));
+        } catch (NoSuchKeyException e) {
+            throw new NoSuchFileException(clave);
+        } catch (SdkException e) {
+            throw new IOException("No se pudo leer el objeto " + clave + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Optional<Metadatos> consultar(String clave) throws IOException {
+        try {
+            HeadObjectResponse cabecera = s3.headObject(peticion -> peticion.bucket(bucket).key(objeto(clave)));
+            return Optional.of(new Metadatos(cabecera.contentLength(), cabecera.lastModified()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return Optional.empty();
+            }
+            throw new IOException("No se pudo consultar el objeto " + clave + ": " + e.getMessage(), e);
+        } catch (SdkException e) {
+            throw new IOException("No se pudo consultar el objeto " + clave + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * ListObjectsV2 con startAfter; el bucket ya devuelve las claves ordenadas. Si el prefijo es una
+     * ruta absoluta se devuelve la barra inicial que se quitó, para que coincidan con ruta_archivo.
+     */
+    @Override
+    public List<Objeto> listar(String prefijo, String despuesDe, int limite) throws IOException {
+        String carpeta = objeto(prefijo).endsWith("/") ? objeto(prefijo) : objeto(prefijo) + "/";
+        String raiz = prefijo.startsWith("/") ? "/" : "";
+        ListObjectsV2Request.Builder peticion = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .prefix(carpeta)
+                .maxKeys(Math.min(limite, 1000));
+        if (despuesDe != null && !despuesDe.isEmpty()) {
+            peticion.startAfter(objeto(despuesDe));
+        }
+        try {
+            return s3.listObjectsV2Paginator(peticion.build()).contents().stream()
+                    .limit(limite)
+                    .map(elemento -> new Objeto(raiz + elemento.key(), elemento.size(), elemento.lastModified()))
+                    .toList();
+        } catch (SdkException e) {
+            throw new IOException("No se pudo listar " + prefijo + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void eliminar(String clave) throws IOException {
+        try {
+            s3.deleteObject(peticion -> peticion.bucket(bucket).key(objeto(clave)));
+        } catch (SdkException e) {
+            throw new IOException("No se pudo eliminar el objeto " + clave + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copia en el servidor y borra el origen; el contenido no pasa por este nodo.
+     */
+    @Override
+    public void mover(String origen, String destino) throws IOException {
+        try {
+            s3.copyObject(peticion -> peticion.sourceBucket(bucket).sourceKey(objeto(origen))
+                    .destinationBucket(bucket).destinationKey(objeto(destino)));
+            s3.deleteObject(peticion -> peticion.bucket(bucket).key(objeto(origen)));
+        } catch (SdkException e) {
+            throw new IOException("No se pudo mover el objeto " + origen + " a " + destino + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Las claves son rutas relativas; se quita la barra inicial que dejaría una ruta absoluta.
+     */
+    private static String objeto(String clave) {
+        String objeto = clave.replace('\\', '/');
+        return objeto.startsWith("/") ? objeto.substring(1) : objeto;
+    }
+
+    private final class EscrituraMultiparte extends OutputStream implements Escritura {
+
+        private final String claveObjeto;
+        // Crece hasta tamanioParte: un documento pequeño no reserva la parte completa
+        private byte[] parte = new byte[Math.min(PARTE_INICIAL_BYTES, tamanioParte)];
+        private final List<CompletedPart> partes = new ArrayList<>();
+        private int usados;
+        private String idCarga;
+        private boolean confirmada;
+
+        private EscrituraMultiparte(String claveObjeto) {
+            this.claveObjeto = claveObjeto;
+        }
+
+        @Override
+        public OutputStream salida() {
+            return this;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] datos, int desde, int longitud) throws IOException {
+            while (longitud > 0) {
+                if (usados == parte.length) {
+                    parte = Arrays.copyOf(parte, (int) Math.min((long) parte.length * 2, tamanioParte));
+                }
+                int copiar = Math.min(longitud, parte.length - usados);
+                System.arraycopy(datos, desde, parte, usados, copiar);
+                usados += copiar;
+                desde += copiar;
+                longitud -= copiar;
+                if (usados == tamanioParte) {
+                    subirParte();
+                }
+            }
+        }
+
+        @Override
+        public void confirmar() throws IOException {
+            try {
+                if (idCarga == null) {
+                    s3.putObject(peticion -> peticion.bucket(bucket).key(claveObjeto),
+                            RequestBody.fromInputStream(new ByteArrayInputStream(parte, 0, usados), usados));
+                } else {
+                    if (usados > 0) {
+                        subirParte();
+                    }
+                    s3.completeMultipartUpload(peticion -> peticion.bucket(bucket).key(claveObjeto).uploadId(idCarga)
+                            .multipartUpload(carga -> carga.parts(partes)));
+                }
+                confirmada = true;
+            } catch (SdkException e) {
+                throw new IOException("No se pudo completar la carga de " + claveObjeto + ": " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (confirmada || idCarga == null) {
+                return;
+            }
+            try {
+                s3.abortMultipartUpload(peticion -> peticion.bucket(bucket).key(claveObjeto).uploadId(idCarga));
+            } catch (SdkException e) {
+                // El bucket debería tener una regla que limpie las cargas incompletas
+                log.warn("No se pudo abortar la carga por partes {} de {}: {}", idCarga, claveObjeto, e.getMessage());
+            }
+        }
+
+        private void subirParte() throws IOException {
+            try {
+                if (idCarga == null) {
+                    idCarga = s3.createMultipartUpload(peticion -> peticion.bucket(bucket).key(claveObjeto)).uploadId();
+                }
+                int numero = partes.size() + 1;
+                String etag = s3.uploadPart(peticion -> peticion.bucket(bucket).key(claveObjeto).uploadId(idCarga)
+                                .partNumber(numero).contentLength((long) usados),
+                        RequestBody.fromInputStream(new ByteArrayInputStream(parte, 0, usados), usados)).eTag();
+                partes.add(CompletedPart.builder().partNumber(numero).eTag(etag).build());
+                usados = 0;
+            } catch (SdkException e) {
+                throw new IOException("No se pudo subir la parte " + (partes.size() + 1) + " de " + claveObjeto
+                        + ": " + e.getMessage(), e);
+            }
+        }
+    }
+}
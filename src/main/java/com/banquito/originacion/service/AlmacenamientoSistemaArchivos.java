@@ -0,0 +1,203 @@
+package com.banquito.originacion.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Documentos como archivos en disco local (o en un disco compartido entre nodos); la clave es la ruta.
+ * Se escribe en un .parcial que se renombra al confirmar y las descargas usan FileChannel.transferTo.
+ */
+@Component
+@ConditionalOnProperty(name = "originacion.documentos.almacenamiento.tipo", havingValue = "SISTEMA_ARCHIVOS",
+        matchIfMissing = true)
+public class AlmacenamientoSistemaArchivos implements AlmacenamientoDocumentos {
+
+    @Override
+    public Escritura escribir(String clave) throws IOException {
+        Path destino = Paths.get(clave);
+        if (destino.getParent() != null) {
+            Files.createDirectories(destino.getParent());
+        }
+        Path parcial = destino.resolveSibling(destino.getFileName() + ".parcial");
+        FileChannel canal = FileChannel.open(parcial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        OutputStream salida = Channels.newOutputStream(canal);
+        return new Escritura() {
+            private boolean confirmada;
+
+            @Override
+            public OutputStream salida() {
+                return salida;
+            }
+
+            @Override
+            public void confirmar() throws IOException {
+                canal.force(false);
+                canal.close();
+                Files.move(parcial, destino, StandardCopyOption.ATOMIC_MOVE);
+                confirmada = true;
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!confirmada) {
+                    canal.close();
+                    Files.deleteIfExists(parcial);
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream leer(String clave, long inicio, long longitud) throws IOException {
+        FileChannel canal = FileChannel.open(Paths.get(clave), StandardOpenOption.READ);
+        canal.position(inicio);
+        return new EntradaAcotada(Channels.newInputStream(canal), longitud);
+    }
+
+    /**
+     * Copia el tramo con FileChannel.transferTo, sin pasar el contenido por el heap.
+     */
+    @Override
+    public void transferir(String clave, long inicio, long longitud, OutputStream salida) throws IOException {
+        try (FileChannel canal = FileChannel.open(Paths.get(clave), StandardOpenOption.READ)) {
+            WritableByteChannel destino = Channels.newChannel(salida);
+            long posicion = inicio;
+            long fin = inicio + longitud;
+            while (posicion < fin) {
+                long transferidos = canal.transferTo(posicion, fin - posicion, destino);
+                if (transferidos <= 0) {
+                    throw new IOException("El archivo terminó antes de lo esperado: " + clave);
+                }
+                posicion += transferidos;
+            }
+            salida.flush();
+        }
+    }
+
+    @Override
+    public Optional<Metadatos> consultar(String clave) throws IOException {
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(Paths.get(clave), BasicFileAttributes.class);
+            return Optional.of(new Metadatos(atributos.size(), atributos.lastModifiedTime().toInstant()));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Recorre el árbol en orden de clave sin leerlo entero: los hermanos se ordenan como se
+     * compararían sus claves (un directorio como "nombre/") y se saltan los subárboles que quedan
+     * completos antes de despuesDe.
+     */
+    @Override
+    public List<Objeto> listar(String prefijo, String despuesDe, int limite) throws IOException {
+        List<Objeto> objetos = new ArrayList<>();
+        Path raiz = Paths.get(prefijo);
+        if (Files.isDirectory(raiz)) {
+            recorrer(raiz, despuesDe == null ? "" : despuesDe, limite, objetos);
+        }
+        return objetos;
+    }
+
+    private static void recorrer(Path directorio, String despuesDe, int limite, List<Objeto> objetos)
+            throws IOException {
+        List<Path> hijos;
+        try (Stream<Path> listado = Files.list(directorio)) {
+            hijos = listado.sorted(Comparator.comparing(AlmacenamientoSistemaArchivos::claveOrden)).toList();
+        }
+        for (Path hijo : hijos) {
+            if (objetos.size() >= limite) {
+                return;
+            }
+            BasicFileAttributes atributos;
+            try {
+                atributos = Files.readAttributes(hijo, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                continue;
+            }
+            String clave = hijo.toString();
+            if (atributos.isDirectory()) {
+                String carpeta = clave + File.separator;
+                if (carpeta.compareTo(despuesDe) < 0 && !despuesDe.startsWith(carpeta)) {
+                    continue;
+                }
+                recorrer(hijo, despuesDe, limite, objetos);
+            } else if (atributos.isRegularFile() && clave.compareTo(despuesDe) > 0) {
+                objetos.add(new Objeto(clave, atributos.size(), atributos.lastModifiedTime().toInstant()));
+            }
+        }
+    }
+
+    private static String claveOrden(Path ruta) {
+        return Files.isDirectory(ruta) ? ruta + File.separator : ruta.toString();
+    }
+
+    @Override
+    public void eliminar(String clave) throws IOException {
+        Files.deleteIfExists(Paths.get(clave));
+    }
+
+    @Override
+    public void mover(String origen, String destino) throws IOException {
+        Path rutaDestino = Paths.get(destino);
+        if (rutaDestino.getParent() != null) {
+            Files.createDirectories(rutaDestino.getParent());
+        }
+        Files.move(Paths.get(origen), rutaDestino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static final class EntradaAcotada extends FilterInputStream {
+
+        private long restantes;
+
+        EntradaAcotada(InputStream entrada, long longitud) {
+            super(entrada);
+            this.restantes = longitud;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (restantes <= 0) {
+                return -1;
+            }
+            int leido = super.read();
+            if (leido >= 0) {
+                restantes--;
+            }
+            return leido;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int longitud) throws IOException {
+            if (restantes <= 0) {
+                return -1;
+            }
+            int leidos = super.read(destino, desde, (int) Math.min(longitud, restantes));
+            if (leidos > 0) {
+                restantes -= leidos;
+            }
+            return leidos;
+        }
+    }
+}
@@ -1,19 +1,34 @@
 package com.banquito.originacion.service;
 
 import com.banquito.originacion.controller.dto.AuditoriaDTO;
+import com.banquito.originacion.controller.dto.AuditoriaResumenDiarioDTO;
 import com.banquito.originacion.controller.mapper.AuditoriaMapper;
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.ModoAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import com.banquito.originacion.exception.CreateEntityException;
 import com.banquito.originacion.exception.ResourceNotFoundException;
 import com.banquito.originacion.model.Auditoria;
 import com.banquito.originacion.repository.AuditoriaRepository;
+import com.banquito.originacion.repository.AuditoriaResumenDiarioRepository;
+import com.banquito.originacion.util.TransaccionUtils;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.Valid;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,21 +37,49 @@ import java.util.stream.Collectors;
 @Validated
 public class AuditoriaService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuditoriaService.class);
+
+    public static final String CABECERA_USUARIO = "X-Usuario";
+    private static final int MAX_CAMBIOS = 500;
+    private static final int MAX_ACTOR = 50;
+
     private final AuditoriaRepository repository;
+    private final AuditoriaResumenDiarioRepository resumenRepository;
     private final AuditoriaMapper mapper;
+    private final EscritorAuditoriaAsincrono escritor;
+    private final BitacoraSegmentosAuditoria bitacora;
+    private final ModoAuditoriaEnum modo;
+    private final int diasPorDefecto;
+    private final Counter fallidas;
 
     public AuditoriaService(AuditoriaRepository repository,
-            AuditoriaMapper mapper) {
+            AuditoriaResumenDiarioRepository resumenRepository,
+            AuditoriaMapper mapper,
+            EscritorAuditoriaAsincrono escritor,
+            BitacoraSegmentosAuditoria bitacora,
+            MeterRegistry meterRegistry,
+            @Value("${originacion.auditoria.modo:ESTRICTO}") ModoAuditoriaEnum modo,
+            @Value("${originacion.auditoria.consulta.dias-por-defecto:30}") int diasPorDefecto) {
         this.repository = repository;
+        this.resumenRepository = resumenRepository;
         this.mapper = mapper;
+        this.escritor = escritor;
+        this.bitacora = bitacora;
+        this.modo = modo;
+        this.diasPorDefecto = diasPorDefecto;
+        this.fallidas = meterRegistry.counter("originacion.auditoria.fallidas");
     }
 
     /**
-     * Lista todas las auditorías.
+     * Lista una página de auditorías, las más recientes primero. Si no se indica rango se
+     * consultan los últimos días configurados, de modo que solo se leen las particiones recientes.
      */
     @Transactional(readOnly = true)
-    public List<AuditoriaDTO> findAll() {
-        return repository.findAll().stream()
+    public List<AuditoriaDTO> findAll(LocalDateTime desde, LocalDateTime hasta, int pagina, int tamanio) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(diasPorDefecto);
+        PageRequest pageRequest = PageRequest.of(pagina, tamanio, Sort.by(Sort.Direction.DESC, "fechaHora"));
+        return repository.findByFechaHoraBetween(inicio, fin, pageRequest).stream()
                 .map(mapper::toDTO)
                 .collect(Collectors.toList());
     }
@@ -64,11 +107,14 @@ public class AuditoriaService {
     }
 
     /**
-     * Lista todas las auditorías de un tipo de acción (INSERT, UPDATE o DELETE).
+     * Lista las auditorías de un tipo de acción (INSERT, UPDATE o DELETE) dentro de un rango de
+     * fechas; sin rango se consultan los últimos días configurados.
      */
     @Transactional(readOnly = true)
-    public List<AuditoriaDTO> findByAccion(AccionAuditoriaEnum accion) {
-        return repository.findByAccion(accion).stream()
+    public List<AuditoriaDTO> findByAccion(AccionAuditoriaEnum accion, LocalDateTime desde, LocalDateTime hasta) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(diasPorDefecto);
+        return repository.findByAccionAndFechaHoraBetweenOrderByFechaHoraDesc(accion, inicio, fin).stream()
                 .map(mapper::toDTO)
                 .collect(Collectors.toList());
     }
@@ -83,6 +129,39 @@ public class AuditoriaService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Historial de auditorías de una entidad, las más recientes primero.
+     */
+    @Transactional(readOnly = true)
+    public List<AuditoriaDTO> findByEntidad(TipoEntidadAuditoriaEnum tipoEntidad, Integer idEntidad) {
+        return repository.findByTipoEntidadAndIdEntidadOrderByFechaHoraDesc(tipoEntidad, idEntidad).stream()
+                .map(mapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Página de auditorías de un usuario; sin rango se consultan los últimos días configurados.
+     */
+    @Transactional(readOnly = true)
+    public List<AuditoriaDTO> findByActor(String actor, LocalDateTime desde, LocalDateTime hasta, int pagina, int tamanio) {
+        LocalDateTime fin = hasta != null ? hasta : LocalDateTime.now();
+        LocalDateTime inicio = desde != null ? desde : fin.minusDays(diasPorDefecto);
+        PageRequest pageRequest = PageRequest.of(pagina, tamanio, Sort.by(Sort.Direction.DESC, "fechaHora"));
+        return repository.findByActorAndFechaHoraBetween(actor, inicio, fin, pageRequest).stream()
+                .map(mapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lista los conteos diarios de las auditorías ya compactadas entre dos fechas (inclusive).
+     */
+    @Transactional(readOnly = true)
+    public List<AuditoriaResumenDiarioDTO> findResumenDiario(LocalDate desde, LocalDate hasta) {
+        return resumenRepository.findByFechaBetweenOrderByFechaAscTablaAsc(desde, hasta).stream()
+                .map(mapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Crea una nueva entrada de auditoría.
      */
@@ -107,4 +186,70 @@ public class AuditoriaService {
                     "Error al crear la entrada de auditoría. Detalle: " + e.getMessage());
         }
     }
+
+    /**
+     * Registra la auditoría de una operación de negocio según el modo configurado.
+     * ESTRICTO la inserta dentro de la transacción en curso; ASINCRONO la encola al confirmar
+     * la transacción y la escribe el escritor en lote, y SEGMENTADO la anexa al confirmar a la
+     * bitácora local en disco, que se carga después con COPY. En ambos casos un rollback no deja rastro,
+     * y un fallo al entregarla tras el commit se cuenta y se registra en el log sin llegar al llamador:
+     * la operación de negocio ya está confirmada.
+     */
+    public void registrar(AuditoriaDTO dto) {
+        if (dto.getActor() == null) {
+            dto.setActor(actorDeLaPeticion());
+        }
+        if (modo == ModoAuditoriaEnum.ESTRICTO) {
+            createAuditoria(dto);
+            return;
+        }
+        Auditoria entity = mapper.toModel(dto);
+        entity.setId(null);
+        if (entity.getFechaHora() == null) {
+            entity.setFechaHora(LocalDateTime.now());
+        }
+        TransaccionUtils.despuesDelCommit(() -> entregar(entity));
+    }
+
+    private void entregar(Auditoria entity) {
+        try {
+            if (modo == ModoAuditoriaEnum.SEGMENTADO) {
+                bitacora.anexar(entity);
+            } else {
+                escritor.encolar(entity);
+            }
+        } catch (RuntimeException e) {
+            fallidas.increment();
+            log.error("No se pudo registrar la auditoría {} de {} {}: {}", entity.getAccion(), entity.getTabla(),
+                    entity.getIdEntidad(), e.getMessage());
+        }
+    }
+
+    /**
+     * Registra la auditoría de una entidad con su clave estructurada. Si no se indica actor se
+     * toma de la cabecera X-Usuario de la petición en curso.
+     */
+    public void registrar(TipoEntidadAuditoriaEnum tipoEntidad, Integer idEntidad, AccionAuditoriaEnum accion,
+                          String actor, String cambios) {
+        AuditoriaDTO dto = new AuditoriaDTO();
+        dto.setTabla(tipoEntidad.getValor());
+        dto.setAccion(accion);
+        dto.setFechaHora(LocalDateTime.now());
+        dto.setTipoEntidad(tipoEntidad);
+        dto.setIdEntidad(idEntidad);
+        dto.setActor(recortar(actor, MAX_ACTOR));
+        dto.setCambios(recortar(cambios, MAX_CAMBIOS));
+        registrar(dto);
+    }
+
+    private String actorDeLaPeticion() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes atributos) {
+            return recortar(atributos.getRequest().getHeader(CABECERA_USUARIO), MAX_ACTOR);
+        }
+        return null;
+    }
+
+    private static String recortar(String valor, int maximo) {
+        return valor != null && valor.length() > maximo ? valor.substring(0, maximo) : valor;
+    }
 }
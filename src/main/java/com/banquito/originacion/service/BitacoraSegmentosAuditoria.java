@@ -0,0 +1,321 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.PoliticaSincronizacionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
+import com.banquito.originacion.model.Auditoria;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Bitácora local de auditorías en segmentos de tamaño fijo mapeados en memoria. Cada registro se
+ * escribe como [longitud][crc32c][contenido]; una longitud 0 marca el final de lo escrito. El
+ * segmento activo termina en .abierto y al sellarse pasa a .seg, listo para que
+ * CompactadorSegmentosAuditoria lo cargue en la base de datos.
+ *
+ * Al iniciar, los segmentos .abierto que quedaron de una caída se sellan con los registros cuyo
+ * CRC es válido, de modo que se reprocesan sin perder lo ya escrito.
+ *
+ * El nombre de cada segmento lleva el instante de apertura, un identificador aleatorio del proceso y
+ * un contador, así que no se repite tras un reinicio (cuando los anteriores ya se cargaron y borraron)
+ * ni entre nodos que cargan en la misma tabla segmentos_auditoria.
+ */
+@Component
+public class BitacoraSegmentosAuditoria {
+
+    private static final Logger log = LoggerFactory.getLogger(BitacoraSegmentosAuditoria.class);
+
+    private static final int MAGICO = 0x41554431; // "AUD1"
+    private static final int CABECERA_SEGMENTO = 8;
+    private static final int CABECERA_REGISTRO = 8;
+    private static final String EXTENSION_ABIERTO = ".abierto";
+    private static final String EXTENSION_SELLADO = ".seg";
+
+    private final Path directorio;
+    private final int tamanioSegmento;
+    private final PoliticaSincronizacionAuditoriaEnum politica;
+    private final ReentrantLock candado = new ReentrantLock();
+    private final String nodo = String.format("%016x", new SecureRandom().nextLong());
+
+    private long secuencia;
+    private Path rutaActiva;
+    private FileChannel canalActivo;
+    private MappedByteBuffer segmentoActivo;
+    private int registrosActivos;
+    private boolean pendienteSincronizar;
+
+    public BitacoraSegmentosAuditoria(
+            @Value("${originacion.auditoria.segmentos.directorio:data/auditoria}") String directorio,
+            @Value("${originacion.auditoria.segmentos.tamanio-bytes:16777216}") int tamanioSegmento,
+            @Value("${originacion.auditoria.segmentos.sincronizacion:PERIODICA}") PoliticaSincronizacionAuditoriaEnum politica) {
+        this.directorio = Paths.get(directorio);
+        this.tamanioSegmento = tamanioSegmento;
+        this.politica = politica;
+    }
+
+    /**
+     * Sella los segmentos abiertos que dejó una ejecución anterior.
+     */
+    @PostConstruct
+    public void recuperar() throws IOException {
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        for (Path ruta : listar(EXTENSION_ABIERTO)) {
+            int registros = leer(ruta).size();
+            if (registros == 0) {
+                Files.delete(ruta);
+            } else {
+                Files.move(ruta, conExtension(ruta, EXTENSION_SELLADO), StandardCopyOption.ATOMIC_MOVE);
+                log.info("Segmento de auditoría {} recuperado con {} registros", ruta.getFileName(), registros);
+            }
+        }
+    }
+
+    /**
+     * Añade la auditoría al segmento activo; si no cabe, sella el segmento y abre otro.
+     */
+    public void anexar(Auditoria auditoria) {
+        byte[] contenido = codificar(auditoria);
+        int longitud = CABECERA_REGISTRO + contenido.length;
+        if (longitud + 4 > tamanioSegmento - CABECERA_SEGMENTO) {
+            throw new IllegalArgumentException("Registro de auditoría de " + longitud + " bytes excede el segmento");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(contenido);
+
+        candado.lock();
+        try {
+            // Se reservan 4 bytes al final para que siempre quepa la marca de fin
+            if (segmentoActivo == null || segmentoActivo.remaining() < longitud + 4) {
+                sellarActivoInterno();
+                abrirSegmento();
+            }
+            int inicio = segmentoActivo.position();
+            segmentoActivo.putInt(inicio + 4, (int) crc.getValue());
+            segmentoActivo.put(inicio + CABECERA_REGISTRO, contenido);
+            // La longitud se escribe al final: un registro a medias queda con longitud 0
+            segmentoActivo.putInt(inicio, contenido.length);
+            segmentoActivo.position(inicio + longitud);
+            registrosActivos++;
+            if (politica == PoliticaSincronizacionAuditoriaEnum.SIEMPRE) {
+                segmentoActivo.force(inicio, longitud);
+            } else {
+                pendienteSincronizar = true;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en la bitácora de auditoría", e);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${originacion.auditoria.segmentos.sincronizacion-ms:1000}")
+    public void sincronizar() {
+        if (politica != PoliticaSincronizacionAuditoriaEnum.PERIODICA) {
+            return;
+        }
+        candado.lock();
+        try {
+            if (segmentoActivo != null && pendienteSincronizar) {
+                segmentoActivo.force();
+                pendienteSincronizar = false;
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Sella el segmento activo si tiene registros, para que el compactador pueda cargarlo.
+     */
+    public void sellarActivo() {
+        candado.lock();
+        try {
+            sellarActivoInterno();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo sellar el segmento de auditoría", e);
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Segmentos sellados pendientes de cargar, en orden de escritura.
+     */
+    public List<Path> segmentosSellados() throws IOException {
+        return Files.isDirectory(directorio) ? listar(EXTENSION_SELLADO) : List.of();
+    }
+
+    /**
+     * Lee los registros válidos de un segmento, deteniéndose en la marca de fin o en el primer
+     * registro con CRC incorrecto.
+     */
+    public List<Auditoria> leer(Path ruta) throws IOException {
+        List<Auditoria> auditorias = new ArrayList<>();
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (buffer.remaining() < CABECERA_SEGMENTO || buffer.getInt(0) != MAGICO) {
+                log.warn("Segmento de auditoría {} sin cabecera válida", ruta.getFileName());
+                return auditorias;
+            }
+            int posicion = CABECERA_SEGMENTO;
+            CRC32C crc = new CRC32C();
+            while (posicion + CABECERA_REGISTRO <= buffer.limit()) {
+                int longitud = buffer.getInt(posicion);
+                if (longitud <= 0 || posicion + CABECERA_REGISTRO + longitud > buffer.limit()) {
+                    break;
+                }
+                byte[] contenido = new byte[longitud];
+                buffer.get(posicion + CABECERA_REGISTRO, contenido);
+                crc.reset();
+                crc.update(contenido);
+                if ((int) crc.getValue() != buffer.getInt(posicion + 4)) {
+                    log.warn("Registro con CRC inválido en {} (posición {}), se descarta el resto",
+                            ruta.getFileName(), posicion);
+                    break;
+                }
+                auditorias.add(decodificar(ByteBuffer.wrap(contenido)));
+                posicion += CABECERA_REGISTRO + longitud;
+            }
+        }
+        return auditorias;
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        sellarActivo();
+    }
+
+    private void abrirSegmento() throws IOException {
+        Files.createDirectories(directorio);
+        secuencia++;
+        rutaActiva = directorio.resolve(String.format("auditoria-%013d-%s-%06d%s", System.currentTimeMillis(), nodo,
+                secuencia, EXTENSION_ABIERTO));
+        canalActivo = FileChannel.open(rutaActiva, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentoActivo = canalActivo.map(FileChannel.MapMode.READ_WRITE, 0, tamanioSegmento);
+        segmentoActivo.putInt(0, MAGICO);
+        segmentoActivo.putInt(4, 1);
+        segmentoActivo.position(CABECERA_SEGMENTO);
+        registrosActivos = 0;
+    }
+
+    private void sellarActivoInterno() throws IOException {
+        if (segmentoActivo == null) {
+            return;
+        }
+        if (politica != PoliticaSincronizacionAuditoriaEnum.NUNCA) {
+            segmentoActivo.force();
+        }
+        canalActivo.close();
+        if (registrosActivos > 0) {
+            Files.move(rutaActiva, conExtension(rutaActiva, EXTENSION_SELLADO), StandardCopyOption.ATOMIC_MOVE);
+        } else {
+            Files.delete(rutaActiva);
+        }
+        segmentoActivo = null;
+        canalActivo = null;
+        rutaActiva = null;
+        pendienteSincronizar = false;
+    }
+
+    private List<Path> listar(String extension) throws IOException {
+        try (Stream<Path> rutas = Files.list(directorio)) {
+            return rutas.filter(ruta -> ruta.getFileName().toString().endsWith(extension))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Path conExtension(Path ruta, String extension) {
+        String nombre = ruta.getFileName().toString();
+        return ruta.resolveSibling(nombre.substring(0, nombre.indexOf('.')) + extension);
+    }
+
+    // Formato: segundos(8) nanos(4) accion(1) tipoEntidad(1) idEntidad(4) tabla actor cambios
+    private static byte[] codificar(Auditoria auditoria) {
+        byte[] tabla = bytes(auditoria.getTabla());
+        byte[] actor = bytes(auditoria.getActor());
+        byte[] cambios = bytes(auditoria.getCambios());
+        ByteBuffer buffer = ByteBuffer.allocate(18 + longitudCampo(tabla) + longitudCampo(actor) + longitudCampo(cambios));
+        LocalDateTime fechaHora = auditoria.getFechaHora();
+        buffer.putLong(fechaHora.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(fechaHora.getNano());
+        buffer.put((byte) auditoria.getAccion().ordinal());
+        buffer.put(auditoria.getTipoEntidad() != null ? (byte) auditoria.getTipoEntidad().ordinal() : (byte) -1);
+        buffer.putInt(auditoria.getIdEntidad() != null ? auditoria.getIdEntidad() : Integer.MIN_VALUE);
+        escribirCampo(buffer, tabla);
+        escribirCampo(buffer, actor);
+        escribirCampo(buffer, cambios);
+        return buffer.array();
+    }
+
+    private static Auditoria decodificar(ByteBuffer buffer) {
+        Auditoria auditoria = new Auditoria();
+        long segundos = buffer.getLong();
+        int nanos = buffer.getInt();
+        auditoria.setFechaHora(LocalDateTime.ofEpochSecond(segundos, nanos, ZoneOffset.UTC));
+        auditoria.setAccion(AccionAuditoriaEnum.values()[buffer.get()]);
+        byte tipoEntidad = buffer.get();
+        auditoria.setTipoEntidad(tipoEntidad >= 0 ? TipoEntidadAuditoriaEnum.values()[tipoEntidad] : null);
+        int idEntidad = buffer.getInt();
+        auditoria.setIdEntidad(idEntidad != Integer.MIN_VALUE ? idEntidad : null);
+        auditoria.setTabla(leerCampo(buffer));
+        auditoria.setActor(leerCampo(buffer));
+        auditoria.setCambios(leerCampo(buffer));
+        return auditoria;
+    }
+
+    private static byte[] bytes(String valor) {
+        return valor != null ? valor.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static int longitudCampo(byte[] valor) {
+        return 2 + (valor != null ? valor.length : 0);
+    }
+
+    private static void escribirCampo(ByteBuffer buffer, byte[] valor) {
+        if (valor == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) valor.length);
+            buffer.put(valor);
+        }
+    }
+
+    private static String leerCampo(ByteBuffer buffer) {
+        short longitud = buffer.getShort();
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] valor = new byte[longitud];
+        buffer.get(valor);
+        return new String(valor, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,109 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.SolicitudCreditoDTO;
+import com.banquito.originacion.util.TransaccionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de lectura de solicitudes por número, pensada para el sondeo de estado del portal de
+ * concesionarios. Guarda el DTO (que incluye la versión usada como ETag).
+ *
+ * Cada escritura invalida la entrada de inmediato y otra vez tras el commit. Cada número lleva su
+ * propia versión: invalidar deja en su lugar una marca vacía con una versión nueva, y una carga solo
+ * se guarda, con una única operación atómica sobre la clave, si la versión sigue siendo la que tenía
+ * al empezar. Así un valor leído antes de una invalidación nunca se reinserta, y las cargas de otros
+ * números no se ven afectadas. Si la marca se desalojó entretanto, la carga no se guarda. Las cargas
+ * deben leer de la primaria (la versión no cubre el retraso de una réplica). El TTL acota la
+ * desactualización frente a escrituras hechas desde otros nodos.
+ */
+@Component
+public class CacheSolicitudesPorNumero {
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicLong versiones = new AtomicLong();
+    private final int maxEntradas;
+    private final long ttlMs;
+
+    public CacheSolicitudesPorNumero(@Value("${originacion.solicitudes.cache.max-entradas:10000}") int maxEntradas,
+                                     @Value("${originacion.solicitudes.cache.ttl-ms:60000}") long ttlMs) {
+        this.maxEntradas = maxEntradas;
+        this.ttlMs = ttlMs;
+    }
+
+    public SolicitudCreditoDTO obtener(String numeroSolicitud) {
+        Entrada entrada = entradas.get(numeroSolicitud);
+        if (entrada == null || entrada.solicitud() == null) {
+            return null;
+        }
+        if (entrada.expiraEn() < System.currentTimeMillis()) {
+            entradas.remove(numeroSolicitud, entrada);
+            return null;
+        }
+        return entrada.solicitud();
+    }
+
+    /**
+     * Versión del número que debe tomarse antes de leer de la base de datos y pasarse a
+     * {@link #guardar}. Si no hay entrada vigente deja una marca vacía con versión nueva.
+     */
+    public long marcaLectura(String numeroSolicitud) {
+        if (entradas.size() >= maxEntradas) {
+            desalojar();
+        }
+        long ahora = System.currentTimeMillis();
+        return entradas.compute(numeroSolicitud, (numero, entrada) -> entrada != null && entrada.expiraEn() >= ahora
+                ? entrada
+                : marcaVacia(ahora)).version();
+    }
+
+    /**
+     * Guarda lo leído solo si el número no se invalidó desde que se tomó la marca.
+     */
+    public void guardar(String numeroSolicitud, SolicitudCreditoDTO solicitud, long marcaLectura) {
+        entradas.computeIfPresent(numeroSolicitud, (numero, entrada) -> entrada.version() == marcaLectura
+                ? new Entrada(solicitud, marcaLectura, System.currentTimeMillis() + ttlMs)
+                : entrada);
+    }
+
+    /**
+     * Invalida la entrada ahora y nuevamente cuando confirme la transacción en curso.
+     */
+    public void invalidar(String numeroSolicitud) {
+        if (numeroSolicitud == null) {
+            return;
+        }
+        invalidarAhora(numeroSolicitud);
+        TransaccionUtils.despuesDelCommit(() -> invalidarAhora(numeroSolicitud));
+    }
+
+    // Sin entrada no hay valor ni carga en curso que proteger: la próxima carga tomará una versión nueva
+    private void invalidarAhora(String numeroSolicitud) {
+        entradas.computeIfPresent(numeroSolicitud, (numero, entrada) -> marcaVacia(System.currentTimeMillis()));
+    }
+
+    private Entrada marcaVacia(long ahora) {
+        return new Entrada(null, versiones.incrementAndGet(), ahora + ttlMs);
+    }
+
+    private void desalojar() {
+        long ahora = System.currentTimeMillis();
+        entradas.values().removeIf(entrada -> entrada.expiraEn() < ahora);
+        // Si sigue lleno se descarta una décima parte arbitraria
+        Iterator<String> claves = entradas.keySet().iterator();
+        int aDescartar = entradas.size() >= maxEntradas ? Math.max(1, maxEntradas / 10) : 0;
+        while (aDescartar-- > 0 && claves.hasNext()) {
+            claves.next();
+            claves.remove();
+        }
+    }
+
+    // solicitud es null en las marcas vacías que deja una invalidación o una carga en curso
+    private record Entrada(SolicitudCreditoDTO solicitud, long version, long expiraEn) {
+    }
+}
@@ -0,0 +1,310 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.config.CargasReanudablesProperties;
+import com.banquito.originacion.controller.dto.CargaReanudableDTO;
+import com.banquito.originacion.controller.dto.DocumentoAdjuntoDTO;
+import com.banquito.originacion.exception.ContenidoInvalidoException;
+import com.banquito.originacion.exception.CreateEntityException;
+import com.banquito.originacion.exception.ResourceNotFoundException;
+import com.banquito.originacion.model.CargaReanudable;
+import com.banquito.originacion.model.TipoDocumento;
+import com.banquito.originacion.repository.CargaReanudableRepository;
+import com.banquito.originacion.repository.SolicitudCreditoRepository;
+import com.banquito.originacion.repository.TipoDocumentoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cargas reanudables de documentos grandes para conexiones inestables. El cliente crea la carga con
+ * el tamaño y el SHA-256 del documento, envía tramos indicando el desplazamiento desde el que empiezan
+ * y, si la conexión se corta, consulta cuántos bytes quedaron guardados y continúa desde ahí.
+ *
+ * Cada tramo se escribe con escrituras posicionales en un archivo temporal local y se sincroniza a
+ * disco antes de avanzar bytes_recibidos, así que el desplazamiento informado nunca incluye bytes
+ * perdidos. Si la conexión se corta a mitad de un tramo se conserva lo que llegó. Un tramo cuyo
+ * desplazamiento no coincide con bytes_recibidos, o que llega mientras otro de la misma carga se está
+ * escribiendo, se rechaza sin escribir nada.
+ *
+ * Al finalizar, el temporal pasa por la misma validación y persistencia que una carga directa
+ * ({@link DocumentacionService#cargarDocumentoVerificado}) con el límite de tamaño del tipo de
+ * documento, y se compara el SHA-256 calculado con el declarado. Los tramos se guardan en el nodo que
+ * los recibe: con varios nodos el directorio debe ser compartido o las peticiones de una carga deben
+ * llegar al mismo nodo.
+ */
+@Component
+public class CargasReanudablesDocumentos {
+
+    private static final Logger log = LoggerFactory.getLogger(CargasReanudablesDocumentos.class);
+
+    private static final int TAMANIO_BLOQUE = 64 * 1024;
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-fA-F]{64}");
+
+    public record ResultadoTramo(CargaReanudableDTO carga, boolean aceptado) {
+    }
+
+    private final CargaReanudableRepository cargaRepository;
+    private final SolicitudCreditoRepository solicitudRepository;
+    private final TipoDocumentoRepository tipoDocumentoRepository;
+    private final DocumentacionService documentacionService;
+    private final CargasReanudablesProperties properties;
+    private final Path directorio;
+    private final Set<Integer> enCurso = ConcurrentHashMap.newKeySet();
+
+    public CargasReanudablesDocumentos(CargaReanudableRepository cargaRepository,
+                                       SolicitudCreditoRepository solicitudRepository,
+                                       TipoDocumentoRepository tipoDocumentoRepository,
+                                       DocumentacionService documentacionService,
+                                       CargasReanudablesProperties properties) throws IOException {
+        this.cargaRepository = cargaRepository;
+        this.solicitudRepository = solicitudRepository;
+        this.tipoDocumentoRepository = tipoDocumentoRepository;
+        this.documentacionService = documentacionService;
+        this.properties = properties;
+        this.directorio = Files.createDirectories(Paths.get(properties.getDirectorio()));
+    }
+
+    public CargaReanudableDTO crear(Integer idSolicitud, Integer idTipoDocumento, long tamanioBytes, String hashSha256) {
+        if (!solicitudRepository.existsById(idSolicitud)) {
+            throw new ResourceNotFoundException("Solicitud no encontrada con id=" + idSolicitud);
+        }
+        TipoDocumento tipoDocumento = tipoDocumentoRepository.findById(idTipoDocumento)
+                .orElseThrow(() -> new ResourceNotFoundException("Tipo de documento no encontrado con id=" + idTipoDocumento));
+        if (tamanioBytes <= 0 || tamanioBytes > tamanioMaximo(tipoDocumento.getNombre())) {
+            throw new CreateEntityException("Documento", "El tamaño del archivo excede el límite permitido para "
+                    + tipoDocumento.getNombre());
+        }
+        if (hashSha256 == null || !SHA256.matcher(hashSha256).matches()) {
+            throw new CreateEntityException("Documento", "El SHA-256 del documento debe tener 64 caracteres hexadecimales");
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        CargaReanudable carga = new CargaReanudable();
+        carga.setIdSolicitud(idSolicitud);
+        carga.setIdTipoDocumento(idTipoDocumento);
+        carga.setTamanioBytes(tamanioBytes);
+        carga.setBytesRecibidos(0L);
+        carga.setHashSha256(hashSha256.toLowerCase(Locale.ROOT));
+        carga.setFechaCreacion(ahora);
+        carga.setFechaActualizacion(ahora);
+        carga = cargaRepository.save(carga);
+        log.info("Carga reanudable {} creada para solicitud {}: {} bytes", carga.getId(), idSolicitud, tamanioBytes);
+        return toDTO(carga);
+    }
+
+    public CargaReanudableDTO consultar(Integer idCarga) {
+        return toDTO(buscar(idCarga));
+    }
+
+    /**
+     * Escribe el tramo a partir del desplazamiento indicado. No se acepta si el desplazamiento no es el
+     * número de bytes ya recibidos o si otro tramo de la misma carga está en curso; en ambos casos se
+     * devuelve el estado actual para que el cliente continúe desde bytesRecibidos.
+     */
+    public ResultadoTramo recibirTramo(Integer idCarga, long desplazamiento, InputStream contenido) {
+        CargaReanudable carga = buscar(idCarga);
+        if (!enCurso.add(idCarga)) {
+            return new ResultadoTramo(toDTO(carga), false);
+        }
+        try {
+            carga = buscar(idCarga);
+            if (desplazamiento != carga.getBytesRecibidos()) {
+                return new ResultadoTramo(toDTO(carga), false);
+            }
+            Path temporal = temporal(idCarga);
+            if (desplazamiento > 0 && !Files.exists(temporal)) {
+                throw new ResourceNotFoundException("Los tramos de la carga " + idCarga + " no están en este nodo");
+            }
+            long recibidos = escribirTramo(temporal, desplazamiento, carga.getTamanioBytes(), contenido);
+            carga.setBytesRecibidos(recibidos);
+            carga.setFechaActualizacion(LocalDateTime.now());
+            carga = cargaRepository.save(carga);
+            return new ResultadoTramo(toDTO(carga), true);
+        } catch (IOException e) {
+            throw new CreateEntityException("Documento", "Error al guardar el tramo: " + e.getMessage());
+        } finally {
+            enCurso.remove(idCarga);
+        }
+    }
+
+    /**
+     * Registra el documento de una carga completa. Si el contenido no es un PDF válido o su SHA-256 no
+     * coincide ({@link ContenidoInvalidoException}) la carga se descarta; ante cualquier otro error (del
+     * almacenamiento, del plazo de carga) se conservan la carga y su temporal para reintentar.
+     */
+    public DocumentoAdjuntoDTO finalizar(Integer idCarga) {
+        if (!enCurso.add(idCarga)) {
+            throw new CreateEntityException("Documento", "La carga " + idCarga + " está recibiendo un tramo");
+        }
+        try {
+            CargaReanudable carga = buscar(idCarga);
+            if (carga.getBytesRecibidos() < carga.getTamanioBytes()) {
+                throw new CreateEntityException("Documento", "La carga está incompleta: recibidos "
+                        + carga.getBytesRecibidos() + " de " + carga.getTamanioBytes() + " bytes");
+            }
+            DocumentoAdjuntoDTO documento;
+            try (InputStream contenido = Files.newInputStream(temporal(idCarga))) {
+                documento = documentacionService.cargarDocumentoVerificado(carga.getIdSolicitud(),
+                        carga.getIdTipoDocumento(), contenido, carga.getTamanioBytes(), carga.getHashSha256());
+            } catch (ContenidoInvalidoException e) {
+                descartar(carga);
+                throw e;
+            } catch (IOException e) {
+                throw new CreateEntityException("Documento", "Error al leer la carga: " + e.getMessage());
+            }
+            descartar(carga);
+            log.info("Carga reanudable {} registrada como documento {}", idCarga, documento.getId());
+            return documento;
+        } finally {
+            enCurso.remove(idCarga);
+        }
+    }
+
+    public void cancelar(Integer idCarga) {
+        if (!enCurso.add(idCarga)) {
+            throw new CreateEntityException("Documento", "La carga " + idCarga + " está recibiendo un tramo");
+        }
+        try {
+            descartar(buscar(idCarga));
+        } finally {
+            enCurso.remove(idCarga);
+        }
+    }
+
+    /**
+     * Tamaño máximo de un documento del tipo indicado recibido por carga reanudable.
+     */
+    public long tamanioMaximo(String nombreTipo) {
+        return properties.getTamanioMaximo().getOrDefault(nombreTipo, properties.getTamanioMaximoPorDefecto());
+    }
+
+    /**
+     * Descarta las cargas sin actividad durante expiracion-minutos y los temporales locales igual de
+     * antiguos, incluidos los de cargas que otro nodo ya descartó.
+     */
+    @Scheduled(fixedDelayString = "${originacion.documentos.cargas-reanudables.limpieza-ms:3600000}",
+            initialDelayString = "${originacion.documentos.cargas-reanudables.limpieza-ms:3600000}")
+    public void limpiarExpiradas() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(properties.getExpiracionMinutos());
+        for (CargaReanudable carga : cargaRepository.findByFechaActualizacionBefore(limite)) {
+            if (enCurso.add(carga.getId())) {
+                try {
+                    descartar(carga);
+                } finally {
+                    enCurso.remove(carga.getId());
+                }
+            }
+        }
+
+        FileTime limiteArchivos = FileTime.from(Instant.now().minus(Duration.ofMinutes(properties.getExpiracionMinutos())));
+        try (Stream<Path> temporales = Files.list(directorio)) {
+            List<Path> expirados = temporales
+                    .filter(ruta -> esTemporalExpirado(ruta, limiteArchivos))
+                    .toList();
+            for (Path ruta : expirados) {
+                Files.deleteIfExists(ruta);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudieron limpiar los temporales de cargas reanudables: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Escribe el contenido en el temporal desde la posición indicada, sin pasar de tamanioTotal, y lo
+     * sincroniza a disco. Devuelve la posición hasta la que quedó escrito.
+     */
+    static long escribirTramo(Path temporal, long desde, long tamanioTotal, InputStream contenido) throws IOException {
+        long posicion = desde;
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer bloque = ByteBuffer.allocate(TAMANIO_BLOQUE);
+            try {
+                while (true) {
+                    int leidos;
+                    try {
+                        leidos = contenido.read(bloque.array());
+                    } catch (IOException e) {
+                        // El cliente cortó la conexión: se conserva lo recibido hasta aquí
+                        log.info("Tramo interrumpido en el byte {} de {}: {}", posicion, temporal.getFileName(), e.getMessage());
+                        break;
+                    }
+                    if (leidos == -1) {
+                        break;
+                    }
+                    if (posicion + leidos > tamanioTotal) {
+                        throw new CreateEntityException("Documento", "El tramo excede el tamaño declarado de la carga");
+                    }
+                    bloque.position(0).limit(leidos);
+                    while (bloque.hasRemaining()) {
+                        posicion += canal.write(bloque, posicion);
+                    }
+                    bloque.clear();
+                }
+            } finally {
+                canal.force(false);
+            }
+        }
+        return posicion;
+    }
+
+    private CargaReanudable buscar(Integer idCarga) {
+        CargaReanudable carga = cargaRepository.findById(idCarga)
+                .orElseThrow(() -> new ResourceNotFoundException("Carga reanudable no encontrada con id=" + idCarga));
+        if (carga.getFechaActualizacion().isBefore(LocalDateTime.now().minusMinutes(properties.getExpiracionMinutos()))) {
+            throw new ResourceNotFoundException("La carga reanudable " + idCarga + " expiró");
+        }
+        return carga;
+    }
+
+    private void descartar(CargaReanudable carga) {
+        cargaRepository.deleteById(carga.getId());
+        try {
+            Files.deleteIfExists(temporal(carga.getId()));
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el temporal de la carga {}: {}", carga.getId(), e.getMessage());
+        }
+    }
+
+    private Path temporal(Integer idCarga) {
+        return directorio.resolve("carga-" + idCarga + ".part");
+    }
+
+    private static boolean esTemporalExpirado(Path ruta, FileTime limite) {
+        try {
+            return ruta.getFileName().toString().endsWith(".part") && Files.getLastModifiedTime(ruta).compareTo(limite) < 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private CargaReanudableDTO toDTO(CargaReanudable carga) {
+        CargaReanudableDTO dto = new CargaReanudableDTO();
+        dto.setIdCarga(carga.getId());
+        dto.setIdSolicitud(carga.getIdSolicitud());
+        dto.setIdTipoDocumento(carga.getIdTipoDocumento());
+        dto.setTamanioBytes(carga.getTamanioBytes());
+        dto.setBytesRecibidos(carga.getBytesRecibidos());
+        dto.setHashSha256(carga.getHashSha256());
+        dto.setFechaExpiracion(carga.getFechaActualizacion().plusMinutes(properties.getExpiracionMinutos()));
+        return dto;
+    }
+}
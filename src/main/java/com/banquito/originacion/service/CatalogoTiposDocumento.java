@@ -0,0 +1,183 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.TipoDocumentoDTO;
+import com.banquito.originacion.controller.mapper.TipoDocumentoMapper;
+import com.banquito.originacion.enums.CategoriaDocumentoEnum;
+import com.banquito.originacion.enums.EstadoTiposDocumentoEnum;
+import com.banquito.originacion.model.TipoDocumento;
+import com.banquito.originacion.repository.TipoDocumentoRepository;
+import com.banquito.originacion.util.TransaccionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Catálogo en memoria de los tipos de documento. Cada recarga construye una instantánea inmutable
+ * (tipos activos, obligatorios, sensibles y por categoría, con las descripciones ya en minúsculas) y
+ * la publica de forma atómica, así que las lecturas nunca ven un catálogo a medio construir.
+ *
+ * Se recarga tras confirmar cualquier cambio de tipos en este nodo y periódicamente para recoger los
+ * de otros nodos. Los obligatorios y sensibles se guardan como BitSet indexado por id para comparar
+ * la completitud de una solicitud sin recorrer listas.
+ */
+@Component
+public class CatalogoTiposDocumento {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogoTiposDocumento.class);
+    private static final int MAX_ETAPAS_EN_CACHE = 256;
+
+    /**
+     * Estado del catálogo en un momento dado. Los tipos por etapa se calculan al primer uso de cada
+     * etapa y se guardan en la propia instantánea, que se descarta entera en la siguiente recarga.
+     */
+    public record Instantanea(Map<Integer, TipoDocumentoDTO> porId,
+                              List<TipoDocumentoDTO> activos,
+                              Map<Integer, String> descripcionesActivas,
+                              List<TipoDocumentoDTO> obligatorios,
+                              BitSet idsObligatorios,
+                              BitSet idsSensibles,
+                              Map<CategoriaDocumentoEnum, List<TipoDocumentoDTO>> porCategoria,
+                              Map<String, List<TipoDocumentoDTO>> porEtapa) {
+
+        public List<TipoDocumentoDTO> tipos(BitSet ids) {
+            List<TipoDocumentoDTO> tipos = new ArrayList<>(ids.cardinality());
+            ids.stream().forEach(id -> tipos.add(porId.get(id)));
+            return tipos;
+        }
+    }
+
+    private final TipoDocumentoRepository tipoDocumentoRepository;
+    private final TipoDocumentoMapper tipoDocumentoMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicReference<Instantanea> actual = new AtomicReference<>();
+
+    public CatalogoTiposDocumento(TipoDocumentoRepository tipoDocumentoRepository,
+                                  TipoDocumentoMapper tipoDocumentoMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.tipoDocumentoRepository = tipoDocumentoRepository;
+        this.tipoDocumentoMapper = tipoDocumentoMapper;
+        // Transacción nueva y de escritura para leer de la primaria: tras un cambio la réplica todavía
+        // podría devolver el catálogo anterior, y tras un commit no se debe reutilizar la transacción
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public Instantanea obtener() {
+        Instantanea instantanea = actual.get();
+        return instantanea != null ? instantanea : recargar();
+    }
+
+    @Scheduled(fixedDelayString = "${originacion.documentos.catalogo.refresco-ms:300000}",
+            initialDelayString = "${originacion.documentos.catalogo.refresco-ms:300000}")
+    public void refrescar() {
+        try {
+            recargar();
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el catálogo de tipos de documento: {}", e.getMessage());
+        }
+    }
+
+    public Instantanea recargar() {
+        List<TipoDocumento> tipos = transactionTemplate.execute(estado -> tipoDocumentoRepository.findAll());
+        Instantanea instantanea = construir(tipos);
+        actual.set(instantanea);
+        log.debug("Catálogo de tipos de documento recargado: {} tipos, {} activos",
+                instantanea.porId().size(), instantanea.activos().size());
+        return instantanea;
+    }
+
+    /**
+     * Programa la recarga para cuando confirme la transacción que modificó algún tipo.
+     */
+    public void recargarDespuesDelCommit() {
+        TransaccionUtils.despuesDelCommit(this::refrescar);
+    }
+
+    /**
+     * Si el tipo es sensible (descripción con "buró" o "confidencial"). Un tipo que aún no está en la
+     * instantánea se evalúa con su propia descripción.
+     */
+    public boolean esSensible(TipoDocumento tipoDocumento) {
+        if (tipoDocumento == null) {
+            return false;
+        }
+        Instantanea instantanea = obtener();
+        if (tipoDocumento.getId() != null && instantanea.porId().containsKey(tipoDocumento.getId())) {
+            return instantanea.idsSensibles().get(tipoDocumento.getId());
+        }
+        return esSensible(tipoDocumento.getDescripcion().toLowerCase());
+    }
+
+    public List<TipoDocumentoDTO> tiposPorEtapa(String etapaProceso) {
+        Instantanea instantanea = obtener();
+        String etapa = etapaProceso.toLowerCase();
+        List<TipoDocumentoDTO> tipos = instantanea.porEtapa().get(etapa);
+        if (tipos == null) {
+            tipos = instantanea.activos().stream()
+                    .filter(tipo -> instantanea.descripcionesActivas().get(tipo.getId()).contains(etapa))
+                    .toList();
+            // La etapa llega libre desde la API: se limita cuántas se recuerdan por instantánea
+            if (instantanea.porEtapa().size() < MAX_ETAPAS_EN_CACHE) {
+                instantanea.porEtapa().put(etapa, tipos);
+            }
+        }
+        return tipos;
+    }
+
+    private Instantanea construir(List<TipoDocumento> tipos) {
+        Map<Integer, TipoDocumentoDTO> porId = new HashMap<>();
+        List<TipoDocumentoDTO> activos = new ArrayList<>();
+        Map<Integer, String> descripcionesActivas = new HashMap<>();
+        List<TipoDocumentoDTO> obligatorios = new ArrayList<>();
+        BitSet idsObligatorios = new BitSet();
+        BitSet idsSensibles = new BitSet();
+        Map<CategoriaDocumentoEnum, List<TipoDocumentoDTO>> porCategoria = new EnumMap<>(CategoriaDocumentoEnum.class);
+        for (CategoriaDocumentoEnum categoria : CategoriaDocumentoEnum.values()) {
+            porCategoria.put(categoria, new ArrayList<>());
+        }
+
+        for (TipoDocumento tipo : tipos) {
+            TipoDocumentoDTO dto = tipoDocumentoMapper.toDTO(tipo);
+            String descripcion = tipo.getDescripcion() != null ? tipo.getDescripcion().toLowerCase() : "";
+            porId.put(tipo.getId(), dto);
+            if (esSensible(descripcion)) {
+                idsSensibles.set(tipo.getId());
+            }
+            if (tipo.getEstado() != EstadoTiposDocumentoEnum.ACTIVO) {
+                continue;
+            }
+            activos.add(dto);
+            descripcionesActivas.put(tipo.getId(), descripcion);
+            if (descripcion.contains("obligatorio")) {
+                obligatorios.add(dto);
+                idsObligatorios.set(tipo.getId());
+            }
+            for (CategoriaDocumentoEnum categoria : CategoriaDocumentoEnum.values()) {
+                if (descripcion.contains(categoria.getValor().toLowerCase())) {
+                    porCategoria.get(categoria).add(dto);
+                }
+            }
+        }
+
+        porCategoria.replaceAll((categoria, lista) -> List.copyOf(lista));
+        return new Instantanea(Map.copyOf(porId), List.copyOf(activos), Map.copyOf(descripcionesActivas),
+                List.copyOf(obligatorios), idsObligatorios, idsSensibles, porCategoria, new ConcurrentHashMap<>());
+    }
+
+    private static boolean esSensible(String descripcionMinusculas) {
+        return descripcionMinusculas.contains("buró") || descripcionMinusculas.contains("confidencial");
+    }
+}
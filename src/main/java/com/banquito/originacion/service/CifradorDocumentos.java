@@ -0,0 +1,353 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.exception.CreateEntityException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Cifrado en reposo de documentos sensibles con AES-GCM por segmentos.
+ *
+ * Cada documento tiene su propia clave de datos, que se guarda envuelta (AES-GCM) con la clave
+ * maestra del archivo configurado. El contenido se cifra en segmentos de tamaño fijo, cada uno con
+ * su etiqueta de autenticación, así que cifrar y descifrar usan memoria constante y una descarga por
+ * rango solo descifra los segmentos que toca.
+ *
+ * Formato: cabecera de 16 bytes (mágico, tamaño de segmento, prefijo de nonce de 7 bytes) y después
+ * los segmentos. El nonce de cada segmento es prefijo + número de segmento + marca de último, de modo
+ * que reordenar, truncar o añadir segmentos hace fallar la autenticación.
+ */
+@Component
+public class CifradorDocumentos {
+
+    private static final Logger log = LoggerFactory.getLogger(CifradorDocumentos.class);
+
+    private static final String TRANSFORMACION = "AES/GCM/NoPadding";
+    private static final int MAGICO = 0x4F434431; // "OCD1"
+    private static final int TAMANIO_CABECERA = 16;
+    private static final int TAMANIO_PREFIJO = 7;
+    private static final int TAMANIO_NONCE = 12;
+    private static final int TAMANIO_ETIQUETA = 16;
+    private static final int BITS_ETIQUETA = TAMANIO_ETIQUETA * 8;
+    private static final int BYTES_CLAVE = 32;
+    private static final byte[] AAD_CLAVE = "originacion-clave-documento-v1".getBytes(StandardCharsets.US_ASCII);
+
+    public record DocumentoCifrado(String ruta, long tamanioBytes, String hashSha256, String claveCifrada) {
+    }
+
+    private final SecretKey claveMaestra;
+    private final int tamanioSegmento;
+    private final AlmacenDocumentos almacenDocumentos;
+    private final SecureRandom aleatorio = new SecureRandom();
+
+    public CifradorDocumentos(AlmacenDocumentos almacenDocumentos,
+                              @Value("${originacion.documentos.cifrado.clave-maestra:claves/documentos.key}") String archivoClaveMaestra,
+                              @Value("${originacion.documentos.cifrado.tamanio-segmento:65536}") int tamanioSegmento,
+                              @Value("${originacion.documentos.cifrado.generar-clave:false}") boolean generarClave) {
+        if (tamanioSegmento < 1024) {
+            throw new IllegalArgumentException("El tamaño de segmento debe ser de al menos 1024 bytes");
+        }
+        this.tamanioSegmento = tamanioSegmento;
+        this.almacenDocumentos = almacenDocumentos;
+        try {
+            this.claveMaestra = cargarClaveMaestra(Paths.get(archivoClaveMaestra), generarClave);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo cargar la clave maestra de documentos: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cifra el PDF mientras se lee, con una clave de datos nueva. El SHA-256 y el tamaño devueltos son
+     * los del contenido en claro. La escritura solo se confirma si todo termina bien.
+     */
+    public DocumentoCifrado guardarPdfCifrado(InputStream contenido, long maxBytes) throws IOException {
+        String ruta = almacenDocumentos.resolver("cifrados", UUID.randomUUID() + ".pdf.enc").toString();
+
+        byte[] claveDatos = new byte[BYTES_CLAVE];
+        aleatorio.nextBytes(claveDatos);
+        SecretKey clave = new SecretKeySpec(claveDatos, "AES");
+        byte[] prefijo = new byte[TAMANIO_PREFIJO];
+        aleatorio.nextBytes(prefijo);
+
+        MessageDigest digest = AlmacenDocumentos.nuevoDigest();
+        ValidadorPdf validador = new ValidadorPdf();
+        Cipher cipher = nuevoCipher();
+        // Se lee un segmento por adelantado para saber cuál es el último antes de cifrarlo
+        byte[] actual = new byte[tamanioSegmento];
+        byte[] siguiente = new byte[tamanioSegmento];
+        byte[] cifrado = new byte[tamanioSegmento + TAMANIO_ETIQUETA];
+        long total = 0;
+
+        try (AlmacenamientoDocumentos.Escritura escritura = almacenamiento().escribir(ruta)) {
+            OutputStream salida = escritura.salida();
+            salida.write(cabecera(prefijo), 0, TAMANIO_CABECERA);
+
+            int leidosActual = contenido.readNBytes(actual, 0, tamanioSegmento);
+            int segmento = 0;
+            while (true) {
+                total += leidosActual;
+                if (total > maxBytes) {
+                    throw new CreateEntityException("Documento", "El tamaño del archivo excede el límite permitido");
+                }
+                digest.update(actual, 0, leidosActual);
+                validador.actualizar(actual, 0, leidosActual);
+
+                int leidosSiguiente = leidosActual < tamanioSegmento ? 0
+                        : contenido.readNBytes(siguiente, 0, tamanioSegmento);
+                boolean ultimo = leidosSiguiente == 0;
+                cipher.init(Cipher.ENCRYPT_MODE, clave, new GCMParameterSpec(BITS_ETIQUETA, nonce(prefijo, segmento, ultimo)));
+                int longitud = cipher.doFinal(actual, 0, leidosActual, cifrado, 0);
+                salida.write(cifrado, 0, longitud);
+                if (ultimo) {
+                    break;
+                }
+                byte[] intercambio = actual;
+                actual = siguiente;
+                siguiente = intercambio;
+                leidosActual = leidosSiguiente;
+                segmento++;
+            }
+            escritura.confirmar();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Error al cifrar el documento", e);
+        }
+
+        // El destino de startxref se lee descifrando solo el segmento que lo contiene
+        try {
+            validador.verificar((posicion, bytes) -> leerClaro(ruta, clave, posicion, bytes));
+        } catch (RuntimeException | IOException e) {
+            almacenamiento().eliminar(ruta);
+            throw e;
+        }
+        return new DocumentoCifrado(ruta, total, HexFormat.of().formatHex(digest.digest()), envolver(claveDatos));
+    }
+
+    /**
+     * Descifra el tramo [inicio, inicio + longitud) del contenido en claro y lo escribe en la salida.
+     * Solo se leen y autentican los segmentos que contienen el tramo, en una única lectura por rango.
+     */
+    public void descifrar(String ruta, String claveCifrada, long inicio, long longitud, OutputStream salida)
+            throws IOException {
+        descifrar(ruta, desenvolver(claveCifrada), inicio, longitud, salida);
+    }
+
+    private void descifrar(String ruta, SecretKey clave, long inicio, long longitud, OutputStream salida)
+            throws IOException {
+        if (longitud <= 0) {
+            return;
+        }
+        long tamanioArchivo = almacenamiento().consultar(ruta)
+                .orElseThrow(() -> new NoSuchFileException(ruta)).tamanioBytes();
+        int segmentoArchivo;
+        byte[] prefijo = new byte[TAMANIO_PREFIJO];
+        try (InputStream entrada = almacenamiento().leer(ruta, 0, TAMANIO_CABECERA)) {
+            ByteBuffer cabecera = ByteBuffer.wrap(leerCompleto(entrada, TAMANIO_CABECERA, ruta));
+            if (cabecera.getInt() != MAGICO) {
+                throw new IOException("El archivo no es un documento cifrado: " + ruta);
+            }
+            segmentoArchivo = cabecera.getInt();
+            cabecera.get(prefijo);
+        }
+
+        int tamanioCifrado = segmentoArchivo + TAMANIO_ETIQUETA;
+        long fin = longitud > Long.MAX_VALUE - inicio ? Long.MAX_VALUE : inicio + longitud;
+        long segmento = inicio / segmentoArchivo;
+        long primero = TAMANIO_CABECERA + segmento * tamanioCifrado;
+        long ultimoSegmento = (fin - 1) / segmentoArchivo;
+        long hasta = ultimoSegmento >= (Long.MAX_VALUE - TAMANIO_CABECERA) / tamanioCifrado
+                ? tamanioArchivo
+                : Math.min(tamanioArchivo, TAMANIO_CABECERA + (ultimoSegmento + 1) * tamanioCifrado);
+        if (primero >= hasta) {
+            salida.flush();
+            return;
+        }
+
+        byte[] cifrado = new byte[tamanioCifrado];
+        byte[] claro = new byte[segmentoArchivo];
+        Cipher cipher = nuevoCipher();
+        try (InputStream entrada = almacenamiento().leer(ruta, primero, hasta - primero)) {
+            long posicion = primero;
+            long posicionClaro = segmento * segmentoArchivo;
+            while (posicionClaro < fin && posicion < hasta) {
+                int aLeer = (int) Math.min(tamanioCifrado, tamanioArchivo - posicion);
+                if (aLeer <= TAMANIO_ETIQUETA || entrada.readNBytes(cifrado, 0, aLeer) < aLeer) {
+                    throw new IOException("El documento cifrado está truncado: " + ruta);
+                }
+                boolean ultimo = posicion + aLeer == tamanioArchivo;
+                cipher.init(Cipher.DECRYPT_MODE, clave,
+                        new GCMParameterSpec(BITS_ETIQUETA, nonce(prefijo, (int) segmento, ultimo)));
+                int longitudClaro = cipher.doFinal(cifrado, 0, aLeer, claro, 0);
+
+                int desde = (int) Math.max(0, inicio - posicionClaro);
+                int hastaClaro = (int) Math.min(longitudClaro, fin - posicionClaro);
+                salida.write(claro, desde, hastaClaro - desde);
+                if (ultimo) {
+                    break;
+                }
+                posicion += aLeer;
+                posicionClaro += longitudClaro;
+                segmento++;
+            }
+            salida.flush();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("El documento cifrado no supera la autenticación: " + ruta, e);
+        }
+    }
+
+    private int leerClaro(String ruta, SecretKey clave, long posicion, byte[] destino) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(destino.length);
+        descifrar(ruta, clave, posicion, destino.length, salida);
+        byte[] leido = salida.toByteArray();
+        System.arraycopy(leido, 0, destino, 0, leido.length);
+        return leido.length;
+    }
+
+    /**
+     * Tamaño del contenido en claro a partir del tamaño del archivo cifrado.
+     */
+    public long tamanioClaro(String ruta) throws IOException {
+        long tamanioArchivo = almacenamiento().consultar(ruta)
+                .orElseThrow(() -> new NoSuchFileException(ruta)).tamanioBytes();
+        int segmentoArchivo;
+        try (InputStream entrada = almacenamiento().leer(ruta, 0, 8)) {
+            ByteBuffer cabecera = ByteBuffer.wrap(leerCompleto(entrada, 8, ruta));
+            if (cabecera.getInt() != MAGICO) {
+                throw new IOException("El archivo no es un documento cifrado: " + ruta);
+            }
+            segmentoArchivo = cabecera.getInt();
+        }
+        long cuerpo = tamanioArchivo - TAMANIO_CABECERA;
+        long tamanioCifrado = segmentoArchivo + TAMANIO_ETIQUETA;
+        long completos = cuerpo / tamanioCifrado;
+        long resto = cuerpo % tamanioCifrado;
+        return completos * segmentoArchivo + Math.max(0, resto - TAMANIO_ETIQUETA);
+    }
+
+    private String envolver(byte[] claveDatos) throws IOException {
+        try {
+            byte[] nonce = new byte[TAMANIO_NONCE];
+            aleatorio.nextBytes(nonce);
+            Cipher cipher = nuevoCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, claveMaestra, new GCMParameterSpec(BITS_ETIQUETA, nonce));
+            cipher.updateAAD(AAD_CLAVE);
+            byte[] envuelta = cipher.doFinal(claveDatos);
+            byte[] resultado = Arrays.copyOf(nonce, TAMANIO_NONCE + envuelta.length);
+            System.arraycopy(envuelta, 0, resultado, TAMANIO_NONCE, envuelta.length);
+            return Base64.getEncoder().encodeToString(resultado);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("No se pudo envolver la clave del documento", e);
+        } finally {
+            Arrays.fill(claveDatos, (byte) 0);
+        }
+    }
+
+    private SecretKey desenvolver(String claveCifrada) throws IOException {
+        try {
+            byte[] datos = Base64.getDecoder().decode(claveCifrada);
+            Cipher cipher = nuevoCipher();
+            cipher.init(Cipher.DECRYPT_MODE, claveMaestra,
+                    new GCMParameterSpec(BITS_ETIQUETA, datos, 0, TAMANIO_NONCE));
+            cipher.updateAAD(AAD_CLAVE);
+            return new SecretKeySpec(cipher.doFinal(datos, TAMANIO_NONCE, datos.length - TAMANIO_NONCE), "AES");
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IOException("No se pudo desenvolver la clave del documento", e);
+        }
+    }
+
+    private byte[] cabecera(byte[] prefijo) {
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANIO_CABECERA);
+        cabecera.putInt(MAGICO).putInt(tamanioSegmento).put(prefijo);
+        return cabecera.array();
+    }
+
+    private static byte[] nonce(byte[] prefijo, int segmento, boolean ultimo) {
+        ByteBuffer nonce = ByteBuffer.allocate(TAMANIO_NONCE);
+        nonce.put(prefijo).putInt(segmento).put(ultimo ? (byte) 1 : (byte) 0);
+        return nonce.array();
+    }
+
+    /**
+     * Una clave nueva haría ilegibles los documentos ya cifrados y los de otros nodos, así que si falta
+     * el archivo solo se genera cuando se pide expresamente; en otro caso el arranque falla.
+     */
+    private SecretKey cargarClaveMaestra(Path archivo, boolean generarClave) throws IOException {
+        if (!Files.exists(archivo)) {
+            if (!generarClave) {
+                throw new NoSuchFileException(archivo.toAbsolutePath().toString(), null,
+                        "no existe la clave maestra; para generar una nueva usar originacion.documentos.cifrado.generar-clave=true");
+            }
+            byte[] nueva = new byte[BYTES_CLAVE];
+            aleatorio.nextBytes(nueva);
+            if (archivo.getParent() != null) {
+                Files.createDirectories(archivo.getParent());
+            }
+            try {
+                Files.write(archivo, nueva, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                restringirPermisos(archivo);
+                log.warn("No existía clave maestra de documentos; se generó una nueva en {}", archivo.toAbsolutePath());
+            } catch (FileAlreadyExistsException e) {
+                // Otra instancia la creó entre la comprobación y la escritura
+                log.debug("La clave maestra ya existe en {}", archivo);
+            }
+        }
+        byte[] clave = Files.readAllBytes(archivo);
+        if (clave.length != BYTES_CLAVE) {
+            throw new IOException("La clave maestra debe tener " + BYTES_CLAVE + " bytes: " + archivo);
+        }
+        return new SecretKeySpec(clave, "AES");
+    }
+
+    private static void restringirPermisos(Path archivo) {
+        try {
+            Files.setPosixFilePermissions(archivo, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException e) {
+            log.warn("No se pudieron restringir los permisos de {}", archivo);
+        }
+    }
+
+    private static Cipher nuevoCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMACION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("AES-GCM no disponible", e);
+        }
+    }
+
+    private AlmacenamientoDocumentos almacenamiento() {
+        return almacenDocumentos.getAlmacenamiento();
+    }
+
+    private static byte[] leerCompleto(InputStream entrada, int longitud, String ruta) throws IOException {
+        byte[] datos = entrada.readNBytes(longitud);
+        if (datos.length < longitud) {
+            throw new IOException("Fin de archivo inesperado en el documento cifrado: " + ruta);
+        }
+        return datos;
+    }
+}
@@ -0,0 +1,45 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.config.ClasificacionDocumentosProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Asigna el tipo de documento de un archivo firmado según las reglas de
+ * originacion.documentos.firmados.reglas. Los patrones se compilan una sola vez al arrancar.
+ */
+@Component
+public class ClasificadorDocumentosFirmados {
+
+    private record ReglaCompilada(Pattern patron, String tipo) {
+    }
+
+    private final List<ReglaCompilada> reglas;
+    private final Optional<String> tipoPorDefecto;
+
+    public ClasificadorDocumentosFirmados(ClasificacionDocumentosProperties propiedades) {
+        this.reglas = propiedades.getReglas().stream()
+                .map(regla -> new ReglaCompilada(
+                        Pattern.compile(regla.getPatron(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE),
+                        regla.getTipo()))
+                .toList();
+        this.tipoPorDefecto = Optional.ofNullable(propiedades.getTipoPorDefecto()).filter(tipo -> !tipo.isBlank());
+    }
+
+    /**
+     * Nombre del tipo de documento para el archivo, o vacío si no se puede clasificar.
+     */
+    public Optional<String> clasificar(String nombreArchivo) {
+        if (nombreArchivo != null) {
+            for (ReglaCompilada regla : reglas) {
+                if (regla.patron().matcher(nombreArchivo).matches()) {
+                    return Optional.of(regla.tipo());
+                }
+            }
+        }
+        return tipoPorDefecto;
+    }
+}
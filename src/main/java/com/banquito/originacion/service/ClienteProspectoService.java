@@ -1,15 +1,19 @@
 package com.banquito.originacion.service;
 
-import com.banquito.originacion.controller.dto.AuditoriaDTO;
 import com.banquito.originacion.controller.dto.ClienteProspectoDTO;
+import com.banquito.originacion.controller.dto.PaginaBusquedaClientesDTO;
+import com.banquito.originacion.controller.dto.ResultadoBusquedaClienteDTO;
 import com.banquito.originacion.controller.mapper.ClienteProspectoMapper;
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
+import com.banquito.originacion.enums.CampoBusquedaClienteEnum;
 import com.banquito.originacion.enums.EstadoClientesEnum;
 import com.banquito.originacion.exception.CreateEntityException;
 import com.banquito.originacion.exception.ResourceNotFoundException;
 import com.banquito.originacion.exception.UpdateEntityException;
 import com.banquito.originacion.model.ClienteProspecto;
 import com.banquito.originacion.repository.ClienteProspectoRepository;
+import com.banquito.originacion.util.TransaccionUtils;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +26,7 @@ import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,13 +45,16 @@ public class ClienteProspectoService {
     private final ClienteProspectoRepository clienteRepository;
     private final ClienteProspectoMapper clienteMapper;
     private final AuditoriaService auditoriaService;
+    private final IndiceTrigramasClientes indiceClientes;
 
     public ClienteProspectoService(ClienteProspectoRepository clienteRepository,
                                  ClienteProspectoMapper clienteMapper,
-                                 AuditoriaService auditoriaService) {
+                                 AuditoriaService auditoriaService,
+                                 IndiceTrigramasClientes indiceClientes) {
         this.clienteRepository = clienteRepository;
         this.clienteMapper = clienteMapper;
         this.auditoriaService = auditoriaService;
+        this.indiceClientes = indiceClientes;
     }
 
     // === REGISTRO Y VALIDACIÓN ===
@@ -115,7 +123,11 @@ public class ClienteProspectoService {
             ClienteProspecto guardado = clienteRepository.save(cliente);
             
             // Registrar auditoría
-            registrarAuditoria("clientes_prospectos", AccionAuditoriaEnum.INSERT);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.CLIENTE_PROSPECTO, guardado.getId(),
+                    AccionAuditoriaEnum.INSERT, "estado=" + guardado.getEstado());
+            
+            // Indexar para búsqueda aproximada una vez confirmada la transacción
+            TransaccionUtils.despuesDelCommit(() -> indiceClientes.indexar(guardado));
             
             return clienteMapper.toDTO(guardado);
         } catch (CreateEntityException e) {
@@ -227,7 +239,8 @@ public class ClienteProspectoService {
                 if (nuevoEstado != estadoActual) {
                     cliente.setEstado(nuevoEstado);
                     clienteRepository.save(cliente);
-                    registrarAuditoria("clientes_prospectos", AccionAuditoriaEnum.UPDATE);
+                    registrarAuditoria(TipoEntidadAuditoriaEnum.CLIENTE_PROSPECTO, cliente.getId(),
+                            AccionAuditoriaEnum.UPDATE, "estado=" + estadoActual + ">" + nuevoEstado);
                 }
             }
             
@@ -285,7 +298,8 @@ public class ClienteProspectoService {
             ClienteProspecto actualizado = clienteRepository.save(cliente);
             
             // Registrar auditoría
-            registrarAuditoria("clientes_prospectos", AccionAuditoriaEnum.UPDATE);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.CLIENTE_PROSPECTO, actualizado.getId(),
+                    AccionAuditoriaEnum.UPDATE, "ingresos=" + ingresos + ";egresos=" + egresos);
             
             return clienteMapper.toDTO(actualizado);
         } catch (ResourceNotFoundException e) {
@@ -390,6 +404,61 @@ public class ClienteProspectoService {
         }
     }
 
+    /**
+     * Búsqueda aproximada por nombre/apellido o dirección, sin distinguir tildes ni mayúsculas,
+     * ordenada por similitud y paginada. Usa el índice de trigramas en memoria; mientras este se
+     * construye recurre a la búsqueda parcial del repositorio.
+     */
+    @Transactional(readOnly = true)
+    public PaginaBusquedaClientesDTO buscarClientes(String texto, CampoBusquedaClienteEnum campo, int pagina, int tamanio) {
+        log.info("Buscando clientes por {} con texto: {}", campo, texto);
+
+        PaginaBusquedaClientesDTO respuesta = new PaginaBusquedaClientesDTO();
+        respuesta.setPagina(pagina);
+        respuesta.setTamanio(tamanio);
+        List<ResultadoBusquedaClienteDTO> resultados = new ArrayList<>();
+
+        if (!indiceClientes.isListo()) {
+            List<ClienteProspecto> clientes = campo == CampoBusquedaClienteEnum.DIRECCION
+                    ? clienteRepository.findByDireccionContainingIgnoreCase(texto)
+                    : clienteRepository.findByNombreContainingIgnoreCaseOrApellidoContainingIgnoreCase(texto, texto);
+            int desde = Math.min(pagina * tamanio, clientes.size());
+            int hasta = Math.min(desde + tamanio, clientes.size());
+            for (ClienteProspecto cliente : clientes.subList(desde, hasta)) {
+                ResultadoBusquedaClienteDTO resultado = new ResultadoBusquedaClienteDTO();
+                resultado.setCliente(clienteMapper.toDTO(cliente));
+                resultado.setPuntaje(1.0);
+                resultados.add(resultado);
+            }
+            respuesta.setResultados(resultados);
+            respuesta.setTotalResultados((long) clientes.size());
+            return respuesta;
+        }
+
+        List<IndiceTrigramasClientes.Coincidencia> coincidencias = indiceClientes.buscar(campo, texto);
+        int desde = Math.min(pagina * tamanio, coincidencias.size());
+        int hasta = Math.min(desde + tamanio, coincidencias.size());
+        List<IndiceTrigramasClientes.Coincidencia> paginaCoincidencias = coincidencias.subList(desde, hasta);
+
+        Map<Integer, ClienteProspecto> clientesPorId = new HashMap<>();
+        for (ClienteProspecto cliente : clienteRepository.findAllById(
+                paginaCoincidencias.stream().map(IndiceTrigramasClientes.Coincidencia::idCliente).toList())) {
+            clientesPorId.put(cliente.getId(), cliente);
+        }
+        for (IndiceTrigramasClientes.Coincidencia coincidencia : paginaCoincidencias) {
+            ClienteProspecto cliente = clientesPorId.get(coincidencia.idCliente());
+            if (cliente != null) {
+                ResultadoBusquedaClienteDTO resultado = new ResultadoBusquedaClienteDTO();
+                resultado.setCliente(clienteMapper.toDTO(cliente));
+                resultado.setPuntaje(coincidencia.puntaje());
+                resultados.add(resultado);
+            }
+        }
+        respuesta.setResultados(resultados);
+        respuesta.setTotalResultados((long) coincidencias.size());
+        return respuesta;
+    }
+
     /**
      * Devuelve todos los clientes prospecto
      */
@@ -489,11 +558,8 @@ public class ClienteProspectoService {
     /**
      * Registra auditoría de una operación
      */
-    private void registrarAuditoria(String tabla, AccionAuditoriaEnum accion) {
-        AuditoriaDTO audDto = new AuditoriaDTO();
-        audDto.setTabla(tabla);
-        audDto.setAccion(accion);
-        audDto.setFechaHora(LocalDateTime.now());
-        auditoriaService.createAuditoria(audDto);
+    private void registrarAuditoria(TipoEntidadAuditoriaEnum tipoEntidad, Integer idEntidad,
+                                    AccionAuditoriaEnum accion, String cambios) {
+        auditoriaService.registrar(tipoEntidad, idEntidad, accion, null, cambios);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,164 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.model.Auditoria;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Carga en originacion.auditorias los segmentos sellados de BitacoraSegmentosAuditoria con COPY.
+ *
+ * Cada segmento se carga en una transacción que también registra su nombre en
+ * segmentos_auditoria; si la aplicación cae después del COPY y antes de borrar el archivo, al
+ * reintentar se detecta que ya estaba cargado y solo se elimina, sin duplicar filas.
+ */
+@Component
+public class CompactadorSegmentosAuditoria {
+
+    private static final Logger log = LoggerFactory.getLogger(CompactadorSegmentosAuditoria.class);
+
+    private static final String COPY_AUDITORIAS =
+            "COPY originacion.auditorias (tabla, accion, fecha_hora, tipo_entidad, id_entidad, actor, cambios) "
+                    + "FROM STDIN WITH (FORMAT csv)";
+    private static final String MARCAR_SEGMENTO =
+            "INSERT INTO originacion.segmentos_auditoria (nombre, registros, fecha_carga) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (nombre) DO NOTHING";
+    private static final int TAMANIO_BLOQUE_COPY = 64 * 1024;
+
+    private final BitacoraSegmentosAuditoria bitacora;
+    private final DataSource dataSource;
+    private final Timer tiempoCarga;
+    private final Counter registrosCargados;
+    private final AtomicInteger segmentosPendientes = new AtomicInteger();
+
+    public CompactadorSegmentosAuditoria(BitacoraSegmentosAuditoria bitacora,
+                                         DataSource dataSource,
+                                         MeterRegistry meterRegistry) {
+        this.bitacora = bitacora;
+        this.dataSource = dataSource;
+        this.tiempoCarga = Timer.builder("originacion.auditoria.segmentos.carga")
+                .description("Tiempo de carga de un segmento de auditoría con COPY")
+                .register(meterRegistry);
+        this.registrosCargados = meterRegistry.counter("originacion.auditoria.segmentos.registros");
+        meterRegistry.gauge("originacion.auditoria.segmentos.pendientes", segmentosPendientes);
+    }
+
+    /**
+     * Sella el segmento activo y carga todos los sellados en orden. Si la base de datos no
+     * responde, los segmentos quedan en disco y se reintenta en la siguiente ejecución.
+     */
+    @Scheduled(fixedDelayString = "${originacion.auditoria.segmentos.compactacion-ms:5000}")
+    public void compactar() {
+        try {
+            bitacora.sellarActivo();
+            List<Path> segmentos = bitacora.segmentosSellados();
+            segmentosPendientes.set(segmentos.size());
+            for (Path segmento : segmentos) {
+                tiempoCarga.recordCallable(() -> {
+                    cargar(segmento);
+                    return null;
+                });
+                Files.delete(segmento);
+                segmentosPendientes.decrementAndGet();
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron cargar los segmentos de auditoría, se reintentará: {}", e.getMessage());
+        }
+    }
+
+    private void cargar(Path segmento) throws IOException, SQLException {
+        List<Auditoria> auditorias = bitacora.leer(segmento);
+        String nombre = segmento.getFileName().toString();
+
+        try (Connection conexion = dataSource.getConnection()) {
+            boolean autoCommit = conexion.getAutoCommit();
+            conexion.setAutoCommit(false);
+            try {
+                try (PreparedStatement marca = conexion.prepareStatement(MARCAR_SEGMENTO)) {
+                    marca.setString(1, nombre);
+                    marca.setInt(2, auditorias.size());
+                    marca.setObject(3, LocalDateTime.now());
+                    if (marca.executeUpdate() == 0) {
+                        log.info("Segmento de auditoría {} ya estaba cargado", nombre);
+                        conexion.rollback();
+                        return;
+                    }
+                }
+                copiar(conexion.unwrap(PGConnection.class), auditorias);
+                conexion.commit();
+                registrosCargados.increment(auditorias.size());
+                log.debug("Segmento de auditoría {} cargado con {} registros", nombre, auditorias.size());
+            } catch (SQLException | RuntimeException e) {
+                conexion.rollback();
+                throw e;
+            } finally {
+                conexion.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private void copiar(PGConnection conexion, List<Auditoria> auditorias) throws SQLException {
+        CopyIn copy = conexion.getCopyAPI().copyIn(COPY_AUDITORIAS);
+        try {
+            StringBuilder bloque = new StringBuilder(TAMANIO_BLOQUE_COPY + 1024);
+            for (Auditoria auditoria : auditorias) {
+                campo(bloque, auditoria.getTabla()).append(',');
+                campo(bloque, auditoria.getAccion().name()).append(',');
+                campo(bloque, auditoria.getFechaHora().toString()).append(',');
+                campo(bloque, auditoria.getTipoEntidad() != null ? auditoria.getTipoEntidad().name() : null).append(',');
+                campo(bloque, auditoria.getIdEntidad() != null ? auditoria.getIdEntidad().toString() : null).append(',');
+                campo(bloque, auditoria.getActor()).append(',');
+                campo(bloque, auditoria.getCambios()).append('\n');
+                if (bloque.length() >= TAMANIO_BLOQUE_COPY) {
+                    enviar(copy, bloque);
+                }
+            }
+            enviar(copy, bloque);
+            copy.endCopy();
+        } finally {
+            if (copy.isActive()) {
+                copy.cancelCopy();
+            }
+        }
+    }
+
+    private static void enviar(CopyIn copy, StringBuilder bloque) throws SQLException {
+        byte[] datos = bloque.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(datos, 0, datos.length);
+        bloque.setLength(0);
+    }
+
+    // En CSV un campo vacío sin comillas es NULL; los valores siempre van entre comillas
+    private static StringBuilder campo(StringBuilder bloque, String valor) {
+        if (valor == null) {
+            return bloque;
+        }
+        bloque.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                bloque.append('"');
+            }
+            bloque.append(c);
+        }
+        return bloque.append('"');
+    }
+}
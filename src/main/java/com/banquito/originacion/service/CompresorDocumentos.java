@@ -0,0 +1,265 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.config.CompresionDocumentosProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Compresión Deflate de documentos con muestreo previo. El documento comprimido empieza con una
+ * cabecera de cuatro bytes que un PDF no puede tener (siempre empieza por %PDF-), así que al leer se
+ * distingue sin guardar nada en la base de datos y los documentos anteriores se siguen leyendo igual.
+ *
+ * Por tipo de documento se publican el tamaño original y el almacenado, la relación de compresión y el
+ * tiempo pasado dentro de Deflater, que es trabajo de CPU puro.
+ */
+@Component
+public class CompresorDocumentos {
+
+    static final byte[] CABECERA = {'O', 'Z', 'D', '1'};
+    private static final int TAMANIO_BLOQUE = 64 * 1024;
+
+    private final CompresionDocumentosProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Counter bytesDescomprimidos;
+
+    public CompresorDocumentos(CompresionDocumentosProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.bytesDescomprimidos = meterRegistry.counter("originacion.documentos.descompresion.bytes");
+    }
+
+    /**
+     * Sin compresión al escribir; lee igualmente los documentos comprimidos.
+     */
+    public static CompresorDocumentos sinCompresion() {
+        return new CompresorDocumentos(new CompresionDocumentosProperties(), new SimpleMeterRegistry());
+    }
+
+    /**
+     * Nivel de Deflate con que se guarda un tipo de documento; 0 si no se comprime.
+     */
+    public int nivel(String tipoDocumento) {
+        if (!properties.isHabilitada() || tipoDocumento == null) {
+            return 0;
+        }
+        int nivel = properties.getNiveles().getOrDefault(tipoDocumento, properties.getNivelPorDefecto());
+        return Math.max(0, Math.min(nivel, Deflater.BEST_COMPRESSION));
+    }
+
+    /**
+     * Salida que decide con la muestra si comprime lo que se escribe en ella. Hay que llamar a
+     * {@link SalidaCompresible#terminar()} antes de confirmar la escritura y cerrarla siempre.
+     */
+    public SalidaCompresible salida(OutputStream destino, String tipoDocumento) {
+        return new SalidaCompresible(destino, tipoDocumento, nivel(tipoDocumento));
+    }
+
+    public static boolean esComprimido(byte[] inicio, int leidos) {
+        return leidos >= CABECERA.length && Arrays.equals(inicio, 0, CABECERA.length, CABECERA, 0, CABECERA.length);
+    }
+
+    /**
+     * Contenido original de un documento comprimido, leído desde el principio de lo almacenado.
+     */
+    public InputStream abrir(InputStream almacenado) throws IOException {
+        byte[] cabecera = almacenado.readNBytes(CABECERA.length);
+        if (!esComprimido(cabecera, cabecera.length)) {
+            throw new IOException("El documento no tiene la cabecera de compresión");
+        }
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(almacenado, inflater, TAMANIO_BLOQUE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    /**
+     * Copia el tramo [inicio, inicio + longitud) del contenido original. Deflate no admite acceso
+     * aleatorio: lo anterior al tramo se descomprime y se descarta.
+     */
+    public void descomprimir(InputStream almacenado, long inicio, long longitud, OutputStream salida) throws IOException {
+        try (InputStream claro = abrir(almacenado)) {
+            claro.skipNBytes(inicio);
+            byte[] bloque = new byte[TAMANIO_BLOQUE];
+            long restantes = longitud;
+            while (restantes > 0) {
+                int leidos = claro.read(bloque, 0, (int) Math.min(bloque.length, restantes));
+                if (leidos < 0) {
+                    if (longitud == Long.MAX_VALUE) {
+                        break;
+                    }
+                    throw new IOException("El documento comprimido terminó antes de lo esperado");
+                }
+                salida.write(bloque, 0, leidos);
+                restantes -= leidos;
+                bytesDescomprimidos.increment(leidos);
+            }
+            salida.flush();
+        }
+    }
+
+    public final class SalidaCompresible extends OutputStream {
+
+        private final OutputStream destino;
+        private final String tipoDocumento;
+        private final int nivel;
+        private final byte[] muestra;
+        private final byte[] salidaDeflater = new byte[TAMANIO_BLOQUE];
+        private int enMuestra;
+        private Deflater deflater;
+        private boolean decidido;
+        private long originales;
+        private long almacenados;
+        private long nanosCompresion;
+
+        private SalidaCompresible(OutputStream destino, String tipoDocumento, int nivel) {
+            this.destino = destino;
+            this.tipoDocumento = tipoDocumento;
+            this.nivel = nivel;
+            this.muestra = new byte[nivel > 0 ? Math.max(properties.getMuestraBytes(), 1) : 0];
+            this.decidido = nivel == 0;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] datos, int desde, int longitud) throws IOException {
+            originales += longitud;
+            if (!decidido) {
+                int copiar = Math.min(longitud, muestra.length - enMuestra);
+                System.arraycopy(datos, desde, muestra, enMuestra, copiar);
+                enMuestra += copiar;
+                desde += copiar;
+                longitud -= copiar;
+                if (enMuestra < muestra.length) {
+                    return;
+                }
+                decidir();
+            }
+            escribir(datos, desde, longitud);
+        }
+
+        /**
+         * Vacía lo pendiente y publica las métricas. Devuelve si el documento quedó comprimido.
+         */
+        public boolean terminar() throws IOException {
+            if (!decidido) {
+                decidir();
+            }
+            if (deflater != null) {
+                long inicio = System.nanoTime();
+                deflater.finish();
+                while (!deflater.finished()) {
+                    int producidos = deflater.deflate(salidaDeflater);
+                    destino.write(salidaDeflater, 0, producidos);
+                    almacenados += producidos;
+                }
+                nanosCompresion += System.nanoTime() - inicio;
+            }
+            registrarMetricas();
+            return deflater != null;
+        }
+
+        @Override
+        public void close() {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+
+        private void decidir() throws IOException {
+            decidido = true;
+            if (enMuestra > 0 && comprimible()) {
+                deflater = new Deflater(nivel);
+                destino.write(CABECERA);
+                almacenados += CABECERA.length;
+            }
+            escribir(muestra, 0, enMuestra);
+        }
+
+        // Prueba rápida con el nivel más bajo: si ni así baja, el contenido ya viene comprimido
+        private boolean comprimible() {
+            long inicio = System.nanoTime();
+            Deflater prueba = new Deflater(Deflater.BEST_SPEED);
+            try {
+                prueba.setInput(muestra, 0, enMuestra);
+                prueba.finish();
+                long comprimidos = 0;
+                while (!prueba.finished()) {
+                    comprimidos += prueba.deflate(salidaDeflater);
+                }
+                return comprimidos <= enMuestra * properties.getRatioMaximo();
+            } finally {
+                prueba.end();
+                nanosCompresion += System.nanoTime() - inicio;
+            }
+        }
+
+        private void escribir(byte[] datos, int desde, int longitud) throws IOException {
+            if (longitud == 0) {
+                return;
+            }
+            if (deflater == null) {
+                destino.write(datos, desde, longitud);
+                almacenados += longitud;
+                return;
+            }
+            deflater.setInput(datos, desde, longitud);
+            while (!deflater.needsInput()) {
+                long inicio = System.nanoTime();
+                int producidos = deflater.deflate(salidaDeflater);
+                nanosCompresion += System.nanoTime() - inicio;
+                destino.write(salidaDeflater, 0, producidos);
+                almacenados += producidos;
+            }
+        }
+
+        private void registrarMetricas() {
+            if (nivel == 0) {
+                return;
+            }
+            String tipo = tipoDocumento;
+            String resultado = deflater != null ? "comprimido" : "sin-comprimir";
+            meterRegistry.counter("originacion.documentos.compresion.documentos", "tipo", tipo, "resultado", resultado)
+                    .increment();
+            meterRegistry.counter("originacion.documentos.compresion.bytes", "tipo", tipo, "clase", "originales")
+                    .increment(originales);
+            meterRegistry.counter("originacion.documentos.compresion.bytes", "tipo", tipo, "clase", "almacenados")
+                    .increment(almacenados);
+            if (originales > 0) {
+                DistributionSummary.builder("originacion.documentos.compresion.ratio")
+                        .description("Tamaño almacenado / original por documento")
+                        .tag("tipo", tipo)
+                        .register(meterRegistry)
+                        .record((double) almacenados / originales);
+            }
+            Timer.builder("originacion.documentos.compresion.cpu")
+                    .description("Tiempo dentro de Deflater (muestra y compresión) por documento")
+                    .tag("tipo", tipo)
+                    .register(meterRegistry)
+                    .record(nanosCompresion, TimeUnit.NANOSECONDS);
+        }
+    }
+}
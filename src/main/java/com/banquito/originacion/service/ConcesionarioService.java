@@ -1,11 +1,11 @@
 package com.banquito.originacion.service;
 
-import com.banquito.originacion.controller.dto.AuditoriaDTO;
 import com.banquito.originacion.controller.dto.ConcesionarioDTO;
 import com.banquito.originacion.controller.dto.VendedorDTO;
 import com.banquito.originacion.controller.mapper.ConcesionarioMapper;
 import com.banquito.originacion.controller.mapper.VendedorMapper;
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import com.banquito.originacion.enums.EstadoConcesionarioEnum;
 import com.banquito.originacion.enums.EstadoVendedorEnum;
 import com.banquito.originacion.exception.CreateEntityException;
@@ -143,11 +143,8 @@ public class ConcesionarioService {
             entity.setVersion(null);
             Concesionario saved = concesionarioRepository.save(entity);
 
-            AuditoriaDTO audDto = new AuditoriaDTO();
-            audDto.setTabla(("concesionarios RAZON SOCIAL:" + dto.getRazonSocial()).substring(0, Math.min(40, ("concesionarios RAZON SOCIAL:" + dto.getRazonSocial()).length())));
-            audDto.setAccion(AccionAuditoriaEnum.INSERT);
-            audDto.setFechaHora(java.time.LocalDateTime.now());
-            auditoriaService.createAuditoria(audDto);
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.CONCESIONARIO, saved.getId(),
+                    AccionAuditoriaEnum.INSERT, null, "razonSocial=" + saved.getRazonSocial());
             return concesionarioMapper.toDTO(saved);
 
         } catch (CreateEntityException e) {
@@ -188,11 +185,9 @@ public class ConcesionarioService {
 
             Concesionario updated = concesionarioRepository.save(existing);
 
-            AuditoriaDTO audDto = new AuditoriaDTO();
-            audDto.setTabla(("concesionarios RAZON SOCIAL:" + dto.getRazonSocial()).substring(0, Math.min(40, ("concesionarios RAZON SOCIAL:" + dto.getRazonSocial()).length())));
-            audDto.setAccion(AccionAuditoriaEnum.UPDATE);
-            audDto.setFechaHora(java.time.LocalDateTime.now());
-            auditoriaService.createAuditoria(audDto);
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.CONCESIONARIO, updated.getId(),
+                    AccionAuditoriaEnum.UPDATE, null,
+                    "razonSocial=" + updated.getRazonSocial() + ";estado=" + updated.getEstado());
 
             return concesionarioMapper.toDTO(updated);
 
@@ -302,11 +297,9 @@ public class ConcesionarioService {
             entity.setVersion(null);
             Vendedor saved = vendedorRepository.save(entity);
 
-            AuditoriaDTO audDto = new AuditoriaDTO();
-            audDto.setTabla(("vendedores Nombre:" + dto.getNombre()).substring(0, Math.min(40, ("vendedores Nombre:" + dto.getNombre()).length())));
-            audDto.setAccion(AccionAuditoriaEnum.INSERT);
-            audDto.setFechaHora(java.time.LocalDateTime.now());
-            auditoriaService.createAuditoria(audDto);
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.VENDEDOR, saved.getId(),
+                    AccionAuditoriaEnum.INSERT, null,
+                    "nombre=" + saved.getNombre() + ";idConcesionario=" + saved.getIdConcesionario());
 
             return vendedorMapper.toDTO(saved);
 
@@ -350,11 +343,9 @@ public class ConcesionarioService {
 
             Vendedor updated = vendedorRepository.save(existing);
 
-            AuditoriaDTO audDto = new AuditoriaDTO();
-            audDto.setTabla(("vendedores Nombre:" + dto.getNombre()).substring(0, Math.min(40, ("vendedores Nombre:" + dto.getNombre()).length())));
-            audDto.setAccion(AccionAuditoriaEnum.UPDATE);
-            audDto.setFechaHora(java.time.LocalDateTime.now());
-            auditoriaService.createAuditoria(audDto);
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.VENDEDOR, updated.getId(),
+                    AccionAuditoriaEnum.UPDATE, null,
+                    "nombre=" + updated.getNombre() + ";estado=" + updated.getEstado());
 
             return vendedorMapper.toDTO(updated);
 
@@ -1,36 +1,69 @@
 package com.banquito.originacion.service;
 
-import com.banquito.originacion.controller.dto.AuditoriaDTO;
+import com.banquito.originacion.controller.dto.AccesoDocumentoDTO;
+import com.banquito.originacion.controller.dto.CompletitudSolicitudDTO;
 import com.banquito.originacion.controller.dto.DocumentoAdjuntoDTO;
+import com.banquito.originacion.controller.dto.PaginaCompletitudDTO;
+import com.banquito.originacion.controller.dto.ResultadoCargaDocumentoDTO;
 import com.banquito.originacion.controller.dto.TipoDocumentoDTO;
+import com.banquito.originacion.controller.mapper.AccesoDocumentoMapper;
 import com.banquito.originacion.controller.mapper.DocumentoAdjuntoMapper;
 import com.banquito.originacion.controller.mapper.TipoDocumentoMapper;
+import com.banquito.originacion.config.ClasificacionDocumentosProperties;
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.EstadoCargaDocumentoEnum;
+import com.banquito.originacion.enums.EstadoSolicitudEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import com.banquito.originacion.enums.CategoriaDocumentoEnum;
 import com.banquito.originacion.enums.EstadoTiposDocumentoEnum;
+import com.banquito.originacion.exception.ContenidoInvalidoException;
 import com.banquito.originacion.exception.CreateEntityException;
 import com.banquito.originacion.exception.DeleteEntityException;
 import com.banquito.originacion.exception.ResourceNotFoundException;
 import com.banquito.originacion.exception.UpdateEntityException;
 import com.banquito.originacion.model.DocumentoAdjunto;
+import com.banquito.originacion.model.SolicitudCredito;
 import com.banquito.originacion.model.TipoDocumento;
+import com.banquito.originacion.repository.AccesoDocumentoRepository;
+import com.banquito.originacion.repository.ConteoDocumentosTipo;
 import com.banquito.originacion.repository.DocumentoAdjuntoRepository;
+import com.banquito.originacion.repository.IdSolicitud;
+import com.banquito.originacion.repository.SolicitudCreditoRepository;
 import com.banquito.originacion.repository.TipoDocumentoRepository;
+import com.banquito.originacion.util.TransaccionUtils;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,25 +71,63 @@ import java.util.stream.Collectors;
 public class DocumentacionService {
 
     private static final Logger log = LoggerFactory.getLogger(DocumentacionService.class);
-    private static final String DOCUMENTOS_BASE_PATH = "documentos/";
     private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
+    private static final String INSERTAR_DOCUMENTO =
+            "INSERT INTO originacion.documentos_adjuntos (id_solicitud, id_tipo_documento, ruta_archivo, fecha_cargado, "
+                    + "hash_sha256, tamanio_bytes, clave_cifrada, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
 
     private final DocumentoAdjuntoRepository documentoRepository;
     private final TipoDocumentoRepository tipoDocumentoRepository;
+    private final SolicitudCreditoRepository solicitudRepository;
     private final DocumentoAdjuntoMapper documentoMapper;
     private final TipoDocumentoMapper tipoDocumentoMapper;
     private final AuditoriaService auditoriaService;
+    private final AgregadorAccesosDocumentos agregadorAccesos;
+    private final AccesoDocumentoRepository accesoRepository;
+    private final AccesoDocumentoMapper accesoMapper;
+    private final AlmacenBlobsDocumentos almacenBlobs;
+    private final CifradorDocumentos cifrador;
+    private final CatalogoTiposDocumento catalogo;
+    private final ClasificadorDocumentosFirmados clasificador;
+    private final GeneradorDocumentosContrato generadorContrato;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Semaphore permisosEscritura;
 
     public DocumentacionService(DocumentoAdjuntoRepository documentoRepository,
                              TipoDocumentoRepository tipoDocumentoRepository,
+                             SolicitudCreditoRepository solicitudRepository,
                              DocumentoAdjuntoMapper documentoMapper,
                              TipoDocumentoMapper tipoDocumentoMapper,
-                             AuditoriaService auditoriaService) {
+                             AuditoriaService auditoriaService,
+                             AgregadorAccesosDocumentos agregadorAccesos,
+                             AccesoDocumentoRepository accesoRepository,
+                             AccesoDocumentoMapper accesoMapper,
+                             AlmacenBlobsDocumentos almacenBlobs,
+                             CifradorDocumentos cifrador,
+                             CatalogoTiposDocumento catalogo,
+                             ClasificadorDocumentosFirmados clasificador,
+                             ClasificacionDocumentosProperties clasificacionProperties,
+                             GeneradorDocumentosContrato generadorContrato,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager) {
         this.documentoRepository = documentoRepository;
         this.tipoDocumentoRepository = tipoDocumentoRepository;
+        this.solicitudRepository = solicitudRepository;
         this.documentoMapper = documentoMapper;
         this.tipoDocumentoMapper = tipoDocumentoMapper;
         this.auditoriaService = auditoriaService;
+        this.agregadorAccesos = agregadorAccesos;
+        this.accesoRepository = accesoRepository;
+        this.accesoMapper = accesoMapper;
+        this.almacenBlobs = almacenBlobs;
+        this.cifrador = cifrador;
+        this.catalogo = catalogo;
+        this.clasificador = clasificador;
+        this.generadorContrato = generadorContrato;
+        this.jdbcTemplate = jdbcTemplate;
+        this.permisosEscritura = new Semaphore(clasificacionProperties.getConcurrencia());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     // === GESTIÓN DE DOCUMENTOS ===
@@ -81,46 +152,131 @@ public class DocumentacionService {
             // Verificar que exista el tipo de documento
             TipoDocumento tipoDocumento = tipoDocumentoRepository.findById(idTipoDocumento)
                     .orElseThrow(() -> new ResourceNotFoundException("Tipo de documento no encontrado con id=" + idTipoDocumento));
+            validarPlazoFirmados(idSolicitud, tipoDocumento);
 
-            // 4. Generar nombre único
-            String nombreArchivo = generarNombreUnico(archivo.getOriginalFilename(), idSolicitud);
-            
-            // Construir ruta completa
-            String rutaArchivo = guardarArchivo(archivo, nombreArchivo);
-
-            // 5. Encriptar si es documento sensible
-            if (tipoDocumento.getDescripcion().toLowerCase().contains("buró") ||
-                tipoDocumento.getDescripcion().toLowerCase().contains("confidencial")) {
-                encriptarDocumentoSensible(rutaArchivo, idTipoDocumento);
+            // 4. Los sensibles se cifran mientras se escriben; el resto se guarda por contenido y si
+            // ya existe el mismo PDF solo se añade una referencia
+            try (InputStream contenido = archivo.getInputStream()) {
+                if (esDocumentoSensible(tipoDocumento)) {
+                    CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(contenido, MAX_FILE_SIZE);
+                    try {
+                        return registrarDocumento(idSolicitud, tipoDocumento, cifrado.ruta(), cifrado.tamanioBytes(),
+                                cifrado.hashSha256(), cifrado.claveCifrada());
+                    } catch (RuntimeException e) {
+                        eliminarArchivoPropio(cifrado.ruta());
+                        throw e;
+                    }
+                }
+                AlmacenBlobsDocumentos.BlobReclamado almacenado = almacenBlobs.guardarPdf(contenido, MAX_FILE_SIZE,
+                        tipoDocumento.getNombre());
+                return registrarDocumento(idSolicitud, tipoDocumento, almacenado.ruta(), almacenado.tamanioBytes(),
+                        almacenado.hashSha256(), null);
             }
+        } catch (IOException e) {
+            throw new CreateEntityException("Documento", "Error al guardar el documento: " + e.getMessage());
+        }
+    }
 
-            // 6. Asociar a solicitud
-            DocumentoAdjuntoDTO documentoDTO = new DocumentoAdjuntoDTO();
-            documentoDTO.setIdSolicitud(idSolicitud);
-            documentoDTO.setIdTipoDocumento(idTipoDocumento);
-            documentoDTO.setRutaArchivo(rutaArchivo);
-            documentoDTO.setFechaCargado(LocalDateTime.now());
-            
-            // 7. Validar plazo carga documentos firmados
-            if (tipoDocumento.getDescripcion().toLowerCase().contains("contrato") ||
-                tipoDocumento.getDescripcion().toLowerCase().contains("pagaré")) {
-                if (!validarPlazoCarga(idSolicitud, documentoDTO.getFechaCargado())) {
-                    throw new CreateEntityException("Documento", 
-                            "Ha superado el plazo máximo para cargar documentos firmados");
-                }
+    /**
+     * Carga un PDF leyendo directamente el cuerpo de la petición: el contenido se escribe a disco
+     * mientras se calcula su SHA-256, sin pasar por el buffer multipart ni quedar entero en memoria.
+     * No abre transacción durante la lectura para no retener una conexión mientras llega el archivo.
+     */
+    public DocumentoAdjuntoDTO cargarDocumentoContenido(Integer idSolicitud, Integer idTipoDocumento,
+                                                        long longitudDeclarada, InputStream contenido) {
+        if (longitudDeclarada > MAX_FILE_SIZE) {
+            throw new CreateEntityException("Documento", "El tamaño del archivo excede el límite permitido");
+        }
+        TipoDocumento tipoDocumento = tipoDocumentoRepository.findById(idTipoDocumento)
+                .orElseThrow(() -> new ResourceNotFoundException("Tipo de documento no encontrado con id=" + idTipoDocumento));
+        return guardarContenido(idSolicitud, tipoDocumento, contenido, MAX_FILE_SIZE, null);
+    }
+
+    /**
+     * Registra el documento de una carga reanudable ya recibida completa, con la misma validación y
+     * persistencia que {@link #cargarDocumentoContenido} pero con el límite de tamaño de la carga. Si el
+     * SHA-256 calculado al escribirlo no coincide con el declarado no queda ningún archivo.
+     */
+    public DocumentoAdjuntoDTO cargarDocumentoVerificado(Integer idSolicitud, Integer idTipoDocumento,
+                                                         InputStream contenido, long maxBytes, String hashEsperado) {
+        TipoDocumento tipoDocumento = tipoDocumentoRepository.findById(idTipoDocumento)
+                .orElseThrow(() -> new ResourceNotFoundException("Tipo de documento no encontrado con id=" + idTipoDocumento));
+        return guardarContenido(idSolicitud, tipoDocumento, contenido, maxBytes, hashEsperado);
+    }
+
+    private DocumentoAdjuntoDTO guardarContenido(Integer idSolicitud, TipoDocumento tipoDocumento,
+                                                 InputStream contenido, long maxBytes, String hashEsperado) {
+        validarPlazoFirmados(idSolicitud, tipoDocumento);
+        if (esDocumentoSensible(tipoDocumento)) {
+            CifradorDocumentos.DocumentoCifrado cifrado;
+            try {
+                cifrado = cifrador.guardarPdfCifrado(contenido, maxBytes);
+            } catch (IOException e) {
+                throw new CreateEntityException("Documento", "Error al guardar el documento: " + e.getMessage());
             }
-            
-            // Guardar en la base de datos
-            DocumentoAdjunto entity = documentoMapper.toModel(documentoDTO);
-            entity = documentoRepository.save(entity);
-            
-            // Registrar auditoría
-            registrarAuditoria("documentos_adjuntos", AccionAuditoriaEnum.INSERT);
-            
-            return documentoMapper.toDTO(entity);
+            verificarHash(hashEsperado, cifrado.hashSha256(), cifrado.ruta());
+            try {
+                return transactionTemplate.execute(estado -> registrarDocumento(idSolicitud, tipoDocumento,
+                        cifrado.ruta(), cifrado.tamanioBytes(), cifrado.hashSha256(), cifrado.claveCifrada()));
+            } catch (RuntimeException e) {
+                // El cifrado no pasa por el almacenamiento por contenido: nadie más lo referencia
+                eliminarArchivoPropio(cifrado.ruta());
+                throw e;
+            }
+        }
+
+        AlmacenDocumentos.ArchivoAlmacenado temporal;
+        try {
+            temporal = almacenBlobs.guardarTemporal(contenido, maxBytes, tipoDocumento.getNombre());
         } catch (IOException e) {
             throw new CreateEntityException("Documento", "Error al guardar el documento: " + e.getMessage());
         }
+        verificarHash(hashEsperado, temporal.hashSha256(), temporal.ruta());
+
+        return transactionTemplate.execute(estado -> {
+            try {
+                AlmacenBlobsDocumentos.BlobReclamado almacenado = almacenBlobs.reclamar(temporal);
+                return registrarDocumento(idSolicitud, tipoDocumento, almacenado.ruta(), almacenado.tamanioBytes(),
+                        almacenado.hashSha256(), null);
+            } catch (IOException e) {
+                throw new CreateEntityException("Documento", "Error al guardar el documento: " + e.getMessage());
+            }
+        });
+    }
+
+    private void verificarHash(String hashEsperado, String hashCalculado, String ruta) {
+        if (hashEsperado != null && !hashEsperado.equalsIgnoreCase(hashCalculado)) {
+            eliminarArchivoPropio(ruta);
+            throw new ContenidoInvalidoException("Documento",
+                    "El contenido recibido no coincide con el SHA-256 declarado (" + hashCalculado + ")");
+        }
+    }
+
+    private DocumentoAdjuntoDTO registrarDocumento(Integer idSolicitud, TipoDocumento tipoDocumento,
+                                                   String rutaArchivo, long tamanioBytes, String hashSha256,
+                                                   String claveCifrada) {
+        Integer idTipoDocumento = tipoDocumento.getId();
+
+        // 5 y 6. Asociar a solicitud (el contenido sensible ya llega cifrado)
+        DocumentoAdjuntoDTO documentoDTO = new DocumentoAdjuntoDTO();
+        documentoDTO.setIdSolicitud(idSolicitud);
+        documentoDTO.setIdTipoDocumento(idTipoDocumento);
+        documentoDTO.setRutaArchivo(rutaArchivo);
+        documentoDTO.setFechaCargado(LocalDateTime.now());
+        documentoDTO.setHashSha256(hashSha256);
+        documentoDTO.setTamanioBytes(tamanioBytes);
+        
+        // Guardar en la base de datos
+        DocumentoAdjunto entity = documentoMapper.toModel(documentoDTO);
+        entity.setClaveCifrada(claveCifrada);
+        entity = documentoRepository.save(entity);
+        
+        // Registrar auditoría
+        registrarAuditoria(TipoEntidadAuditoriaEnum.DOCUMENTO_ADJUNTO, entity.getId(), AccionAuditoriaEnum.INSERT,
+                "idSolicitud=" + entity.getIdSolicitud() + ";idTipoDocumento=" + entity.getIdTipoDocumento()
+                        + (claveCifrada != null ? ";cifrado" : ";sha256=" + hashSha256));
+        
+        return documentoMapper.toDTO(entity);
     }
 
     @Transactional
@@ -134,7 +290,7 @@ public class DocumentacionService {
             
             // Para este ejemplo, simplemente registramos la validación
             log.info("Documento validado correctamente: {}", idDocumento);
-            registrarAuditoria("documentos_adjuntos", AccionAuditoriaEnum.UPDATE);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.DOCUMENTO_ADJUNTO, idDocumento, AccionAuditoriaEnum.UPDATE, "validado");
             
         } catch (ResourceNotFoundException e) {
             throw e;
@@ -149,21 +305,23 @@ public class DocumentacionService {
             DocumentoAdjunto documento = documentoRepository.findById(idDocumento)
                     .orElseThrow(() -> new ResourceNotFoundException("Documento no encontrado con id=" + idDocumento));
             
-            // Eliminación segura del archivo físico (si existe)
-            try {
-                Path archivoPath = Paths.get(documento.getRutaArchivo());
-                if (Files.exists(archivoPath)) {
-                    Files.delete(archivoPath);
-                }
-            } catch (IOException e) {
-                log.warn("No se pudo eliminar el archivo físico: {}", documento.getRutaArchivo());
+            // Los documentos con hash comparten blob: se libera la referencia y el archivo solo se
+            // borra con la última. Los cifrados y los anteriores al almacenamiento por contenido tienen
+            // archivo propio y se borran tras confirmar; si eso falla, el archivo queda huérfano y lo
+            // recoge ReconciliadorDocumentos
+            if (documento.getHashSha256() != null && documento.getClaveCifrada() == null) {
+                almacenBlobs.liberar(documento.getHashSha256());
+            } else {
+                String ruta = documento.getRutaArchivo();
+                TransaccionUtils.despuesDelCommit(() -> eliminarArchivoPropio(ruta));
             }
             
             // Eliminar de la base de datos
             documentoRepository.delete(documento);
             
             // Registrar auditoría
-            registrarAuditoria("documentos_adjuntos", AccionAuditoriaEnum.DELETE);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.DOCUMENTO_ADJUNTO, documento.getId(), AccionAuditoriaEnum.DELETE,
+                    "idSolicitud=" + documento.getIdSolicitud());
             
         } catch (ResourceNotFoundException e) {
             throw e;
@@ -175,58 +333,123 @@ public class DocumentacionService {
     // === VERIFICACIÓN Y COMPLETITUD ===
     public Map<String, Object> verificarCompletitudDocumental(Integer idSolicitud) {
         // 1. Obtener tipos obligatorios para la etapa actual
-        List<TipoDocumentoDTO> tiposObligatorios = obtenerTiposObligatorios();
+        CatalogoTiposDocumento.Instantanea instantanea = catalogo.obtener();
+        BitSet obligatorios = instantanea.idsObligatorios();
         
         // 2. Verificar documentos cargados vs requeridos
         List<DocumentoAdjunto> documentosCargados = documentoRepository.findByIdSolicitud(idSolicitud);
         
-        // Lista para almacenar IDs de tipos de documentos ya cargados
-        List<Integer> idTiposDocumentosCargados = documentosCargados.stream()
-                .map(DocumentoAdjunto::getIdTipoDocumento)
-                .collect(Collectors.toList());
-        
-        // Lista para almacenar tipos de documentos faltantes
-        List<TipoDocumentoDTO> documentosFaltantes = new ArrayList<>();
-        
-        for (TipoDocumentoDTO tipoObligatorio : tiposObligatorios) {
-            if (!idTiposDocumentosCargados.contains(tipoObligatorio.getId())) {
-                documentosFaltantes.add(tipoObligatorio);
-            }
-        }
+        // Faltantes = obligatorios sin ningún documento cargado de ese tipo
+        BitSet faltantes = tiposFaltantes(obligatorios, documentosCargados);
+        List<TipoDocumentoDTO> documentosFaltantes = instantanea.tipos(faltantes);
         
         // 3. Generar reporte de completitud
+        int totalObligatorios = obligatorios.cardinality();
         double porcentajeCompletitud = 0.0;
-        if (!tiposObligatorios.isEmpty()) {
-            int documentosObligatoriosCargados = tiposObligatorios.size() - documentosFaltantes.size();
-            porcentajeCompletitud = (double) documentosObligatoriosCargados / tiposObligatorios.size() * 100.0;
+        if (totalObligatorios > 0) {
+            int documentosObligatoriosCargados = totalObligatorios - faltantes.cardinality();
+            porcentajeCompletitud = (double) documentosObligatoriosCargados / totalObligatorios * 100.0;
         }
         
         // Crear mapa de respuesta
         Map<String, Object> respuesta = new HashMap<>();
         respuesta.put("idSolicitud", idSolicitud);
-        respuesta.put("totalDocumentosRequeridos", tiposObligatorios.size());
+        respuesta.put("totalDocumentosRequeridos", totalObligatorios);
         respuesta.put("documentosCargados", documentosCargados.size());
         respuesta.put("documentosFaltantes", documentosFaltantes);
         respuesta.put("porcentajeCompletitud", porcentajeCompletitud);
-        respuesta.put("completitudTotal", documentosFaltantes.isEmpty());
+        respuesta.put("completitudTotal", faltantes.isEmpty());
         
         return respuesta;
     }
 
+    /**
+     * Completitud de varias solicitudes a la vez: las indicadas por id o, si no se indican, las que
+     * están en el estado dado. Los tipos cargados de toda la página salen de una sola consulta
+     * agrupada por solicitud y tipo, y se comparan con los obligatorios del catálogo. Los ids que no
+     * existen se informan aparte en vez de aparecer como solicitudes sin documentos.
+     */
+    @Transactional(readOnly = true)
+    public PaginaCompletitudDTO verificarCompletitudLote(List<Integer> idsSolicitud, EstadoSolicitudEnum estado,
+                                                         int pagina, int tamanio) {
+        List<Integer> ids;
+        long total;
+        List<Integer> noEncontrados = List.of();
+        if (idsSolicitud != null && !idsSolicitud.isEmpty()) {
+            Set<Integer> distintos = idsSolicitud.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+            List<Integer> existentes = solicitudRepository.findIdsByIdIn(distintos).stream()
+                    .map(IdSolicitud::getId)
+                    .sorted()
+                    .toList();
+            if (existentes.size() < distintos.size()) {
+                Set<Integer> encontrados = new HashSet<>(existentes);
+                noEncontrados = distintos.stream().filter(id -> !encontrados.contains(id)).sorted().toList();
+            }
+            int desde = (int) Math.min((long) pagina * tamanio, existentes.size());
+            ids = existentes.subList(desde, Math.min(desde + tamanio, existentes.size()));
+            total = existentes.size();
+        } else if (estado != null) {
+            Page<IdSolicitud> pagIds = solicitudRepository.findIdsByEstado(estado,
+                    PageRequest.of(pagina, tamanio, Sort.by("id")));
+            ids = pagIds.getContent().stream().map(IdSolicitud::getId).toList();
+            total = pagIds.getTotalElements();
+        } else {
+            throw new CreateEntityException("Documento", "Debe indicar los ids de las solicitudes o un estado");
+        }
+
+        Map<Integer, BitSet> cargadosPorSolicitud = new HashMap<>();
+        Map<Integer, Long> documentosPorSolicitud = new HashMap<>();
+        for (ConteoDocumentosTipo conteo : documentoRepository.contarPorSolicitudYTipo(ids)) {
+            cargadosPorSolicitud.computeIfAbsent(conteo.idSolicitud(), id -> new BitSet()).set(conteo.idTipoDocumento());
+            documentosPorSolicitud.merge(conteo.idSolicitud(), conteo.cantidad(), Long::sum);
+        }
+
+        BitSet obligatorios = catalogo.obtener().idsObligatorios();
+        int totalObligatorios = obligatorios.cardinality();
+        List<CompletitudSolicitudDTO> resultados = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            BitSet faltantes = (BitSet) obligatorios.clone();
+            BitSet cargados = cargadosPorSolicitud.get(id);
+            if (cargados != null) {
+                faltantes.andNot(cargados);
+            }
+            CompletitudSolicitudDTO completitud = new CompletitudSolicitudDTO();
+            completitud.setIdSolicitud(id);
+            completitud.setTotalDocumentosRequeridos(totalObligatorios);
+            completitud.setDocumentosCargados(documentosPorSolicitud.getOrDefault(id, 0L));
+            completitud.setIdsTiposFaltantes(faltantes.stream().boxed().toList());
+            completitud.setPorcentajeCompletitud(totalObligatorios > 0
+                    ? (double) (totalObligatorios - faltantes.cardinality()) / totalObligatorios * 100.0
+                    : 0.0);
+            completitud.setCompletitudTotal(faltantes.isEmpty());
+            resultados.add(completitud);
+        }
+
+        PaginaCompletitudDTO respuesta = new PaginaCompletitudDTO();
+        respuesta.setResultados(resultados);
+        respuesta.setPagina(pagina);
+        respuesta.setTamanio(tamanio);
+        respuesta.setTotalResultados(total);
+        respuesta.setIdsNoEncontrados(noEncontrados);
+        return respuesta;
+    }
+
     public List<TipoDocumentoDTO> obtenerDocumentosFaltantes(Integer idSolicitud) {
-        // Obtener documentos obligatorios
-        List<TipoDocumentoDTO> tiposObligatorios = obtenerTiposObligatorios();
+        CatalogoTiposDocumento.Instantanea instantanea = catalogo.obtener();
         
-        // Obtener documentos ya cargados para la solicitud
+        // Obtener documentos ya cargados para la solicitud y quitar sus tipos de los obligatorios
         List<DocumentoAdjunto> documentosCargados = documentoRepository.findByIdSolicitud(idSolicitud);
-        List<Integer> idTiposDocumentosCargados = documentosCargados.stream()
-                .map(DocumentoAdjunto::getIdTipoDocumento)
-                .collect(Collectors.toList());
-        
-        // Filtrar los tipos obligatorios que no han sido cargados
-        return tiposObligatorios.stream()
-                .filter(tipo -> !idTiposDocumentosCargados.contains(tipo.getId()))
-                .collect(Collectors.toList());
+        return instantanea.tipos(tiposFaltantes(instantanea.idsObligatorios(), documentosCargados));
+    }
+
+    private static BitSet tiposFaltantes(BitSet obligatorios, List<DocumentoAdjunto> documentosCargados) {
+        BitSet cargados = new BitSet();
+        for (DocumentoAdjunto documento : documentosCargados) {
+            cargados.set(documento.getIdTipoDocumento());
+        }
+        BitSet faltantes = (BitSet) obligatorios.clone();
+        faltantes.andNot(cargados);
+        return faltantes;
     }
 
     public void alertarDocumentosPendientes(Integer idSolicitud) {
@@ -245,7 +468,8 @@ public class DocumentacionService {
             // En un sistema real, aquí se enviarían notificaciones por correo, SMS, etc.
             
             // Registrar en la auditoría
-            registrarAuditoria("solicitudes_credito", AccionAuditoriaEnum.UPDATE);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, idSolicitud, AccionAuditoriaEnum.UPDATE,
+                    "documentosFaltantes=" + documentosFaltantes.size());
         }
     }
 
@@ -278,19 +502,17 @@ public class DocumentacionService {
                 entity.setNombre(request.getNombre());
                 entity.setDescripcion(request.getDescripcion());
                 entity.setEstado(request.getEstado());
-                
-                // Registrar auditoría
-                registrarAuditoria("tipos_documentos", AccionAuditoriaEnum.UPDATE);
             } else {
                 // Crear nuevo
                 entity = tipoDocumentoMapper.toModel(request);
-                
-                // Registrar auditoría
-                registrarAuditoria("tipos_documentos", AccionAuditoriaEnum.INSERT);
             }
             
-            // Guardar y devolver
+            // Guardar, registrar auditoría y devolver
             entity = tipoDocumentoRepository.save(entity);
+            catalogo.recargarDespuesDelCommit();
+            registrarAuditoria(TipoEntidadAuditoriaEnum.TIPO_DOCUMENTO, entity.getId(),
+                    request.getId() != null ? AccionAuditoriaEnum.UPDATE : AccionAuditoriaEnum.INSERT,
+                    "nombre=" + entity.getNombre() + ";estado=" + entity.getEstado());
             return tipoDocumentoMapper.toDTO(entity);
             
         } catch (ResourceNotFoundException | CreateEntityException e) {
@@ -302,38 +524,18 @@ public class DocumentacionService {
     }
 
     public List<TipoDocumentoDTO> obtenerTiposObligatorios() {
-        // Obtener todos los tipos activos
-        List<TipoDocumento> tiposActivos = tipoDocumentoRepository.findByEstado(EstadoTiposDocumentoEnum.ACTIVO);
-        
-        // Filtrar los que son obligatorios (descripción contiene "obligatorio")
-        return tiposActivos.stream()
-                .filter(tipo -> tipo.getDescripcion().toLowerCase().contains("obligatorio"))
-                .map(tipoDocumentoMapper::toDTO)
-                .collect(Collectors.toList());
+        // Tipos activos cuya descripción contiene "obligatorio", precalculados en el catálogo
+        return catalogo.obtener().obligatorios();
     }
 
     public List<TipoDocumentoDTO> obtenerTiposPorEtapa(String etapaProceso) {
-        // Obtener todos los tipos activos
-        List<TipoDocumento> tiposActivos = tipoDocumentoRepository.findByEstado(EstadoTiposDocumentoEnum.ACTIVO);
-        
         // Filtrar por etapa (buscando en la descripción)
-        return tiposActivos.stream()
-                .filter(tipo -> tipo.getDescripcion().toLowerCase().contains(etapaProceso.toLowerCase()))
-                .map(tipoDocumentoMapper::toDTO)
-                .collect(Collectors.toList());
+        return catalogo.tiposPorEtapa(etapaProceso);
     }
 
     public List<TipoDocumentoDTO> obtenerTiposPorCategoria(CategoriaDocumentoEnum categoria) {
-        // Obtener todos los tipos activos
-        List<TipoDocumento> tiposActivos = tipoDocumentoRepository.findByEstado(EstadoTiposDocumentoEnum.ACTIVO);
-        
         // Filtrar por categoría (buscando en la descripción)
-        String categoriaStr = categoria.getValor().toLowerCase();
-        
-        return tiposActivos.stream()
-                .filter(tipo -> tipo.getDescripcion().toLowerCase().contains(categoriaStr))
-                .map(tipoDocumentoMapper::toDTO)
-                .collect(Collectors.toList());
+        return catalogo.obtener().porCategoria().get(categoria);
     }
 
     @Transactional
@@ -346,9 +548,11 @@ public class DocumentacionService {
             // Cambiar estado sin eliminar históricos
             tipoDocumento.setEstado(activo ? EstadoTiposDocumentoEnum.ACTIVO : EstadoTiposDocumentoEnum.INACTIVO);
             tipoDocumentoRepository.save(tipoDocumento);
+            catalogo.recargarDespuesDelCommit();
             
             // Registrar auditoría
-            registrarAuditoria("tipos_documentos", AccionAuditoriaEnum.UPDATE);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.TIPO_DOCUMENTO, idTipo, AccionAuditoriaEnum.UPDATE,
+                    "estado=" + tipoDocumento.getEstado());
             
         } catch (ResourceNotFoundException e) {
             throw e;
@@ -359,90 +563,285 @@ public class DocumentacionService {
     }
 
     // === CONTRATOS Y FIRMA ===
-    public Map<String, Object> generarContrato(Integer idSolicitud) {
+    /**
+     * Genera el contrato y un pagaré por cuota de una solicitud aprobada. Los documentos se renderizan
+     * desde las plantillas compiladas y se escriben en paralelo en hilos virtuales (limitados por
+     * originacion.documentos.firmados.concurrencia); después se reclaman los blobs y se insertan todas
+     * las filas en un único lote JDBC. Si algún documento falla no se registra ninguno.
+     */
+    public List<ResultadoCargaDocumentoDTO> generarContrato(Integer idSolicitud) {
+        log.info("Generando contrato para solicitud: {}", idSolicitud);
+        GeneradorDocumentosContrato.DatosContrato datos = transactionTemplate.execute(estado -> {
+            SolicitudCredito solicitud = solicitudRepository.findById(idSolicitud)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "Solicitud no encontrada con id=" + idSolicitud));
+            if (solicitud.getEstado() != EstadoSolicitudEnum.APROBADA) {
+                throw new CreateEntityException("Contrato",
+                        "La solicitud debe estar aprobada para generar el contrato");
+            }
+            return generadorContrato.datos(solicitud, LocalDate.now());
+        });
+        TipoDocumento tipoContrato = tipoGenerado(generadorContrato.getTipoContrato());
+        TipoDocumento tipoPagare = tipoGenerado(generadorContrato.getTipoPagare());
+
+        // 1. Renderizar y escribir el contrato y los pagarés en paralelo
+        List<Future<CargaDocumento>> pendientes = new ArrayList<>(datos.plazoMeses() + 1);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            String nombreContrato = "contrato-" + datos.numeroSolicitud() + ".pdf";
+            pendientes.add(executor.submit(() -> escribirCarga(nombreContrato, tipoContrato,
+                    () -> new ByteArrayInputStream(generadorContrato.contrato(datos)))));
+            for (int cuota = 1; cuota <= datos.plazoMeses(); cuota++) {
+                int numeroCuota = cuota;
+                String nombrePagare = "pagare-" + datos.numeroSolicitud() + "-" + numeroCuota + ".pdf";
+                pendientes.add(executor.submit(() -> escribirCarga(nombrePagare, tipoPagare,
+                        () -> new ByteArrayInputStream(generadorContrato.pagare(datos, numeroCuota)))));
+            }
+        }
+        List<CargaDocumento> cargas = new ArrayList<>(pendientes.size());
+        for (Future<CargaDocumento> pendiente : pendientes) {
+            cargas.add(pendiente.resultNow());
+        }
+        Optional<CargaDocumento> fallida = cargas.stream().filter(carga -> carga.error() != null).findFirst();
+        if (fallida.isPresent()) {
+            cargas.forEach(this::descartarCarga);
+            throw new CreateEntityException("Contrato", "Error al generar " + fallida.get().nombreArchivo()
+                    + ": " + fallida.get().error());
+        }
+
+        // 2. Reclamar blobs e insertar todas las filas en un único lote
         try {
-            // 1. Simular obtención de datos de solicitud aprobada
-            // En un sistema real, aquí se consultaría a la solicitud de crédito
-            log.info("Generando contrato para solicitud: {}", idSolicitud);
-            
-            // 2. Generar contrato desde plantilla (simulado)
-            String rutaContrato = generarNombreUnico("contrato", idSolicitud) + ".pdf";
-            
-            // 3. Generar pagarés por cada cuota (simulado)
-            String rutaPagare = generarNombreUnico("pagare", idSolicitud) + ".pdf";
-            
-            // 4. Almacenar en expediente - simulado
-            // En un sistema real, aquí se generarían documentos PDF reales
-            
-            // Registrar en base de datos (simulado)
-            DocumentoAdjuntoDTO contratoDTO = new DocumentoAdjuntoDTO();
-            contratoDTO.setIdSolicitud(idSolicitud);
-            contratoDTO.setIdTipoDocumento(1); // Asumiendo ID 1 para tipo "Contrato"
-            contratoDTO.setRutaArchivo(DOCUMENTOS_BASE_PATH + rutaContrato);
-            contratoDTO.setFechaCargado(LocalDateTime.now());
-            
-            // Registrar auditoría
-            registrarAuditoria("documentos_adjuntos", AccionAuditoriaEnum.INSERT);
-            
-            // Crear respuesta
-            Map<String, Object> respuesta = new HashMap<>();
-            respuesta.put("idSolicitud", idSolicitud);
-            respuesta.put("fechaGeneracion", LocalDateTime.now());
-            respuesta.put("documentosGenerados", List.of("Contrato", "Pagaré"));
-            respuesta.put("rutaContrato", rutaContrato);
-            respuesta.put("rutaPagare", rutaPagare);
-            
-            return respuesta;
-            
-        } catch (Exception e) {
-            throw new CreateEntityException("Contrato", 
-                    "Error al generar el contrato: " + e.getMessage());
+            return transactionTemplate.execute(estado -> {
+                List<ResultadoCargaDocumentoDTO> resultados = insertarCargas(idSolicitud, cargas);
+                registrarAuditoria(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, idSolicitud, AccionAuditoriaEnum.INSERT,
+                        "contrato=1;pagares=" + datos.plazoMeses());
+                return resultados;
+            });
+        } catch (RuntimeException e) {
+            cargas.forEach(this::descartarCarga);
+            throw e;
         }
     }
 
-    @Transactional
-    public void registrarDocumentosFirmados(Integer idSolicitud, List<MultipartFile> documentos) {
+    private TipoDocumento tipoGenerado(String nombre) {
+        return tipoDocumentoRepository.findByNombre(nombre)
+                .orElseThrow(() -> new CreateEntityException("Contrato", "No existe el tipo de documento " + nombre));
+    }
+
+    /**
+     * Registra un paquete de documentos firmados. Cada archivo se clasifica por su nombre con las reglas
+     * configuradas y se escribe a disco en paralelo, en hilos virtuales limitados por
+     * originacion.documentos.firmados.concurrencia. Después, en una sola transacción, se reclaman los
+     * blobs y se insertan todas las filas en un lote JDBC. Los archivos que no son PDF o no se pueden
+     * clasificar se informan como rechazados sin detener al resto.
+     */
+    public List<ResultadoCargaDocumentoDTO> registrarDocumentosFirmados(Integer idSolicitud, List<MultipartFile> documentos) {
+        // 1. Validar plazo máximo siguiente día laborable
+        if (!validarPlazoCarga(idSolicitud, LocalDateTime.now())) {
+            throw new CreateEntityException("Documento", 
+                    "Ha superado el plazo máximo para cargar documentos firmados");
+        }
+
+        // 2. Clasificar y escribir los archivos en paralelo, sin tocar aún la base de datos
+        Map<String, Optional<TipoDocumento>> tiposPorNombre = new HashMap<>();
+        List<Future<CargaDocumento>> pendientes = new ArrayList<>(documentos.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (MultipartFile documento : documentos) {
+                String nombreArchivo = documento.getOriginalFilename();
+                Optional<String> nombreTipo = clasificador.clasificar(nombreArchivo);
+                Optional<TipoDocumento> tipo = nombreTipo.flatMap(nombre ->
+                        tiposPorNombre.computeIfAbsent(nombre, tipoDocumentoRepository::findByNombre));
+                pendientes.add(executor.submit(() -> escribirFirmado(documento, nombreArchivo, nombreTipo, tipo)));
+            }
+        }
+        List<CargaDocumento> cargas = new ArrayList<>(pendientes.size());
+        for (Future<CargaDocumento> pendiente : pendientes) {
+            cargas.add(pendiente.resultNow());
+        }
+
+        // 3. Reclamar blobs e insertar todas las filas en un único lote
+        List<ResultadoCargaDocumentoDTO> resultados;
+        try {
+            resultados = transactionTemplate.execute(estado -> insertarFirmados(idSolicitud, cargas));
+        } catch (RuntimeException e) {
+            cargas.forEach(this::descartarCarga);
+            throw e;
+        }
+
+        // 4. Verificar completitud contractual
+        verificarCompletitudDocumental(idSolicitud);
+
+        // 5. Notificar para revisión final (simulado)
+        log.info("Documentos firmados recibidos para solicitud {}: {}", idSolicitud, documentos.size());
+        return resultados;
+    }
+
+    private CargaDocumento escribirFirmado(MultipartFile documento, String nombreArchivo, Optional<String> nombreTipo,
+                                           Optional<TipoDocumento> tipo) {
+        if (!validarFormatoPDF(documento)) {
+            return CargaDocumento.rechazada(nombreArchivo, "El archivo debe ser en formato PDF");
+        }
+        if (nombreTipo.isEmpty()) {
+            return CargaDocumento.rechazada(nombreArchivo, "No se pudo determinar el tipo de documento");
+        }
+        if (tipo.isEmpty()) {
+            return CargaDocumento.rechazada(nombreArchivo, "No existe el tipo de documento " + nombreTipo.get());
+        }
+        return escribirCarga(nombreArchivo, tipo.get(), documento::getInputStream);
+    }
+
+    /**
+     * Escribe un documento de un paquete (cifrado si el tipo es sensible, si no como temporal de blob)
+     * sin tocar la base de datos. Los errores se devuelven como carga rechazada.
+     */
+    private CargaDocumento escribirCarga(String nombreArchivo, TipoDocumento tipo, FuenteContenido fuente) {
         try {
-            // 1. Validar plazo máximo siguiente día laborable
-            if (!validarPlazoCarga(idSolicitud, LocalDateTime.now())) {
-                throw new CreateEntityException("Documento", 
-                        "Ha superado el plazo máximo para cargar documentos firmados");
+            permisosEscritura.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CargaDocumento.rechazada(nombreArchivo, "Carga interrumpida");
+        }
+        try (InputStream contenido = fuente.abrir()) {
+            if (esDocumentoSensible(tipo)) {
+                return new CargaDocumento(nombreArchivo, tipo, null,
+                        cifrador.guardarPdfCifrado(contenido, MAX_FILE_SIZE), null);
             }
-            
-            // 2. Cargar documentos firmados
-            for (MultipartFile documento : documentos) {
-                // Validar formato y guardar
-                if (validarFormatoPDF(documento)) {
-                    String nombreUnico = generarNombreUnico(documento.getOriginalFilename(), idSolicitud);
-                    String rutaArchivo = guardarArchivo(documento, nombreUnico);
-                    
-                    // Crear registro en BD
-                    DocumentoAdjuntoDTO documentoDTO = new DocumentoAdjuntoDTO();
-                    documentoDTO.setIdSolicitud(idSolicitud);
-                    documentoDTO.setIdTipoDocumento(1); // Aquí debería determinarse el tipo según el archivo
-                    documentoDTO.setRutaArchivo(rutaArchivo);
-                    documentoDTO.setFechaCargado(LocalDateTime.now());
-                    
-                    DocumentoAdjunto entity = documentoMapper.toModel(documentoDTO);
-                    documentoRepository.save(entity);
+            return new CargaDocumento(nombreArchivo, tipo,
+                    almacenBlobs.guardarTemporal(contenido, MAX_FILE_SIZE, tipo.getNombre()), null, null);
+        } catch (RuntimeException | IOException e) {
+            return CargaDocumento.rechazada(nombreArchivo, e.getMessage());
+        } finally {
+            permisosEscritura.release();
+        }
+    }
+
+    private List<ResultadoCargaDocumentoDTO> insertarFirmados(Integer idSolicitud, List<CargaDocumento> cargas) {
+        List<ResultadoCargaDocumentoDTO> resultados = insertarCargas(idSolicitud, cargas);
+        long registrados = resultados.stream()
+                .filter(resultado -> resultado.getEstado() == EstadoCargaDocumentoEnum.REGISTRADO)
+                .count();
+
+        // Registrar auditoría
+        registrarAuditoria(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, idSolicitud, AccionAuditoriaEnum.INSERT,
+                "documentosFirmados=" + registrados + ";rechazados=" + (cargas.size() - registrados));
+        return resultados;
+    }
+
+    /**
+     * Reclama los blobs de las cargas escritas e inserta sus filas en un lote; las rechazadas solo se
+     * informan. Debe invocarse dentro de una transacción.
+     */
+    private List<ResultadoCargaDocumentoDTO> insertarCargas(Integer idSolicitud, List<CargaDocumento> cargas) {
+        LocalDateTime fechaCargado = LocalDateTime.now();
+        List<ResultadoCargaDocumentoDTO> resultados = new ArrayList<>(cargas.size());
+        List<DocumentoAdjunto> filas = new ArrayList<>();
+        List<ResultadoCargaDocumentoDTO> registrados = new ArrayList<>();
+
+        for (CargaDocumento carga : cargas) {
+            ResultadoCargaDocumentoDTO resultado = new ResultadoCargaDocumentoDTO();
+            resultado.setNombreArchivo(carga.nombreArchivo());
+            resultados.add(resultado);
+            if (carga.error() != null) {
+                resultado.setEstado(EstadoCargaDocumentoEnum.RECHAZADO);
+                resultado.setMensaje(carga.error());
+                continue;
+            }
+
+            DocumentoAdjunto fila = new DocumentoAdjunto();
+            fila.setIdSolicitud(idSolicitud);
+            fila.setIdTipoDocumento(carga.tipo().getId());
+            fila.setFechaCargado(fechaCargado);
+            if (carga.cifrado() != null) {
+                fila.setRutaArchivo(carga.cifrado().ruta());
+                fila.setHashSha256(carga.cifrado().hashSha256());
+                fila.setTamanioBytes(carga.cifrado().tamanioBytes());
+                fila.setClaveCifrada(carga.cifrado().claveCifrada());
+            } else {
+                AlmacenBlobsDocumentos.BlobReclamado almacenado;
+                try {
+                    almacenado = almacenBlobs.reclamar(carga.temporal());
+                } catch (IOException e) {
+                    throw new CreateEntityException("Documento",
+                            "Error al procesar los documentos firmados: " + e.getMessage());
                 }
+                fila.setRutaArchivo(almacenado.ruta());
+                fila.setHashSha256(almacenado.hashSha256());
+                fila.setTamanioBytes(almacenado.tamanioBytes());
+            }
+            filas.add(fila);
+            resultado.setEstado(EstadoCargaDocumentoEnum.REGISTRADO);
+            resultado.setIdTipoDocumento(fila.getIdTipoDocumento());
+            resultado.setHashSha256(fila.getClaveCifrada() == null ? fila.getHashSha256() : null);
+            registrados.add(resultado);
+        }
+
+        if (!filas.isEmpty()) {
+            List<Integer> ids = insertarLote(filas);
+            for (int i = 0; i < ids.size(); i++) {
+                registrados.get(i).setIdDocumento(ids.get(i));
+            }
+        }
+        return resultados;
+    }
+
+    private List<Integer> insertarLote(List<DocumentoAdjunto> filas) {
+        KeyHolder claves = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                conexion -> conexion.prepareStatement(INSERTAR_DOCUMENTO, new String[] {"id_documento"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        DocumentoAdjunto fila = filas.get(i);
+                        ps.setInt(1, fila.getIdSolicitud());
+                        ps.setInt(2, fila.getIdTipoDocumento());
+                        ps.setString(3, fila.getRutaArchivo());
+                        ps.setTimestamp(4, Timestamp.valueOf(fila.getFechaCargado()));
+                        ps.setString(5, fila.getHashSha256());
+                        ps.setLong(6, fila.getTamanioBytes());
+                        ps.setString(7, fila.getClaveCifrada());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return filas.size();
+                    }
+                },
+                claves);
+        return claves.getKeyList().stream()
+                .map(fila -> ((Number) fila.get("id_documento")).intValue())
+                .toList();
+    }
+
+    private void descartarCarga(CargaDocumento carga) {
+        try {
+            if (carga.temporal() != null) {
+                almacenBlobs.getAlmacenDocumentos().eliminar(carga.temporal().ruta());
+            }
+            if (carga.cifrado() != null) {
+                almacenBlobs.getAlmacenDocumentos().eliminar(carga.cifrado().ruta());
             }
-            
-            // 3. Verificar completitud contractual
-            verificarCompletitudDocumental(idSolicitud);
-            
-            // 4. Notificar para revisión final (simulado)
-            log.info("Documentos firmados recibidos para solicitud {}: {}", idSolicitud, documentos.size());
-            
-            // Registrar auditoría
-            registrarAuditoria("documentos_adjuntos", AccionAuditoriaEnum.INSERT);
-            
         } catch (IOException e) {
-            throw new CreateEntityException("Documento", 
-                    "Error al procesar los documentos firmados: " + e.getMessage());
+            log.warn("No se pudo eliminar el archivo de {}: {}", carga.nombreArchivo(), e.getMessage());
+        }
+    }
+
+    /**
+     * Archivo de un paquete (firmado o generado) ya escrito (temporal o cifrado) o rechazado con su motivo.
+     */
+    private record CargaDocumento(String nombreArchivo, TipoDocumento tipo,
+                                  AlmacenDocumentos.ArchivoAlmacenado temporal,
+                                  CifradorDocumentos.DocumentoCifrado cifrado,
+                                  String error) {
+
+        static CargaDocumento rechazada(String nombreArchivo, String error) {
+            return new CargaDocumento(nombreArchivo, null, null, null, error);
         }
     }
 
+    @FunctionalInterface
+    private interface FuenteContenido {
+        InputStream abrir() throws IOException;
+    }
+
     // === CONSULTAS ===
     public List<DocumentoAdjuntoDTO> listarDocumentosPorSolicitud(Integer idSolicitud) {
         return documentoRepository.findByIdSolicitudOrderByFechaCargadoDesc(idSolicitud)
@@ -459,6 +858,146 @@ public class DocumentacionService {
         return documentoMapper.toDTO(documento);
     }
 
+    @Transactional(readOnly = true)
+    public List<AccesoDocumentoDTO> listarAccesos(Integer idDocumento) {
+        return accesoRepository.findByIdDocumentoOrderByPrimerAccesoDesc(idDocumento).stream()
+                .map(accesoMapper::toDTO)
+                .toList();
+    }
+
+    /**
+     * Datos para servir el contenido de un documento sin leerlo en memoria.
+     */
+    public record ArchivoDescarga(String ruta, long tamanioBytes, String etag, String claveCifrada,
+                                  boolean comprimido) {
+    }
+
+    /**
+     * Prepara la descarga en streaming de un documento: resuelve el archivo y su ETag (el SHA-256 del
+     * contenido, uno opaco para los cifrados, o tamaño y fecha de modificación para documentos
+     * anteriores) y registra el acceso igual que descargarArchivo.
+     */
+    public ArchivoDescarga prepararDescarga(Integer idDocumento, String usuario) {
+        DocumentoAdjunto documento = documentoRepository.findById(idDocumento)
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "Documento no encontrado con id=" + idDocumento));
+        log.info("Usuario {} descargando documento {}", usuario, idDocumento);
+
+        try {
+            ArchivoDescarga archivo = resolverArchivo(documento);
+
+            // El descifrado se hace al transferir, segmento a segmento
+            boolean esDocumentoSensible = esDocumentoSensible(documento.getTipoDocumento());
+            agregadorAccesos.registrarAcceso(idDocumento, documento.getIdTipoDocumento(), usuario, esDocumentoSensible);
+
+            return archivo;
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("No se pudo leer el archivo del documento: " + e.getMessage());
+        }
+    }
+
+    private ArchivoDescarga resolverArchivo(DocumentoAdjunto documento) throws IOException {
+        String ruta = documento.getRutaArchivo();
+        AlmacenamientoDocumentos.Metadatos metadatos = almacenBlobs.getAlmacenDocumentos().getAlmacenamiento()
+                .consultar(ruta)
+                .orElseThrow(() -> new ResourceNotFoundException("No existe el archivo del documento: " + ruta));
+        // Cifrados y comprimidos ocupan distinto que el PDF que se sirve
+        boolean comprimido = documento.getClaveCifrada() == null
+                && almacenBlobs.getAlmacenDocumentos().comprimido(ruta);
+        long tamanio;
+        if (documento.getClaveCifrada() != null) {
+            tamanio = cifrador.tamanioClaro(ruta);
+        } else if (comprimido) {
+            tamanio = documento.getTamanioBytes();
+        } else {
+            tamanio = metadatos.tamanioBytes();
+        }
+        String etag;
+        if (documento.getClaveCifrada() != null) {
+            // El SHA-256 del contenido en claro no se publica; la clave de datos envuelta es única por documento
+            etag = "\"c" + documento.getId() + "-" + huella(documento.getClaveCifrada()) + "\"";
+        } else if (documento.getHashSha256() != null) {
+            etag = "\"" + documento.getHashSha256() + "\"";
+        } else {
+            etag = "W/\"" + tamanio + "-" + metadatos.ultimaModificacion().toEpochMilli() + "\"";
+        }
+        return new ArchivoDescarga(ruta, tamanio, etag, documento.getClaveCifrada(), comprimido);
+    }
+
+    /**
+     * Documentos de una solicitud listos para servirse como un ZIP, con el tamaño exacto del archivo.
+     */
+    public record ExpedienteDescarga(String nombreArchivo, List<EntradaExpediente> entradas, long tamanioBytes) {
+    }
+
+    public record EntradaExpediente(String nombre, LocalDateTime fecha, ArchivoDescarga archivo) {
+    }
+
+    /**
+     * Prepara la descarga de todos los documentos de una solicitud como un ZIP: resuelve cada archivo
+     * y su tamaño servido antes de empezar a responder, de modo que un archivo que falta se informa
+     * como 404 y no como un ZIP cortado. Registra una sola auditoría con los documentos incluidos en
+     * lugar de un acceso por documento.
+     */
+    public ExpedienteDescarga prepararExpediente(Integer idSolicitud, String usuario) {
+        SolicitudCredito solicitud = solicitudRepository.findById(idSolicitud)
+                .orElseThrow(() -> new ResourceNotFoundException("Solicitud no encontrada con id=" + idSolicitud));
+        List<DocumentoAdjunto> documentos = documentoRepository.findByIdSolicitudOrderByFechaCargadoDesc(idSolicitud);
+        Map<Integer, TipoDocumentoDTO> tipos = catalogo.obtener().porId();
+        log.info("Usuario {} descargando el expediente de la solicitud {} ({} documentos)", usuario, idSolicitud,
+                documentos.size());
+
+        List<EntradaExpediente> entradas = new ArrayList<>(documentos.size());
+        long tamanio = SalidaZip.TAMANIO_FIN;
+        try {
+            for (DocumentoAdjunto documento : documentos) {
+                TipoDocumentoDTO tipo = tipos.get(documento.getIdTipoDocumento());
+                String nombre = nombreEntrada(tipo != null ? tipo.getNombre() : "documento", documento.getId());
+                ArchivoDescarga archivo = resolverArchivo(documento);
+                entradas.add(new EntradaExpediente(nombre, documento.getFechaCargado(), archivo));
+                tamanio += SalidaZip.tamanioEntrada(nombre, archivo.tamanioBytes());
+            }
+        } catch (IOException e) {
+            throw new ResourceNotFoundException("No se pudo leer un archivo del expediente: " + e.getMessage());
+        }
+
+        auditoriaService.registrar(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, idSolicitud, AccionAuditoriaEnum.SELECT,
+                usuario, "expediente;documentos=" + documentos.stream()
+                        .map(documento -> String.valueOf(documento.getId()))
+                        .collect(Collectors.joining(",")));
+
+        String numero = solicitud.getNumeroSolicitud() != null ? solicitud.getNumeroSolicitud() : idSolicitud.toString();
+        return new ExpedienteDescarga("expediente-" + numero + ".zip", entradas, tamanio);
+    }
+
+    /**
+     * Escribe el ZIP del expediente entrada por entrada: cada documento se descifra o descomprime al
+     * vuelo y pasa sin comprimir a la salida.
+     */
+    public void transferirExpediente(ExpedienteDescarga expediente, OutputStream salida) throws IOException {
+        SalidaZip zip = new SalidaZip(salida);
+        for (EntradaExpediente entrada : expediente.entradas()) {
+            ArchivoDescarga archivo = entrada.archivo();
+            zip.abrirEntrada(entrada.nombre(), archivo.tamanioBytes(), entrada.fecha());
+            transferirContenido(archivo, 0, archivo.tamanioBytes(), zip);
+            zip.cerrarEntrada();
+        }
+        zip.terminar();
+    }
+
+    private static String nombreEntrada(String tipo, Integer idDocumento) {
+        return tipo.replaceAll("[^\\p{L}\\p{N} ._-]", "_") + "-" + idDocumento + ".pdf";
+    }
+
+    public void transferirContenido(ArchivoDescarga archivo, long inicio, long longitud, OutputStream salida)
+            throws IOException {
+        if (archivo.claveCifrada() != null) {
+            cifrador.descifrar(archivo.ruta(), archivo.claveCifrada(), inicio, longitud, salida);
+            return;
+        }
+        almacenBlobs.getAlmacenDocumentos().transferir(archivo.ruta(), archivo.comprimido(), inicio, longitud, salida);
+    }
+
     public byte[] descargarArchivo(Integer idDocumento, String usuario) {
         try {
             // 1. Obtener documento
@@ -473,22 +1012,22 @@ public class DocumentacionService {
             // 2. Desencriptar si es necesario
             String rutaArchivo = documento.getRutaArchivo();
             TipoDocumento tipoDocumento = documento.getTipoDocumento();
-            boolean esDocumentoSensible = tipoDocumento != null && 
-                    (tipoDocumento.getDescripcion().toLowerCase().contains("buró") ||
-                     tipoDocumento.getDescripcion().toLowerCase().contains("confidencial"));
+            boolean esDocumentoSensible = esDocumentoSensible(tipoDocumento);
             
-            // Cargar archivo
-            Path archivoPath = Paths.get(rutaArchivo);
-            byte[] contenido = Files.readAllBytes(archivoPath);
-            
-            // Desencriptar si es necesario (simulado)
-            if (esDocumentoSensible) {
-                // Simulación de desencriptación
-                log.info("Desencriptando documento sensible: {}", idDocumento);
+            // Cargar archivo, descifrándolo si se guardó cifrado
+            byte[] contenido;
+            if (documento.getClaveCifrada() != null) {
+                ByteArrayOutputStream claro = new ByteArrayOutputStream((int) cifrador.tamanioClaro(rutaArchivo));
+                cifrador.descifrar(rutaArchivo, documento.getClaveCifrada(), 0, Long.MAX_VALUE, claro);
+                contenido = claro.toByteArray();
+            } else {
+                try (InputStream entrada = almacenBlobs.getAlmacenDocumentos().abrir(rutaArchivo)) {
+                    contenido = entrada.readAllBytes();
+                }
             }
             
-            // 3. Registrar acceso para auditoría
-            registrarAuditoria("documentos_adjuntos", AccionAuditoriaEnum.SELECT);
+            // 3. Registrar acceso para auditoría (agregado por ventana salvo documentos sensibles)
+            agregadorAccesos.registrarAcceso(idDocumento, documento.getIdTipoDocumento(), usuario, esDocumentoSensible);
             
             return contenido;
             
@@ -500,6 +1039,23 @@ public class DocumentacionService {
     }
 
     // === VALIDACIONES PRIVADAS ===
+    private boolean esDocumentoSensible(TipoDocumento tipoDocumento) {
+        return catalogo.esSensible(tipoDocumento);
+    }
+
+    private static String huella(String valor) {
+        byte[] digest = AlmacenDocumentos.nuevoDigest().digest(valor.getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest, 0, 16);
+    }
+
+    private void eliminarArchivoPropio(String ruta) {
+        try {
+            almacenBlobs.getAlmacenDocumentos().eliminar(ruta);
+        } catch (IOException e) {
+            log.warn("No se pudo eliminar el archivo físico: {}", ruta);
+        }
+    }
+
     private boolean validarFormatoPDF(MultipartFile archivo) {
         String contentType = archivo.getContentType();
         return contentType != null && contentType.equals("application/pdf");
@@ -511,20 +1067,17 @@ public class DocumentacionService {
         return archivo.getSize() > 0;
     }
 
-    private String generarNombreUnico(String nombreOriginal, Integer idSolicitud) {
-        String extension = "";
-        if (nombreOriginal != null && nombreOriginal.contains(".")) {
-            extension = nombreOriginal.substring(nombreOriginal.lastIndexOf("."));
+    /**
+     * Rechaza un contrato o pagaré fuera de plazo antes de escribir el archivo, para no dejar a disco
+     * un contenido que la base de datos nunca va a referenciar.
+     */
+    private void validarPlazoFirmados(Integer idSolicitud, TipoDocumento tipoDocumento) {
+        String descripcion = tipoDocumento.getDescripcion().toLowerCase();
+        if ((descripcion.contains("contrato") || descripcion.contains("pagaré"))
+                && !validarPlazoCarga(idSolicitud, LocalDateTime.now())) {
+            throw new CreateEntityException("Documento",
+                    "Ha superado el plazo máximo para cargar documentos firmados");
         }
-        
-        String timestamp = LocalDateTime.now().toString().replace(":", "-").replace(".", "-");
-        return idSolicitud + "_" + timestamp + "_" + UUID.randomUUID().toString().substring(0, 8) + extension;
-    }
-
-    private void encriptarDocumentoSensible(String rutaArchivo, Integer idTipoDocumento) {
-        // Simulación de encriptación para documentos sensibles
-        log.info("Encriptando documento sensible tipo {}: {}", idTipoDocumento, rutaArchivo);
-        // En un sistema real, aquí se implementaría la encriptación del archivo
     }
 
     private boolean validarPlazoCarga(Integer idSolicitud, LocalDateTime fechaCarga) {
@@ -536,29 +1089,12 @@ public class DocumentacionService {
         return fechaCarga.isBefore(fechaLimite);
     }
 
-    private String guardarArchivo(MultipartFile archivo, String nombreArchivo) throws IOException {
-        // Crear directorio si no existe
-        Path directorioPath = Paths.get(DOCUMENTOS_BASE_PATH);
-        if (!Files.exists(directorioPath)) {
-            Files.createDirectories(directorioPath);
-        }
-        
-        // Guardar archivo
-        Path archivoPath = directorioPath.resolve(nombreArchivo);
-        Files.copy(archivo.getInputStream(), archivoPath);
-        
-        return archivoPath.toString();
-    }
-
     /**
      * Registra auditoría de una operación
      */
-    private void registrarAuditoria(String tabla, AccionAuditoriaEnum accion) {
-        AuditoriaDTO audDto = new AuditoriaDTO();
-        audDto.setTabla(tabla);
-        audDto.setAccion(accion);
-        audDto.setFechaHora(LocalDateTime.now());
-        auditoriaService.createAuditoria(audDto);
+    private void registrarAuditoria(TipoEntidadAuditoriaEnum tipoEntidad, Integer idEntidad,
+                                    AccionAuditoriaEnum accion, String cambios) {
+        auditoriaService.registrar(tipoEntidad, idEntidad, accion, null, cambios);
     }
 
     public List<TipoDocumentoDTO> listarTodosTiposDocumento() {
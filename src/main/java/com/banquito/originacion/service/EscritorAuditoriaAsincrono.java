@@ -0,0 +1,244 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.enums.ModoAuditoriaEnum;
+import com.banquito.originacion.enums.PoliticaSaturacionAuditoriaEnum;
+import com.banquito.originacion.model.Auditoria;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cola acotada y sin bloqueos de auditorías confirmadas, vaciada por un hilo escritor que inserta
+ * lotes con INSERT multi-fila. La tabla usa IDENTITY, por lo que Hibernate no puede agrupar sus
+ * inserts; aquí se hace un único INSERT por lote.
+ *
+ * Cuando la cola está llena se aplica la política configurada: BLOQUEAR espera hasta el tiempo
+ * máximo y luego escribe en línea, SINCRONO escribe en línea de inmediato y DESCARTAR pierde la
+ * entrada (queda contada en la métrica de descartadas).
+ *
+ * encolar se llama al confirmar la transacción de negocio, así que nunca lanza: la escritura en
+ * línea usa su propia transacción (REQUIRES_NEW) y, si falla, la entrada se cuenta como descartada.
+ * Las descartadas se avisan en el log como mucho una vez cada diez segundos, con el total acumulado.
+ *
+ * Las auditorías encoladas y no escritas se pierden si el proceso cae. El hilo escritor solo se
+ * arranca con originacion.auditoria.modo=ASINCRONO.
+ */
+@Component
+public class EscritorAuditoriaAsincrono {
+
+    private static final Logger log = LoggerFactory.getLogger(EscritorAuditoriaAsincrono.class);
+    private static final int MAX_REINTENTOS = 3;
+    private static final String TABLA_AUDITORIAS = "originacion.auditorias";
+    private static final long INTERVALO_AVISO_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionPropia;
+    private final int capacidad;
+    private final int tamanioLote;
+    private final long esperaVaciadoNanos;
+    private final long esperaSaturacionNanos;
+    private final PoliticaSaturacionAuditoriaEnum politicaSaturacion;
+    private final ModoAuditoriaEnum modo;
+
+    private final Queue<Auditoria> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger tamanio = new AtomicInteger();
+    private final Timer tiempoVaciado;
+    private final Counter escritas;
+    private final Counter descartadas;
+    private final Counter saturaciones;
+    private final AtomicLong descartadasSinAvisar = new AtomicLong();
+    private final AtomicLong proximoAviso = new AtomicLong(System.nanoTime());
+
+    private volatile boolean activo = true;
+    private Thread hiloEscritor;
+
+    public EscritorAuditoriaAsincrono(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${originacion.auditoria.cola.capacidad:50000}") int capacidad,
+                                      @Value("${originacion.auditoria.cola.tamanio-lote:500}") int tamanioLote,
+                                      @Value("${originacion.auditoria.cola.intervalo-ms:200}") long intervaloMs,
+                                      @Value("${originacion.auditoria.cola.espera-saturacion-ms:50}") long esperaSaturacionMs,
+                                      @Value("${originacion.auditoria.cola.politica-saturacion:BLOQUEAR}") PoliticaSaturacionAuditoriaEnum politicaSaturacion,
+                                      @Value("${originacion.auditoria.modo:ESTRICTO}") ModoAuditoriaEnum modo) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccionPropia = new TransactionTemplate(transactionManager);
+        this.transaccionPropia.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.capacidad = capacidad;
+        this.tamanioLote = tamanioLote;
+        this.esperaVaciadoNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.esperaSaturacionNanos = TimeUnit.MILLISECONDS.toNanos(esperaSaturacionMs);
+        this.politicaSaturacion = politicaSaturacion;
+        this.modo = modo;
+
+        meterRegistry.gauge("originacion.auditoria.cola.tamanio", tamanio);
+        this.tiempoVaciado = Timer.builder("originacion.auditoria.cola.vaciado")
+                .description("Latencia de escritura de cada lote de auditorías")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.escritas = meterRegistry.counter("originacion.auditoria.cola.escritas");
+        this.descartadas = meterRegistry.counter("originacion.auditoria.cola.descartadas");
+        this.saturaciones = meterRegistry.counter("originacion.auditoria.cola.saturaciones");
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        if (modo != ModoAuditoriaEnum.ASINCRONO) {
+            return;
+        }
+        hiloEscritor = Thread.ofPlatform().name("escritor-auditoria").daemon(true).start(this::ciclo);
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        if (hiloEscritor == null) {
+            return;
+        }
+        LockSupport.unpark(hiloEscritor);
+        hiloEscritor.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Encola una auditoría ya confirmada. No bloquea salvo con política BLOQUEAR y cola llena, y
+     * entonces como mucho espera-saturacion-ms antes de escribirla en línea. No lanza excepciones.
+     */
+    public void encolar(Auditoria auditoria) {
+        if (reservarEspacio()) {
+            cola.offer(auditoria);
+            if (tamanio.get() >= tamanioLote) {
+                LockSupport.unpark(hiloEscritor);
+            }
+            return;
+        }
+
+        saturaciones.increment();
+        switch (politicaSaturacion) {
+            case DESCARTAR -> descartar(1, "cola llena (" + capacidad + ")");
+            case SINCRONO -> insertarEnLinea(auditoria);
+            case BLOQUEAR -> {
+                long limite = System.nanoTime() + esperaSaturacionNanos;
+                LockSupport.unpark(hiloEscritor);
+                while (System.nanoTime() < limite) {
+                    if (reservarEspacio()) {
+                        cola.offer(auditoria);
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+                insertarEnLinea(auditoria);
+            }
+        }
+    }
+
+    public int getTamanioCola() {
+        return tamanio.get();
+    }
+
+    // Fuera de la transacción de negocio, que ya está confirmada y cuya conexión sigue asociada al hilo
+    private void insertarEnLinea(Auditoria auditoria) {
+        try {
+            transaccionPropia.executeWithoutResult(estado -> insertar(List.of(auditoria)));
+        } catch (RuntimeException e) {
+            descartar(1, "fallo al escribir en línea: " + e.getMessage());
+        }
+    }
+
+    private void descartar(int cantidad, String motivo) {
+        descartadas.increment(cantidad);
+        descartadasSinAvisar.addAndGet(cantidad);
+        long ahora = System.nanoTime();
+        long proximo = proximoAviso.get();
+        if (ahora - proximo >= 0 && proximoAviso.compareAndSet(proximo, ahora + INTERVALO_AVISO_NANOS)) {
+            log.warn("Auditorías descartadas desde el último aviso: {} (última por {})",
+                    descartadasSinAvisar.getAndSet(0), motivo);
+        }
+    }
+
+    private boolean reservarEspacio() {
+        while (true) {
+            int actual = tamanio.get();
+            if (actual >= capacidad) {
+                return false;
+            }
+            if (tamanio.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void ciclo() {
+        List<Auditoria> lote = new ArrayList<>(tamanioLote);
+        while (activo || !cola.isEmpty()) {
+            Auditoria auditoria;
+            while (lote.size() < tamanioLote && (auditoria = cola.poll()) != null) {
+                lote.add(auditoria);
+            }
+            if (lote.isEmpty()) {
+                LockSupport.parkNanos(esperaVaciadoNanos);
+                continue;
+            }
+            tamanio.addAndGet(-lote.size());
+            escribirConReintentos(lote);
+            lote.clear();
+        }
+    }
+
+    private void escribirConReintentos(List<Auditoria> lote) {
+        for (int intento = 1; intento <= MAX_REINTENTOS; intento++) {
+            try {
+                tiempoVaciado.record(() -> insertar(lote));
+                return;
+            } catch (Exception e) {
+                log.warn("Fallo al escribir lote de {} auditorías (intento {}/{}): {}",
+                        lote.size(), intento, MAX_REINTENTOS, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(200L * intento));
+            }
+        }
+        descartadas.increment(lote.size());
+        log.error("Se descartaron {} auditorías tras {} intentos", lote.size(), MAX_REINTENTOS);
+    }
+
+    /**
+     * Inserta las auditorías con un único INSERT multi-fila.
+     */
+    private void insertar(List<Auditoria> auditorias) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ")
+                .append(TABLA_AUDITORIAS)
+                .append(" (tabla, accion, fecha_hora, tipo_entidad, id_entidad, actor, cambios) VALUES ");
+        Object[] parametros = new Object[auditorias.size() * 7];
+        int i = 0;
+        for (Auditoria auditoria : auditorias) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?, ?, ?)");
+            parametros[i++] = auditoria.getTabla();
+            parametros[i++] = auditoria.getAccion().name();
+            parametros[i++] = Timestamp.valueOf(auditoria.getFechaHora());
+            parametros[i++] = auditoria.getTipoEntidad() != null ? auditoria.getTipoEntidad().name() : null;
+            parametros[i++] = auditoria.getIdEntidad();
+            parametros[i++] = auditoria.getActor();
+            parametros[i++] = auditoria.getCambios();
+        }
+        jdbcTemplate.update(sql.toString(), parametros);
+        escritas.increment(auditorias.size());
+    }
+}
@@ -0,0 +1,123 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.model.ClienteProspecto;
+import com.banquito.originacion.model.SolicitudCredito;
+import com.banquito.originacion.model.Vehiculo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Genera el contrato y los pagarés de una solicitud aprobada a partir de las plantillas configuradas
+ * en originacion.documentos.contrato.*. Las plantillas se leen y compilan una sola vez al arrancar;
+ * generar un documento solo sustituye los campos, así que se puede llamar desde varios hilos a la vez.
+ */
+@Component
+public class GeneradorDocumentosContrato {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneradorDocumentosContrato.class);
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    /**
+     * Valores de una solicitud comunes a todos sus documentos, tomados mientras la sesión de JPA sigue
+     * abierta para no depender de relaciones perezosas al renderizar.
+     */
+    public record DatosContrato(String numeroSolicitud, int plazoMeses, LocalDate fechaEmision,
+                                String cuotaMensual, Map<String, String> campos) {
+    }
+
+    private final PlantillaPdf plantillaContrato;
+    private final PlantillaPdf plantillaPagare;
+    private final String tipoContrato;
+    private final String tipoPagare;
+
+    public GeneradorDocumentosContrato(ResourceLoader resourceLoader,
+                                       @Value("${originacion.documentos.contrato.plantilla-contrato:classpath:plantillas/contrato.txt}") String plantillaContrato,
+                                       @Value("${originacion.documentos.contrato.plantilla-pagare:classpath:plantillas/pagare.txt}") String plantillaPagare,
+                                       @Value("${originacion.documentos.contrato.tipo-contrato:Contrato}") String tipoContrato,
+                                       @Value("${originacion.documentos.contrato.tipo-pagare:Pagaré}") String tipoPagare) {
+        this.plantillaContrato = compilar(resourceLoader, plantillaContrato);
+        this.plantillaPagare = compilar(resourceLoader, plantillaPagare);
+        this.tipoContrato = tipoContrato;
+        this.tipoPagare = tipoPagare;
+    }
+
+    public DatosContrato datos(SolicitudCredito solicitud, LocalDate fechaEmision) {
+        ClienteProspecto cliente = solicitud.getClienteProspecto();
+        Vehiculo vehiculo = solicitud.getVehiculo();
+        Map<String, String> campos = new HashMap<>();
+        campos.put("numeroSolicitud", solicitud.getNumeroSolicitud());
+        campos.put("fechaEmision", fechaEmision.format(FORMATO_FECHA));
+        campos.put("primerVencimiento", fechaEmision.plusMonths(1).format(FORMATO_FECHA));
+        campos.put("nombreCliente", cliente.getNombre() + " " + cliente.getApellido());
+        campos.put("cedulaCliente", cliente.getCedula());
+        campos.put("direccionCliente", texto(cliente.getDireccion()));
+        campos.put("vehiculo", vehiculo.getMarca() + " " + vehiculo.getModelo());
+        campos.put("anioVehiculo", String.valueOf(vehiculo.getAnio()));
+        campos.put("colorVehiculo", texto(vehiculo.getColor()));
+        campos.put("valorVehiculo", moneda(vehiculo.getValor()));
+        campos.put("montoSolicitado", moneda(solicitud.getMontoSolicitado()));
+        campos.put("entrada", moneda(solicitud.getEntrada()));
+        campos.put("plazoMeses", String.valueOf(solicitud.getPlazoMeses()));
+        campos.put("tasaAnual", solicitud.getTasaAnual().setScale(2, RoundingMode.HALF_UP).toPlainString());
+        campos.put("cuotaMensual", moneda(solicitud.getCuotaMensual()));
+        campos.put("totalPagar", moneda(solicitud.getTotalPagar()));
+        return new DatosContrato(solicitud.getNumeroSolicitud(), solicitud.getPlazoMeses(), fechaEmision,
+                moneda(solicitud.getCuotaMensual()), Map.copyOf(campos));
+    }
+
+    public byte[] contrato(DatosContrato datos) {
+        return plantillaContrato.renderizar(datos.campos());
+    }
+
+    /**
+     * Pagaré de la cuota indicada (desde 1), con vencimiento un mes después de la cuota anterior.
+     */
+    public byte[] pagare(DatosContrato datos, int numeroCuota) {
+        Map<String, String> campos = new HashMap<>(datos.campos());
+        campos.put("numeroCuota", String.valueOf(numeroCuota));
+        campos.put("totalCuotas", String.valueOf(datos.plazoMeses()));
+        campos.put("fechaVencimiento", datos.fechaEmision().plusMonths(numeroCuota).format(FORMATO_FECHA));
+        campos.put("valorCuota", datos.cuotaMensual());
+        return plantillaPagare.renderizar(campos);
+    }
+
+    public String getTipoContrato() {
+        return tipoContrato;
+    }
+
+    public String getTipoPagare() {
+        return tipoPagare;
+    }
+
+    private static PlantillaPdf compilar(ResourceLoader resourceLoader, String ubicacion) {
+        try (InputStream entrada = resourceLoader.getResource(ubicacion).getInputStream()) {
+            PlantillaPdf plantilla = PlantillaPdf.compilar(new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+            log.info("Plantilla {} compilada: {} páginas, campos {}", ubicacion, plantilla.paginas(), plantilla.campos());
+            return plantilla;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la plantilla " + ubicacion, e);
+        }
+    }
+
+    private static String moneda(BigDecimal valor) {
+        return "USD " + valor.setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static String texto(String valor) {
+        return valor != null ? valor : "";
+    }
+}
@@ -0,0 +1,437 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.enums.CampoBusquedaClienteEnum;
+import com.banquito.originacion.model.ClienteProspecto;
+import com.banquito.originacion.repository.ClienteProspectoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas en memoria para buscar clientes por nombre/apellido o dirección
+ * sin distinguir mayúsculas ni tildes.
+ *
+ * Cada campo tiene su propio índice. Los documentos se identifican por una posición interna densa
+ * para contar coincidencias sobre un arreglo; al reindexar un cliente se le asigna una posición nueva
+ * y la anterior queda marcada como libre, de modo que las listas nunca requieren borrados. Cuando las
+ * posiciones libres superan el 25% el índice se reconstruye.
+ *
+ * Los clientes creados en este nodo se indexan al confirmar. Cada refresco-ms se añaden además los
+ * clientes con id posterior al último recorrido que aún no están en el índice (creados en otro nodo o
+ * directamente en SQL), y cada reconstruccion-ms se reconstruye todo, lo que recoge cambios de nombre
+ * o dirección hechos fuera de este nodo, borrados e ids confirmados fuera de orden.
+ */
+@Component
+public class IndiceTrigramasClientes {
+
+    private static final Logger log = LoggerFactory.getLogger(IndiceTrigramasClientes.class);
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final int TAMANIO_LOTE_CARGA = 5000;
+    // Alfabeto reducido: espacio, a-z, 0-9 y un símbolo comodín para el resto
+    private static final int SIMBOLOS = 38;
+
+    private final ClienteProspectoRepository clienteRepository;
+    private final double umbralCobertura;
+    private final Map<CampoBusquedaClienteEnum, IndiceCampo> indices = new EnumMap<>(CampoBusquedaClienteEnum.class);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean reconstruyendo = new AtomicBoolean(false);
+    // Clientes indexados mientras corre una reconstrucción; se reaplican antes de publicarla
+    private final List<ClienteProspecto> pendientes = new ArrayList<>();
+
+    private volatile boolean listo = false;
+    // Mayor id recorrido por la reconstrucción o el refresco; los indexados al confirmar no lo mueven
+    private volatile int ultimoIdRecorrido = 0;
+
+    public IndiceTrigramasClientes(ClienteProspectoRepository clienteRepository,
+                                   @Value("${originacion.clientes.busqueda.umbral:0.5}") double umbralCobertura) {
+        this.clienteRepository = clienteRepository;
+        this.umbralCobertura = umbralCobertura;
+        for (CampoBusquedaClienteEnum campo : CampoBusquedaClienteEnum.values()) {
+            indices.put(campo, new IndiceCampo());
+        }
+    }
+
+    /**
+     * Construye el índice en segundo plano leyendo los clientes por lotes.
+     * Mientras no esté listo las búsquedas usan las consultas del repositorio.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirEnSegundoPlano() {
+        Thread.ofVirtual().name("indice-trigramas-clientes").start(this::reconstruir);
+    }
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    public void reconstruir() {
+        if (!reconstruyendo.compareAndSet(false, true)) {
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        Map<CampoBusquedaClienteEnum, IndiceCampo> nuevos = new EnumMap<>(CampoBusquedaClienteEnum.class);
+        for (CampoBusquedaClienteEnum campo : CampoBusquedaClienteEnum.values()) {
+            nuevos.put(campo, new IndiceCampo());
+        }
+        try {
+            PageRequest pagina = PageRequest.of(0, TAMANIO_LOTE_CARGA, Sort.by("id"));
+            int total = 0;
+            int ultimoId = 0;
+            Slice<ClienteProspecto> lote;
+            do {
+                lote = clienteRepository.findAll(pagina);
+                for (ClienteProspecto cliente : lote) {
+                    agregarA(nuevos, cliente);
+                    ultimoId = Math.max(ultimoId, cliente.getId());
+                }
+                total += lote.getNumberOfElements();
+                pagina = pagina.next();
+            } while (lote.hasNext());
+
+            lock.writeLock().lock();
+            try {
+                for (ClienteProspecto cliente : pendientes) {
+                    agregarA(nuevos, cliente);
+                }
+                indices.putAll(nuevos);
+                ultimoIdRecorrido = ultimoId;
+            } finally {
+                pendientes.clear();
+                lock.writeLock().unlock();
+            }
+            listo = true;
+            log.info("Índice de trigramas de clientes construido: {} clientes en {} ms",
+                    total, System.currentTimeMillis() - inicio);
+        } catch (Exception e) {
+            log.error("No se pudo construir el índice de trigramas de clientes: {}", e.getMessage());
+        } finally {
+            reconstruyendo.set(false);
+        }
+    }
+
+    /**
+     * Reconstrucción completa periódica, con la misma carga por lotes que al arrancar.
+     */
+    @Scheduled(fixedDelayString = "${originacion.clientes.busqueda.reconstruccion-ms:3600000}",
+            initialDelayString = "${originacion.clientes.busqueda.reconstruccion-ms:3600000}")
+    public void reconstruirPeriodicamente() {
+        if (listo) {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Añade los clientes con id posterior al último recorrido que no estén ya en el índice.
+     */
+    @Scheduled(fixedDelayString = "${originacion.clientes.busqueda.refresco-ms:60000}",
+            initialDelayString = "${originacion.clientes.busqueda.refresco-ms:60000}")
+    public void refrescar() {
+        if (!listo || reconstruyendo.get()) {
+            return;
+        }
+        try {
+            int desde = ultimoIdRecorrido;
+            int agregados = 0;
+            Slice<ClienteProspecto> lote;
+            do {
+                lote = clienteRepository.findByIdGreaterThan(desde,
+                        PageRequest.of(0, TAMANIO_LOTE_CARGA, Sort.by("id")));
+                lock.writeLock().lock();
+                try {
+                    for (ClienteProspecto cliente : lote) {
+                        if (!indices.get(CampoBusquedaClienteEnum.NOMBRE).contiene(cliente.getId())) {
+                            agregarA(indices, cliente);
+                            if (reconstruyendo.get()) {
+                                pendientes.add(cliente);
+                            }
+                            agregados++;
+                        }
+                        desde = cliente.getId();
+                    }
+                    if (desde > ultimoIdRecorrido) {
+                        ultimoIdRecorrido = desde;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (lote.hasNext());
+            if (agregados > 0) {
+                log.info("Índice de trigramas de clientes refrescado: {} clientes nuevos", agregados);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el índice de trigramas de clientes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un cliente en el índice.
+     */
+    public void indexar(ClienteProspecto cliente) {
+        lock.writeLock().lock();
+        try {
+            agregarA(indices, cliente);
+            if (reconstruyendo.get()) {
+                pendientes.add(cliente);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (indices.values().stream().anyMatch(IndiceCampo::requiereCompactacion)) {
+            Thread.ofVirtual().name("indice-trigramas-clientes").start(this::reconstruir);
+        }
+    }
+
+    /**
+     * Busca en el campo indicado y devuelve los ids de cliente ordenados por puntaje descendente.
+     * El puntaje principal es la fracción de trigramas de la consulta presentes en el campo; a igual
+     * cobertura se prefiere el texto más corto (similitud de Jaccard).
+     */
+    public List<Coincidencia> buscar(CampoBusquedaClienteEnum campo, String texto) {
+        int[] consulta = trigramas(normalizar(texto));
+        if (consulta.length == 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return indices.get(campo).buscar(consulta, umbralCobertura);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // === NORMALIZACIÓN Y TRIGRAMAS ===
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinTildes.toLowerCase().replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    /**
+     * Trigramas únicos y ordenados de cada palabra, con dos espacios al inicio y uno al final
+     * (misma convención que pg_trgm).
+     */
+    static int[] trigramas(String normalizado) {
+        if (normalizado.isEmpty()) {
+            return new int[0];
+        }
+        IntLista lista = new IntLista(normalizado.length() * 2);
+        for (String palabra : normalizado.split(" ")) {
+            String relleno = "  " + palabra + " ";
+            for (int i = 0; i + 3 <= relleno.length(); i++) {
+                lista.agregar(codificar(relleno.charAt(i), relleno.charAt(i + 1), relleno.charAt(i + 2)));
+            }
+        }
+        int[] codigos = lista.toArray();
+        Arrays.sort(codigos);
+        int unicos = 0;
+        for (int i = 0; i < codigos.length; i++) {
+            if (i == 0 || codigos[i] != codigos[i - 1]) {
+                codigos[unicos++] = codigos[i];
+            }
+        }
+        return Arrays.copyOf(codigos, unicos);
+    }
+
+    private static int codificar(char a, char b, char c) {
+        return (simbolo(a) * SIMBOLOS + simbolo(b)) * SIMBOLOS + simbolo(c);
+    }
+
+    private static int simbolo(char c) {
+        if (c == ' ') return 0;
+        if (c >= 'a' && c <= 'z') return 1 + (c - 'a');
+        if (c >= '0' && c <= '9') return 27 + (c - '0');
+        return 37;
+    }
+
+    private static void agregarA(Map<CampoBusquedaClienteEnum, IndiceCampo> destino, ClienteProspecto cliente) {
+        destino.get(CampoBusquedaClienteEnum.NOMBRE)
+                .agregar(cliente.getId(), trigramas(normalizar(cliente.getNombre() + " " + cliente.getApellido())));
+        destino.get(CampoBusquedaClienteEnum.DIRECCION)
+                .agregar(cliente.getId(), trigramas(normalizar(cliente.getDireccion())));
+    }
+
+    // === ESTRUCTURAS INTERNAS ===
+
+    public record Coincidencia(Integer idCliente, double puntaje) {
+    }
+
+    private static final class IndiceCampo {
+
+        private final IntLista[] listas = new IntLista[SIMBOLOS * SIMBOLOS * SIMBOLOS];
+        private final Map<Integer, Integer> posicionPorCliente = new HashMap<>();
+        private final IntLista clientePorPosicion = new IntLista(1024);
+        private final IntLista tamanioPorPosicion = new IntLista(1024);
+        private int posicionesLibres = 0;
+
+        void agregar(Integer idCliente, int[] trigramas) {
+            Integer anterior = posicionPorCliente.get(idCliente);
+            if (anterior != null) {
+                clientePorPosicion.set(anterior, -1);
+                posicionesLibres++;
+            }
+            int posicion = clientePorPosicion.tamanio();
+            clientePorPosicion.agregar(idCliente);
+            tamanioPorPosicion.agregar(trigramas.length);
+            posicionPorCliente.put(idCliente, posicion);
+            for (int trigrama : trigramas) {
+                IntLista lista = listas[trigrama];
+                if (lista == null) {
+                    lista = new IntLista(4);
+                    listas[trigrama] = lista;
+                }
+                lista.agregar(posicion);
+            }
+        }
+
+        boolean contiene(Integer idCliente) {
+            return posicionPorCliente.containsKey(idCliente);
+        }
+
+        boolean requiereCompactacion() {
+            return posicionesLibres > 1000 && posicionesLibres * 4 > clientePorPosicion.tamanio();
+        }
+
+        List<Coincidencia> buscar(int[] consulta, double umbral) {
+            int minimo = Math.max(1, (int) Math.ceil(consulta.length * umbral));
+            ConteoDisperso conteos = new ConteoDisperso();
+            IntLista candidatos = new IntLista(256);
+            for (int trigrama : consulta) {
+                IntLista lista = listas[trigrama];
+                if (lista == null) {
+                    continue;
+                }
+                int[] posiciones = lista.datos;
+                for (int i = 0; i < lista.tamanio(); i++) {
+                    int posicion = posiciones[i];
+                    if (conteos.incrementar(posicion) == minimo) {
+                        candidatos.agregar(posicion);
+                    }
+                }
+            }
+            List<Coincidencia> resultado = new ArrayList<>(candidatos.tamanio());
+            for (int i = 0; i < candidatos.tamanio(); i++) {
+                int posicion = candidatos.get(i);
+                int idCliente = clientePorPosicion.get(posicion);
+                if (idCliente < 0) {
+                    continue;
+                }
+                int comunes = conteos.get(posicion);
+                double cobertura = (double) comunes / consulta.length;
+                double jaccard = (double) comunes / (consulta.length + tamanioPorPosicion.get(posicion) - comunes);
+                resultado.add(new Coincidencia(idCliente, cobertura * 0.8 + jaccard * 0.2));
+            }
+            resultado.sort((a, b) -> Double.compare(b.puntaje(), a.puntaje()));
+            return resultado;
+        }
+    }
+
+    /**
+     * Conteo por posición con direccionamiento abierto: ocupa en proporción a las posiciones que
+     * aparecen en las listas de la consulta, no al total de clientes indexados.
+     */
+    private static final class ConteoDisperso {
+
+        private int[] claves = new int[256];
+        private int[] valores = new int[256];
+        private int ocupadas;
+
+        ConteoDisperso() {
+            Arrays.fill(claves, -1);
+        }
+
+        int incrementar(int posicion) {
+            if (ocupadas * 2 >= claves.length) {
+                crecer();
+            }
+            int i = ranura(claves, posicion);
+            if (claves[i] < 0) {
+                claves[i] = posicion;
+                ocupadas++;
+            }
+            return ++valores[i];
+        }
+
+        int get(int posicion) {
+            int i = ranura(claves, posicion);
+            return claves[i] < 0 ? 0 : valores[i];
+        }
+
+        private void crecer() {
+            int[] clavesAnteriores = claves;
+            int[] valoresAnteriores = valores;
+            claves = new int[clavesAnteriores.length * 2];
+            valores = new int[claves.length];
+            Arrays.fill(claves, -1);
+            for (int j = 0; j < clavesAnteriores.length; j++) {
+                if (clavesAnteriores[j] >= 0) {
+                    int i = ranura(claves, clavesAnteriores[j]);
+                    claves[i] = clavesAnteriores[j];
+                    valores[i] = valoresAnteriores[j];
+                }
+            }
+        }
+
+        private static int ranura(int[] claves, int posicion) {
+            int mascara = claves.length - 1;
+            int i = (posicion * 0x9E3779B9) >>> 7 & mascara;
+            while (claves[i] >= 0 && claves[i] != posicion) {
+                i = (i + 1) & mascara;
+            }
+            return i;
+        }
+    }
+
+    private static final class IntLista {
+
+        private int[] datos;
+        private int tamanio;
+
+        IntLista(int capacidad) {
+            this.datos = new int[Math.max(1, capacidad)];
+        }
+
+        void agregar(int valor) {
+            if (tamanio == datos.length) {
+                datos = Arrays.copyOf(datos, datos.length + (datos.length >> 1) + 1);
+            }
+            datos[tamanio++] = valor;
+        }
+
+        int get(int indice) {
+            return datos[indice];
+        }
+
+        void set(int indice, int valor) {
+            datos[indice] = valor;
+        }
+
+        int tamanio() {
+            return tamanio;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(datos, tamanio);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.banquito.originacion.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mantiene las particiones mensuales de originacion.auditorias (ver db/auditorias_particionadas.sql):
+ * crea con antelación las de los próximos meses y, para las que superan la retención, compacta el
+ * detalle en auditorias_resumen_diario y elimina la partición completa en lugar de borrar filas.
+ *
+ * Las filas que cayeron en la partición por defecto (auditorias_fuera_de_rango) se mueven a su
+ * partición mensual al crearla; las anteriores a la retención se compactan y se borran de ella.
+ *
+ * Si la tabla aún no está particionada no hace nada.
+ */
+@Component
+public class MantenimientoParticionesAuditoria {
+
+    private static final Logger log = LoggerFactory.getLogger(MantenimientoParticionesAuditoria.class);
+    private static final Pattern NOMBRE_PARTICION = Pattern.compile("auditorias_p(\\d{6})");
+    private static final DateTimeFormatter FORMATO_SUFIJO = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String CONSULTA_PARTICIONADA =
+            "SELECT count(*) FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid "
+                    + "JOIN pg_namespace n ON n.oid = c.relnamespace "
+                    + "WHERE n.nspname = 'originacion' AND c.relname = 'auditorias'";
+    private static final String CONSULTA_PARTICIONES =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                    + "JOIN pg_class p ON p.oid = i.inhparent JOIN pg_namespace n ON n.oid = p.relnamespace "
+                    + "WHERE n.nspname = 'originacion' AND p.relname = 'auditorias'";
+    private static final String PARTICION_DEFECTO = "auditorias_fuera_de_rango";
+    private static final String COMPACTAR_PARTICION =
+            "INSERT INTO originacion.auditorias_resumen_diario (fecha, tabla, accion, cantidad) "
+                    + "SELECT CAST(fecha_hora AS date), tabla, accion, count(*) FROM originacion.%s %s"
+                    + "GROUP BY CAST(fecha_hora AS date), tabla, accion "
+                    + "ON CONFLICT (fecha, tabla, accion) DO UPDATE "
+                    + "SET cantidad = originacion.auditorias_resumen_diario.cantidad + EXCLUDED.cantidad";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int mesesAdelante;
+    private final int mesesRetencion;
+
+    public MantenimientoParticionesAuditoria(JdbcTemplate jdbcTemplate,
+                                             PlatformTransactionManager transactionManager,
+                                             @Value("${originacion.auditoria.particiones.meses-adelante:3}") int mesesAdelante,
+                                             @Value("${originacion.auditoria.particiones.meses-retencion:12}") int mesesRetencion) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mesesAdelante = mesesAdelante;
+        this.mesesRetencion = mesesRetencion;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        try {
+            mantener();
+        } catch (Exception e) {
+            log.warn("No se pudo ejecutar el mantenimiento de particiones de auditoría al iniciar: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Crea las particiones futuras y compacta/elimina las vencidas en una sola transacción. Un
+     * candado consultivo de transacción evita que dos instancias lo ejecuten a la vez.
+     */
+    @Scheduled(cron = "${originacion.auditoria.particiones.cron:0 30 2 * * *}")
+    public void mantener() {
+        transactionTemplate.executeWithoutResult(estado -> mantenerParticiones());
+    }
+
+    private void mantenerParticiones() {
+        Integer particionada = jdbcTemplate.queryForObject(CONSULTA_PARTICIONADA, Integer.class);
+        if (particionada == null || particionada == 0) {
+            log.debug("originacion.auditorias no está particionada, se omite el mantenimiento");
+            return;
+        }
+        Boolean candado = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(hashtext('originacion.auditorias.particiones'))", Boolean.class);
+        if (!Boolean.TRUE.equals(candado)) {
+            log.debug("Otra instancia está manteniendo las particiones de auditoría");
+            return;
+        }
+
+        YearMonth actual = YearMonth.now();
+        for (int i = 0; i <= mesesAdelante; i++) {
+            crearParticion(actual.plusMonths(i));
+        }
+
+        YearMonth limite = actual.minusMonths(mesesRetencion);
+        List<String> particiones = jdbcTemplate.queryForList(CONSULTA_PARTICIONES, String.class);
+        for (String particion : particiones) {
+            Matcher matcher = NOMBRE_PARTICION.matcher(particion);
+            if (matcher.matches() && YearMonth.parse(matcher.group(1), FORMATO_SUFIJO).isBefore(limite)) {
+                compactarYEliminar(particion);
+            }
+        }
+        if (particiones.contains(PARTICION_DEFECTO)) {
+            compactarFueraDeRango(limite);
+        }
+    }
+
+    /**
+     * Con partición por defecto, PostgreSQL no deja crear un mes que tenga filas en ella: la partición
+     * se crea suelta, recibe esas filas y después se adjunta.
+     */
+    private void crearParticion(YearMonth mes) {
+        String nombre = "auditorias_p" + mes.format(FORMATO_SUFIJO);
+        Boolean existe = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                "originacion." + nombre);
+        if (Boolean.TRUE.equals(existe)) {
+            return;
+        }
+        Timestamp desde = Timestamp.valueOf(mes.atDay(1).atStartOfDay());
+        Timestamp hasta = Timestamp.valueOf(mes.plusMonths(1).atDay(1).atStartOfDay());
+        jdbcTemplate.execute("CREATE TABLE originacion." + nombre
+                + " (LIKE originacion.auditorias INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        Boolean hayDefecto = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class,
+                "originacion." + PARTICION_DEFECTO);
+        if (Boolean.TRUE.equals(hayDefecto)) {
+            int movidas = jdbcTemplate.update("WITH movidas AS (DELETE FROM originacion." + PARTICION_DEFECTO
+                    + " WHERE fecha_hora >= ? AND fecha_hora < ? RETURNING *) INSERT INTO originacion." + nombre
+                    + " SELECT * FROM movidas", desde, hasta);
+            if (movidas > 0) {
+                log.info("{} auditorías movidas de {} a {}", movidas, PARTICION_DEFECTO, nombre);
+            }
+        }
+        jdbcTemplate.execute("ALTER TABLE originacion.auditorias ATTACH PARTITION originacion." + nombre
+                + " FOR VALUES FROM ('" + mes.atDay(1) + "') TO ('" + mes.plusMonths(1).atDay(1) + "')");
+    }
+
+    private void compactarYEliminar(String particion) {
+        int grupos = jdbcTemplate.update(String.format(COMPACTAR_PARTICION, particion, ""));
+        jdbcTemplate.execute("ALTER TABLE originacion.auditorias DETACH PARTITION originacion." + particion);
+        jdbcTemplate.execute("DROP TABLE originacion." + particion);
+        log.info("Partición {} compactada en {} conteos diarios y eliminada", particion, grupos);
+    }
+
+    private void compactarFueraDeRango(YearMonth limite) {
+        Timestamp corte = Timestamp.valueOf(limite.atDay(1).atStartOfDay());
+        int grupos = jdbcTemplate.update(String.format(COMPACTAR_PARTICION, PARTICION_DEFECTO,
+                "WHERE fecha_hora < ? "), corte);
+        if (grupos == 0) {
+            return;
+        }
+        int borradas = jdbcTemplate.update("DELETE FROM originacion." + PARTICION_DEFECTO + " WHERE fecha_hora < ?", corte);
+        log.info("{} auditorías vencidas de {} compactadas en {} conteos diarios", borradas, PARTICION_DEFECTO, grupos);
+    }
+}
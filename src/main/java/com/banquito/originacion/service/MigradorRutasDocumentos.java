@@ -0,0 +1,262 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.EstadoMigracionDocumentosDTO;
+import com.banquito.originacion.util.TransaccionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mueve en segundo plano los documentos guardados con el esquema plano al esquema fragmentado de
+ * {@link AlmacenDocumentos}, sin detener la aplicación.
+ *
+ * Recorre documentos_adjuntos por id en lotes. En cada lote, dentro de una transacción, enlaza cada
+ * archivo en su ruta nueva (enlace duro, o copia si el sistema de archivos no lo admite), actualiza
+ * ruta_archivo en documentos_adjuntos y blobs_documentos con un lote JDBC y avanza el cursor
+ * persistido en cursores_procesos. La ruta vieja solo se borra tras confirmar, así que hasta entonces
+ * el archivo es accesible por las dos. Si se interrumpe, al reanudar continúa desde el cursor y los
+ * archivos que ya estaban enlazados se reutilizan.
+ *
+ * Cada archivo se enlaza con el candado consultivo de su hash, el mismo que toma la carga de blobs,
+ * para que una carga concurrente del mismo contenido no lo recree en la ruta vieja. El cursor se lee
+ * con FOR UPDATE, así que dos nodos que la lancen a la vez se turnan por lotes.
+ *
+ * Las actualizaciones van siempre por índice: blobs_documentos por su hash único y documentos_adjuntos
+ * por idx_documentos_adjuntos_ruta, que también alcanza a los documentos de lotes posteriores que
+ * comparten el blob. Sin ese índice cada sentencia recorrería la tabla entera.
+ */
+@Component
+public class MigradorRutasDocumentos {
+
+    private static final Logger log = LoggerFactory.getLogger(MigradorRutasDocumentos.class);
+
+    static final String NOMBRE_CURSOR = "migracion-rutas-documentos";
+    private static final String CREAR_CURSOR =
+            "INSERT INTO originacion.cursores_procesos (nombre, ultimo_id, fecha_actualizacion) VALUES (?, 0, ?) "
+                    + "ON CONFLICT (nombre) DO NOTHING";
+    private static final String BLOQUEAR_CURSOR =
+            "SELECT ultimo_id FROM originacion.cursores_procesos WHERE nombre = ? FOR UPDATE";
+    private static final String LEER_CURSOR =
+            "SELECT ultimo_id FROM originacion.cursores_procesos WHERE nombre = ?";
+    private static final String AVANZAR_CURSOR =
+            "UPDATE originacion.cursores_procesos SET ultimo_id = ?, fecha_actualizacion = ? WHERE nombre = ?";
+    private static final String SIGUIENTE_LOTE =
+            "SELECT id_documento, ruta_archivo, hash_sha256 FROM originacion.documentos_adjuntos "
+                    + "WHERE id_documento > ? ORDER BY id_documento LIMIT ?";
+    private static final String ACTUALIZAR_DOCUMENTOS =
+            "UPDATE originacion.documentos_adjuntos SET ruta_archivo = ? WHERE ruta_archivo = ?";
+    private static final String ACTUALIZAR_BLOBS =
+            "UPDATE originacion.blobs_documentos SET ruta_archivo = ? WHERE hash_sha256 = ? AND ruta_archivo = ?";
+    private static final String BLOQUEAR_HASH = "SELECT pg_advisory_xact_lock(hashtext(?))";
+
+    private record FilaDocumento(int id, String ruta, String hashSha256) {
+    }
+
+    private final AlmacenDocumentos almacenDocumentos;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanioLote;
+    private final int archivosPorSegundo;
+    private final Counter movidos;
+    private final Counter faltantes;
+    private final AtomicLong totalMovidos = new AtomicLong();
+    private final AtomicLong totalFaltantes = new AtomicLong();
+    private volatile Thread hilo;
+    private volatile boolean detener;
+
+    public MigradorRutasDocumentos(AlmacenDocumentos almacenDocumentos,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${originacion.documentos.migracion.tamanio-lote:200}") int tamanioLote,
+                                   @Value("${originacion.documentos.migracion.archivos-por-segundo:100}") int archivosPorSegundo) {
+        this.almacenDocumentos = almacenDocumentos;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanioLote = tamanioLote;
+        this.archivosPorSegundo = archivosPorSegundo;
+        this.movidos = meterRegistry.counter("originacion.documentos.migracion.archivos", "resultado", "movido");
+        this.faltantes = meterRegistry.counter("originacion.documentos.migracion.archivos", "resultado", "faltante");
+    }
+
+    /**
+     * Lanza la migración en un hilo virtual. Devuelve false si ya estaba en curso en este nodo.
+     */
+    public synchronized boolean iniciar() {
+        if (!(almacenDocumentos.getAlmacenamiento() instanceof AlmacenamientoSistemaArchivos)) {
+            // En un bucket las claves planas no penalizan; los objetos se quedan donde están
+            throw new IllegalStateException("La migración de rutas solo aplica al almacenamiento en sistema de archivos");
+        }
+        if (hilo != null && hilo.isAlive()) {
+            return false;
+        }
+        detener = false;
+        hilo = Thread.ofVirtual().name("migracion-rutas-documentos").start(this::migrar);
+        return true;
+    }
+
+    /**
+     * Pide que se detenga al terminar el lote actual; el cursor queda donde llegó.
+     */
+    public void detener() {
+        detener = true;
+    }
+
+    public EstadoMigracionDocumentosDTO estado() {
+        List<Integer> cursor = jdbcTemplate.queryForList(LEER_CURSOR, Integer.class, NOMBRE_CURSOR);
+        EstadoMigracionDocumentosDTO estado = new EstadoMigracionDocumentosDTO();
+        Thread actual = hilo;
+        estado.setEnCurso(actual != null && actual.isAlive());
+        estado.setUltimoIdProcesado(cursor.isEmpty() ? 0 : cursor.get(0));
+        estado.setArchivosMovidos(totalMovidos.get());
+        estado.setArchivosFaltantes(totalFaltantes.get());
+        return estado;
+    }
+
+    private void migrar() {
+        log.info("Iniciando migración de documentos al esquema fragmentado");
+        try {
+            jdbcTemplate.update(CREAR_CURSOR, NOMBRE_CURSOR, Timestamp.valueOf(LocalDateTime.now()));
+            while (!detener) {
+                long inicio = System.nanoTime();
+                Integer procesados = transactionTemplate.execute(estado -> migrarLote());
+                if (procesados == null || procesados == 0) {
+                    log.info("Migración de documentos terminada: {} archivos movidos, {} faltantes",
+                            totalMovidos.get(), totalFaltantes.get());
+                    return;
+                }
+                esperar(procesados, inicio);
+            }
+            log.info("Migración de documentos detenida a petición");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Migración de documentos interrumpida, se puede reanudar: {}", e.getMessage(), e);
+        }
+    }
+
+    private int migrarLote() {
+        int cursor = jdbcTemplate.queryForObject(BLOQUEAR_CURSOR, Integer.class, NOMBRE_CURSOR);
+        List<FilaDocumento> filas = jdbcTemplate.query(SIGUIENTE_LOTE,
+                (rs, i) -> new FilaDocumento(rs.getInt("id_documento"), rs.getString("ruta_archivo"),
+                        rs.getString("hash_sha256")),
+                cursor, tamanioLote);
+        if (filas.isEmpty()) {
+            return 0;
+        }
+
+        // Ruta vieja -> nueva; un blob compartido por varios documentos se mueve una sola vez
+        Map<String, String> cambios = new LinkedHashMap<>();
+        List<Object[]> parametrosBlobs = new ArrayList<>();
+        for (FilaDocumento fila : filas) {
+            Path actual = Paths.get(fila.ruta());
+            if (cambios.containsKey(fila.ruta()) || !almacenDocumentos.contiene(actual)) {
+                continue;
+            }
+            Path nueva = almacenDocumentos.reubicar(actual);
+            if (nueva.equals(actual)) {
+                continue;
+            }
+            if (fila.hashSha256() != null) {
+                jdbcTemplate.queryForList(BLOQUEAR_HASH, fila.hashSha256());
+            }
+            if (enlazar(actual, nueva)) {
+                cambios.put(fila.ruta(), nueva.toString());
+                if (fila.hashSha256() != null) {
+                    parametrosBlobs.add(new Object[] {nueva.toString(), fila.hashSha256(), fila.ruta()});
+                }
+            } else {
+                log.warn("No existe el archivo del documento {}: {}", fila.id(), fila.ruta());
+                faltantes.increment();
+                totalFaltantes.incrementAndGet();
+            }
+        }
+
+        if (!cambios.isEmpty()) {
+            List<Object[]> parametros = new ArrayList<>(cambios.size());
+            cambios.forEach((vieja, nueva) -> parametros.add(new Object[] {nueva, vieja}));
+            jdbcTemplate.batchUpdate(ACTUALIZAR_DOCUMENTOS, parametros);
+            if (!parametrosBlobs.isEmpty()) {
+                jdbcTemplate.batchUpdate(ACTUALIZAR_BLOBS, parametrosBlobs);
+            }
+            List<String> viejas = List.copyOf(cambios.keySet());
+            TransaccionUtils.despuesDelCommit(() -> eliminarViejas(viejas));
+        }
+        jdbcTemplate.update(AVANZAR_CURSOR, filas.get(filas.size() - 1).id(),
+                Timestamp.valueOf(LocalDateTime.now()), NOMBRE_CURSOR);
+        log.debug("Lote de migración hasta el documento {}: {} archivos reubicados",
+                filas.get(filas.size() - 1).id(), cambios.size());
+        return filas.size();
+    }
+
+    /**
+     * Deja el archivo accesible también en la ruta nueva. Si ya estaba (un lote anterior que no llegó
+     * a confirmar), se reutiliza.
+     */
+    private boolean enlazar(Path actual, Path nueva) {
+        try {
+            if (Files.exists(nueva)) {
+                return true;
+            }
+            if (!Files.exists(actual)) {
+                return false;
+            }
+            Files.createDirectories(nueva.getParent());
+            try {
+                Files.createLink(nueva, actual);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Path parcial = nueva.resolveSibling(nueva.getFileName() + ".parcial");
+                Files.copy(actual, parcial, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(parcial, nueva, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reubicar " + actual, e);
+        }
+    }
+
+    private void eliminarViejas(List<String> rutas) {
+        for (String ruta : rutas) {
+            try {
+                almacenDocumentos.eliminar(ruta);
+            } catch (IOException e) {
+                log.warn("No se pudo eliminar la ruta vieja {}: {}", ruta, e.getMessage());
+            }
+        }
+        movidos.increment(rutas.size());
+        totalMovidos.addAndGet(rutas.size());
+    }
+
+    /**
+     * Limita el ritmo a archivos-por-segundo para no competir con las cargas y descargas en curso.
+     */
+    private void esperar(int procesados, long inicio) throws InterruptedException {
+        long minimo = TimeUnit.SECONDS.toNanos(procesados) / Math.max(archivosPorSegundo, 1);
+        long restante = minimo - (System.nanoTime() - inicio);
+        if (restante > 0) {
+            TimeUnit.NANOSECONDS.sleep(restante);
+        }
+    }
+}
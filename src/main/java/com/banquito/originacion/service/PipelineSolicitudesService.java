@@ -0,0 +1,258 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.ContadorPipelineDTO;
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
+import com.banquito.originacion.enums.EstadoSolicitudEnum;
+import com.banquito.originacion.model.ContadorPipeline;
+import com.banquito.originacion.model.Vendedor;
+import com.banquito.originacion.repository.ContadorPipelineRepository;
+import com.banquito.originacion.repository.ConteoPipeline;
+import com.banquito.originacion.repository.SolicitudCreditoRepository;
+import com.banquito.originacion.repository.VendedorRepository;
+import com.banquito.originacion.util.TransaccionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mantiene en memoria el número de solicitudes por vendedor y por concesionario en cada estado.
+ *
+ * Los contadores son LongAdder (celdas repartidas por hilo), se actualizan después del commit de
+ * cada creación o cambio de estado y se consultan sin tocar las tablas transaccionales.
+ * Periódicamente se reconcilian contra la base de datos y los valores reconciliados se vuelcan a
+ * contadores_pipeline para recuperarlos al reiniciar. Se vuelcan los valores leídos de la base de
+ * datos y no los de memoria, que en cada nodo solo reflejan sus propias transiciones desde la última
+ * reconciliación.
+ */
+@Service
+public class PipelineSolicitudesService {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineSolicitudesService.class);
+
+    // Un nodo que reconcilió antes no pisa el valor que otro leyó después
+    private static final String GUARDAR_CONTADOR =
+            "INSERT INTO originacion.contadores_pipeline (dimension, id_referencia, estado, cantidad, fecha_actualizacion) "
+                    + "VALUES (?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (dimension, id_referencia, estado) DO UPDATE "
+                    + "SET cantidad = EXCLUDED.cantidad, fecha_actualizacion = EXCLUDED.fecha_actualizacion "
+                    + "WHERE originacion.contadores_pipeline.fecha_actualizacion <= EXCLUDED.fecha_actualizacion";
+
+    private final SolicitudCreditoRepository solicitudRepository;
+    private final VendedorRepository vendedorRepository;
+    private final ContadorPipelineRepository contadorRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<ClavePipeline, LongAdder> contadores = new ConcurrentHashMap<>();
+    private final Map<Integer, Integer> concesionarioPorVendedor = new ConcurrentHashMap<>();
+
+    public PipelineSolicitudesService(SolicitudCreditoRepository solicitudRepository,
+                                      VendedorRepository vendedorRepository,
+                                      ContadorPipelineRepository contadorRepository,
+                                      JdbcTemplate jdbcTemplate) {
+        this.solicitudRepository = solicitudRepository;
+        this.vendedorRepository = vendedorRepository;
+        this.contadorRepository = contadorRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // === ACTUALIZACIÓN DESDE EL FLUJO DE SOLICITUDES ===
+
+    /**
+     * Registra una solicitud nueva. Debe llamarse dentro de la transacción de creación.
+     */
+    public void registrarCreacion(Integer idVendedor, EstadoSolicitudEnum estado) {
+        Integer idConcesionario = resolverConcesionario(idVendedor);
+        TransaccionUtils.despuesDelCommit(() -> sumar(idVendedor, idConcesionario, estado, 1));
+    }
+
+    /**
+     * Registra un cambio de estado. Debe llamarse dentro de la transacción que lo persiste.
+     */
+    public void registrarTransicion(Integer idVendedor, EstadoSolicitudEnum anterior, EstadoSolicitudEnum nuevo) {
+        if (anterior == nuevo) {
+            return;
+        }
+        Integer idConcesionario = resolverConcesionario(idVendedor);
+        TransaccionUtils.despuesDelCommit(() -> {
+            sumar(idVendedor, idConcesionario, anterior, -1);
+            sumar(idVendedor, idConcesionario, nuevo, 1);
+        });
+    }
+
+    /**
+     * Registra la reasignación de una solicitud a otro vendedor.
+     */
+    public void registrarReasignacion(Integer idVendedorAnterior, Integer idVendedorNuevo, EstadoSolicitudEnum estado) {
+        if (idVendedorAnterior == null || idVendedorAnterior.equals(idVendedorNuevo)) {
+            return;
+        }
+        Integer concesionarioAnterior = resolverConcesionario(idVendedorAnterior);
+        Integer concesionarioNuevo = resolverConcesionario(idVendedorNuevo);
+        TransaccionUtils.despuesDelCommit(() -> {
+            sumar(idVendedorAnterior, concesionarioAnterior, estado, -1);
+            sumar(idVendedorNuevo, concesionarioNuevo, estado, 1);
+        });
+    }
+
+    // === CONSULTAS (SOLO MEMORIA) ===
+
+    public List<ContadorPipelineDTO> obtenerContadores(AgrupacionSolicitudEnum dimension) {
+        return obtenerContadores(dimension, null);
+    }
+
+    public List<ContadorPipelineDTO> obtenerContadores(AgrupacionSolicitudEnum dimension, Integer idReferencia) {
+        List<ContadorPipelineDTO> resultado = new ArrayList<>();
+        contadores.forEach((clave, contador) -> {
+            if (clave.dimension() == dimension
+                    && (idReferencia == null || idReferencia.equals(clave.idReferencia()))) {
+                ContadorPipelineDTO dto = new ContadorPipelineDTO();
+                dto.setDimension(clave.dimension());
+                dto.setIdReferencia(clave.idReferencia());
+                dto.setEstado(clave.estado());
+                dto.setCantidad(contador.sum());
+                resultado.add(dto);
+            }
+        });
+        resultado.sort(Comparator.comparing(ContadorPipelineDTO::getIdReferencia)
+                .thenComparing(ContadorPipelineDTO::getEstado));
+        return resultado;
+    }
+
+    // === RECONCILIACIÓN Y SNAPSHOT ===
+
+    /**
+     * Al arrancar se restauran los contadores desde el último snapshot; si no existe se reconcilian.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restaurarSnapshot() {
+        try {
+            List<ContadorPipeline> snapshot = contadorRepository.findAll();
+            if (snapshot.isEmpty()) {
+                reconciliar();
+                return;
+            }
+            for (ContadorPipeline fila : snapshot) {
+                ClavePipeline clave = new ClavePipeline(fila.getDimension(), fila.getIdReferencia(), fila.getEstado());
+                contadores.computeIfAbsent(clave, c -> new LongAdder()).add(fila.getCantidad());
+            }
+            log.info("Contadores del pipeline restaurados desde snapshot: {} registros", snapshot.size());
+        } catch (Exception e) {
+            log.warn("No se pudieron restaurar los contadores del pipeline: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recalcula los contadores con consultas agrupadas y corrige las desviaciones acumuladas
+     * (por ejemplo, cambios hechos desde otro nodo o directamente en la base de datos).
+     *
+     * Los valores en memoria se capturan antes de consultar y la corrección se suma como diferencia
+     * respecto a esa captura, de modo que los incrementos que llegan durante la consulta se conservan.
+     * Se lee de la primaria: contra una réplica con retraso la corrección deshacería transiciones ya
+     * contadas. Los valores leídos se guardan como snapshot.
+     */
+    @Scheduled(fixedDelayString = "${originacion.pipeline.reconciliacion-ms:300000}",
+            initialDelayString = "${originacion.pipeline.reconciliacion-ms:300000}")
+    @Transactional
+    public void reconciliar() {
+        LocalDateTime leidoEn = LocalDateTime.now();
+        Map<ClavePipeline, Long> capturados = new HashMap<>();
+        contadores.forEach((clave, contador) -> capturados.put(clave, contador.sum()));
+
+        Map<ClavePipeline, Long> reales = new HashMap<>();
+        for (AgrupacionSolicitudEnum dimension : List.of(AgrupacionSolicitudEnum.VENDEDOR, AgrupacionSolicitudEnum.CONCESIONARIO)) {
+            for (ConteoPipeline conteo : solicitudRepository.contarPorEstado(dimension)) {
+                reales.put(new ClavePipeline(dimension, conteo.idReferencia(), conteo.estado()), conteo.cantidad());
+            }
+        }
+
+        int corregidos = 0;
+        for (Map.Entry<ClavePipeline, Long> entrada : capturados.entrySet()) {
+            if (!reales.containsKey(entrada.getKey())) {
+                corregidos += ajustar(entrada.getKey(), entrada.getValue(), 0L);
+            }
+        }
+        for (Map.Entry<ClavePipeline, Long> entrada : reales.entrySet()) {
+            corregidos += ajustar(entrada.getKey(), capturados.getOrDefault(entrada.getKey(), 0L), entrada.getValue());
+        }
+        log.info("Contadores del pipeline reconciliados, {} correcciones", corregidos);
+
+        // Las claves que ya no tienen solicitudes quedan en cero
+        Map<ClavePipeline, Long> snapshot = new HashMap<>(reales);
+        capturados.keySet().forEach(clave -> snapshot.putIfAbsent(clave, 0L));
+        guardarSnapshot(snapshot, leidoEn);
+    }
+
+    /**
+     * Guarda cada contador reconciliado con un upsert por clave. Varios nodos pueden hacerlo a la vez:
+     * todos escriben valores leídos de la base de datos y en cada clave prevalece la lectura más reciente.
+     */
+    private void guardarSnapshot(Map<ClavePipeline, Long> valores, LocalDateTime leidoEn) {
+        Timestamp fecha = Timestamp.valueOf(leidoEn);
+        List<Object[]> filas = new ArrayList<>(valores.size());
+        valores.forEach((clave, cantidad) -> filas.add(new Object[] {
+                clave.dimension().name(), clave.idReferencia(), clave.estado().name(), cantidad, fecha}));
+        jdbcTemplate.batchUpdate(GUARDAR_CONTADOR, filas);
+        log.debug("Snapshot del pipeline guardado con {} contadores", filas.size());
+    }
+
+    // === AUXILIARES ===
+
+    private void sumar(Integer idVendedor, Integer idConcesionario, EstadoSolicitudEnum estado, long delta) {
+        if (estado == null) {
+            return;
+        }
+        if (idVendedor != null) {
+            contadores.computeIfAbsent(new ClavePipeline(AgrupacionSolicitudEnum.VENDEDOR, idVendedor, estado),
+                    c -> new LongAdder()).add(delta);
+        }
+        if (idConcesionario != null) {
+            contadores.computeIfAbsent(new ClavePipeline(AgrupacionSolicitudEnum.CONCESIONARIO, idConcesionario, estado),
+                    c -> new LongAdder()).add(delta);
+        }
+    }
+
+    // Suma la diferencia entre el valor real y el capturado antes de la consulta; lo que se haya
+    // incrementado desde la captura queda encima de la corrección
+    private int ajustar(ClavePipeline clave, long capturado, long valorReal) {
+        long diferencia = valorReal - capturado;
+        if (diferencia == 0) {
+            return 0;
+        }
+        contadores.computeIfAbsent(clave, c -> new LongAdder()).add(diferencia);
+        return 1;
+    }
+
+    private Integer resolverConcesionario(Integer idVendedor) {
+        if (idVendedor == null) {
+            return null;
+        }
+        Integer idConcesionario = concesionarioPorVendedor.get(idVendedor);
+        if (idConcesionario == null) {
+            idConcesionario = vendedorRepository.findById(idVendedor)
+                    .map(Vendedor::getIdConcesionario)
+                    .orElse(null);
+            if (idConcesionario != null) {
+                concesionarioPorVendedor.put(idVendedor, idConcesionario);
+            }
+        }
+        return idConcesionario;
+    }
+
+    private record ClavePipeline(AgrupacionSolicitudEnum dimension, Integer idReferencia, EstadoSolicitudEnum estado) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.banquito.originacion.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plantilla de texto compilada a PDF. El texto se compila una sola vez: cada línea queda como
+ * fragmentos de operadores PDF ya codificados y escapados intercalados con los campos {{nombre}}, y
+ * los objetos fijos (catálogo, fuentes, páginas) se serializan de antemano. Renderizar solo escapa
+ * los valores, une los fragmentos y calcula la tabla xref, así que no hay análisis por documento.
+ *
+ * Formato: una línea de la plantilla es una línea del documento; las que empiezan con "# " son
+ * títulos. Se usan Helvetica y Helvetica-Bold con WinAnsiEncoding (los caracteres fuera de
+ * windows-1252 salen como "?"). Las líneas no se parten, así que la plantilla debe dejar margen para
+ * los valores. Las instancias son inmutables y se pueden renderizar desde varios hilos.
+ */
+public final class PlantillaPdf {
+
+    private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+    private static final int LINEAS_POR_PAGINA = 48;
+    private static final int ANCHO_PAGINA = 595;
+    private static final int ALTO_PAGINA = 842;
+    private static final int MARGEN = 56;
+    private static final int INTERLINEADO = 15;
+    private static final String PREFIJO_TITULO = "# ";
+    private static final byte[] CABECERA_CONTENIDO = ascii("BT\n" + INTERLINEADO + " TL\n" + MARGEN + " "
+            + (ALTO_PAGINA - MARGEN) + " Td\n");
+    private static final byte[] FIN_CONTENIDO = ascii("ET\n");
+    private static final byte[] LINEA_VACIA = ascii("T*\n");
+    private static final byte[] FIN_LINEA = ascii(") Tj T*\n");
+
+    private sealed interface Segmento permits Literal, Campo {
+    }
+
+    private record Literal(byte[] bytes) implements Segmento {
+    }
+
+    private record Campo(String nombre) implements Segmento {
+    }
+
+    private final List<List<Segmento>> paginas;
+    private final byte[] objetosFijos;
+    private final long[] desplazamientosFijos;
+    private final List<byte[]> objetosPagina;
+    private final Set<String> campos;
+
+    private PlantillaPdf(List<List<Segmento>> paginas, Set<String> campos) {
+        this.paginas = paginas;
+        this.campos = Collections.unmodifiableSet(campos);
+
+        // 1 catálogo, 2 árbol de páginas, 3 y 4 fuentes; luego página y contenido de cada página
+        StringBuilder hijos = new StringBuilder();
+        for (int i = 0; i < paginas.size(); i++) {
+            hijos.append(objetoPagina(i)).append(" 0 R ");
+        }
+        String[] fijos = {
+                "%PDF-1.4\n%âãÏÓ\n",
+                "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n",
+                "2 0 obj\n<< /Type /Pages /Kids [" + hijos + "] /Count " + paginas.size() + " >>\nendobj\n",
+                "3 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n",
+                "4 0 obj\n<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>\nendobj\n"};
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        this.desplazamientosFijos = new long[fijos.length];
+        for (int i = 0; i < fijos.length; i++) {
+            desplazamientosFijos[i] = salida.size();
+            salida.writeBytes(fijos[i].getBytes(StandardCharsets.ISO_8859_1));
+        }
+        this.objetosFijos = salida.toByteArray();
+
+        this.objetosPagina = new ArrayList<>(paginas.size());
+        for (int i = 0; i < paginas.size(); i++) {
+            objetosPagina.add(ascii(objetoPagina(i) + " 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 "
+                    + ANCHO_PAGINA + " " + ALTO_PAGINA + "] /Resources << /Font << /F1 3 0 R /F2 4 0 R >> >> "
+                    + "/Contents " + (objetoPagina(i) + 1) + " 0 R >>\nendobj\n"));
+        }
+    }
+
+    /**
+     * Compila el texto de una plantilla. Falla con IllegalArgumentException si un campo no se cierra.
+     */
+    public static PlantillaPdf compilar(String texto) {
+        List<List<Segmento>> paginas = new ArrayList<>();
+        List<Segmento> actual = new ArrayList<>();
+        Set<String> campos = new LinkedHashSet<>();
+        int lineas = 0;
+        for (String linea : texto.replace("\r", "").split("\n", -1)) {
+            if (lineas == LINEAS_POR_PAGINA) {
+                paginas.add(List.copyOf(actual));
+                actual = new ArrayList<>();
+                lineas = 0;
+            }
+            compilarLinea(linea, actual, campos);
+            lineas++;
+        }
+        paginas.add(List.copyOf(actual));
+        return new PlantillaPdf(List.copyOf(paginas), campos);
+    }
+
+    /**
+     * Campos que usa la plantilla, en orden de aparición.
+     */
+    public Set<String> campos() {
+        return campos;
+    }
+
+    public int paginas() {
+        return paginas.size();
+    }
+
+    /**
+     * Genera el PDF con los valores dados. Falla con IllegalArgumentException si falta algún campo.
+     */
+    public byte[] renderizar(Map<String, String> valores) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(objetosFijos.length + paginas.size() * 2048);
+        salida.writeBytes(objetosFijos);
+        int totalObjetos = 5 + paginas.size() * 2;
+        long[] desplazamientos = new long[totalObjetos];
+        System.arraycopy(desplazamientosFijos, 1, desplazamientos, 1, desplazamientosFijos.length - 1);
+
+        for (int i = 0; i < paginas.size(); i++) {
+            int numero = objetoPagina(i);
+            desplazamientos[numero] = salida.size();
+            salida.writeBytes(objetosPagina.get(i));
+
+            byte[] contenido = contenido(paginas.get(i), valores);
+            desplazamientos[numero + 1] = salida.size();
+            salida.writeBytes(ascii((numero + 1) + " 0 obj\n<< /Length " + contenido.length + " >>\nstream\n"));
+            salida.writeBytes(contenido);
+            salida.writeBytes(ascii("\nendstream\nendobj\n"));
+        }
+
+        long xref = salida.size();
+        StringBuilder tabla = new StringBuilder(32 + totalObjetos * 20);
+        tabla.append("xref\n0 ").append(totalObjetos).append("\n0000000000 65535 f \n");
+        for (int i = 1; i < totalObjetos; i++) {
+            String desplazamiento = Long.toString(desplazamientos[i]);
+            tabla.append("0".repeat(10 - desplazamiento.length())).append(desplazamiento).append(" 00000 n \n");
+        }
+        tabla.append("trailer\n<< /Size ").append(totalObjetos).append(" /Root 1 0 R >>\nstartxref\n")
+                .append(xref).append("\n%%EOF\n");
+        salida.writeBytes(ascii(tabla.toString()));
+        return salida.toByteArray();
+    }
+
+    private static byte[] contenido(List<Segmento> segmentos, Map<String, String> valores) {
+        ByteArrayOutputStream contenido = new ByteArrayOutputStream(2048);
+        contenido.writeBytes(CABECERA_CONTENIDO);
+        for (Segmento segmento : segmentos) {
+            if (segmento instanceof Literal literal) {
+                contenido.writeBytes(literal.bytes());
+            } else if (segmento instanceof Campo campo) {
+                String valor = valores.get(campo.nombre());
+                if (valor == null) {
+                    throw new IllegalArgumentException("Falta el valor del campo " + campo.nombre());
+                }
+                escapar(valor, contenido);
+            }
+        }
+        contenido.writeBytes(FIN_CONTENIDO);
+        return contenido.toByteArray();
+    }
+
+    private static void compilarLinea(String linea, List<Segmento> segmentos, Set<String> campos) {
+        if (linea.isBlank()) {
+            segmentos.add(new Literal(LINEA_VACIA));
+            return;
+        }
+        boolean titulo = linea.startsWith(PREFIJO_TITULO);
+        String texto = titulo ? linea.substring(PREFIJO_TITULO.length()) : linea;
+        ByteArrayOutputStream literal = new ByteArrayOutputStream();
+        literal.writeBytes(ascii(titulo ? "/F2 13 Tf (" : "/F1 10 Tf ("));
+
+        int posicion = 0;
+        while (posicion < texto.length()) {
+            int apertura = texto.indexOf("{{", posicion);
+            if (apertura < 0) {
+                escapar(texto.substring(posicion), literal);
+                break;
+            }
+            int cierre = texto.indexOf("}}", apertura);
+            if (cierre < 0) {
+                throw new IllegalArgumentException("Campo sin cerrar en la línea: " + linea);
+            }
+            escapar(texto.substring(posicion, apertura), literal);
+            segmentos.add(new Literal(literal.toByteArray()));
+            literal.reset();
+            String nombre = texto.substring(apertura + 2, cierre).trim();
+            segmentos.add(new Campo(nombre));
+            campos.add(nombre);
+            posicion = cierre + 2;
+        }
+        literal.writeBytes(FIN_LINEA);
+        segmentos.add(new Literal(literal.toByteArray()));
+    }
+
+    // Cadena literal PDF: se escapan paréntesis y barra invertida; los saltos de línea pasan a espacios
+    private static void escapar(String texto, ByteArrayOutputStream salida) {
+        for (byte b : texto.getBytes(WINDOWS_1252)) {
+            switch (b) {
+                case '(', ')', '\\' -> {
+                    salida.write('\\');
+                    salida.write(b);
+                }
+                case '\r', '\n', '\t' -> salida.write(' ');
+                default -> salida.write(b);
+            }
+        }
+    }
+
+    private static int objetoPagina(int indice) {
+        return 5 + indice * 2;
+    }
+
+    private static byte[] ascii(String texto) {
+        return texto.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,300 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.EstadoReconciliacionDocumentosDTO;
+import com.banquito.originacion.repository.DocumentoAdjuntoRepository;
+import com.banquito.originacion.repository.RutaArchivo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reconcilia el almacenamiento de documentos con documentos_adjuntos y blobs_documentos por tramos,
+ * sin recorrer todo el disco ni toda la tabla en cada ejecución.
+ *
+ * Cada ejecución revisa el siguiente tramo de archivos en orden de clave, desde la última clave
+ * guardada en cursores_procesos. Los que no referencia ninguna fila, con una consulta por conjunto
+ * para todo el tramo, se mueven a la carpeta de cuarentena si son más antiguos que
+ * antiguedad-minima-minutos (una carga en curso escribe el archivo antes de insertar la fila). Después
+ * revisa el siguiente tramo de documentos por id e informa los que apuntan a un archivo que no existe;
+ * esas filas no se tocan. Al llegar al final, cada cursor vuelve a empezar.
+ *
+ * Los cursores se bloquean con FOR UPDATE SKIP LOCKED: si otro nodo está reconciliando, esta
+ * ejecución se salta. Antes de mover un blob se toma el candado consultivo de su hash, el mismo que la
+ * carga de blobs, y se espera a que termine el lote en curso de la migración de rutas, cuyas filas
+ * actualizadas aún no serían visibles.
+ */
+@Component
+public class ReconciliadorDocumentos {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliadorDocumentos.class);
+
+    private static final String CURSOR_ARCHIVOS = "reconciliacion-archivos";
+    private static final String CURSOR_FILAS = "reconciliacion-filas";
+    private static final int MAX_DOCUMENTOS_INFORMADOS = 100;
+    private static final Pattern NOMBRE_BLOB = Pattern.compile("([0-9a-f]{64})\\.pdf$");
+    private static final String CREAR_CURSOR =
+            "INSERT INTO originacion.cursores_procesos (nombre, ultimo_id, ultima_clave, fecha_actualizacion) "
+                    + "VALUES (?, 0, '', ?) ON CONFLICT (nombre) DO NOTHING";
+    private static final String BLOQUEAR_CURSOR_CLAVE =
+            "SELECT coalesce(ultima_clave, '') FROM originacion.cursores_procesos WHERE nombre = ? FOR UPDATE SKIP LOCKED";
+    private static final String BLOQUEAR_CURSOR_ID =
+            "SELECT ultimo_id FROM originacion.cursores_procesos WHERE nombre = ? FOR UPDATE SKIP LOCKED";
+    private static final String LEER_CURSORES =
+            "SELECT nombre, ultimo_id, ultima_clave FROM originacion.cursores_procesos WHERE nombre IN (?, ?)";
+    private static final String AVANZAR_CURSOR =
+            "UPDATE originacion.cursores_procesos SET ultimo_id = ?, ultima_clave = ?, fecha_actualizacion = ? "
+                    + "WHERE nombre = ?";
+    private static final String ESPERAR_MIGRACION =
+            "SELECT ultimo_id FROM originacion.cursores_procesos WHERE nombre = ? FOR SHARE";
+    private static final String BLOBS_REFERENCIADOS =
+            "SELECT ruta_archivo FROM originacion.blobs_documentos WHERE ruta_archivo = ANY (?)";
+    private static final String SIGUIENTE_LOTE =
+            "SELECT id_documento, ruta_archivo FROM originacion.documentos_adjuntos "
+                    + "WHERE id_documento > ? ORDER BY id_documento LIMIT ?";
+    private static final String RUTA_DOCUMENTO =
+            "SELECT ruta_archivo FROM originacion.documentos_adjuntos WHERE id_documento = ?";
+    private static final String BLOQUEAR_HASH = "SELECT pg_advisory_xact_lock(hashtext(?))";
+
+    private record FilaDocumento(int id, String ruta) {
+    }
+
+    private final AlmacenDocumentos almacenDocumentos;
+    private final DocumentoAdjuntoRepository documentoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int archivosPorEjecucion;
+    private final int filasPorEjecucion;
+    private final Duration antiguedadMinima;
+    private final String cuarentena;
+    private final Counter archivosRevisados;
+    private final Counter archivosEnCuarentena;
+    private final Counter filasRevisadas;
+    private final Counter filasSinArchivo;
+    private final AtomicLong totalArchivosRevisados = new AtomicLong();
+    private final AtomicLong totalEnCuarentena = new AtomicLong();
+    private final AtomicLong totalFilasRevisadas = new AtomicLong();
+    private final AtomicLong totalSinArchivo = new AtomicLong();
+    private final Deque<Integer> documentosSinArchivo = new ConcurrentLinkedDeque<>();
+
+    public ReconciliadorDocumentos(AlmacenDocumentos almacenDocumentos,
+                                   DocumentoAdjuntoRepository documentoRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${originacion.documentos.reconciliacion.archivos-por-ejecucion:1000}") int archivosPorEjecucion,
+                                   @Value("${originacion.documentos.reconciliacion.filas-por-ejecucion:1000}") int filasPorEjecucion,
+                                   @Value("${originacion.documentos.reconciliacion.antiguedad-minima-minutos:60}") long antiguedadMinimaMinutos,
+                                   @Value("${originacion.documentos.reconciliacion.cuarentena:cuarentena}") String cuarentena) {
+        this.almacenDocumentos = almacenDocumentos;
+        this.documentoRepository = documentoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archivosPorEjecucion = archivosPorEjecucion;
+        this.filasPorEjecucion = filasPorEjecucion;
+        this.antiguedadMinima = Duration.ofMinutes(antiguedadMinimaMinutos);
+        this.cuarentena = cuarentena;
+        this.archivosRevisados = meterRegistry.counter("originacion.documentos.reconciliacion.archivos", "resultado", "revisado");
+        this.archivosEnCuarentena = meterRegistry.counter("originacion.documentos.reconciliacion.archivos", "resultado", "cuarentena");
+        this.filasRevisadas = meterRegistry.counter("originacion.documentos.reconciliacion.filas", "resultado", "revisada");
+        this.filasSinArchivo = meterRegistry.counter("originacion.documentos.reconciliacion.filas", "resultado", "sin-archivo");
+    }
+
+    @Scheduled(fixedDelayString = "${originacion.documentos.reconciliacion.intervalo-ms:600000}",
+            initialDelayString = "${originacion.documentos.reconciliacion.intervalo-ms:600000}")
+    public synchronized void reconciliar() {
+        try {
+            Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update(CREAR_CURSOR, CURSOR_ARCHIVOS, ahora);
+            jdbcTemplate.update(CREAR_CURSOR, CURSOR_FILAS, ahora);
+            transactionTemplate.executeWithoutResult(estado -> revisarArchivos());
+            transactionTemplate.executeWithoutResult(estado -> revisarFilas());
+        } catch (Exception e) {
+            log.warn("No se pudo completar la reconciliación de documentos: {}", e.getMessage(), e);
+        }
+    }
+
+    public EstadoReconciliacionDocumentosDTO estado() {
+        EstadoReconciliacionDocumentosDTO estado = new EstadoReconciliacionDocumentosDTO();
+        jdbcTemplate.query(LEER_CURSORES, rs -> {
+            if (CURSOR_ARCHIVOS.equals(rs.getString("nombre"))) {
+                estado.setUltimaClaveRevisada(rs.getString("ultima_clave"));
+            } else {
+                estado.setUltimoIdRevisado(rs.getInt("ultimo_id"));
+            }
+        }, CURSOR_ARCHIVOS, CURSOR_FILAS);
+        estado.setArchivosRevisados(totalArchivosRevisados.get());
+        estado.setArchivosEnCuarentena(totalEnCuarentena.get());
+        estado.setFilasRevisadas(totalFilasRevisadas.get());
+        estado.setFilasSinArchivo(totalSinArchivo.get());
+        estado.setDocumentosSinArchivo(List.copyOf(documentosSinArchivo));
+        return estado;
+    }
+
+    private void revisarArchivos() {
+        List<String> cursor = jdbcTemplate.queryForList(BLOQUEAR_CURSOR_CLAVE, String.class, CURSOR_ARCHIVOS);
+        if (cursor.isEmpty()) {
+            log.debug("Otro nodo está revisando los archivos de documentos");
+            return;
+        }
+        AlmacenamientoDocumentos almacenamiento = almacenDocumentos.getAlmacenamiento();
+        List<AlmacenamientoDocumentos.Objeto> objetos;
+        try {
+            objetos = almacenamiento.listar(almacenDocumentos.getDirectorio().toString(), cursor.get(0),
+                    archivosPorEjecucion);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // Huérfanos: sin fila en ninguna de las dos tablas y con la antigüedad mínima
+        Set<String> referenciadas = referenciadas(objetos.stream().map(AlmacenamientoDocumentos.Objeto::clave).toList());
+        Instant limite = Instant.now().minus(antiguedadMinima);
+        List<String> huerfanos = new ArrayList<>();
+        for (AlmacenamientoDocumentos.Objeto objeto : objetos) {
+            if (!referenciadas.contains(objeto.clave()) && objeto.ultimaModificacion().isBefore(limite)) {
+                huerfanos.add(objeto.clave());
+            }
+        }
+        int movidos = huerfanos.isEmpty() ? 0 : ponerEnCuarentena(huerfanos);
+
+        boolean fin = objetos.size() < archivosPorEjecucion;
+        String siguiente = fin ? "" : objetos.get(objetos.size() - 1).clave();
+        jdbcTemplate.update(AVANZAR_CURSOR, 0, siguiente, Timestamp.valueOf(LocalDateTime.now()), CURSOR_ARCHIVOS);
+        archivosRevisados.increment(objetos.size());
+        totalArchivosRevisados.addAndGet(objetos.size());
+        if (fin) {
+            log.info("Reconciliación de archivos de documentos: vuelta completa, se reinicia el recorrido");
+        }
+        log.debug("Reconciliación: {} archivos revisados desde '{}', {} a cuarentena",
+                objetos.size(), cursor.get(0), movidos);
+    }
+
+    private int ponerEnCuarentena(List<String> candidatos) {
+        // Un lote de la migración de rutas en curso tiene filas actualizadas que todavía no se ven
+        jdbcTemplate.queryForList(ESPERAR_MIGRACION, Integer.class, MigradorRutasDocumentos.NOMBRE_CURSOR);
+        Set<String> referenciadas = referenciadas(candidatos);
+        int movidos = 0;
+        for (String clave : candidatos) {
+            if (referenciadas.contains(clave)) {
+                continue;
+            }
+            Matcher blob = NOMBRE_BLOB.matcher(clave);
+            if (blob.find()) {
+                // Una carga del mismo contenido podría estar reclamando este blob
+                jdbcTemplate.queryForList(BLOQUEAR_HASH, blob.group(1));
+                if (!referenciadas(List.of(clave)).isEmpty()) {
+                    continue;
+                }
+            }
+            String destino = claveCuarentena(clave);
+            try {
+                almacenDocumentos.getAlmacenamiento().mover(clave, destino);
+            } catch (IOException e) {
+                log.warn("No se pudo mover a cuarentena el archivo huérfano {}: {}", clave, e.getMessage());
+                continue;
+            }
+            log.warn("Archivo huérfano movido a cuarentena: {} -> {}", clave, destino);
+            archivosEnCuarentena.increment();
+            totalEnCuarentena.incrementAndGet();
+            movidos++;
+        }
+        return movidos;
+    }
+
+    private void revisarFilas() {
+        List<Integer> cursor = jdbcTemplate.queryForList(BLOQUEAR_CURSOR_ID, Integer.class, CURSOR_FILAS);
+        if (cursor.isEmpty()) {
+            log.debug("Otro nodo está revisando las filas de documentos");
+            return;
+        }
+        List<FilaDocumento> filas = jdbcTemplate.query(SIGUIENTE_LOTE,
+                (rs, i) -> new FilaDocumento(rs.getInt("id_documento"), rs.getString("ruta_archivo")),
+                cursor.get(0), filasPorEjecucion);
+
+        AlmacenamientoDocumentos almacenamiento = almacenDocumentos.getAlmacenamiento();
+        for (FilaDocumento fila : filas) {
+            try {
+                if (almacenamiento.existe(fila.ruta()) || rutaActualExiste(fila.id(), almacenamiento)) {
+                    continue;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            log.warn("El documento {} apunta a un archivo que no existe: {}", fila.id(), fila.ruta());
+            filasSinArchivo.increment();
+            totalSinArchivo.incrementAndGet();
+            documentosSinArchivo.addFirst(fila.id());
+            while (documentosSinArchivo.size() > MAX_DOCUMENTOS_INFORMADOS) {
+                documentosSinArchivo.pollLast();
+            }
+        }
+
+        boolean fin = filas.size() < filasPorEjecucion;
+        int siguiente = fin ? 0 : filas.get(filas.size() - 1).id();
+        jdbcTemplate.update(AVANZAR_CURSOR, siguiente, null, Timestamp.valueOf(LocalDateTime.now()), CURSOR_FILAS);
+        filasRevisadas.increment(filas.size());
+        totalFilasRevisadas.addAndGet(filas.size());
+        if (fin) {
+            log.info("Reconciliación de filas de documentos: vuelta completa, se reinicia el recorrido");
+        }
+    }
+
+    /**
+     * La fila pudo cambiar de ruta (migración de rutas) o borrarse después de leer el lote; se vuelve
+     * a leer antes de informarla.
+     */
+    private boolean rutaActualExiste(int idDocumento, AlmacenamientoDocumentos almacenamiento) throws IOException {
+        List<String> ruta = jdbcTemplate.queryForList(RUTA_DOCUMENTO, String.class, idDocumento);
+        return ruta.isEmpty() || almacenamiento.existe(ruta.get(0));
+    }
+
+    private Set<String> referenciadas(Collection<String> claves) {
+        Set<String> referenciadas = new HashSet<>();
+        if (claves.isEmpty()) {
+            return referenciadas;
+        }
+        documentoRepository.findByRutaArchivoIn(claves).stream()
+                .map(RutaArchivo::getRutaArchivo)
+                .forEach(referenciadas::add);
+        referenciadas.addAll(jdbcTemplate.query(BLOBS_REFERENCIADOS,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", claves.toArray())),
+                (rs, i) -> rs.getString(1)));
+        return referenciadas;
+    }
+
+    /**
+     * Misma ruta relativa al directorio de documentos, dentro de la carpeta de cuarentena.
+     */
+    private String claveCuarentena(String clave) {
+        String directorio = almacenDocumentos.getDirectorio().toString();
+        String relativa = clave.startsWith(directorio) ? clave.substring(directorio.length()) : clave;
+        while (relativa.startsWith("/") || relativa.startsWith("\\")) {
+            relativa = relativa.substring(1);
+        }
+        return Paths.get(cuarentena, relativa).toString();
+    }
+}
@@ -0,0 +1,194 @@
+package com.banquito.originacion.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.zip.CRC32;
+
+/**
+ * Escribe un ZIP entrada por entrada directamente sobre la salida, sin retener el archivo ni el
+ * contenido de ninguna entrada. Las entradas se guardan sin comprimir (STORED): los PDF ya vienen
+ * comprimidos y recomprimirlos solo gastaría CPU.
+ *
+ * Como el CRC-32 no se conoce hasta haber escrito el contenido, cada entrada lleva un descriptor de
+ * datos tras su contenido (bit 3) y el directorio central al final tiene los valores definitivos; los
+ * lectores que parten del directorio central (unzip, 7-Zip, Windows, macOS, java.util.zip.ZipFile) lo
+ * abren sin problema. Sin ZIP64: cada entrada y el archivo completo deben quedar por debajo de 4 GiB.
+ * El tamaño total se conoce de antemano con {@link #tamanioEntrada} y {@link #TAMANIO_FIN}.
+ */
+public final class SalidaZip extends OutputStream {
+
+    public static final int TAMANIO_FIN = 22;
+
+    private static final int CABECERA_LOCAL = 30;
+    private static final int DESCRIPTOR = 16;
+    private static final int CABECERA_CENTRAL = 46;
+    private static final int VERSION = 20;
+    // Bit 3: tamaños y CRC en el descriptor de datos; bit 11: nombres en UTF-8
+    private static final int BANDERAS = 0x0808;
+    private static final long MAXIMO = 0xFFFFFFFFL;
+
+    private final OutputStream destino;
+    private final ByteArrayOutputStream directorioCentral = new ByteArrayOutputStream();
+    private final CRC32 crc = new CRC32();
+    private long posicion;
+    private int entradas;
+    private byte[] nombreActual;
+    private int fechaActual;
+    private long inicioActual;
+    private long tamanioEsperado;
+    private long tamanioActual;
+
+    public SalidaZip(OutputStream destino) {
+        this.destino = destino;
+    }
+
+    /**
+     * Bytes que ocupa en el ZIP una entrada con ese nombre y tamaño, incluida su cabecera central.
+     */
+    public static long tamanioEntrada(String nombre, long tamanio) {
+        int longitudNombre = nombre.getBytes(StandardCharsets.UTF_8).length;
+        return CABECERA_LOCAL + longitudNombre + tamanio + DESCRIPTOR + CABECERA_CENTRAL + longitudNombre;
+    }
+
+    /**
+     * Empieza una entrada; lo escrito hasta {@link #cerrarEntrada()} es su contenido, que debe medir
+     * exactamente tamanio bytes.
+     */
+    public void abrirEntrada(String nombre, long tamanio, LocalDateTime modificacion) throws IOException {
+        if (nombreActual != null) {
+            throw new IllegalStateException("Hay una entrada abierta");
+        }
+        if (tamanio > MAXIMO || entradas == 0xFFFF) {
+            throw new IOException("El archivo supera los límites del formato ZIP sin ZIP64");
+        }
+        nombreActual = nombre.getBytes(StandardCharsets.UTF_8);
+        fechaActual = fechaDos(modificacion);
+        inicioActual = posicion;
+        tamanioEsperado = tamanio;
+        tamanioActual = 0;
+        crc.reset();
+
+        ByteBuffer cabecera = buffer(CABECERA_LOCAL + nombreActual.length);
+        cabecera.putInt(0x04034b50)
+                .putShort((short) VERSION)
+                .putShort((short) BANDERAS)
+                .putShort((short) 0)
+                .putInt(fechaActual)
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) nombreActual.length)
+                .putShort((short) 0)
+                .put(nombreActual);
+        escribir(cabecera);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] datos, int desde, int longitud) throws IOException {
+        if (nombreActual == null) {
+            throw new IllegalStateException("No hay ninguna entrada abierta");
+        }
+        crc.update(datos, desde, longitud);
+        destino.write(datos, desde, longitud);
+        tamanioActual += longitud;
+        posicion += longitud;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        destino.flush();
+    }
+
+    public void cerrarEntrada() throws IOException {
+        if (tamanioActual != tamanioEsperado) {
+            throw new IOException("La entrada " + new String(nombreActual, StandardCharsets.UTF_8) + " midió "
+                    + tamanioActual + " bytes en lugar de " + tamanioEsperado);
+        }
+        if (inicioActual > MAXIMO) {
+            throw new IOException("El archivo supera los límites del formato ZIP sin ZIP64");
+        }
+        int valorCrc = (int) crc.getValue();
+        ByteBuffer descriptor = buffer(DESCRIPTOR);
+        descriptor.putInt(0x08074b50)
+                .putInt(valorCrc)
+                .putInt((int) tamanioActual)
+                .putInt((int) tamanioActual);
+        escribir(descriptor);
+
+        ByteBuffer central = buffer(CABECERA_CENTRAL + nombreActual.length);
+        central.putInt(0x02014b50)
+                .putShort((short) VERSION)
+                .putShort((short) VERSION)
+                .putShort((short) BANDERAS)
+                .putShort((short) 0)
+                .putInt(fechaActual)
+                .putInt(valorCrc)
+                .putInt((int) tamanioActual)
+                .putInt((int) tamanioActual)
+                .putShort((short) nombreActual.length)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) inicioActual)
+                .put(nombreActual);
+        directorioCentral.write(central.array(), 0, central.position());
+        entradas++;
+        nombreActual = null;
+    }
+
+    /**
+     * Escribe el directorio central y el fin de archivo. No cierra la salida.
+     */
+    public void terminar() throws IOException {
+        if (nombreActual != null) {
+            throw new IllegalStateException("Hay una entrada abierta");
+        }
+        long inicioDirectorio = posicion;
+        if (inicioDirectorio + directorioCentral.size() > MAXIMO) {
+            throw new IOException("El archivo supera los límites del formato ZIP sin ZIP64");
+        }
+        directorioCentral.writeTo(destino);
+        posicion += directorioCentral.size();
+
+        ByteBuffer fin = buffer(TAMANIO_FIN);
+        fin.putInt(0x06054b50)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) entradas)
+                .putShort((short) entradas)
+                .putInt(directorioCentral.size())
+                .putInt((int) inicioDirectorio)
+                .putShort((short) 0);
+        escribir(fin);
+        destino.flush();
+    }
+
+    private void escribir(ByteBuffer buffer) throws IOException {
+        destino.write(buffer.array(), 0, buffer.position());
+        posicion += buffer.position();
+    }
+
+    private static ByteBuffer buffer(int tamanio) {
+        return ByteBuffer.allocate(tamanio).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Hora en la palabra baja y fecha en la alta, con resolución de dos segundos
+    private static int fechaDos(LocalDateTime momento) {
+        LocalDateTime valor = momento == null || momento.getYear() < 1980 ? LocalDateTime.of(1980, 1, 1, 0, 0) : momento;
+        int hora = (valor.getHour() << 11) | (valor.getMinute() << 5) | (valor.getSecond() / 2);
+        int fecha = ((valor.getYear() - 1980) << 9) | (valor.getMonthValue() << 5) | valor.getDayOfMonth();
+        return (fecha << 16) | hora;
+    }
+}
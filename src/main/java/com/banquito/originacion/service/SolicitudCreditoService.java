@@ -1,9 +1,11 @@
 package com.banquito.originacion.service;
 
-import com.banquito.originacion.controller.dto.AuditoriaDTO;
+import com.banquito.originacion.controller.dto.AgregadoSolicitudDTO;
 import com.banquito.originacion.controller.dto.SolicitudCreditoDTO;
 import com.banquito.originacion.controller.mapper.SolicitudCreditoMapper;
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
+import com.banquito.originacion.enums.AgrupacionSolicitudEnum;
 import com.banquito.originacion.enums.EstadoSolicitudEnum;
 import com.banquito.originacion.exception.CreateEntityException;
 import com.banquito.originacion.exception.ResourceNotFoundException;
@@ -11,6 +13,7 @@ import com.banquito.originacion.exception.UpdateEntityException;
 import com.banquito.originacion.model.ClienteProspecto;
 import com.banquito.originacion.model.SolicitudCredito;
 import com.banquito.originacion.model.Vehiculo;
+import com.banquito.originacion.repository.AgregadoSolicitud;
 import com.banquito.originacion.repository.ClienteProspectoRepository;
 import com.banquito.originacion.repository.SolicitudCreditoRepository;
 import com.banquito.originacion.repository.VehiculoRepository;
@@ -19,7 +22,9 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.annotation.Validated;
 
 import java.math.BigDecimal;
@@ -47,6 +52,9 @@ public class SolicitudCreditoService {
     private final ClienteProspectoRepository clienteProspectoRepository;
     private final VehiculoRepository vehiculoRepository;
     private final VendedorRepository vendedorRepository;
+    private final PipelineSolicitudesService pipelineService;
+    private final CacheSolicitudesPorNumero cacheSolicitudes;
+    private final TransactionTemplate transactionTemplate;
     
     // Tasas de interés según perfil de riesgo
     private static final Map<String, BigDecimal> TASAS_POR_PERFIL = new HashMap<>();
@@ -61,13 +69,19 @@ public class SolicitudCreditoService {
                                   AuditoriaService auditoriaService,
                                   ClienteProspectoRepository clienteProspectoRepository,
                                   VehiculoRepository vehiculoRepository,
-                                  VendedorRepository vendedorRepository) {
+                                  VendedorRepository vendedorRepository,
+                                  PipelineSolicitudesService pipelineService,
+                                  CacheSolicitudesPorNumero cacheSolicitudes,
+                                  PlatformTransactionManager transactionManager) {
         this.solicitudRepository = solicitudRepository;
         this.solicitudMapper = solicitudMapper;
         this.auditoriaService = auditoriaService;
         this.clienteProspectoRepository = clienteProspectoRepository;
         this.vehiculoRepository = vehiculoRepository;
         this.vendedorRepository = vendedorRepository;
+        this.pipelineService = pipelineService;
+        this.cacheSolicitudes = cacheSolicitudes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     // === CREACIÓN Y GESTIÓN ===
@@ -153,7 +167,10 @@ public class SolicitudCreditoService {
             SolicitudCredito guardada = solicitudRepository.save(solicitud);
             
             // Registramos auditoría
-            registrarAuditoria("solicitudes_creditos", AccionAuditoriaEnum.INSERT);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, guardada.getId(), AccionAuditoriaEnum.INSERT,
+                    "numero=" + guardada.getNumeroSolicitud() + ";estado=" + guardada.getEstado());
+            pipelineService.registrarCreacion(guardada.getIdVendedor(), guardada.getEstado());
+            cacheSolicitudes.invalidar(guardada.getNumeroSolicitud());
             
             return solicitudMapper.toDTO(guardada);
         } catch (Exception e) {
@@ -184,6 +201,8 @@ public class SolicitudCreditoService {
                         "No se puede modificar una solicitud en estado " + solicitudExistente.getEstado());
             }
 
+            Integer idVendedorAnterior = solicitudExistente.getIdVendedor();
+
             // Actualizar solo los campos permitidos
             solicitudExistente.setIdClienteProspecto(solicitudDTO.getIdClienteProspecto());
             solicitudExistente.setIdVehiculo(solicitudDTO.getIdVehiculo());
@@ -234,7 +253,10 @@ public class SolicitudCreditoService {
             SolicitudCredito guardada = solicitudRepository.save(solicitudExistente);
 
             // Registrar auditoría
-            registrarAuditoria("solicitudes_creditos", AccionAuditoriaEnum.UPDATE);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, guardada.getId(), AccionAuditoriaEnum.UPDATE,
+                    "numero=" + guardada.getNumeroSolicitud());
+            pipelineService.registrarReasignacion(idVendedorAnterior, guardada.getIdVendedor(), guardada.getEstado());
+            cacheSolicitudes.invalidar(guardada.getNumeroSolicitud());
 
             return solicitudMapper.toDTO(guardada);
         } catch (ResourceNotFoundException e) {
@@ -268,8 +290,11 @@ public class SolicitudCreditoService {
             }
             
             // Actualizar estado
+            EstadoSolicitudEnum estadoAnterior = solicitud.getEstado();
             solicitud.setEstado(nuevoEstado);
             solicitudRepository.save(solicitud);
+            pipelineService.registrarTransicion(solicitud.getIdVendedor(), estadoAnterior, nuevoEstado);
+            cacheSolicitudes.invalidar(solicitud.getNumeroSolicitud());
             
             // Aquí debería registrarse la trazabilidad del cambio de estado
             // Esto debe ser implementado por otro grupo según lo indicado
@@ -554,8 +579,11 @@ public class SolicitudCreditoService {
             EstadoSolicitudEnum nuevoEstado = esAprobado ? 
                     EstadoSolicitudEnum.APROBADA : EstadoSolicitudEnum.RECHAZADA;
                     
+            EstadoSolicitudEnum estadoAnterior = solicitud.getEstado();
             solicitud.setEstado(nuevoEstado);
             solicitudRepository.save(solicitud);
+            pipelineService.registrarTransicion(solicitud.getIdVendedor(), estadoAnterior, nuevoEstado);
+            cacheSolicitudes.invalidar(solicitud.getNumeroSolicitud());
             
             // 6. Aquí debería registrarse la trazabilidad de la decisión
             // Esto debe ser implementado por otro grupo según lo indicado
@@ -661,9 +689,13 @@ public class SolicitudCreditoService {
             // Cambiar estado a INSTRUMENTADA
             solicitud.setEstado(EstadoSolicitudEnum.INSTRUMENTADA);
             solicitudRepository.save(solicitud);
+            pipelineService.registrarTransicion(solicitud.getIdVendedor(),
+                    EstadoSolicitudEnum.APROBADA, EstadoSolicitudEnum.INSTRUMENTADA);
+            cacheSolicitudes.invalidar(solicitud.getNumeroSolicitud());
             
             // Registrar auditoría
-            registrarAuditoria("solicitudes_creditos", AccionAuditoriaEnum.UPDATE);
+            registrarAuditoria(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, solicitud.getId(), AccionAuditoriaEnum.UPDATE,
+                    "estado=" + EstadoSolicitudEnum.APROBADA + ">" + EstadoSolicitudEnum.INSTRUMENTADA);
             
             // Notificar involucrados
             // notificarInstrumentacion(solicitud, fechaConcesion);
@@ -678,17 +710,28 @@ public class SolicitudCreditoService {
     
     /**
      * Busca solicitud por número único
+     * 
+     * Lee primero de la caché por número; no abre transacción propia para que un acierto
+     * no obtenga conexión de base de datos. Un fallo se carga en una transacción de lectura y
+     * escritura para que vaya a la primaria: leído de una réplica con retraso, el valor anterior a
+     * una escritura ya invalidada quedaría en caché todo el TTL.
      */
-    @Transactional(readOnly = true)
     public SolicitudCreditoDTO buscarPorNumero(String numeroSolicitud) {
         log.info("Buscando solicitud por número: {}", numeroSolicitud);
         
         try {
-            SolicitudCredito solicitud = solicitudRepository.findByNumeroSolicitud(numeroSolicitud)
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Solicitud no encontrada con número: " + numeroSolicitud));
+            SolicitudCreditoDTO enCache = cacheSolicitudes.obtener(numeroSolicitud);
+            if (enCache != null) {
+                return enCache;
+            }
             
-            return solicitudMapper.toDTO(solicitud);
+            long marcaLectura = cacheSolicitudes.marcaLectura(numeroSolicitud);
+            SolicitudCreditoDTO dto = transactionTemplate.execute(status -> solicitudMapper.toDTO(
+                    solicitudRepository.findByNumeroSolicitud(numeroSolicitud)
+                            .orElseThrow(() -> new ResourceNotFoundException(
+                                    "Solicitud no encontrada con número: " + numeroSolicitud))));
+            cacheSolicitudes.guardar(numeroSolicitud, dto, marcaLectura);
+            return dto;
         } catch (ResourceNotFoundException e) {
             throw e;
         } catch (Exception e) {
@@ -765,6 +808,33 @@ public class SolicitudCreditoService {
                 .toList();
     }
 
+    /**
+     * Obtiene conteos y sumas de montos agrupados por estado, vendedor, concesionario o día.
+     * La agregación se resuelve en la base de datos, por lo que solo viaja una fila por grupo.
+     */
+    @Transactional(readOnly = true)
+    public List<AgregadoSolicitudDTO> obtenerAgregados(AgrupacionSolicitudEnum agrupacion,
+                                                       LocalDateTime desde, LocalDateTime hasta) {
+        log.info("Obteniendo agregados de solicitudes por {} entre {} y {}", agrupacion, desde, hasta);
+
+        try {
+            List<AgregadoSolicitud> agregados = solicitudRepository.agruparPor(agrupacion, desde, hasta);
+            List<AgregadoSolicitudDTO> resultado = new ArrayList<>(agregados.size());
+            for (AgregadoSolicitud agregado : agregados) {
+                AgregadoSolicitudDTO dto = new AgregadoSolicitudDTO();
+                dto.setAgrupacion(agrupacion);
+                dto.setClave(String.valueOf(agregado.clave()));
+                dto.setCantidad(agregado.cantidad());
+                dto.setTotalMontoSolicitado(agregado.totalMontoSolicitado() != null ? agregado.totalMontoSolicitado() : BigDecimal.ZERO);
+                dto.setTotalPagar(agregado.totalPagar() != null ? agregado.totalPagar() : BigDecimal.ZERO);
+                resultado.add(dto);
+            }
+            return resultado;
+        } catch (Exception e) {
+            throw new RuntimeException("Error al obtener agregados de solicitudes: " + e.getMessage(), e);
+        }
+    }
+
     // === MÉTODOS AUXILIARES Y PRIVADOS ===
 
     /**
@@ -812,12 +882,9 @@ public class SolicitudCreditoService {
     /**
      * Registra auditoría de una operación
      */
-    private void registrarAuditoria(String tabla, AccionAuditoriaEnum accion) {
-        AuditoriaDTO audDto = new AuditoriaDTO();
-        audDto.setTabla(tabla);
-        audDto.setAccion(accion);
-        audDto.setFechaHora(LocalDateTime.now());
-        auditoriaService.createAuditoria(audDto);
+    private void registrarAuditoria(TipoEntidadAuditoriaEnum tipoEntidad, Integer idEntidad,
+                                    AccionAuditoriaEnum accion, String cambios) {
+        auditoriaService.registrar(tipoEntidad, idEntidad, accion, null, cambios);
     }
 
     /**
@@ -0,0 +1,316 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.exception.ContenidoInvalidoException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Validación estructural de un PDF mientras se escribe. Recibe los mismos bloques que se escriben a
+ * disco y solo retiene la cola del archivo en un búfer circular; al terminar comprueba:
+ * <ul>
+ *   <li>la cabecera %PDF-x.y al inicio,</li>
+ *   <li>el marcador %%EOF cerca del final, precedido de startxref y un desplazamiento,</li>
+ *   <li>que en ese desplazamiento haya una tabla xref o un objeto (flujo xref), con una única
+ *       lectura posicional de pocos bytes.</li>
+ * </ul>
+ * No valida el contenido de los objetos. Una instancia sirve para un solo archivo.
+ *
+ * Cuando lo escrito no se puede leer de vuelta tal cual (por ejemplo, porque se comprime), la instancia
+ * puede anotar al pasar los tramos donde empieza una línea con xref o "num gen obj"; entonces
+ * {@link #verificar()} comprueba el destino de startxref sin leer nada del archivo.
+ */
+public class ValidadorPdf {
+
+    static final int TAMANIO_COLA = 2048;
+    private static final int TAMANIO_CABECERA = 8;
+    private static final int BYTES_DESTINO_XREF = 32;
+    private static final byte[] EOF = "%%EOF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STARTXREF = "startxref".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Lectura posicional sobre el archivo ya escrito; devuelve los bytes leídos.
+     */
+    @FunctionalInterface
+    public interface LectorPosicional {
+        int leer(long posicion, byte[] destino) throws IOException;
+    }
+
+    private final byte[] cabecera = new byte[TAMANIO_CABECERA];
+    private final byte[] cola = new byte[TAMANIO_COLA];
+    private int inicioCola;
+    private long total;
+
+    private final boolean anotarDestinos;
+    private final byte[] linea = new byte[BYTES_DESTINO_XREF];
+    private int enLinea = -1;
+    private long inicioEspacios = -1;
+    private boolean trasSalto;
+    private long desdeDestino;
+    private long inicioDestino;
+    // Pares [desde, hasta]: desplazamientos válidos para startxref, en orden
+    private long[] destinos = new long[0];
+    private int enDestinos;
+
+    public ValidadorPdf() {
+        this(false);
+    }
+
+    public ValidadorPdf(boolean anotarDestinos) {
+        this.anotarDestinos = anotarDestinos;
+        if (anotarDestinos) {
+            destinos = new long[32];
+        }
+    }
+
+    /**
+     * Añade un bloque leído. Falla en cuanto la cabecera no corresponde a un PDF.
+     */
+    public void actualizar(byte[] bloque, int desde, int longitud) {
+        if (total < TAMANIO_CABECERA) {
+            int aCopiar = (int) Math.min(longitud, TAMANIO_CABECERA - total);
+            System.arraycopy(bloque, desde, cabecera, (int) total, aCopiar);
+            validarCabecera((int) total + aCopiar);
+        }
+        if (longitud >= TAMANIO_COLA) {
+            System.arraycopy(bloque, desde + longitud - TAMANIO_COLA, cola, 0, TAMANIO_COLA);
+            inicioCola = 0;
+        } else {
+            int primerTramo = Math.min(longitud, TAMANIO_COLA - inicioCola);
+            System.arraycopy(bloque, desde, cola, inicioCola, primerTramo);
+            System.arraycopy(bloque, desde + primerTramo, cola, 0, longitud - primerTramo);
+            inicioCola = (inicioCola + longitud) % TAMANIO_COLA;
+        }
+        if (anotarDestinos) {
+            anotar(bloque, desde, longitud);
+        }
+        total += longitud;
+    }
+
+    /**
+     * Comprueba la cabecera completa y el trailer. El lector se usa una vez para mirar el destino de
+     * startxref, salvo que caiga dentro de la cola retenida.
+     */
+    public void verificar(LectorPosicional lector) throws IOException {
+        long desplazamiento = desplazamientoXref();
+        byte[] destino = new byte[(int) Math.min(BYTES_DESTINO_XREF, total - desplazamiento)];
+        int leidos = leerDeLaCola(desplazamiento, destino);
+        if (leidos < 0) {
+            leidos = lector.leer(desplazamiento, destino);
+        }
+        if (!esDestinoXref(destino, Math.max(leidos, 0))) {
+            throw incompleto();
+        }
+    }
+
+    /**
+     * Como {@link #verificar(LectorPosicional)}, pero con los destinos anotados al pasar en lugar de
+     * leer el archivo. Requiere haber creado la instancia con anotarDestinos.
+     */
+    public void verificar() {
+        if (!anotarDestinos) {
+            throw new IllegalStateException("El validador no anota los destinos de startxref");
+        }
+        terminarLinea();
+        long desplazamiento = desplazamientoXref();
+        byte[] destino = new byte[(int) Math.min(BYTES_DESTINO_XREF, total - desplazamiento)];
+        int leidos = leerDeLaCola(desplazamiento, destino);
+        boolean valido = leidos < 0 ? esDestinoAnotado(desplazamiento) : esDestinoXref(destino, leidos);
+        if (!valido) {
+            throw incompleto();
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    // Comprueba cabecera y trailer y devuelve el desplazamiento que indica startxref
+    private long desplazamientoXref() {
+        if (total < TAMANIO_CABECERA) {
+            throw incompleto();
+        }
+        byte[] fin = cola();
+        int posicionEof = ultimaOcurrencia(fin, EOF, fin.length);
+        if (posicionEof < 0 || !soloEspacios(fin, posicionEof + EOF.length, fin.length)) {
+            throw incompleto();
+        }
+        int posicionStartxref = ultimaOcurrencia(fin, STARTXREF, posicionEof);
+        if (posicionStartxref < 0) {
+            throw incompleto();
+        }
+        long desplazamiento = leerDesplazamiento(fin, posicionStartxref + STARTXREF.length, posicionEof);
+        if (desplazamiento < TAMANIO_CABECERA || desplazamiento >= total) {
+            throw incompleto();
+        }
+        return desplazamiento;
+    }
+
+    // Copia el destino desde la cola retenida; -1 si empieza antes de ella
+    private int leerDeLaCola(long desplazamiento, byte[] destino) {
+        byte[] fin = cola();
+        long inicioFin = total - fin.length;
+        if (desplazamiento < inicioFin) {
+            return -1;
+        }
+        int leidos = Math.min(destino.length, fin.length - (int) (desplazamiento - inicioFin));
+        System.arraycopy(fin, (int) (desplazamiento - inicioFin), destino, 0, leidos);
+        return leidos;
+    }
+
+    // Tras un salto de línea y los espacios que lo rodean, guarda el comienzo de la línea siguiente
+    // y, al completarla, anota el tramo si es un destino de startxref
+    private void anotar(byte[] bloque, int desde, int longitud) {
+        for (int i = 0; i < longitud; i++) {
+            byte b = bloque[desde + i];
+            long posicion = total + i;
+            if (enLinea >= 0) {
+                linea[enLinea++] = b;
+                if (enLinea < linea.length && b != '\n' && b != '\r') {
+                    continue;
+                }
+                terminarLinea();
+            }
+            if (esEspacio(b)) {
+                if (inicioEspacios < 0) {
+                    inicioEspacios = posicion;
+                }
+                trasSalto |= b == '\n' || b == '\r';
+                continue;
+            }
+            if (trasSalto) {
+                desdeDestino = inicioEspacios;
+                inicioDestino = posicion;
+                linea[0] = b;
+                enLinea = 1;
+            }
+            inicioEspacios = -1;
+            trasSalto = false;
+        }
+    }
+
+    private void terminarLinea() {
+        if (enLinea > 0 && esDestinoXref(linea, enLinea)) {
+            if (enDestinos == destinos.length) {
+                destinos = Arrays.copyOf(destinos, destinos.length * 2);
+            }
+            destinos[enDestinos++] = desdeDestino;
+            destinos[enDestinos++] = inicioDestino;
+        }
+        enLinea = -1;
+    }
+
+    private boolean esDestinoAnotado(long desplazamiento) {
+        for (int i = 0; i < enDestinos; i += 2) {
+            if (destinos[i] > desplazamiento) {
+                return false;
+            }
+            if (desplazamiento <= destinos[i + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void validarCabecera(int disponibles) {
+        byte[] esperado = {'%', 'P', 'D', 'F', '-'};
+        for (int i = 0; i < disponibles; i++) {
+            boolean valido = switch (i) {
+                case 0, 1, 2, 3, 4 -> cabecera[i] == esperado[i];
+                case 5, 7 -> esDigito(cabecera[i]);
+                case 6 -> cabecera[i] == '.';
+                default -> true;
+            };
+            if (!valido) {
+                throw new ContenidoInvalidoException("Documento", "El archivo debe ser en formato PDF");
+            }
+        }
+    }
+
+    private byte[] cola() {
+        int disponibles = (int) Math.min(total, TAMANIO_COLA);
+        byte[] lineal = new byte[disponibles];
+        int inicio = (inicioCola - disponibles + TAMANIO_COLA) % TAMANIO_COLA;
+        int primerTramo = Math.min(disponibles, TAMANIO_COLA - inicio);
+        System.arraycopy(cola, inicio, lineal, 0, primerTramo);
+        System.arraycopy(cola, 0, lineal, primerTramo, disponibles - primerTramo);
+        return lineal;
+    }
+
+    // startxref, espacios, dígitos y espacios hasta %%EOF
+    private static long leerDesplazamiento(byte[] datos, int desde, int hasta) {
+        int i = desde;
+        while (i < hasta && esEspacio(datos[i])) {
+            i++;
+        }
+        int inicioDigitos = i;
+        long valor = 0;
+        while (i < hasta && esDigito(datos[i]) && i - inicioDigitos < 18) {
+            valor = valor * 10 + (datos[i] - '0');
+            i++;
+        }
+        if (i == inicioDigitos || !soloEspacios(datos, i, hasta)) {
+            return -1;
+        }
+        return valor;
+    }
+
+    // "xref" o "<num> <gen> obj" de un flujo xref, admitiendo espacios iniciales
+    private static boolean esDestinoXref(byte[] datos, int longitud) {
+        int i = 0;
+        while (i < longitud && esEspacio(datos[i])) {
+            i++;
+        }
+        if (longitud - i >= 4 && datos[i] == 'x' && datos[i + 1] == 'r' && datos[i + 2] == 'e' && datos[i + 3] == 'f') {
+            return true;
+        }
+        for (int numero = 0; numero < 2; numero++) {
+            int inicio = i;
+            while (i < longitud && esDigito(datos[i])) {
+                i++;
+            }
+            if (i == inicio || i >= longitud || !esEspacio(datos[i])) {
+                return false;
+            }
+            while (i < longitud && esEspacio(datos[i])) {
+                i++;
+            }
+        }
+        return longitud - i >= 3 && datos[i] == 'o' && datos[i + 1] == 'b' && datos[i + 2] == 'j';
+    }
+
+    private static int ultimaOcurrencia(byte[] datos, byte[] buscado, int hasta) {
+        for (int i = hasta - buscado.length; i >= 0; i--) {
+            int j = 0;
+            while (j < buscado.length && datos[i + j] == buscado[j]) {
+                j++;
+            }
+            if (j == buscado.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean soloEspacios(byte[] datos, int desde, int hasta) {
+        for (int i = desde; i < hasta; i++) {
+            if (!esEspacio(datos[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean esEspacio(byte b) {
+        return b == ' ' || b == '\r' || b == '\n' || b == '\t' || b == '\f' || b == 0;
+    }
+
+    private static boolean esDigito(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static ContenidoInvalidoException incompleto() {
+        return new ContenidoInvalidoException("Documento", "El archivo está corrupto o incompleto");
+    }
+}
@@ -1,11 +1,11 @@
 package com.banquito.originacion.service;
 
-import com.banquito.originacion.controller.dto.AuditoriaDTO;
 import com.banquito.originacion.controller.dto.IdentificadorVehiculoDTO;
 import com.banquito.originacion.controller.dto.VehiculoDTO;
 import com.banquito.originacion.controller.mapper.IdentificadorVehiculoMapper;
 import com.banquito.originacion.controller.mapper.VehiculoMapper;
 import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
 import com.banquito.originacion.enums.EstadoVehiculoEnum;
 import com.banquito.originacion.exception.CreateEntityException;
 import com.banquito.originacion.exception.DeleteEntityException;
@@ -104,11 +104,9 @@ public class VehiculoService {
             entity.setVersion(null);
             IdentificadorVehiculo saved = identificadorRepository.save(entity);
 
-            AuditoriaDTO audDto = new AuditoriaDTO();
-            audDto.setTabla("identificadores_vehiculos VIN:" + dto.getVin().substring(dto.getVin().length() - 4));
-            audDto.setAccion(AccionAuditoriaEnum.INSERT);
-            audDto.setFechaHora(java.time.LocalDateTime.now());
-            auditoriaService.createAuditoria(audDto);
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.IDENTIFICADOR_VEHICULO, saved.getId(),
+                    AccionAuditoriaEnum.INSERT, null,
+                    "placa=" + saved.getPlaca() + ";vin=" + dto.getVin().substring(dto.getVin().length() - 4));
 
             return identificadorMapper.toDTO(saved);
 
@@ -228,18 +226,9 @@ public class VehiculoService {
             entidad.setVersion(null);
             Vehiculo guardado = vehiculoRepository.save(entidad);
 
-            // Obtener la placa desde el identificador de vehículo
-            String placa = "";
-            if (dto.getIdIdentificadorVehiculo() != null) {
-                placa = identificadorRepository.findById(dto.getIdIdentificadorVehiculo())
-                        .map(identificador -> identificador.getPlaca())
-                        .orElse("");
-            }
-            AuditoriaDTO audDto = new AuditoriaDTO();
-            audDto.setTabla("vehiculos matricula:" + placa);
-            audDto.setAccion(AccionAuditoriaEnum.INSERT);
-            audDto.setFechaHora(java.time.LocalDateTime.now());
-            auditoriaService.createAuditoria(audDto);
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.VEHICULO, guardado.getId(),
+                    AccionAuditoriaEnum.INSERT, null,
+                    "idIdentificadorVehiculo=" + guardado.getIdIdentificadorVehiculo() + ";estado=" + guardado.getEstado());
 
             return vehiculoMapper.toDTO(guardado);
 
@@ -283,18 +272,10 @@ public class VehiculoService {
 
             Vehiculo actualizado = vehiculoRepository.save(existente);
 
-            // Obtener la placa desde el identificador de vehículo para update
-            String placaUpdate = "";
-            if (dto.getIdIdentificadorVehiculo() != null) {
-                placaUpdate = identificadorRepository.findById(dto.getIdIdentificadorVehiculo())
-                        .map(identificador -> identificador.getPlaca())
-                        .orElse("");
-            }
-            AuditoriaDTO audDto = new AuditoriaDTO();
-            audDto.setTabla("vehiculos matricula:" + placaUpdate);
-            audDto.setAccion(AccionAuditoriaEnum.UPDATE);
-            audDto.setFechaHora(java.time.LocalDateTime.now());
-            auditoriaService.createAuditoria(audDto);
+            auditoriaService.registrar(TipoEntidadAuditoriaEnum.VEHICULO, actualizado.getId(),
+                    AccionAuditoriaEnum.UPDATE, null,
+                    "idIdentificadorVehiculo=" + actualizado.getIdIdentificadorVehiculo()
+                            + ";valor=" + actualizado.getValor() + ";estado=" + actualizado.getEstado());
 
             return vehiculoMapper.toDTO(actualizado);
 
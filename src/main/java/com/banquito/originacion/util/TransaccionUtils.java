@@ -0,0 +1,44 @@
+package com.banquito.originacion.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public final class TransaccionUtils {
+
+    private TransaccionUtils() {
+    }
+
+    /**
+     * Ejecuta la acción cuando la transacción actual confirme. Si no hay transacción activa
+     * se ejecuta de inmediato. Si la transacción se revierte la acción se descarta.
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    /**
+     * Ejecuta la acción si la transacción actual se revierte, para deshacer efectos que quedan
+     * fuera de la base de datos. Sin transacción activa no hay nada que revertir y no se ejecuta.
+     */
+    public static void despuesDelRollback(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int estado) {
+                    if (estado == STATUS_ROLLED_BACK) {
+                        accion.run();
+                    }
+                }
+            });
+        }
+    }
+}
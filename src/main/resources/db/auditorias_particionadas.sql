@@ -0,0 +1,73 @@
+-- Convierte originacion.auditorias en una tabla particionada por mes sobre fecha_hora.
+-- Ejecutar una sola vez con la aplicación detenida. Después, MantenimientoParticionesAuditoria
+-- crea las particiones futuras y elimina las vencidas.
+--
+-- Si la tabla original aún no tiene tipo_entidad, id_entidad, actor y cambios, arrancar antes la
+-- aplicación una vez para que Hibernate las cree.
+--
+-- La clave primaria pasa a ser (id_auditoria, fecha_hora) porque PostgreSQL exige que incluya
+-- la columna de partición. El id sigue siendo único al salir de una secuencia.
+--
+-- Las filas fuera de los meses creados (fechas indicadas por el cliente o meses sin partición porque
+-- el mantenimiento no corrió) van a la partición por defecto auditorias_fuera_de_rango; el
+-- mantenimiento las mueve a su partición mensual al crearla.
+--
+-- Si la tabla ya se particionó con una versión anterior de este script, añadir la partición por
+-- defecto y admitir SELECT en accion con:
+--   CREATE TABLE originacion.auditorias_fuera_de_rango PARTITION OF originacion.auditorias DEFAULT;
+--   ALTER TABLE originacion.auditorias DROP CONSTRAINT auditorias_accion_check,
+--       ADD CONSTRAINT auditorias_accion_check CHECK (accion IN ('INSERT', 'UPDATE', 'DELETE', 'SELECT'));
+
+BEGIN;
+
+ALTER TABLE originacion.auditorias RENAME TO auditorias_sin_particion;
+
+CREATE SEQUENCE IF NOT EXISTS originacion.auditorias_id_auditoria_seq;
+SELECT setval('originacion.auditorias_id_auditoria_seq',
+              COALESCE((SELECT max(id_auditoria) FROM originacion.auditorias_sin_particion), 0) + 1, false);
+
+CREATE TABLE originacion.auditorias (
+    id_auditoria integer      NOT NULL DEFAULT nextval('originacion.auditorias_id_auditoria_seq'),
+    tabla        varchar(40)  NOT NULL,
+    accion       varchar(6)   NOT NULL
+        CONSTRAINT auditorias_accion_check CHECK (accion IN ('INSERT', 'UPDATE', 'DELETE', 'SELECT')),
+    fecha_hora   timestamp(6) NOT NULL,
+    tipo_entidad varchar(25),
+    id_entidad   integer,
+    actor        varchar(50),
+    cambios      varchar(500),
+    PRIMARY KEY (id_auditoria, fecha_hora)
+) PARTITION BY RANGE (fecha_hora);
+
+ALTER SEQUENCE originacion.auditorias_id_auditoria_seq OWNED BY originacion.auditorias.id_auditoria;
+
+CREATE INDEX idx_auditorias_accion_fecha ON originacion.auditorias (accion, fecha_hora);
+CREATE INDEX idx_auditorias_fecha ON originacion.auditorias (fecha_hora);
+CREATE INDEX idx_auditorias_entidad ON originacion.auditorias (tipo_entidad, id_entidad, fecha_hora);
+CREATE INDEX idx_auditorias_actor ON originacion.auditorias (actor, fecha_hora);
+
+-- Una partición por cada mes con datos y por los tres siguientes al actual
+DO $$
+DECLARE
+    mes date;
+    fin date := date_trunc('month', now()) + interval '3 months';
+BEGIN
+    mes := COALESCE((SELECT date_trunc('month', min(fecha_hora)) FROM originacion.auditorias_sin_particion),
+                    date_trunc('month', now()));
+    WHILE mes <= fin LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS originacion.auditorias_p%s PARTITION OF originacion.auditorias '
+                       'FOR VALUES FROM (%L) TO (%L)',
+                       to_char(mes, 'YYYYMM'), mes, mes + interval '1 month');
+        mes := mes + interval '1 month';
+    END LOOP;
+END $$;
+
+CREATE TABLE originacion.auditorias_fuera_de_rango PARTITION OF originacion.auditorias DEFAULT;
+
+INSERT INTO originacion.auditorias (id_auditoria, tabla, accion, fecha_hora, tipo_entidad, id_entidad, actor, cambios)
+SELECT id_auditoria, tabla, accion, fecha_hora, tipo_entidad, id_entidad, actor, cambios
+FROM originacion.auditorias_sin_particion;
+
+DROP TABLE originacion.auditorias_sin_particion;
+
+COMMIT;
@@ -0,0 +1,49 @@
+package com.banquito.originacion.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Requiere la primaria y la réplica de src/test/resources/docker-compose-replica.yml:
+ * ORIGINACION_REPLICA_IT=true ./mvnw test -Dtest=EnrutamientoReplicaTests
+ */
+@SpringBootTest
+@ActiveProfiles("replica")
+@EnabledIfEnvironmentVariable(named = "ORIGINACION_REPLICA_IT", matches = "true")
+class EnrutamientoReplicaTests {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MonitorRetrasoReplica monitor;
+
+	@Test
+	void lecturasVanALaReplicaYEscriturasALaPrimaria() {
+		monitor.verificar();
+		assertTrue(monitor.isReplicaDisponible());
+
+		TransactionTemplate lectura = new TransactionTemplate(transactionManager);
+		lectura.setReadOnly(true);
+		Boolean enReplica = lectura.execute(status ->
+				jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+		assertEquals(Boolean.TRUE, enReplica);
+
+		TransactionTemplate escritura = new TransactionTemplate(transactionManager);
+		Boolean enPrimaria = escritura.execute(status ->
+				jdbcTemplate.queryForObject("SELECT pg_is_in_recovery()", Boolean.class));
+		assertEquals(Boolean.FALSE, enPrimaria);
+	}
+}
@@ -0,0 +1,101 @@
+package com.banquito.originacion.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlmacenDocumentosTests {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void unNombreHexadecimal_seFragmentaPorSusPrimerosCaracteres() {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		String hash = "ab12f0e9".repeat(8);
+
+		Path ruta = almacen.resolver("blobs", hash + ".pdf");
+
+		assertEquals(directorio.resolve("blobs").resolve("ab").resolve("12").resolve(hash + ".pdf"), ruta);
+	}
+
+	@Test
+	void otroNombre_seFragmentaPorSuHashYDeFormaEstable() {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+
+		Path ruta = almacen.resolver(null, "contrato_15_20240101.pdf");
+
+		assertEquals(ruta, almacen.resolver(null, "contrato_15_20240101.pdf"));
+		assertEquals(directorio, ruta.getParent().getParent().getParent());
+		assertEquals(2, ruta.getParent().getFileName().toString().length());
+	}
+
+	@Test
+	void reubicar_llevaUnaRutaPlanaAlEsquemaFragmentadoYEsIdempotente() {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		String hash = "cd34".repeat(16);
+		Path plana = directorio.resolve("blobs").resolve(hash + ".pdf");
+
+		Path nueva = almacen.reubicar(plana);
+
+		assertEquals(almacen.resolver("blobs", hash + ".pdf"), nueva);
+		assertEquals(nueva, almacen.reubicar(nueva));
+		assertTrue(almacen.contiene(nueva));
+		assertFalse(almacen.contiene(Paths.get("otro-directorio", hash + ".pdf")));
+	}
+
+	@Test
+	void guardarPdf_loDejaEnSuSubdirectorio() throws IOException {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		byte[] pdf = PdfDePrueba.generar(4096);
+
+		AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(pdf),
+				"expediente.pdf", pdf.length);
+
+		assertEquals(almacen.resolver(null, "expediente.pdf").toString(), guardado.ruta());
+		assertTrue(Files.exists(Paths.get(guardado.ruta())));
+	}
+
+	@Test
+	void listar_recorreLasClavesEnOrdenPorTramosReanudables() throws IOException {
+		AlmacenamientoSistemaArchivos almacenamiento = new AlmacenamientoSistemaArchivos();
+		AlmacenDocumentos almacen = new AlmacenDocumentos(almacenamiento, directorio.toString());
+		List<String> esperadas = new ArrayList<>();
+		for (int i = 0; i < 40; i++) {
+			String clave = almacen.resolver(i % 2 == 0 ? "blobs" : null, "documento-" + i + ".pdf").toString();
+			almacenamiento.guardar(clave, new ByteArrayInputStream(new byte[] {(byte) i}));
+			esperadas.add(clave);
+		}
+		// Un archivo y un directorio hermanos cuyo orden cambia con el separador
+		for (String nombre : List.of("ab.pdf", "ab/cd.pdf")) {
+			String clave = directorio.resolve(nombre).toString();
+			almacenamiento.guardar(clave, new ByteArrayInputStream(new byte[] {1}));
+			esperadas.add(clave);
+		}
+		esperadas.sort(null);
+
+		List<String> recorridas = new ArrayList<>();
+		String cursor = "";
+		List<AlmacenamientoDocumentos.Objeto> tramo;
+		do {
+			tramo = almacenamiento.listar(directorio.toString(), cursor, 7);
+			tramo.forEach(objeto -> recorridas.add(objeto.clave()));
+			if (!tramo.isEmpty()) {
+				cursor = tramo.get(tramo.size() - 1).clave();
+			}
+		} while (tramo.size() == 7);
+
+		assertEquals(esperadas, recorridas);
+	}
+}
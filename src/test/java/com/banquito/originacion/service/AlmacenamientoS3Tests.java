@@ -0,0 +1,151 @@
+package com.banquito.originacion.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contra un MinIO local (docker compose up -d):
+ * ORIGINACION_S3_ENDPOINT=http://localhost:9000 ./mvnw test -Dtest=AlmacenamientoS3Tests
+ */
+@EnabledIfEnvironmentVariable(named = "ORIGINACION_S3_ENDPOINT", matches = ".+")
+class AlmacenamientoS3Tests {
+
+	private static final int PARTE = 5 * 1024 * 1024;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void unDocumentoDeVariasPartes_seLeePorRangos() throws IOException {
+		AlmacenamientoS3 s3 = nuevoAlmacenamiento();
+		String clave = prefijo() + "/varias-partes.bin";
+		byte[] datos = datos(2 * PARTE + 12345);
+
+		s3.guardar(clave, new ByteArrayInputStream(datos));
+
+		assertEquals(datos.length, s3.consultar(clave).orElseThrow().tamanioBytes());
+		assertArrayEquals(Arrays.copyOfRange(datos, PARTE - 10, PARTE + 10), leer(s3, clave, PARTE - 10, 20));
+		ByteArrayOutputStream completo = new ByteArrayOutputStream();
+		s3.transferir(clave, 0, datos.length, completo);
+		assertArrayEquals(datos, completo.toByteArray());
+		s3.eliminar(clave);
+		assertFalse(s3.existe(clave));
+	}
+
+	@Test
+	void unaEscrituraSinConfirmar_noDejaObjeto() throws IOException {
+		AlmacenamientoS3 s3 = nuevoAlmacenamiento();
+		String clave = prefijo() + "/abortada.bin";
+
+		try (AlmacenamientoDocumentos.Escritura escritura = s3.escribir(clave)) {
+			OutputStream salida = escritura.salida();
+			salida.write(datos(PARTE + 1));
+		}
+
+		assertFalse(s3.existe(clave));
+	}
+
+	@Test
+	void mover_dejaElContenidoEnLaClaveNueva() throws IOException {
+		AlmacenamientoS3 s3 = nuevoAlmacenamiento();
+		String origen = prefijo() + "/origen.bin";
+		String destino = prefijo() + "/destino.bin";
+		byte[] datos = datos(1000);
+		s3.guardar(origen, new ByteArrayInputStream(datos));
+
+		s3.mover(origen, destino);
+
+		assertFalse(s3.existe(origen));
+		assertArrayEquals(datos, leer(s3, destino, 0, datos.length));
+		s3.eliminar(destino);
+	}
+
+	@Test
+	void listar_continuaDespuesDeLaUltimaClave() throws IOException {
+		AlmacenamientoS3 s3 = nuevoAlmacenamiento();
+		String prefijo = prefijo();
+		List<String> claves = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			String clave = prefijo + "/" + i + "/documento.pdf";
+			s3.guardar(clave, new ByteArrayInputStream(datos(10)));
+			claves.add(clave);
+		}
+
+		List<AlmacenamientoDocumentos.Objeto> primero = s3.listar(prefijo, "", 3);
+		List<AlmacenamientoDocumentos.Objeto> segundo = s3.listar(prefijo, primero.get(2).clave(), 3);
+
+		assertEquals(claves.subList(0, 3), primero.stream().map(AlmacenamientoDocumentos.Objeto::clave).toList());
+		assertEquals(claves.subList(3, 5), segundo.stream().map(AlmacenamientoDocumentos.Objeto::clave).toList());
+		for (String clave : claves) {
+			s3.eliminar(clave);
+		}
+	}
+
+	@Test
+	void losPdfYLosCifrados_pasanPorElBucket() throws IOException {
+		AlmacenamientoS3 s3 = nuevoAlmacenamiento();
+		AlmacenDocumentos almacen = new AlmacenDocumentos(s3, prefijo());
+		CifradorDocumentos cifrador = new CifradorDocumentos(almacen, directorio.resolve("maestra.key").toString(),
+				64 * 1024, true);
+		byte[] pdf = PdfDePrueba.generar(3 * 1024 * 1024);
+
+		AlmacenDocumentos.ArchivoAlmacenado plano = almacen.guardarPdf(new ByteArrayInputStream(pdf), "plano.pdf",
+				pdf.length);
+		CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf),
+				pdf.length);
+
+		assertArrayEquals(pdf, leer(s3, plano.ruta(), 0, pdf.length));
+		assertEquals(pdf.length, cifrador.tamanioClaro(cifrado.ruta()));
+		ByteArrayOutputStream claro = new ByteArrayOutputStream();
+		cifrador.descifrar(cifrado.ruta(), cifrado.claveCifrada(), 100_000, 200_000, claro);
+		assertArrayEquals(Arrays.copyOfRange(pdf, 100_000, 300_000), claro.toByteArray());
+		assertThrows(RuntimeException.class,
+				() -> almacen.guardarPdf(new ByteArrayInputStream("no es un pdf".getBytes()), "texto.pdf", 1 << 20));
+		assertTrue(s3.existe(plano.ruta()));
+		almacen.eliminar(plano.ruta());
+		almacen.eliminar(cifrado.ruta());
+	}
+
+	private static AlmacenamientoS3 nuevoAlmacenamiento() {
+		return new AlmacenamientoS3(System.getenv("ORIGINACION_S3_ENDPOINT"), "us-east-1",
+				System.getenv().getOrDefault("ORIGINACION_S3_BUCKET", "originacion-documentos"),
+				System.getenv().getOrDefault("ORIGINACION_S3_ACCESS_KEY", "minioadmin"),
+				System.getenv().getOrDefault("ORIGINACION_S3_SECRET_KEY", "minioadmin"), PARTE);
+	}
+
+	private static String prefijo() {
+		return "pruebas/" + UUID.randomUUID();
+	}
+
+	private static byte[] leer(AlmacenamientoS3 s3, String clave, long inicio, int longitud) throws IOException {
+		try (InputStream entrada = s3.leer(clave, inicio, longitud)) {
+			return entrada.readAllBytes();
+		}
+	}
+
+	private static byte[] datos(int tamanio) {
+		byte[] datos = new byte[tamanio];
+		for (int i = 0; i < tamanio; i++) {
+			datos[i] = (byte) (i * 31 + (i >>> 10));
+		}
+		return datos;
+	}
+}
@@ -0,0 +1,94 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.AuditoriaDTO;
+import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.PoliticaSincronizacionAuditoriaEnum;
+import com.banquito.originacion.model.Auditoria;
+import com.banquito.originacion.repository.AuditoriaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compara la latencia de createAuditoria (INSERT síncrono) con la captura en la bitácora
+ * segmentada. Las filas insertadas se borran al terminar y la bitácora se escribe en un directorio
+ * temporal, con el tamaño de segmento y la sincronización configurados. Requiere la base de datos
+ * configurada en application.properties:
+ * ORIGINACION_BENCHMARK=true ./mvnw test -Dtest=BenchmarkCapturaAuditoriaTests
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "ORIGINACION_BENCHMARK", matches = "true")
+class BenchmarkCapturaAuditoriaTests {
+
+	private static final int ITERACIONES = 2_000;
+
+	@Autowired
+	private AuditoriaService auditoriaService;
+
+	@Autowired
+	private AuditoriaRepository auditoriaRepository;
+
+	@Value("${originacion.auditoria.segmentos.tamanio-bytes:16777216}")
+	private int tamanioSegmento;
+
+	@Value("${originacion.auditoria.segmentos.sincronizacion:PERIODICA}")
+	private PoliticaSincronizacionAuditoriaEnum politica;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void capturaSincronaFrenteABitacora() {
+		long[] sincrona = new long[ITERACIONES];
+		List<Integer> insertadas = new ArrayList<>(ITERACIONES);
+		try {
+			for (int i = 0; i < ITERACIONES; i++) {
+				AuditoriaDTO dto = new AuditoriaDTO();
+				dto.setTabla("benchmark");
+				dto.setAccion(AccionAuditoriaEnum.INSERT);
+				dto.setFechaHora(LocalDateTime.now());
+				long inicio = System.nanoTime();
+				insertadas.add(auditoriaService.createAuditoria(dto).getId());
+				sincrona[i] = System.nanoTime() - inicio;
+			}
+		} finally {
+			auditoriaRepository.deleteAllByIdInBatch(insertadas);
+		}
+
+		BitacoraSegmentosAuditoria bitacora = new BitacoraSegmentosAuditoria(directorio.toString(), tamanioSegmento,
+				politica);
+		long[] bitacoraTiempos = new long[ITERACIONES];
+		try {
+			for (int i = 0; i < ITERACIONES; i++) {
+				Auditoria auditoria = new Auditoria();
+				auditoria.setTabla("benchmark");
+				auditoria.setAccion(AccionAuditoriaEnum.INSERT);
+				auditoria.setFechaHora(LocalDateTime.now());
+				long inicio = System.nanoTime();
+				bitacora.anexar(auditoria);
+				bitacoraTiempos[i] = System.nanoTime() - inicio;
+			}
+		} finally {
+			bitacora.cerrar();
+		}
+
+		imprimir("createAuditoria", sincrona);
+		imprimir("bitácora segmentada", bitacoraTiempos);
+	}
+
+	private static void imprimir(String nombre, long[] tiempos) {
+		Arrays.sort(tiempos);
+		System.out.printf("%s: p50=%d µs, p99=%d µs, max=%d µs%n", nombre,
+				tiempos[tiempos.length / 2] / 1_000, tiempos[tiempos.length * 99 / 100] / 1_000,
+				tiempos[tiempos.length - 1] / 1_000);
+	}
+}
@@ -0,0 +1,73 @@
+package com.banquito.originacion.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Rendimiento por núcleo (un solo hilo) de guardar y leer un PDF en claro frente a cifrado con
+ * AES-GCM por segmentos:
+ * ORIGINACION_BENCHMARK=true ./mvnw test -Dtest=BenchmarkCifradoDocumentosTests
+ */
+@EnabledIfEnvironmentVariable(named = "ORIGINACION_BENCHMARK", matches = "true")
+class BenchmarkCifradoDocumentosTests {
+
+	private static final int TAMANIO = 8 * 1024 * 1024;
+	private static final int CALENTAMIENTO = 5;
+	private static final int ITERACIONES = 20;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void rendimientoEnClaroFrenteACifrado() throws IOException {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		CifradorDocumentos cifrador = new CifradorDocumentos(almacen, directorio.resolve("maestra.key").toString(), 64 * 1024, true);
+		byte[] pdf = PdfDePrueba.generar(TAMANIO);
+		OutputStream descarte = OutputStream.nullOutputStream();
+
+		long[] claro = new long[2];
+		long[] cifrado = new long[2];
+		for (int i = 0; i < CALENTAMIENTO + ITERACIONES; i++) {
+			boolean medir = i >= CALENTAMIENTO;
+
+			long inicio = System.nanoTime();
+			AlmacenDocumentos.ArchivoAlmacenado plano = almacen.guardarPdf(new ByteArrayInputStream(pdf),
+					UUID.randomUUID() + ".pdf", pdf.length);
+			long escrito = System.nanoTime();
+			almacen.transferir(plano.ruta(), 0, plano.tamanioBytes(), descarte);
+			long leido = System.nanoTime();
+			if (medir) {
+				claro[0] += escrito - inicio;
+				claro[1] += leido - escrito;
+			}
+			almacen.eliminar(plano.ruta());
+
+			inicio = System.nanoTime();
+			CifradorDocumentos.DocumentoCifrado documento = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf), pdf.length);
+			escrito = System.nanoTime();
+			cifrador.descifrar(documento.ruta(), documento.claveCifrada(), 0, documento.tamanioBytes(), descarte);
+			leido = System.nanoTime();
+			if (medir) {
+				cifrado[0] += escrito - inicio;
+				cifrado[1] += leido - escrito;
+			}
+			almacen.eliminar(documento.ruta());
+		}
+
+		imprimir("en claro", claro);
+		imprimir("AES-GCM", cifrado);
+	}
+
+	private static void imprimir(String nombre, long[] nanos) {
+		double megas = (double) TAMANIO * ITERACIONES / (1024 * 1024);
+		System.out.printf("%s: carga %.0f MB/s, descarga %.0f MB/s por núcleo%n", nombre,
+				megas / (nanos[0] / 1e9), megas / (nanos[1] / 1e9));
+	}
+}
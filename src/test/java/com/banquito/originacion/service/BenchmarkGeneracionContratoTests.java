@@ -0,0 +1,59 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.ResultadoCargaDocumentoDTO;
+import com.banquito.originacion.enums.EstadoCargaDocumentoEnum;
+import com.banquito.originacion.model.SolicitudCredito;
+import com.banquito.originacion.repository.SolicitudCreditoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Mide generarContrato completo (render, escritura, reclamo de blobs e inserción en lote) sobre una
+ * solicitud APROBADA existente; los documentos generados se eliminan al terminar. Requiere la base de
+ * datos configurada en application.properties:
+ * ORIGINACION_BENCHMARK=true ORIGINACION_BENCHMARK_SOLICITUD=<id> ./mvnw test -Dtest=BenchmarkGeneracionContratoTests
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "ORIGINACION_BENCHMARK", matches = "true")
+class BenchmarkGeneracionContratoTests {
+
+	// Cota holgada: en una máquina de desarrollo 72 cuotas tardan bastante menos de un segundo
+	private static final long MAXIMO_MILISEGUNDOS = 5_000;
+
+	@Autowired
+	private DocumentacionService documentacionService;
+
+	@Autowired
+	private SolicitudCreditoRepository solicitudRepository;
+
+	@Test
+	void generarContrato_terminaDentroDeLaCota() {
+		String id = System.getenv("ORIGINACION_BENCHMARK_SOLICITUD");
+		assumeTrue(id != null && id.matches("\\d+"), "ORIGINACION_BENCHMARK_SOLICITUD no indica una solicitud");
+		SolicitudCredito solicitud = solicitudRepository.findById(Integer.valueOf(id)).orElseThrow();
+
+		long inicio = System.nanoTime();
+		List<ResultadoCargaDocumentoDTO> resultados = documentacionService.generarContrato(solicitud.getId());
+		long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+
+		try {
+			assertEquals(solicitud.getPlazoMeses() + 1, resultados.size());
+			assertTrue(resultados.stream().allMatch(r -> r.getEstado() == EstadoCargaDocumentoEnum.REGISTRADO));
+			assertTrue(milisegundos < MAXIMO_MILISEGUNDOS,
+					"contrato y " + solicitud.getPlazoMeses() + " pagarés en " + milisegundos + " ms");
+		} finally {
+			resultados.stream()
+					.map(ResultadoCargaDocumentoDTO::getIdDocumento)
+					.filter(idDocumento -> idDocumento != null)
+					.forEach(documentacionService::eliminarDocumento);
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package com.banquito.originacion.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+/**
+ * Rendimiento del validador estructural de PDF por sí solo y dentro de la escritura en streaming:
+ * ORIGINACION_BENCHMARK=true ./mvnw test -Dtest=BenchmarkValidadorPdfTests
+ */
+@EnabledIfEnvironmentVariable(named = "ORIGINACION_BENCHMARK", matches = "true")
+class BenchmarkValidadorPdfTests {
+
+	private static final int TAMANIO = 8 * 1024 * 1024;
+	private static final int BLOQUE = 64 * 1024;
+	private static final int CALENTAMIENTO = 5;
+	private static final int ITERACIONES = 20;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void rendimientoDelValidador() throws IOException {
+		byte[] pdf = PdfDePrueba.generar(TAMANIO);
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+
+		long soloValidador = 0;
+		long escritura = 0;
+		for (int i = 0; i < CALENTAMIENTO + ITERACIONES; i++) {
+			long inicio = System.nanoTime();
+			ValidadorPdf validador = new ValidadorPdf();
+			for (int desde = 0; desde < pdf.length; desde += BLOQUE) {
+				validador.actualizar(pdf, desde, Math.min(BLOQUE, pdf.length - desde));
+			}
+			validador.verificar((posicion, destino) -> {
+				System.arraycopy(pdf, (int) posicion, destino, 0, destino.length);
+				return destino.length;
+			});
+			long validado = System.nanoTime();
+			AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(pdf),
+					UUID.randomUUID() + ".pdf", pdf.length);
+			long escrito = System.nanoTime();
+			almacen.eliminar(guardado.ruta());
+			if (i >= CALENTAMIENTO) {
+				soloValidador += validado - inicio;
+				escritura += escrito - validado;
+			}
+		}
+
+		double megas = (double) pdf.length * ITERACIONES / (1024 * 1024);
+		System.out.printf("validador: %.0f MB/s; escritura con SHA-256 y validación: %.0f MB/s%n",
+				megas / (soloValidador / 1e9), megas / (escritura / 1e9));
+	}
+}
@@ -0,0 +1,189 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.enums.AccionAuditoriaEnum;
+import com.banquito.originacion.enums.PoliticaSincronizacionAuditoriaEnum;
+import com.banquito.originacion.enums.TipoEntidadAuditoriaEnum;
+import com.banquito.originacion.model.Auditoria;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BitacoraSegmentosAuditoriaTests {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void losRegistrosSellados_seLeenIgualQueSeEscribieron() throws IOException {
+		BitacoraSegmentosAuditoria bitacora = nuevaBitacora(1 << 20, PoliticaSincronizacionAuditoriaEnum.NUNCA);
+		Auditoria original = auditoria(7);
+		original.setCambios("estado=BORRADOR>EN_REVISION;nota=\"ñandú\"");
+		bitacora.anexar(original);
+		bitacora.anexar(sinEntidad());
+		bitacora.sellarActivo();
+
+		List<Path> segmentos = bitacora.segmentosSellados();
+		assertEquals(1, segmentos.size());
+		List<Auditoria> leidas = bitacora.leer(segmentos.get(0));
+		assertEquals(2, leidas.size());
+		assertEquals(original.getTabla(), leidas.get(0).getTabla());
+		assertEquals(original.getFechaHora(), leidas.get(0).getFechaHora());
+		assertEquals(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO, leidas.get(0).getTipoEntidad());
+		assertEquals(7, leidas.get(0).getIdEntidad());
+		assertEquals(original.getCambios(), leidas.get(0).getCambios());
+		assertNull(leidas.get(1).getTipoEntidad());
+		assertNull(leidas.get(1).getIdEntidad());
+		assertNull(leidas.get(1).getActor());
+	}
+
+	@Test
+	void alLlenarseElSegmento_seAbreOtro() throws IOException {
+		BitacoraSegmentosAuditoria bitacora = nuevaBitacora(4096, PoliticaSincronizacionAuditoriaEnum.NUNCA);
+		for (int i = 0; i < 200; i++) {
+			bitacora.anexar(auditoria(i));
+		}
+		bitacora.sellarActivo();
+
+		List<Path> segmentos = bitacora.segmentosSellados();
+		assertTrue(segmentos.size() > 1);
+		int total = 0;
+		for (Path segmento : segmentos) {
+			total += bitacora.leer(segmento).size();
+		}
+		assertEquals(200, total);
+	}
+
+	@Test
+	void trasUnaCaida_seRecuperanLosRegistrosValidosDelSegmentoAbierto() throws IOException {
+		BitacoraSegmentosAuditoria bitacora = nuevaBitacora(1 << 20, PoliticaSincronizacionAuditoriaEnum.SIEMPRE);
+		for (int i = 0; i < 10; i++) {
+			bitacora.anexar(auditoria(i));
+		}
+		// Sin sellar: simula una caída y corrompe el último registro
+		Path abierto;
+		try (var rutas = Files.list(directorio)) {
+			abierto = rutas.filter(ruta -> ruta.toString().endsWith(".abierto")).findFirst().orElseThrow();
+		}
+		List<Auditoria> antes = bitacora.leer(abierto);
+		long finPenultimo = 8;
+		for (int i = 0; i < 9; i++) {
+			finPenultimo += tamanioRegistro(abierto, finPenultimo);
+		}
+		try (FileChannel canal = FileChannel.open(abierto, StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.wrap(new byte[] {1, 2, 3}), finPenultimo + 12);
+		}
+
+		BitacoraSegmentosAuditoria reiniciada = nuevaBitacora(1 << 20, PoliticaSincronizacionAuditoriaEnum.SIEMPRE);
+		List<Path> segmentos = reiniciada.segmentosSellados();
+		assertEquals(10, antes.size());
+		assertEquals(1, segmentos.size());
+		assertEquals(9, reiniciada.leer(segmentos.get(0)).size());
+
+		reiniciada.anexar(auditoria(99));
+		reiniciada.sellarActivo();
+		assertEquals(2, reiniciada.segmentosSellados().size());
+	}
+
+	@Test
+	void trasCargarYBorrarLosSegmentos_unReinicioNoRepiteNombres() throws IOException {
+		BitacoraSegmentosAuditoria bitacora = nuevaBitacora(1 << 20, PoliticaSincronizacionAuditoriaEnum.NUNCA);
+		bitacora.anexar(auditoria(1));
+		bitacora.sellarActivo();
+		bitacora.anexar(auditoria(2));
+		bitacora.sellarActivo();
+		Set<String> cargados = new HashSet<>();
+		for (Path segmento : bitacora.segmentosSellados()) {
+			cargados.add(segmento.getFileName().toString());
+			Files.delete(segmento);
+		}
+
+		BitacoraSegmentosAuditoria reiniciada = nuevaBitacora(1 << 20, PoliticaSincronizacionAuditoriaEnum.NUNCA);
+		reiniciada.anexar(auditoria(3));
+		reiniciada.sellarActivo();
+
+		List<Path> segmentos = reiniciada.segmentosSellados();
+		assertEquals(2, cargados.size());
+		assertEquals(1, segmentos.size());
+		assertFalse(cargados.contains(segmentos.get(0).getFileName().toString()));
+	}
+
+	/**
+	 * Mide la latencia de captura con cada política de sincronización. La comparación con
+	 * createAuditoria contra PostgreSQL está en BenchmarkCapturaAuditoriaTests.
+	 * ORIGINACION_BENCHMARK=true ./mvnw test -Dtest=BitacoraSegmentosAuditoriaTests#latenciaDeCaptura
+	 */
+	@Test
+	@EnabledIfEnvironmentVariable(named = "ORIGINACION_BENCHMARK", matches = "true")
+	void latenciaDeCaptura() throws IOException {
+		for (PoliticaSincronizacionAuditoriaEnum politica : PoliticaSincronizacionAuditoriaEnum.values()) {
+			Path subdirectorio = Files.createDirectories(directorio.resolve(politica.name()));
+			BitacoraSegmentosAuditoria bitacora = new BitacoraSegmentosAuditoria(
+					subdirectorio.toString(), 16 << 20, politica);
+			bitacora.recuperar();
+			int iteraciones = politica == PoliticaSincronizacionAuditoriaEnum.SIEMPRE ? 2_000 : 50_000;
+			long[] tiempos = new long[iteraciones];
+			for (int i = 0; i < iteraciones; i++) {
+				Auditoria auditoria = auditoria(i);
+				long inicio = System.nanoTime();
+				bitacora.anexar(auditoria);
+				tiempos[i] = System.nanoTime() - inicio;
+			}
+			bitacora.sellarActivo();
+			Arrays.sort(tiempos);
+			System.out.printf("Bitácora %s: p50=%d ns, p99=%d ns, max=%d ns (%d registros)%n", politica,
+					tiempos[iteraciones / 2], tiempos[iteraciones * 99 / 100], tiempos[iteraciones - 1], iteraciones);
+		}
+	}
+
+	private BitacoraSegmentosAuditoria nuevaBitacora(int tamanio, PoliticaSincronizacionAuditoriaEnum politica)
+			throws IOException {
+		BitacoraSegmentosAuditoria bitacora = new BitacoraSegmentosAuditoria(directorio.toString(), tamanio, politica);
+		bitacora.recuperar();
+		return bitacora;
+	}
+
+	private static int tamanioRegistro(Path segmento, long posicion) throws IOException {
+		try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.READ)) {
+			ByteBuffer longitud = ByteBuffer.allocate(4);
+			canal.read(longitud, posicion);
+			return 8 + longitud.flip().getInt();
+		}
+	}
+
+	private static Auditoria auditoria(int idEntidad) {
+		Auditoria auditoria = new Auditoria();
+		auditoria.setTabla(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO.getValor());
+		auditoria.setAccion(AccionAuditoriaEnum.UPDATE);
+		auditoria.setFechaHora(LocalDateTime.of(2025, 3, 14, 10, 30, 15, 123_456_789));
+		auditoria.setTipoEntidad(TipoEntidadAuditoriaEnum.SOLICITUD_CREDITO);
+		auditoria.setIdEntidad(idEntidad);
+		auditoria.setActor("analista");
+		auditoria.setCambios("estado=EN_REVISION>APROBADA");
+		return auditoria;
+	}
+
+	private static Auditoria sinEntidad() {
+		Auditoria auditoria = new Auditoria();
+		auditoria.setTabla("clientes_prospectos");
+		auditoria.setAccion(AccionAuditoriaEnum.INSERT);
+		auditoria.setFechaHora(LocalDateTime.now());
+		return auditoria;
+	}
+}
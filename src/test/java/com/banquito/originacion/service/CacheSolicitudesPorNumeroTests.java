@@ -0,0 +1,85 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.controller.dto.SolicitudCreditoDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CacheSolicitudesPorNumeroTests {
+
+	@Test
+	void unaLecturaAnteriorALaInvalidacion_noSeGuarda() {
+		CacheSolicitudesPorNumero cache = new CacheSolicitudesPorNumero(100, 60_000);
+		long marca = cache.marcaLectura("SOL-1");
+
+		cache.invalidar("SOL-1");
+		cache.guardar("SOL-1", solicitud(1), marca);
+
+		assertNull(cache.obtener("SOL-1"));
+	}
+
+	@Test
+	void invalidarOtroNumero_noDescartaLaCargaEnCurso() {
+		CacheSolicitudesPorNumero cache = new CacheSolicitudesPorNumero(100, 60_000);
+		long marca = cache.marcaLectura("SOL-1");
+
+		cache.invalidar("SOL-2");
+		cache.guardar("SOL-1", solicitud(1), marca);
+
+		assertEquals(1L, cache.obtener("SOL-1").getVersion());
+	}
+
+	@Test
+	void conEscriturasYLecturasConcurrentes_noQuedaUnValorAnteriorALaUltimaEscritura() throws Exception {
+		CacheSolicitudesPorNumero cache = new CacheSolicitudesPorNumero(100, 60_000);
+		AtomicLong enBaseDeDatos = new AtomicLong();
+		AtomicBoolean escribiendo = new AtomicBoolean(true);
+
+		try (ExecutorService executor = Executors.newFixedThreadPool(5)) {
+			List<Future<?>> lectores = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				lectores.add(executor.submit(() -> {
+					while (escribiendo.get()) {
+						if (cache.obtener("SOL-1") == null) {
+							long marca = cache.marcaLectura("SOL-1");
+							SolicitudCreditoDTO leida = solicitud(enBaseDeDatos.get());
+							Thread.yield();
+							cache.guardar("SOL-1", leida, marca);
+						}
+					}
+				}));
+			}
+			executor.submit(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					enBaseDeDatos.incrementAndGet();
+					cache.invalidar("SOL-1");
+				}
+				escribiendo.set(false);
+			}).get();
+			for (Future<?> lector : lectores) {
+				lector.get();
+			}
+		}
+
+		SolicitudCreditoDTO enCache = cache.obtener("SOL-1");
+		assertTrue(enCache == null || enCache.getVersion() == enBaseDeDatos.get(),
+				"quedó la versión " + (enCache != null ? enCache.getVersion() : null) + " de " + enBaseDeDatos.get());
+	}
+
+	private static SolicitudCreditoDTO solicitud(long version) {
+		SolicitudCreditoDTO solicitud = new SolicitudCreditoDTO();
+		solicitud.setNumeroSolicitud("SOL-1");
+		solicitud.setVersion(version);
+		return solicitud;
+	}
+}
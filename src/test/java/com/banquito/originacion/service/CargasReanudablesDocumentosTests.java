@@ -0,0 +1,100 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.exception.CreateEntityException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CargasReanudablesDocumentosTests {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void losTramosEnOrden_reconstruyenElDocumento() throws IOException {
+		byte[] documento = datos(300_000);
+		Path temporal = directorio.resolve("carga-1.part");
+
+		long recibidos = 0;
+		for (int desde = 0; desde < documento.length; desde += 70_000) {
+			int hasta = Math.min(desde + 70_000, documento.length);
+			recibidos = CargasReanudablesDocumentos.escribirTramo(temporal, recibidos, documento.length,
+					new ByteArrayInputStream(documento, desde, hasta - desde));
+		}
+
+		assertEquals(documento.length, recibidos);
+		assertArrayEquals(documento, Files.readAllBytes(temporal));
+	}
+
+	@Test
+	void unTramoInterrumpido_conservaLoRecibidoYSeReanudaDesdeAhi() throws IOException {
+		byte[] documento = datos(200_000);
+		Path temporal = directorio.resolve("carga-2.part");
+
+		long recibidos = CargasReanudablesDocumentos.escribirTramo(temporal, 0, documento.length,
+				new ConexionCortada(documento, 150_000));
+		assertEquals(150_000, recibidos);
+
+		recibidos = CargasReanudablesDocumentos.escribirTramo(temporal, recibidos, documento.length,
+				new ByteArrayInputStream(documento, (int) recibidos, documento.length - (int) recibidos));
+
+		assertEquals(documento.length, recibidos);
+		assertArrayEquals(documento, Files.readAllBytes(temporal));
+	}
+
+	@Test
+	void unTramoQueExcedeElTamanioDeclarado_seRechaza() {
+		byte[] documento = datos(1000);
+		Path temporal = directorio.resolve("carga-3.part");
+
+		assertThrows(CreateEntityException.class, () -> CargasReanudablesDocumentos.escribirTramo(temporal, 0, 999,
+				new ByteArrayInputStream(documento)));
+	}
+
+	private static byte[] datos(int tamanio) {
+		byte[] datos = new byte[tamanio];
+		new Random(tamanio).nextBytes(datos);
+		return datos;
+	}
+
+	/**
+	 * Entrega los primeros bytes del documento y luego falla como un cliente que pierde la conexión.
+	 */
+	private static final class ConexionCortada extends InputStream {
+
+		private final InputStream entrada;
+
+		ConexionCortada(byte[] documento, int hasta) {
+			this.entrada = new ByteArrayInputStream(Arrays.copyOf(documento, hasta));
+		}
+
+		@Override
+		public int read() throws IOException {
+			int leido = entrada.read();
+			if (leido == -1) {
+				throw new IOException("Conexión cortada");
+			}
+			return leido;
+		}
+
+		@Override
+		public int read(byte[] destino, int desde, int longitud) throws IOException {
+			int leidos = entrada.read(destino, desde, longitud);
+			if (leidos == -1) {
+				throw new IOException("Conexión cortada");
+			}
+			return leidos;
+		}
+	}
+}
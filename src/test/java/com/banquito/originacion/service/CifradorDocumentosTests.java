@@ -0,0 +1,156 @@
+package com.banquito.originacion.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CifradorDocumentosTests {
+
+	private static final int SEGMENTO = 1024;
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void elContenidoCifrado_seDescifraIgual() throws Exception {
+		CifradorDocumentos cifrador = nuevoCifrador();
+		byte[] pdf = pdf(5 * SEGMENTO + 321);
+
+		CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf), 1 << 20);
+
+		assertEquals(pdf.length, cifrado.tamanioBytes());
+		assertEquals(sha256(pdf), cifrado.hashSha256());
+		assertEquals(pdf.length, cifrador.tamanioClaro(cifrado.ruta()));
+		assertFalse(contiene(Files.readAllBytes(Paths.get(cifrado.ruta())), Arrays.copyOfRange(pdf, 100, 132)));
+		assertArrayEquals(pdf, descifrar(cifrador, cifrado, 0, pdf.length));
+	}
+
+	@Test
+	void conTamanioMultiploDelSegmento_elUltimoSegmentoEsCompleto() throws Exception {
+		CifradorDocumentos cifrador = nuevoCifrador();
+		byte[] pdf = pdf(3 * SEGMENTO);
+
+		CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf), 1 << 20);
+
+		assertEquals(pdf.length, cifrador.tamanioClaro(cifrado.ruta()));
+		assertArrayEquals(pdf, descifrar(cifrador, cifrado, 0, pdf.length));
+	}
+
+	@Test
+	void unRango_soloDevuelveEsosBytes() throws Exception {
+		CifradorDocumentos cifrador = nuevoCifrador();
+		byte[] pdf = pdf(4 * SEGMENTO + 10);
+		CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf), 1 << 20);
+
+		assertArrayEquals(Arrays.copyOfRange(pdf, 1000, 2100), descifrar(cifrador, cifrado, 1000, 1100));
+		assertArrayEquals(Arrays.copyOfRange(pdf, pdf.length - 5, pdf.length),
+				descifrar(cifrador, cifrado, pdf.length - 5, 5));
+	}
+
+	@Test
+	void unSegmentoAlterado_noSuperaLaAutenticacion() throws Exception {
+		CifradorDocumentos cifrador = nuevoCifrador();
+		byte[] pdf = pdf(2 * SEGMENTO + 50);
+		CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf), 1 << 20);
+
+		try (FileChannel canal = FileChannel.open(Paths.get(cifrado.ruta()), StandardOpenOption.WRITE)) {
+			canal.write(ByteBuffer.wrap(new byte[] {0x55}), 16 + SEGMENTO + 16 + 7);
+		}
+
+		assertThrows(IOException.class, () -> descifrar(cifrador, cifrado, 0, pdf.length));
+	}
+
+	@Test
+	void unArchivoTruncado_noSuperaLaAutenticacion() throws Exception {
+		CifradorDocumentos cifrador = nuevoCifrador();
+		byte[] pdf = pdf(3 * SEGMENTO + 50);
+		CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf), 1 << 20);
+
+		// Quitar el último segmento deja un archivo que termina justo en un segmento no marcado como último
+		try (FileChannel canal = FileChannel.open(Paths.get(cifrado.ruta()), StandardOpenOption.WRITE)) {
+			canal.truncate(16 + 3L * (SEGMENTO + 16));
+		}
+
+		assertThrows(IOException.class, () -> descifrar(cifrador, cifrado, 0, pdf.length));
+	}
+
+	@Test
+	void otraClaveMaestra_noPuedeDescifrar() throws Exception {
+		CifradorDocumentos cifrador = nuevoCifrador();
+		byte[] pdf = pdf(SEGMENTO);
+		CifradorDocumentos.DocumentoCifrado cifrado = cifrador.guardarPdfCifrado(new ByteArrayInputStream(pdf), 1 << 20);
+
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		CifradorDocumentos otro = new CifradorDocumentos(almacen, directorio.resolve("otra.key").toString(), SEGMENTO, true);
+
+		assertThrows(IOException.class, () -> descifrar(otro, cifrado, 0, pdf.length));
+	}
+
+	@Test
+	void sinArchivoDeClaveMaestra_noArrancaSalvoQueSePidaGenerarla() {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		String archivo = directorio.resolve("inexistente.key").toString();
+
+		assertThrows(IllegalStateException.class, () -> new CifradorDocumentos(almacen, archivo, SEGMENTO, false));
+		assertFalse(Files.exists(Path.of(archivo)));
+	}
+
+	@Test
+	void unArchivoQueNoEsPdf_seRechazaSinDejarArchivos() throws Exception {
+		CifradorDocumentos cifrador = nuevoCifrador();
+		byte[] texto = "no es un pdf".getBytes();
+
+		assertThrows(RuntimeException.class,
+				() -> cifrador.guardarPdfCifrado(new ByteArrayInputStream(texto), 1 << 20));
+		try (var archivos = Files.walk(directorio.resolve("cifrados"))) {
+			assertEquals(0, archivos.filter(Files::isRegularFile).count());
+		}
+	}
+
+	private CifradorDocumentos nuevoCifrador() {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		return new CifradorDocumentos(almacen, directorio.resolve("maestra.key").toString(), SEGMENTO, true);
+	}
+
+	private static byte[] descifrar(CifradorDocumentos cifrador, CifradorDocumentos.DocumentoCifrado cifrado,
+			long inicio, long longitud) throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		cifrador.descifrar(cifrado.ruta(), cifrado.claveCifrada(), inicio, longitud, salida);
+		return salida.toByteArray();
+	}
+
+	static byte[] pdf(int tamanio) {
+		return PdfDePrueba.generar(tamanio);
+	}
+
+	private static boolean contiene(byte[] datos, byte[] buscado) {
+		for (int i = 0; i + buscado.length <= datos.length; i++) {
+			if (Arrays.equals(datos, i, i + buscado.length, buscado, 0, buscado.length)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String sha256(byte[] datos) throws NoSuchAlgorithmException {
+		return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(datos));
+	}
+}
@@ -0,0 +1,130 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.config.CompresionDocumentosProperties;
+import com.banquito.originacion.exception.CreateEntityException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompresorDocumentosTests {
+
+	@TempDir
+	Path directorio;
+
+	private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void unPdfDeTexto_seGuardaComprimidoYSeLeeIgual() throws IOException {
+		AlmacenDocumentos almacen = almacen();
+		byte[] pdf = pdfDeTexto();
+
+		AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(pdf), "texto.pdf",
+				1 << 20, "Contrato");
+
+		assertEquals(pdf.length, guardado.tamanioBytes());
+		assertTrue(almacen.comprimido(guardado.ruta()));
+		assertTrue(Files.size(Path.of(guardado.ruta())) < pdf.length / 2);
+		assertArrayEquals(pdf, transferir(almacen, guardado.ruta(), 0, Long.MAX_VALUE));
+		assertArrayEquals(Arrays.copyOfRange(pdf, 5000, 5100), transferir(almacen, guardado.ruta(), 5000, 100));
+		try (InputStream entrada = almacen.abrir(guardado.ruta())) {
+			assertArrayEquals(pdf, entrada.readAllBytes());
+		}
+		assertEquals(1.0, meterRegistry.get("originacion.documentos.compresion.documentos")
+				.tags("tipo", "Contrato", "resultado", "comprimido").counter().count());
+		assertTrue(meterRegistry.get("originacion.documentos.compresion.ratio").tag("tipo", "Contrato")
+				.summary().max() < 0.5);
+	}
+
+	@Test
+	void unPdfIncompresible_seGuardaTalCual() throws IOException {
+		AlmacenDocumentos almacen = almacen();
+		byte[] pdf = PdfDePrueba.generar(100_000);
+
+		AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(pdf), "escaneo.pdf",
+				1 << 20, "Cédula");
+
+		assertFalse(almacen.comprimido(guardado.ruta()));
+		assertArrayEquals(pdf, Files.readAllBytes(Path.of(guardado.ruta())));
+		assertArrayEquals(Arrays.copyOfRange(pdf, 10, 20), transferir(almacen, guardado.ruta(), 10, 10));
+		assertEquals(1.0, meterRegistry.get("originacion.documentos.compresion.documentos")
+				.tags("tipo", "Cédula", "resultado", "sin-comprimir").counter().count());
+	}
+
+	@Test
+	void unTipoConNivelCero_noSeComprimeNiSeMide() throws IOException {
+		AlmacenDocumentos almacen = almacen();
+		byte[] pdf = pdfDeTexto();
+
+		AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(pdf), "sin.pdf",
+				1 << 20, "Foto");
+
+		assertFalse(almacen.comprimido(guardado.ruta()));
+		assertArrayEquals(pdf, Files.readAllBytes(Path.of(guardado.ruta())));
+		assertNull(meterRegistry.find("originacion.documentos.compresion.documentos").tag("tipo", "Foto").counter());
+	}
+
+	@Test
+	void elTrailerDeUnPdfComprimido_seValidaAntesDeConfirmar() throws IOException {
+		AlmacenDocumentos almacen = almacen();
+		byte[] pdf = ValidadorPdfTests.conRelleno(pdfDeTexto());
+		String texto = new String(pdf, StandardCharsets.ISO_8859_1);
+		int finDesplazamiento = texto.lastIndexOf("\n%%EOF");
+		byte[] erroneo = (texto.substring(0, texto.lastIndexOf('\n', finDesplazamiento - 1) + 1) + "20"
+				+ texto.substring(finDesplazamiento)).getBytes(StandardCharsets.ISO_8859_1);
+
+		AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(pdf), "valido.pdf",
+				1 << 20, "Contrato");
+		assertTrue(almacen.comprimido(guardado.ruta()));
+		assertArrayEquals(pdf, transferir(almacen, guardado.ruta(), 0, Long.MAX_VALUE));
+		Files.delete(Path.of(guardado.ruta()));
+
+		assertThrows(CreateEntityException.class, () -> almacen.guardarPdf(new ByteArrayInputStream(erroneo),
+				"erroneo.pdf", 1 << 20, "Contrato"));
+		try (Stream<Path> archivos = Files.walk(directorio)) {
+			assertEquals(0, archivos.filter(Files::isRegularFile).count());
+		}
+	}
+
+	private AlmacenDocumentos almacen() {
+		CompresionDocumentosProperties properties = new CompresionDocumentosProperties();
+		properties.setHabilitada(true);
+		properties.setNiveles(Map.of("Contrato", 6, "Cédula", 1, "Foto", 0));
+		properties.setMuestraBytes(4096);
+		return new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString(),
+				new CompresorDocumentos(properties, meterRegistry));
+	}
+
+	private static byte[] pdfDeTexto() {
+		StringBuilder texto = new StringBuilder("# Contrato de prueba\n");
+		for (int i = 0; i < 400; i++) {
+			texto.append("Cláusula ").append(i).append(": el deudor se obliga a pagar {{cuota}} cada mes.\n");
+		}
+		return PlantillaPdf.compilar(texto.toString()).renderizar(Map.of("cuota", "USD 390,12"));
+	}
+
+	private static byte[] transferir(AlmacenDocumentos almacen, String ruta, long inicio, long longitud)
+			throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		almacen.transferir(ruta, inicio, longitud, salida);
+		return salida.toByteArray();
+	}
+}
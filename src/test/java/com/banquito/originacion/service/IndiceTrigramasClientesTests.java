@@ -0,0 +1,112 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.enums.CampoBusquedaClienteEnum;
+import com.banquito.originacion.model.ClienteProspecto;
+import com.banquito.originacion.repository.ClienteProspectoRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IndiceTrigramasClientesTests {
+
+	@Test
+	void laNormalizacion_ignoraTildesMayusculasYSignos() {
+		assertEquals("jose perez nunez", IndiceTrigramasClientes.normalizar("  José PÉREZ-Ñúñez. "));
+		assertEquals("", IndiceTrigramasClientes.normalizar(null));
+	}
+
+	@Test
+	void laCoincidenciaExacta_quedaPrimeraYLasAjenasNoAparecen() {
+		IndiceTrigramasClientes indice = new IndiceTrigramasClientes(null, 0.5);
+		indice.indexar(cliente(1, "Josefina", "Perezosa"));
+		indice.indexar(cliente(2, "José", "Pérez"));
+		indice.indexar(cliente(3, "María", "López"));
+
+		List<Integer> ids = ids(indice.buscar(CampoBusquedaClienteEnum.NOMBRE, "jose perez"));
+
+		assertEquals(List.of(2, 1), ids);
+	}
+
+	@Test
+	void bajoElUmbralDeCobertura_noHayCoincidencia() {
+		IndiceTrigramasClientes estricto = new IndiceTrigramasClientes(null, 0.5);
+		IndiceTrigramasClientes laxo = new IndiceTrigramasClientes(null, 0.2);
+		estricto.indexar(cliente(1, "Ana", "Ruiz"));
+		laxo.indexar(cliente(1, "Ana", "Ruiz"));
+
+		// "ana" aporta 4 de los 14 trigramas de la consulta
+		assertTrue(estricto.buscar(CampoBusquedaClienteEnum.NOMBRE, "ana gutierrez").isEmpty());
+		assertEquals(List.of(1), ids(laxo.buscar(CampoBusquedaClienteEnum.NOMBRE, "ana gutierrez")));
+	}
+
+	@Test
+	void conMuchosCandidatos_seCuentanTodos() {
+		IndiceTrigramasClientes indice = new IndiceTrigramasClientes(null, 0.5);
+		for (int id = 1; id <= 2000; id++) {
+			indice.indexar(cliente(id, id % 2 == 0 ? "Pedro" : "Luis", "Pérez"));
+		}
+
+		List<IndiceTrigramasClientes.Coincidencia> coincidencias = indice.buscar(CampoBusquedaClienteEnum.NOMBRE,
+				"pedro perez");
+
+		// "perez" aporta 6 de los 11 trigramas: los Luis también pasan el umbral, detrás de los Pedro
+		assertEquals(2000, coincidencias.size());
+		assertTrue(coincidencias.subList(0, 1000).stream().allMatch(coincidencia -> coincidencia.idCliente() % 2 == 0));
+	}
+
+	@Test
+	void alReindexarUnCliente_seBuscaPorSuTextoNuevo() {
+		IndiceTrigramasClientes indice = new IndiceTrigramasClientes(null, 0.5);
+		indice.indexar(cliente(1, "José", "Pérez"));
+		indice.indexar(cliente(1, "María", "López"));
+
+		assertTrue(indice.buscar(CampoBusquedaClienteEnum.NOMBRE, "jose perez").isEmpty());
+		assertEquals(List.of(1), ids(indice.buscar(CampoBusquedaClienteEnum.NOMBRE, "maria lopez")));
+	}
+
+	@Test
+	void elRefresco_agregaLosClientesCreadosFueraDelNodo() {
+		List<ClienteProspecto> enBaseDeDatos = new ArrayList<>(List.of(cliente(1, "José", "Pérez")));
+		IndiceTrigramasClientes indice = new IndiceTrigramasClientes(repositorio(enBaseDeDatos), 0.5);
+		indice.reconstruir();
+
+		enBaseDeDatos.add(cliente(2, "María", "López"));
+		assertTrue(indice.buscar(CampoBusquedaClienteEnum.NOMBRE, "maria lopez").isEmpty());
+		indice.refrescar();
+
+		assertEquals(List.of(2), ids(indice.buscar(CampoBusquedaClienteEnum.NOMBRE, "maria lopez")));
+		assertEquals(List.of(1), ids(indice.buscar(CampoBusquedaClienteEnum.NOMBRE, "jose perez")));
+	}
+
+	// Solo responde a las dos consultas por lotes que usa el índice
+	private static ClienteProspectoRepository repositorio(List<ClienteProspecto> clientes) {
+		return (ClienteProspectoRepository) Proxy.newProxyInstance(IndiceTrigramasClientesTests.class.getClassLoader(),
+				new Class<?>[] {ClienteProspectoRepository.class}, (proxy, metodo, argumentos) -> switch (metodo.getName()) {
+					case "findAll" -> new SliceImpl<>(List.copyOf(clientes), (Pageable) argumentos[0], false);
+					case "findByIdGreaterThan" -> new SliceImpl<>(clientes.stream()
+							.filter(cliente -> cliente.getId() > (Integer) argumentos[0])
+							.toList(), (Pageable) argumentos[1], false);
+					default -> throw new UnsupportedOperationException(metodo.getName());
+				});
+	}
+
+	private static ClienteProspecto cliente(int id, String nombre, String apellido) {
+		ClienteProspecto cliente = new ClienteProspecto();
+		cliente.setId(id);
+		cliente.setNombre(nombre);
+		cliente.setApellido(apellido);
+		cliente.setDireccion("Av. Amazonas N34-120, Quito");
+		return cliente;
+	}
+
+	private static List<Integer> ids(List<IndiceTrigramasClientes.Coincidencia> coincidencias) {
+		return coincidencias.stream().map(IndiceTrigramasClientes.Coincidencia::idCliente).toList();
+	}
+}
@@ -0,0 +1,47 @@
+package com.banquito.originacion.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Genera PDF mínimos pero estructuralmente válidos (cabecera, objetos, tabla xref, trailer) con un
+ * flujo de contenido binario del tamaño pedido.
+ */
+final class PdfDePrueba {
+
+	private PdfDePrueba() {
+	}
+
+	static byte[] generar(int tamanioFlujo) {
+		byte[] flujo = new byte[tamanioFlujo];
+		new Random(tamanioFlujo).nextBytes(flujo);
+
+		ByteArrayOutputStream salida = new ByteArrayOutputStream(tamanioFlujo + 1024);
+		long[] desplazamientos = new long[5];
+		escribir(salida, "%PDF-1.7\n%âãÏÓ\n");
+		desplazamientos[1] = salida.size();
+		escribir(salida, "1 0 obj\n<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+		desplazamientos[2] = salida.size();
+		escribir(salida, "2 0 obj\n<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+		desplazamientos[3] = salida.size();
+		escribir(salida, "3 0 obj\n<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] /Contents 4 0 R >>\nendobj\n");
+		desplazamientos[4] = salida.size();
+		escribir(salida, "4 0 obj\n<< /Length " + tamanioFlujo + " >>\nstream\n");
+		salida.writeBytes(flujo);
+		escribir(salida, "\nendstream\nendobj\n");
+
+		long xref = salida.size();
+		StringBuilder tabla = new StringBuilder("xref\n0 5\n0000000000 65535 f \n");
+		for (int i = 1; i < desplazamientos.length; i++) {
+			tabla.append(String.format("%010d 00000 n \n", desplazamientos[i]));
+		}
+		tabla.append("trailer\n<< /Size 5 /Root 1 0 R >>\nstartxref\n").append(xref).append("\n%%EOF\n");
+		escribir(salida, tabla.toString());
+		return salida.toByteArray();
+	}
+
+	private static void escribir(ByteArrayOutputStream salida, String texto) {
+		salida.writeBytes(texto.getBytes(StandardCharsets.ISO_8859_1));
+	}
+}
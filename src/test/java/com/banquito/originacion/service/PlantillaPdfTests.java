@@ -0,0 +1,121 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.model.ClienteProspecto;
+import com.banquito.originacion.model.SolicitudCredito;
+import com.banquito.originacion.model.Vehiculo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlantillaPdfTests {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void elPdfRenderizado_pasaLaValidacionEstructural() throws IOException {
+		PlantillaPdf plantilla = PlantillaPdf.compilar("# Título {{titulo}}\nValor: {{valor}} (fin)\n\nÚltima línea");
+		byte[] pdf = plantilla.renderizar(Map.of("titulo", "de prueba", "valor", "a) b\\c"));
+
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(pdf), "plantilla.pdf",
+				1 << 20);
+
+		assertEquals(pdf.length, guardado.tamanioBytes());
+		String texto = new String(pdf, StandardCharsets.ISO_8859_1);
+		assertTrue(texto.contains("(Valor: a\\) b\\\\c \\(fin\\)) Tj"));
+		assertTrue(texto.contains("(Última línea) Tj"));
+	}
+
+	@Test
+	void unaPlantillaLarga_ocupaVariasPaginas() throws IOException {
+		StringBuilder texto = new StringBuilder();
+		for (int i = 0; i < 120; i++) {
+			texto.append("Línea ").append(i).append(" {{campo}}\n");
+		}
+		PlantillaPdf plantilla = PlantillaPdf.compilar(texto.toString());
+		byte[] pdf = plantilla.renderizar(Map.of("campo", "x"));
+
+		assertEquals(3, plantilla.paginas());
+		assertTrue(new String(pdf, StandardCharsets.ISO_8859_1).contains("/Count 3"));
+		new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString())
+				.guardarPdf(new ByteArrayInputStream(pdf), "larga.pdf", 1 << 20);
+	}
+
+	@Test
+	void unCampoSinValor_oSinCerrar_falla() {
+		PlantillaPdf plantilla = PlantillaPdf.compilar("Hola {{nombre}}");
+
+		assertEquals(List.of("nombre"), List.copyOf(plantilla.campos()));
+		assertThrows(IllegalArgumentException.class, () -> plantilla.renderizar(Map.of()));
+		assertThrows(IllegalArgumentException.class, () -> PlantillaPdf.compilar("Hola {{nombre"));
+	}
+
+	@Test
+	void elContratoYLosPagaresDeSetentaYDosCuotas_seGuardanDistintos() throws Exception {
+		GeneradorDocumentosContrato generador = new GeneradorDocumentosContrato(new DefaultResourceLoader(),
+				"classpath:plantillas/contrato.txt", "classpath:plantillas/pagare.txt", "Contrato", "Pagaré");
+		GeneradorDocumentosContrato.DatosContrato datos = generador.datos(solicitud(72), LocalDate.of(2026, 1, 15));
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+
+		List<Future<AlmacenDocumentos.ArchivoAlmacenado>> pendientes = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			pendientes.add(executor.submit(() -> almacen.guardarPdf(
+					new ByteArrayInputStream(generador.contrato(datos)), "contrato.pdf", 1 << 20)));
+			for (int cuota = 1; cuota <= 72; cuota++) {
+				int numeroCuota = cuota;
+				pendientes.add(executor.submit(() -> almacen.guardarPdf(
+						new ByteArrayInputStream(generador.pagare(datos, numeroCuota)), "pagare-" + numeroCuota + ".pdf",
+						1 << 20)));
+			}
+		}
+
+		assertEquals(73, pendientes.stream().map(Future::resultNow).map(AlmacenDocumentos.ArchivoAlmacenado::hashSha256)
+				.distinct().count());
+		String pagare = new String(generador.pagare(datos, 72), StandardCharsets.ISO_8859_1);
+		assertTrue(pagare.contains("72 DE 72"));
+		assertTrue(pagare.contains("15/01/2032"));
+	}
+
+	private static SolicitudCredito solicitud(int plazoMeses) {
+		ClienteProspecto cliente = new ClienteProspecto();
+		cliente.setNombre("María");
+		cliente.setApellido("Pérez");
+		cliente.setCedula("1712345678");
+		cliente.setDireccion("Av. Amazonas N34-120, Quito");
+		Vehiculo vehiculo = new Vehiculo();
+		vehiculo.setMarca("Chevrolet");
+		vehiculo.setModelo("Onix");
+		vehiculo.setAnio(2026);
+		vehiculo.setColor("Gris");
+		vehiculo.setValor(new BigDecimal("21990.00"));
+		SolicitudCredito solicitud = new SolicitudCredito();
+		solicitud.setNumeroSolicitud("SOL-2026-000123");
+		solicitud.setPlazoMeses(plazoMeses);
+		solicitud.setMontoSolicitado(new BigDecimal("17990.00"));
+		solicitud.setEntrada(new BigDecimal("4000.00"));
+		solicitud.setTasaAnual(new BigDecimal("15.6"));
+		solicitud.setCuotaMensual(new BigDecimal("390.12"));
+		solicitud.setTotalPagar(new BigDecimal("28088.64"));
+		solicitud.setClienteProspecto(cliente);
+		solicitud.setVehiculo(vehiculo);
+		return solicitud;
+	}
+}
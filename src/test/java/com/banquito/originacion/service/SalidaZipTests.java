@@ -0,0 +1,72 @@
+package com.banquito.originacion.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SalidaZipTests {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void lasEntradasSeLeenConZipFileSinComprimirYConSuCrc() throws IOException {
+		Map<String, byte[]> documentos = new LinkedHashMap<>();
+		documentos.put("Cédula-1.pdf", PdfDePrueba.generar(200_000));
+		documentos.put("Contrato-2.pdf", PdfDePrueba.generar(1000));
+		documentos.put("vacío.pdf", new byte[0]);
+		Path archivo = directorio.resolve("expediente.zip");
+
+		long esperado = SalidaZip.TAMANIO_FIN;
+		try (OutputStream salida = Files.newOutputStream(archivo)) {
+			SalidaZip zip = new SalidaZip(salida);
+			for (Map.Entry<String, byte[]> documento : documentos.entrySet()) {
+				zip.abrirEntrada(documento.getKey(), documento.getValue().length, LocalDateTime.of(2026, 3, 14, 9, 26, 53));
+				zip.write(documento.getValue(), 0, documento.getValue().length);
+				zip.cerrarEntrada();
+				esperado += SalidaZip.tamanioEntrada(documento.getKey(), documento.getValue().length);
+			}
+			zip.terminar();
+		}
+
+		assertEquals(esperado, Files.size(archivo));
+		try (ZipFile zip = new ZipFile(archivo.toFile())) {
+			assertEquals(documentos.size(), zip.size());
+			for (Map.Entry<String, byte[]> documento : documentos.entrySet()) {
+				ZipEntry entrada = zip.getEntry(documento.getKey());
+				assertEquals(ZipEntry.STORED, entrada.getMethod());
+				CRC32 crc = new CRC32();
+				crc.update(documento.getValue());
+				assertEquals(crc.getValue(), entrada.getCrc());
+				assertEquals(LocalDateTime.of(2026, 3, 14, 9, 26, 52), entrada.getTimeLocal());
+				try (InputStream contenido = zip.getInputStream(entrada)) {
+					assertArrayEquals(documento.getValue(), contenido.readAllBytes());
+				}
+			}
+		}
+	}
+
+	@Test
+	void unaEntradaDeOtroTamanio_falla() throws IOException {
+		SalidaZip zip = new SalidaZip(OutputStream.nullOutputStream());
+		zip.abrirEntrada("corto.pdf", 10, LocalDateTime.now());
+		zip.write(new byte[5], 0, 5);
+
+		assertThrows(IOException.class, zip::cerrarEntrada);
+	}
+}
@@ -0,0 +1,151 @@
+package com.banquito.originacion.service;
+
+import com.banquito.originacion.exception.ContenidoInvalidoException;
+import com.banquito.originacion.exception.CreateEntityException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Corpus en src/test/resources/pdf: archivos válidos (xref clásica, flujo xref, actualización
+ * incremental), truncados y suplantados (otro formato con extensión o Content-Type de PDF).
+ */
+class ValidadorPdfTests {
+
+	private static final List<String> VALIDOS = List.of(
+			"valido.pdf",
+			"valido-flujo-xref.pdf",
+			"valido-actualizacion-incremental.pdf");
+
+	private static final List<String> INVALIDOS = List.of(
+			"truncado.pdf",
+			"sin-eof.pdf",
+			"startxref-erroneo.pdf",
+			"startxref-fuera-de-rango.pdf",
+			"html-como-pdf.pdf",
+			"png-como-pdf.pdf",
+			"cabecera-pdf-sin-xref.pdf");
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void losPdfValidos_seGuardan() throws IOException {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		for (String nombre : VALIDOS) {
+			byte[] contenido = corpus(nombre);
+			AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(contenido),
+					nombre, 1 << 20);
+			assertEquals(contenido.length, guardado.tamanioBytes());
+		}
+	}
+
+	@Test
+	void losArchivosTruncadosOSuplantados_seRechazanSinDejarArchivos() throws IOException {
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+		for (String nombre : INVALIDOS) {
+			byte[] contenido = corpus(nombre);
+			assertThrows(ContenidoInvalidoException.class,
+					() -> almacen.guardarPdf(new ByteArrayInputStream(contenido), nombre, 1 << 20), nombre);
+		}
+		try (Stream<Path> archivos = Files.walk(directorio)) {
+			assertEquals(0, archivos.filter(Files::isRegularFile).count());
+		}
+	}
+
+	@Test
+	void elResultadoNoDependeDelTamanioDeLosBloques() throws IOException {
+		for (int bloque : new int[] {1, 7, 1000, ValidadorPdf.TAMANIO_COLA, ValidadorPdf.TAMANIO_COLA + 1}) {
+			for (String nombre : VALIDOS) {
+				verificar(corpus(nombre), bloque);
+			}
+			for (String nombre : INVALIDOS) {
+				byte[] contenido = corpus(nombre);
+				int tamanioBloque = bloque;
+				assertThrows(CreateEntityException.class, () -> verificar(contenido, tamanioBloque), nombre);
+			}
+		}
+	}
+
+	@Test
+	void conLosDestinosAnotados_elResultadoEsElMismoSinLeerElArchivo() throws IOException {
+		for (int bloque : new int[] {1, 7, 1000, ValidadorPdf.TAMANIO_COLA, ValidadorPdf.TAMANIO_COLA + 1}) {
+			for (String nombre : VALIDOS) {
+				verificarAnotando(conRelleno(corpus(nombre)), bloque);
+			}
+			for (String nombre : INVALIDOS) {
+				byte[] contenido = corpus(nombre);
+				int tamanioBloque = bloque;
+				assertThrows(CreateEntityException.class, () -> verificarAnotando(contenido, tamanioBloque), nombre);
+			}
+			byte[] erroneo = conRelleno(corpus("startxref-erroneo.pdf"));
+			int tamanioBloque = bloque;
+			assertThrows(CreateEntityException.class, () -> verificarAnotando(erroneo, tamanioBloque));
+		}
+	}
+
+	@Test
+	void unPdfGrande_seValidaConLaColaRetenida() throws IOException {
+		byte[] contenido = PdfDePrueba.generar(3 * 1024 * 1024);
+		AlmacenDocumentos almacen = new AlmacenDocumentos(new AlmacenamientoSistemaArchivos(), directorio.toString());
+
+		AlmacenDocumentos.ArchivoAlmacenado guardado = almacen.guardarPdf(new ByteArrayInputStream(contenido),
+				"grande.pdf", contenido.length);
+
+		assertEquals(contenido.length, guardado.tamanioBytes());
+		assertTrue(Files.exists(Path.of(guardado.ruta())));
+	}
+
+	private static void verificar(byte[] contenido, int bloque) throws IOException {
+		ValidadorPdf validador = new ValidadorPdf();
+		for (int desde = 0; desde < contenido.length; desde += bloque) {
+			validador.actualizar(contenido, desde, Math.min(bloque, contenido.length - desde));
+		}
+		validador.verificar((posicion, destino) -> {
+			int leidos = (int) Math.min(destino.length, contenido.length - posicion);
+			System.arraycopy(contenido, (int) posicion, destino, 0, leidos);
+			return leidos;
+		});
+	}
+
+	private static void verificarAnotando(byte[] contenido, int bloque) {
+		ValidadorPdf validador = new ValidadorPdf(true);
+		for (int desde = 0; desde < contenido.length; desde += bloque) {
+			validador.actualizar(contenido, desde, Math.min(bloque, contenido.length - desde));
+		}
+		validador.verificar();
+	}
+
+	/**
+	 * Añade tras el PDF un comentario más largo que la cola retenida y un trailer que apunta al
+	 * mismo destino, para que startxref quede fuera de la cola.
+	 */
+	static byte[] conRelleno(byte[] pdf) {
+		String texto = new String(pdf, StandardCharsets.ISO_8859_1);
+		int inicio = texto.lastIndexOf("startxref") + "startxref".length();
+		String desplazamiento = texto.substring(inicio, texto.lastIndexOf("%%EOF")).trim();
+		return (texto + "%" + "relleno ".repeat(ValidadorPdf.TAMANIO_COLA / 4) + "\ntrailer\n<< >>\nstartxref\n"
+				+ desplazamiento + "\n%%EOF\n").getBytes(StandardCharsets.ISO_8859_1);
+	}
+
+	private static byte[] corpus(String nombre) throws IOException {
+		try (InputStream entrada = ValidadorPdfTests.class.getResourceAsStream("/pdf/" + nombre)) {
+			if (entrada == null) {
+				throw new IOException("No existe el archivo del corpus " + nombre);
+			}
+			return entrada.readAllBytes();
+		}
+	}
+}